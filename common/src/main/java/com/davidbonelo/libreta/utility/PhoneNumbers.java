@@ -0,0 +1,61 @@
+package com.davidbonelo.libreta.utility;
+
+/**
+ * Normalización de números de teléfono a una forma canónica estilo E.164 ({@code +} seguido solo de dígitos), para
+ * que "+57 300 123 4567", "(300) 123-4567" y "0057 3001234567" se reconozcan como el mismo número. La usan el API
+ * principal y el módulo reactivo, así ambos escriben la columna tel_telefono_normalizado con la misma regla.
+ */
+public final class PhoneNumbers {
+    /**
+     * Indicativo que se asume para los números escritos sin indicativo internacional
+     */
+    public static final String DEFAULT_COUNTRY_CODE = "57";
+
+    /**
+     * Cantidad de dígitos de un número nacional del indicativo por defecto (móviles y fijos de 10 dígitos en Colombia)
+     */
+    public static final int NATIONAL_LENGTH = 10;
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Lleva un número escrito de forma libre a su forma canónica. Se descartan los espacios, guiones, paréntesis y
+     * demás separadores; el prefijo internacional 00 equivale a +, un número que empieza por el indicativo por
+     * defecto y es más largo que un número nacional ya lo trae (así envían E.164 sin + muchos identificadores de
+     * llamadas), y a los demás se les quita el prefijo troncal 0 y se les agrega el indicativo por defecto.
+     *
+     * @param raw Número tal como lo escribió el usuario
+     * @return Número canónico o null si no tiene dígitos
+     */
+    public static String normalize(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        var trimmed = raw.strip();
+        var digits = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            var c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.isEmpty()) {
+            return null;
+        }
+        if (trimmed.startsWith("+")) {
+            return "+" + digits;
+        }
+        if (digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0') {
+            return "+" + digits.substring(2);
+        }
+        if (digits.length() > NATIONAL_LENGTH && digits.indexOf(DEFAULT_COUNTRY_CODE) == 0) {
+            return "+" + digits;
+        }
+        var national = 0;
+        while (national < digits.length() - 1 && digits.charAt(national) == '0') {
+            national++;
+        }
+        return "+" + DEFAULT_COUNTRY_CODE + digits.substring(national);
+    }
+}
@@ -0,0 +1,59 @@
+package com.davidbonelo.libreta.utility;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Clase para el manejo de las respuestas de las API. Cada petición construye su propia instancia. Se serializa en
+ * JSON, CBOR o Smile según el encabezado Accept, siempre con los campos en el mismo orden.
+ */
+@JsonPropertyOrder({"error", "message", "data"})
+public class Response {
+
+    /**
+     * Indica de si existe un error o no en la respuesta del API
+     */
+    public Boolean error;
+
+    /**
+     * Mensaje del API cuando es utilizada
+     */
+    public String message;
+
+    /**
+     * Información del API cuando es necesario
+     */
+    public Object data;
+
+    /**
+     * Constructor de la clase
+     */
+    public Response() {
+        error = false;
+        message = "";
+        data = null;
+    }
+
+    /**
+     * Construye una respuesta exitosa con la información indicada
+     *
+     * @param data Información del API
+     */
+    public Response(Object data) {
+        this();
+        this.data = data;
+    }
+
+    /**
+     * Construye una respuesta de error
+     *
+     * @param message Mensaje de error
+     * @param data    Información adicional del error
+     * @return Objeto Response con el error
+     */
+    public static Response error(String message, Object data) {
+        var response = new Response(data);
+        response.error = true;
+        response.message = message;
+        return response;
+    }
+}
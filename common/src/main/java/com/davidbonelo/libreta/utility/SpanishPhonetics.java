@@ -0,0 +1,236 @@
+package com.davidbonelo.libreta.utility;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Plegado de acentos, llaves fonéticas y distancia de edición para nombres en español, para que "Gonsalez",
+ * "Gonzales" y "González" se reconozcan como el mismo apellido.
+ * <p>
+ * La llave fonética reduce cada palabra a cómo suena en el español de América: la h es muda, b y v suenan igual, c
+ * ante e/i y z suenan como s, g ante e/i suena como j, ll y la y ante vocal suenan igual, qu y c ante a/o/u suenan
+ * como k, y las letras dobles se leen una sola vez. Las vocales se conservan porque en los nombres distinguen más
+ * que las consonantes.
+ */
+public final class SpanishPhonetics {
+    private SpanishPhonetics() {
+    }
+
+    /**
+     * Lleva un texto a minúsculas sin acentos ni diéresis (la ñ queda como n) y con las palabras separadas por un
+     * solo espacio; los signos de puntuación y guiones separan palabras
+     *
+     * @param value Texto tal como lo escribió el usuario
+     * @return Texto plegado, vacío si el valor es nulo o no tiene letras ni dígitos
+     */
+    public static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        var decomposed = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        var folded = new StringBuilder(decomposed.length());
+        var space = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            var c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !folded.isEmpty()) {
+                    folded.append(' ');
+                }
+                folded.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Parte un texto plegado en sus palabras
+     *
+     * @param value Texto tal como lo escribió el usuario
+     * @return Palabras plegadas, en el orden del texto
+     */
+    public static List<String> words(String value) {
+        var folded = fold(value);
+        return folded.isEmpty() ? List.of() : List.of(folded.split(" "));
+    }
+
+    /**
+     * Llave fonética de un texto: la llave de cada palabra separada por un espacio
+     *
+     * @param value Texto tal como lo escribió el usuario
+     * @return Llave fonética o null si el texto no tiene palabras
+     */
+    public static String key(String value) {
+        var keys = new ArrayList<String>();
+        for (var word : words(value)) {
+            var key = encode(word);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return keys.isEmpty() ? null : String.join(" ", keys);
+    }
+
+    /**
+     * Llaves de palabra de una o varias llaves fonéticas, las que se guardan en contacto_fonetico
+     *
+     * @param keys Llaves fonéticas (resultado de {@link #key(String)}), pueden ser null
+     * @return Llaves de cada palabra, sin repetir
+     */
+    public static Set<String> wordKeys(String... keys) {
+        var words = new HashSet<String>();
+        for (var key : keys) {
+            if (key != null) {
+                words.addAll(List.of(key.split(" ")));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Llave fonética de una palabra ya plegada
+     *
+     * @param word Palabra en minúsculas sin acentos
+     * @return Llave en mayúsculas, vacía si la palabra solo tiene letras mudas
+     */
+    public static String encode(String word) {
+        var key = new StringBuilder(word.length() + 2);
+        var length = word.length();
+        for (int i = 0; i < length; i++) {
+            var c = word.charAt(i);
+            var next = i + 1 < length ? word.charAt(i + 1) : '\0';
+            var afterNext = i + 2 < length ? word.charAt(i + 2) : '\0';
+            switch (c) {
+                case 'a', 'e', 'i', 'o' -> append(key, Character.toUpperCase(c));
+                case 'u' -> append(key, 'U');
+                case 'y' -> append(key, isVowel(next) ? 'Y' : 'I');
+                case 'b', 'v', 'w' -> append(key, 'B');
+                case 'c' -> {
+                    if (next == 'h') {
+                        append(key, 'X');
+                        i++;
+                    } else if (next == 'e' || next == 'i') {
+                        append(key, 'S');
+                    } else {
+                        append(key, 'K');
+                    }
+                }
+                case 'q' -> {
+                    append(key, 'K');
+                    if (next == 'u') {
+                        i++;
+                    }
+                }
+                case 'g' -> {
+                    if (next == 'e' || next == 'i') {
+                        append(key, 'J');
+                    } else {
+                        append(key, 'G');
+                        if (next == 'u' && (afterNext == 'e' || afterNext == 'i')) {
+                            i++;
+                        }
+                    }
+                }
+                case 'l' -> {
+                    if (next == 'l') {
+                        append(key, 'Y');
+                        i++;
+                    } else {
+                        append(key, 'L');
+                    }
+                }
+                case 'n' -> append(key, next == 'b' || next == 'v' || next == 'p' ? 'M' : 'N');
+                case 'p' -> {
+                    if (i == 0 && next == 's') {
+                        continue;
+                    }
+                    append(key, 'P');
+                }
+                case 's', 'z' -> append(key, 'S');
+                case 'x' -> {
+                    append(key, 'K');
+                    append(key, 'S');
+                }
+                case 'h' -> {
+                }
+                default -> append(key, Character.toUpperCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Distancia de edición entre dos textos (inserción, borrado, sustitución y transposición de letras vecinas),
+     * acotada: deja de calcular en cuanto la distancia supera el máximo
+     *
+     * @param a   Primer texto
+     * @param b   Segundo texto
+     * @param max Distancia máxima que interesa
+     * @return Distancia entre los textos, o max + 1 si es mayor que max
+     */
+    public static int distance(CharSequence a, CharSequence b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        var previous = new int[b.length() + 1];
+        var current = new int[b.length() + 1];
+        var beforePrevious = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            var rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                var cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                var value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            var recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * Errores de escritura que se toleran en una palabra según su largo: ninguno en las de menos de 4 letras, uno
+     * hasta 6 letras y dos en las más largas
+     *
+     * @param length Largo de la palabra buscada
+     * @return Distancia de edición máxima
+     */
+    public static int maxDistance(int length) {
+        return length < 4 ? 0 : length <= 6 ? 1 : 2;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+
+    /**
+     * Agrega un sonido a la llave, salvo que repita el anterior (rr, ss, cc que suena igual)
+     */
+    private static void append(StringBuilder key, char sound) {
+        if (key.isEmpty() || key.charAt(key.length() - 1) != sound) {
+            key.append(sound);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.davidbonelo.libreta.utility;
+
+import org.springframework.dao.DataAccessException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Traducción de los errores de MariaDB causados por datos del cliente a mensajes para el API
+ */
+public final class SqlErrors {
+    private SqlErrors() {
+    }
+
+    /**
+     * Devuelve el mensaje para el cliente cuando el error fue causado por los datos enviados (dato duplicado o llave
+     * foránea inexistente)
+     *
+     * @param exception Objeto DataAccessException
+     * @return Mensaje para el cliente, vacío si el error no es de los datos enviados
+     */
+    public static Optional<String> clientMessage(DataAccessException exception) {
+        if (exception.getRootCause() instanceof SQLException sqlEx) {
+            return clientMessage(sqlEx.getErrorCode());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Devuelve el mensaje para el cliente según el código de error de MariaDB, lo usan tanto JDBC como R2DBC
+     *
+     * @param errorCode Código de error del servidor
+     * @return Mensaje para el cliente, vacío si el error no es de los datos enviados
+     */
+    public static Optional<String> clientMessage(int errorCode) {
+        return switch (errorCode) {
+            case 1062 -> Optional.of("El dato ya está registrado");
+            case 1452 -> Optional.of("El usuario indicado no existe");
+            default -> Optional.empty();
+        };
+    }
+}
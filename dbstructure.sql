@@ -1,3 +1,8 @@
+/******************** Add Sequences ************************/
+/* Los identificadores se reservan en bloques de 50 (allocationSize en las entidades) para poder agrupar los INSERT */
+/* En una base con datos existentes, START WITH debe ser mayor que el MAX(cnt_id) / MAX(tel_id) actual */
+CREATE SEQUENCE contacto_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE telefono_seq START WITH 1 INCREMENT BY 50;
 /******************** Add Table: contacto ************************/
 /* Build Table Structure */
 CREATE TABLE contacto
@@ -5,15 +10,36 @@ CREATE TABLE contacto
 cnt_id INTEGER UNSIGNED AUTO_INCREMENT PRIMARY KEY NOT NULL,
 cnt_nombre VARCHAR(100) NOT NULL,
 cnt_apellido VARCHAR(100) NOT NULL,
+cnt_nombre_fonetico VARCHAR(200) NULL,
+cnt_apellido_fonetico VARCHAR(200) NULL,
 cnt_created_at DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL,
 cnt_updated_at DATETIME NULL,
 cnt_fecha_nacimiento DATETIME,
+cnt_cumpleanos SMALLINT AS (MONTH(cnt_fecha_nacimiento) * 100 + DAYOFMONTH(cnt_fecha_nacimiento)) PERSISTENT,
 cnt_email VARCHAR(100),
 cnt_deleted BOOLEAN
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_general_ci;
 /* Add Indexes */
-CREATE INDEX contacto_cnt_apellido_Idx ON contacto (cnt_apellido) USING BTREE;
-CREATE INDEX contacto_cnt_nombre_Idx ON contacto (cnt_nombre) USING BTREE;
+CREATE INDEX contacto_cnt_apellido_cnt_id_Idx ON contacto (cnt_apellido, cnt_id) USING BTREE;
+CREATE INDEX contacto_cnt_nombre_cnt_id_Idx ON contacto (cnt_nombre, cnt_id) USING BTREE;
+/* Las llaves fonéticas de la búsqueda aproximada las llena la aplicación; las tuplas que no las tienen las */
+/* completa la aplicación al arrancar, por bloques y sin cambiar cnt_updated_at */
+/* cnt_cumpleanos es el mes y día de nacimiento como MMDD, la consulta de cumpleaños es un rango sobre este índice */
+CREATE INDEX contacto_cnt_cumpleanos_cnt_id_Idx ON contacto (cnt_cumpleanos, cnt_id) USING BTREE;
+/* La sincronización por cambios lee por cnt_updated_at; en una base con datos existentes primero: */
+/* UPDATE contacto SET cnt_updated_at = cnt_created_at WHERE cnt_updated_at IS NULL */
+CREATE INDEX contacto_cnt_updated_at_cnt_id_Idx ON contacto (cnt_updated_at, cnt_id) USING BTREE;
+/******************** Add Table: contacto_fonetico ************************/
+/* Llave fonética de cada palabra del nombre y los apellidos, la búsqueda aproximada en la base de datos consulta */
+/* cualquier palabra con un rango sobre la llave primaria */
+CREATE TABLE contacto_fonetico
+(
+cnf_llave VARCHAR(100) NOT NULL,
+cnf_contacto_id INTEGER UNSIGNED NOT NULL,
+PRIMARY KEY (cnf_llave, cnf_contacto_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_general_ci;
+/* Add Indexes */
+CREATE INDEX contacto_fonetico_cnf_contacto_id_Idx ON contacto_fonetico (cnf_contacto_id) USING BTREE;
 /******************** Add Table: telefono ************************/
 /* Build Table Structure */
 CREATE TABLE telefono
@@ -21,15 +47,38 @@ CREATE TABLE telefono
 tel_id INTEGER UNSIGNED AUTO_INCREMENT PRIMARY KEY NOT NULL,
 tel_contacto_id INTEGER UNSIGNED NOT NULL,
 tel_telefono VARCHAR(30) NOT NULL,
+tel_telefono_normalizado VARCHAR(40) NULL,
 tel_created_at DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL,
 tel_updated_at DATETIME NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_general_ci;
 /* Add Indexes */
 CREATE UNIQUE INDEX telefono_tel_contacto_id_tel_telefono_Idx ON telefono (tel_contacto_id, tel_telefono) USING BTREE;
 CREATE INDEX telefono_tel_telefono_Idx ON telefono (tel_telefono) USING BTREE;
+/* tel_telefono_normalizado lo llena la aplicación; las tuplas existentes se normalizan en memoria al construir el índice */
+CREATE INDEX telefono_tel_telefono_normalizado_Idx ON telefono (tel_telefono_normalizado) USING BTREE;
+/* Los números escritos como 57XXXXXXXXXX sin + quedaban con el indicativo doble, en una base existente: */
+/* UPDATE telefono SET tel_telefono_normalizado = CONCAT('+', SUBSTRING(tel_telefono_normalizado, 4)) */
+/* WHERE tel_telefono_normalizado LIKE '+5757%' AND CHAR_LENGTH(tel_telefono_normalizado) > 13 */
 CREATE INDEX telefono_tel_usuario_id_Idx ON telefono (tel_contacto_id) USING BTREE;
+/* En una base con datos existentes primero: UPDATE telefono SET tel_updated_at = tel_created_at WHERE tel_updated_at IS NULL */
+CREATE INDEX telefono_tel_updated_at_tel_id_Idx ON telefono (tel_updated_at, tel_id) USING BTREE;
+/******************** Add Table: telefono_borrado ************************/
+/* Marcas de borrado de los teléfonos para la sincronización por cambios */
+/* Se pueden purgar las anteriores a la marca de agua más vieja de los clientes */
+CREATE TABLE telefono_borrado
+(
+tlb_tel_id INTEGER UNSIGNED PRIMARY KEY NOT NULL,
+tlb_contacto_id INTEGER UNSIGNED NOT NULL,
+tlb_deleted_at DATETIME NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_general_ci;
+/* Add Indexes */
+CREATE INDEX telefono_borrado_tlb_deleted_at_tlb_tel_id_Idx ON telefono_borrado (tlb_deleted_at, tlb_tel_id) USING BTREE;
 /************ Add Foreign Keys ***************/
 /* Add Foreign Key: fk_telefono_contacto */
 ALTER TABLE telefono ADD CONSTRAINT fk_telefono_contacto
 FOREIGN KEY (tel_contacto_id) REFERENCES contacto (cnt_id)
 ON UPDATE CASCADE ON DELETE RESTRICT;
+/* Add Foreign Key: fk_contacto_fonetico_contacto */
+ALTER TABLE contacto_fonetico ADD CONSTRAINT fk_contacto_fonetico_contacto
+FOREIGN KEY (cnf_contacto_id) REFERENCES contacto (cnt_id)
+ON UPDATE CASCADE ON DELETE CASCADE;
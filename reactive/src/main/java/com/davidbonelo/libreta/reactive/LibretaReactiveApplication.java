@@ -0,0 +1,13 @@
+package com.davidbonelo.libreta.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class LibretaReactiveApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(LibretaReactiveApplication.class, args);
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.davidbonelo.libreta.reactive.configuration;
+
+import com.davidbonelo.libreta.reactive.utility.DatabaseTime;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * El driver R2DBC de MariaDB no tiene códec para Instant; las fechas de las entidades se guardan como LocalDateTime
+ * en la zona horaria de la JVM (ver {@link DatabaseTime})
+ */
+@Configuration
+public class R2dbcConfiguration {
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+                List.of(InstantWritingConverter.INSTANCE, InstantReadingConverter.INSTANCE));
+    }
+
+    @WritingConverter
+    enum InstantWritingConverter implements Converter<Instant, LocalDateTime> {
+        INSTANCE;
+
+        @Override
+        public LocalDateTime convert(Instant source) {
+            return DatabaseTime.toLocal(source);
+        }
+    }
+
+    @ReadingConverter
+    enum InstantReadingConverter implements Converter<LocalDateTime, Instant> {
+        INSTANCE;
+
+        @Override
+        public Instant convert(LocalDateTime source) {
+            return DatabaseTime.toInstant(source);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.davidbonelo.libreta.reactive.controller;
+
+import com.davidbonelo.libreta.utility.Response;
+import com.davidbonelo.libreta.utility.SqlErrors;
+import io.r2dbc.spi.R2dbcException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Optional;
+
+/**
+ * Traduce las excepciones que salen de los controladores a un objeto Response con el código HTTP adecuado
+ */
+@Slf4j
+@RestControllerAdvice
+public class LibretaExceptionHandler {
+
+    /**
+     * Administrador para los errores causados por datos inválidos en la petición
+     *
+     * @param exception Objeto IllegalArgumentException
+     * @return Objeto Response en formato JSON
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Response> handleBadRequest(IllegalArgumentException exception) {
+        return new ResponseEntity<>(Response.error(exception.getMessage(), null), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Administrador para los errores de la base de datos, los datos duplicados y las llaves foráneas inexistentes son
+     * errores del cliente
+     *
+     * @param exception Objeto DataAccessException
+     * @return Objeto Response en formato JSON
+     */
+    @ExceptionHandler(DataAccessException.class)
+    public ResponseEntity<Response> handleDataAccess(DataAccessException exception) {
+        var clientMessage = exception.getRootCause() instanceof R2dbcException r2dbcEx
+                ? SqlErrors.clientMessage(r2dbcEx.getErrorCode()) : Optional.<String>empty();
+        if (clientMessage.isPresent()) {
+            return new ResponseEntity<>(Response.error(clientMessage.get(), null), HttpStatus.BAD_REQUEST);
+        }
+        if (exception instanceof DataIntegrityViolationException) {
+            return new ResponseEntity<>(Response.error(exception.getMostSpecificCause().getMessage(), null),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return handleInternal(exception);
+    }
+
+    /**
+     * Administrador para las excepciones del sistema. Las excepciones propias de Spring WebFlux (ruta inexistente,
+     * parámetro inválido, tupla no encontrada, etc.) conservan su código HTTP.
+     *
+     * @param exception Objeto Exception
+     * @return Objeto Response en formato JSON
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Response> handleInternal(Exception exception) {
+        if (exception instanceof ErrorResponse errorResponse) {
+            var message = errorResponse.getBody().getDetail();
+            return new ResponseEntity<>(Response.error(message == null ? exception.getMessage() : message, null),
+                    errorResponse.getStatusCode());
+        }
+        log.error("Error procesando la petición", exception);
+        return new ResponseEntity<>(Response.error(exception.getMessage(), null), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
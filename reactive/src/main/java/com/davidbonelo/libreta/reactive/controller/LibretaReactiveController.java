@@ -0,0 +1,253 @@
+package com.davidbonelo.libreta.reactive.controller;
+
+import com.davidbonelo.libreta.reactive.domain.Contacto;
+import com.davidbonelo.libreta.reactive.domain.Telefono;
+import com.davidbonelo.libreta.reactive.service.LibretaReactiveService;
+import com.davidbonelo.libreta.utility.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Rutas del API principal sobre el servicio no bloqueante. Los listados y las búsquedas responden un flujo de
+ * contactos sin el envoltorio Response: como arreglo JSON o, con Accept: application/x-ndjson, un contacto por línea
+ * con contrapresión hasta la base de datos.
+ */
+@Slf4j
+@CrossOrigin
+@RestController
+public class LibretaReactiveController {
+    private static final String CONTACTO_NO_EXISTE = "El contacto indicado no existe";
+    private static final String TELEFONO_NO_EXISTE = "El teléfono indicado no existe";
+
+    @Autowired
+    private LibretaReactiveService libretaService;
+
+    @GetMapping(path = "/")
+    public ResponseEntity<Response> homeIndex1() {
+        return getResponseHome();
+    }
+
+    @GetMapping(path = "api")
+    public ResponseEntity<Response> homeIndex2() {
+        return getResponseHome();
+    }
+
+    @GetMapping(path = "api/v1")
+    public ResponseEntity<Response> homeIndex3() {
+        return getResponseHome();
+    }
+
+    /**
+     * Index del sistema, responde en flujo el listado de contactos y sus teléfonos
+     *
+     * @return Flujo de contactos
+     */
+    @GetMapping(path = "api/v1/index", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Contacto> index() {
+        return libretaService.getList();
+    }
+
+    /**
+     * Responde en flujo el listado de contactos ordenado por el campo indicado (id, nombre o apellido)
+     *
+     * @param orderBy Campo por el cual ordenar
+     * @param order   Dirección del ordenamiento
+     * @return Flujo de contactos
+     */
+    @GetMapping(path = "api/v1/index/orderby/{orderBy}/{order}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Contacto> indexOrderBy(@PathVariable(value = "orderBy") String orderBy,
+                                       @PathVariable(value = "order") Sort.Direction order) {
+        return libretaService.getList(orderBy, order);
+    }
+
+    /**
+     * Devuelve en flujo los contactos y sus teléfonos basados en un dato a buscar por nombre y/o apellidos
+     *
+     * @param dataToSearch Información a buscar
+     * @return Flujo de contactos
+     */
+    @GetMapping(path = "api/v1/search/contact/{dataToSearch}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Contacto> searchContactByNombreOrApellido(
+            @PathVariable(value = "dataToSearch") String dataToSearch) {
+        return libretaService.searchContacto(dataToSearch);
+    }
+
+    /**
+     * Búsqueda inversa: devuelve en flujo los contactos dueños de un número de teléfono, escrito en cualquier formato
+     *
+     * @param numero Número de teléfono a buscar
+     * @return Flujo de contactos
+     */
+    @GetMapping(path = "api/v1/search/phone/{numero}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Contacto> searchContactByTelefono(@PathVariable(value = "numero") String numero) {
+        return libretaService.searchTelefono(numero);
+    }
+
+    /**
+     * Devuelve un contacto y sus teléfonos basado en su identificador
+     *
+     * @param id Identificador del contacto
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/contact/{id}")
+    public Mono<ResponseEntity<Response>> getContacto(@PathVariable(value = "id") Integer id) {
+        return ok(libretaService.getContacto(id), CONTACTO_NO_EXISTE);
+    }
+
+    /**
+     * Devuelve un número de teléfono basado en su identificador
+     *
+     * @param id Identificador del teléfono
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/phone/{id}")
+    public Mono<ResponseEntity<Response>> getTelefono(@PathVariable(value = "id") Integer id) {
+        return ok(libretaService.getTelefono(id), TELEFONO_NO_EXISTE);
+    }
+
+    /**
+     * Crea un nuevo contacto en el sistema
+     *
+     * @param contacto Objeto Contacto a crear
+     * @return Objeto Response en formato JSON
+     */
+    @PostMapping(path = "api/v1/contact")
+    public Mono<ResponseEntity<Response>> createContacto(@RequestBody Contacto contacto) {
+        return libretaService.createContacto(contacto)
+                .map(created -> new ResponseEntity<>(new Response(created), HttpStatus.CREATED));
+    }
+
+    /**
+     * Crea un nuevo número de teléfono en el sistema
+     *
+     * @param telefono Objeto Telefono a crear
+     * @return Objeto Response en formato JSON
+     */
+    @PostMapping(path = "api/v1/phone")
+    public Mono<ResponseEntity<Response>> createTelefono(@RequestBody Telefono telefono) {
+        return libretaService.createTelefono(telefono)
+                .map(created -> new ResponseEntity<>(new Response(created), HttpStatus.CREATED));
+    }
+
+    /**
+     * Actualiza todos los campos de un contacto
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto contacto a actualizar
+     * @return Objeto Response en formato JSON
+     */
+    @PutMapping(path = "api/v1/contact/{id}")
+    public Mono<ResponseEntity<Response>> updateContacto(@PathVariable(value = "id") Integer id,
+                                                         @RequestBody Contacto contacto) {
+        return ok(libretaService.updateContacto(id, contacto), CONTACTO_NO_EXISTE);
+    }
+
+    /**
+     * Actualiza todos los campos de un número de teléfono
+     *
+     * @param id       Identificador del número de teléfono a actualizar
+     * @param telefono Objeto telefono a actualizar
+     * @return Objeto Response en formato JSON
+     */
+    @PutMapping(path = "api/v1/phone/{id}")
+    public Mono<ResponseEntity<Response>> updateTelefono(@PathVariable(value = "id") Integer id,
+                                                         @RequestBody Telefono telefono) {
+        return ok(libretaService.updateTelefono(id, telefono), TELEFONO_NO_EXISTE);
+    }
+
+    /**
+     * Actualiza el nombre de un contacto basado en su identificador
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto Contacto
+     * @return Objeto Response en formato JSON
+     */
+    @PatchMapping(path = "api/v1/contact/{id}/name")
+    public Mono<ResponseEntity<Response>> updateNombreFromContacto(@PathVariable(value = "id") Integer id,
+                                                                   @RequestBody Contacto contacto) {
+        return ok(libretaService.updateNombre(id, contacto), CONTACTO_NO_EXISTE);
+    }
+
+    /**
+     * Actualiza el apellido de un contacto basado en su identificador
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto Contacto
+     * @return Objeto Response en formato JSON
+     */
+    @PatchMapping(path = "api/v1/contact/{id}/lastname")
+    public Mono<ResponseEntity<Response>> updateApellidoFromContacto(@PathVariable(value = "id") Integer id,
+                                                                     @RequestBody Contacto contacto) {
+        return ok(libretaService.updateApellidos(id, contacto), CONTACTO_NO_EXISTE);
+    }
+
+    /**
+     * Actualiza el número de teléfono basado en su identificador
+     *
+     * @param id       Identificador del número de teléfono a actualizar
+     * @param telefono Objeto Telefono
+     * @return Objeto Response en formato JSON
+     */
+    @PatchMapping(path = "api/v1/phone/{id}/number")
+    public Mono<ResponseEntity<Response>> updateOnlyTelefono(@PathVariable(value = "id") Integer id,
+                                                             @RequestBody Telefono telefono) {
+        return ok(libretaService.updateOnlyTelefono(id, telefono), TELEFONO_NO_EXISTE);
+    }
+
+    /**
+     * Borra un contacto del sistema
+     *
+     * @param id Identificador del contacto a borrar
+     * @return Objeto Response en formato JSON
+     */
+    @DeleteMapping(path = "api/v1/contact/{id}")
+    public Mono<ResponseEntity<Response>> deleteContacto(@PathVariable(value = "id") Integer id) {
+        return ok(libretaService.deleteContacto(id), CONTACTO_NO_EXISTE);
+    }
+
+    /**
+     * Borra un teléfono del sistema
+     *
+     * @param id Identificador del teléfono a borrar
+     * @return Objeto Response en formato JSON
+     */
+    @DeleteMapping(path = "api/v1/phone/{id}")
+    public Mono<ResponseEntity<Response>> deleteTelefono(@PathVariable(value = "id") Integer id) {
+        return ok(libretaService.deleteTelefono(id), TELEFONO_NO_EXISTE);
+    }
+
+    /**
+     * Envuelve el resultado en un Response con código 200, o responde 404 si el servicio no encontró la tupla
+     *
+     * @param result   Resultado del servicio
+     * @param notFound Mensaje cuando la tupla no existe
+     * @return Respuesta HTTP
+     */
+    private static Mono<ResponseEntity<Response>> ok(Mono<?> result, String notFound) {
+        return result.map(data -> new ResponseEntity<>(new Response(data), HttpStatus.OK))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, notFound)));
+    }
+
+    /**
+     * Redirige las rutas de inicio al index del sistema
+     *
+     * @return Respuesta de redirección
+     */
+    private ResponseEntity<Response> getResponseHome() {
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/api/v1/index")).build();
+    }
+
+}
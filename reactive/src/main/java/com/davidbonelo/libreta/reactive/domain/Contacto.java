@@ -0,0 +1,116 @@
+package com.davidbonelo.libreta.reactive.domain;
+
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contacto sobre la misma tabla que usa el API principal. R2DBC no maneja relaciones: los teléfonos se cargan aparte,
+ * por lotes de contactos, y se asignan a {@link #telefonos}.
+ */
+@Getter
+@Setter
+@Table("contacto")
+public class Contacto {
+    /**
+     * Identificador de la tupla, se toma de la secuencia contacto_seq igual que en el API principal
+     */
+    @Id
+    @Column("cnt_id")
+    private Integer id;
+
+    /**
+     * Nombre del contacto
+     */
+    @Column("cnt_nombre")
+    private String nombre;
+
+    /**
+     * Apellidos del contacto
+     */
+    @Column("cnt_apellido")
+    private String apellido;
+
+    /**
+     * Llave fonética del nombre, se calcula al asignar el nombre igual que en el API principal
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column("cnt_nombre_fonetico")
+    private String nombreFonetico;
+
+    /**
+     * Llave fonética de los apellidos, se calcula al asignar los apellidos igual que en el API principal
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column("cnt_apellido_fonetico")
+    private String apellidoFonetico;
+
+    /**
+     * Correo electrónico del contacto
+     */
+    @Column("cnt_email")
+    private String email;
+
+    /**
+     * Fecha de nacimiento del contacto
+     */
+    @Column("cnt_fecha_nacimiento")
+    private LocalDate fechaNacimiento;
+
+    /**
+     * Fecha y hora en que la tupla ha sido creada
+     */
+    @Column("cnt_created_at")
+    private Instant createdAt;
+
+    /**
+     * Fecha y hora en que la tupla ha sido actualizada por última vez
+     */
+    @Column("cnt_updated_at")
+    private Instant updatedAt;
+
+    /**
+     * Teléfonos del contacto, no es una columna
+     */
+    @Transient
+    private List<Telefono> telefonos = new ArrayList<>();
+
+    /**
+     * Borrado lógico, las consultas solo leen los contactos no borrados
+     */
+    @Column("cnt_deleted")
+    private boolean deleted = false;
+
+    /**
+     * Asigna el nombre y recalcula su llave fonética
+     *
+     * @param nombre Nombre del contacto
+     */
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+        this.nombreFonetico = SpanishPhonetics.key(nombre);
+    }
+
+    /**
+     * Asigna los apellidos y recalcula su llave fonética
+     *
+     * @param apellido Apellidos del contacto
+     */
+    public void setApellido(String apellido) {
+        this.apellido = apellido;
+        this.apellidoFonetico = SpanishPhonetics.key(apellido);
+    }
+}
@@ -0,0 +1,66 @@
+package com.davidbonelo.libreta.reactive.domain;
+
+import com.davidbonelo.libreta.utility.PhoneNumbers;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Table("telefono")
+public class Telefono {
+    /**
+     * Identificador de la tupla, se toma de la secuencia telefono_seq igual que en el API principal
+     */
+    @Id
+    @Column("tel_id")
+    private Integer id;
+
+    /**
+     * Identificador del contacto dueño del teléfono
+     */
+    @Column("tel_contacto_id")
+    private Integer contactoId;
+
+    /**
+     * Número de teléfono
+     */
+    @Column("tel_telefono")
+    private String telefono;
+
+    /**
+     * Número de teléfono en forma canónica, se calcula al asignar {@link #telefono}
+     */
+    @Setter(AccessLevel.NONE)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column("tel_telefono_normalizado")
+    private String telefonoNormalizado;
+
+    /**
+     * Fecha y hora en que la tupla ha sido creada
+     */
+    @Column("tel_created_at")
+    private Instant createdAt;
+
+    /**
+     * Fecha y hora en que la tupla ha sido actualizada por última vez
+     */
+    @Column("tel_updated_at")
+    private Instant updatedAt;
+
+    /**
+     * Asigna el número de teléfono y recalcula su forma canónica
+     *
+     * @param telefono Número de teléfono tal como lo escribió el usuario
+     */
+    public void setTelefono(String telefono) {
+        this.telefono = telefono;
+        this.telefonoNormalizado = PhoneNumbers.normalize(telefono);
+    }
+}
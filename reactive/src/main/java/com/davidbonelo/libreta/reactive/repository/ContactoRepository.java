@@ -0,0 +1,80 @@
+package com.davidbonelo.libreta.reactive.repository;
+
+import com.davidbonelo.libreta.reactive.domain.Contacto;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Consultas reactivas sobre la tabla contacto. Todas filtran los contactos con borrado lógico, igual que el
+ * {@code @Where} de la entidad JPA del API principal.
+ */
+@Repository
+public interface ContactoRepository extends ReactiveCrudRepository<Contacto, Integer> {
+
+    @Override
+    @Query("SELECT * FROM contacto WHERE cnt_id = :id AND cnt_deleted = false")
+    Mono<Contacto> findById(@Param("id") Integer id);
+
+    /**
+     * Reserva el siguiente identificador de la secuencia compartida con el API principal
+     */
+    @Query("SELECT NEXT VALUE FOR contacto_seq")
+    Mono<Integer> nextId();
+
+    @Query("SELECT * FROM contacto WHERE cnt_deleted = false " +
+            "AND (cnt_nombre LIKE CONCAT('%', :data, '%') OR cnt_apellido LIKE CONCAT('%', :data, '%')) " +
+            "ORDER BY cnt_nombre, cnt_apellido, cnt_id")
+    Flux<Contacto> searchByNombreOrApellido(@Param("data") String data);
+
+    @Query("SELECT * FROM contacto WHERE cnt_deleted = false AND cnt_id IN " +
+            "(SELECT tel_contacto_id FROM telefono WHERE tel_telefono_normalizado = :numero) ORDER BY cnt_id")
+    Flux<Contacto> findByTelefonoNormalizado(@Param("numero") String numero);
+
+    @Modifying
+    @Query("UPDATE contacto SET cnt_nombre = :nombre, cnt_apellido = :apellido, " +
+            "cnt_nombre_fonetico = :nombreFonetico, cnt_apellido_fonetico = :apellidoFonetico, cnt_email = :email, " +
+            "cnt_fecha_nacimiento = :fechaNacimiento, cnt_updated_at = :now WHERE cnt_id = :id AND cnt_deleted = false")
+    Mono<Integer> update(@Param("id") Integer id, @Param("nombre") String nombre, @Param("apellido") String apellido,
+                         @Param("nombreFonetico") String nombreFonetico,
+                         @Param("apellidoFonetico") String apellidoFonetico, @Param("email") String email,
+                         @Param("fechaNacimiento") LocalDate fechaNacimiento, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE contacto SET cnt_nombre = :nombre, cnt_nombre_fonetico = :nombreFonetico, cnt_updated_at = :now " +
+            "WHERE cnt_id = :id AND cnt_deleted = false")
+    Mono<Integer> updateNombre(@Param("id") Integer id, @Param("nombre") String nombre,
+                               @Param("nombreFonetico") String nombreFonetico, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE contacto SET cnt_apellido = :apellido, cnt_apellido_fonetico = :apellidoFonetico, " +
+            "cnt_updated_at = :now WHERE cnt_id = :id AND cnt_deleted = false")
+    Mono<Integer> updateApellido(@Param("id") Integer id, @Param("apellido") String apellido,
+                                 @Param("apellidoFonetico") String apellidoFonetico,
+                                 @Param("now") LocalDateTime now);
+
+    /**
+     * Borra las llaves fonéticas de palabra de un contacto, antes de guardar las de su nombre actual
+     */
+    @Modifying
+    @Query("DELETE FROM contacto_fonetico WHERE cnf_contacto_id = :id")
+    Mono<Integer> deletePalabrasFoneticas(@Param("id") Integer id);
+
+    @Modifying
+    @Query("INSERT INTO contacto_fonetico (cnf_contacto_id, cnf_llave) VALUES (:id, :llave)")
+    Mono<Integer> insertPalabraFonetica(@Param("id") Integer id, @Param("llave") String llave);
+
+    /**
+     * Borrado lógico que deja la fecha del borrado para la sincronización por cambios
+     */
+    @Modifying
+    @Query("UPDATE contacto SET cnt_deleted = true, cnt_updated_at = :now WHERE cnt_id = :id AND cnt_deleted = false")
+    Mono<Integer> softDelete(@Param("id") Integer id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,62 @@
+package com.davidbonelo.libreta.reactive.repository;
+
+import com.davidbonelo.libreta.reactive.domain.Telefono;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface TelefonoRepository extends ReactiveCrudRepository<Telefono, Integer> {
+
+    /**
+     * Reserva el siguiente identificador de la secuencia compartida con el API principal
+     */
+    @Query("SELECT NEXT VALUE FOR telefono_seq")
+    Mono<Integer> nextId();
+
+    /**
+     * Teléfonos de un lote de contactos, en una sola consulta por lote
+     */
+    @Query("SELECT * FROM telefono WHERE tel_contacto_id IN (:contactoIds) ORDER BY tel_contacto_id, tel_id")
+    Flux<Telefono> findByContactoIds(@Param("contactoIds") Collection<Integer> contactoIds);
+
+    @Modifying
+    @Query("UPDATE telefono SET tel_contacto_id = :contactoId, tel_telefono = :telefono, " +
+            "tel_telefono_normalizado = :normalizado, tel_updated_at = :now WHERE tel_id = :id")
+    Mono<Integer> update(@Param("id") Integer id, @Param("contactoId") Integer contactoId,
+                         @Param("telefono") String telefono, @Param("normalizado") String normalizado,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE telefono SET tel_telefono = :telefono, tel_telefono_normalizado = :normalizado, " +
+            "tel_updated_at = :now WHERE tel_id = :id")
+    Mono<Integer> updateTelefono(@Param("id") Integer id, @Param("telefono") String telefono,
+                                 @Param("normalizado") String normalizado, @Param("now") LocalDateTime now);
+
+    /**
+     * Deja la marca de borrado de un teléfono para la sincronización por cambios
+     */
+    @Modifying
+    @Query("INSERT INTO telefono_borrado (tlb_tel_id, tlb_contacto_id, tlb_deleted_at) " +
+            "SELECT tel_id, tel_contacto_id, :now FROM telefono WHERE tel_id = :id")
+    Mono<Integer> recordBorrado(@Param("id") Integer id, @Param("now") LocalDateTime now);
+
+    /**
+     * Deja las marcas de borrado de todos los teléfonos de un contacto
+     */
+    @Modifying
+    @Query("INSERT INTO telefono_borrado (tlb_tel_id, tlb_contacto_id, tlb_deleted_at) " +
+            "SELECT tel_id, tel_contacto_id, :now FROM telefono WHERE tel_contacto_id = :contactoId")
+    Mono<Integer> recordBorradosByContactoId(@Param("contactoId") Integer contactoId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM telefono WHERE tel_contacto_id = :contactoId")
+    Mono<Integer> deleteByContactoId(@Param("contactoId") Integer contactoId);
+}
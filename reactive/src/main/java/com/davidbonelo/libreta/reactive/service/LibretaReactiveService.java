@@ -0,0 +1,334 @@
+package com.davidbonelo.libreta.reactive.service;
+
+import com.davidbonelo.libreta.reactive.domain.Contacto;
+import com.davidbonelo.libreta.reactive.domain.Telefono;
+import com.davidbonelo.libreta.reactive.repository.ContactoRepository;
+import com.davidbonelo.libreta.reactive.repository.TelefonoRepository;
+import com.davidbonelo.libreta.reactive.service.interfaces.ILibretaReactive;
+import com.davidbonelo.libreta.utility.PhoneNumbers;
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.davidbonelo.libreta.reactive.utility.DatabaseTime.toLocal;
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Servicio no bloqueante sobre el mismo esquema que el API principal.
+ * <p>
+ * Los listados y las búsquedas se devuelven como flujos: las filas se leen de la base de datos a medida que el
+ * cliente las consume, y los teléfonos se cargan con una consulta por cada lote de libreta.stream.batch-size
+ * contactos. Solo se pide el lote siguiente cuando el anterior ya se entregó, así la memoria usada no depende del
+ * tamaño del directorio. Los listados no son transaccionales a propósito: en una transacción las consultas de
+ * teléfonos compartirían la conexión que está leyendo los contactos y tendrían que esperar a que esa lectura termine.
+ */
+@Service
+public class LibretaReactiveService implements ILibretaReactive {
+    private static final Set<String> INDEXED_FIELDS = Set.of("id", "nombre", "apellido");
+
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    @Autowired
+    private TelefonoRepository telefonoRepository;
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Value("${libreta.stream.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Devuelve en flujo los contactos del sistema con sus teléfonos ordenados por su identificador
+     *
+     * @return Flujo de contactos
+     */
+    @Override
+    public Flux<Contacto> getList() {
+        return getList("id", Sort.Direction.ASC);
+    }
+
+    /**
+     * Devuelve en flujo los contactos del sistema con sus teléfonos ordenados por el campo indicado, el
+     * identificador desempata
+     *
+     * @param field campo por el cual ordenar
+     * @param order método de ordenado ASC o DESC
+     * @return Flujo de contactos
+     */
+    @Override
+    public Flux<Contacto> getList(String field, Sort.Direction order) {
+        if (!INDEXED_FIELDS.contains(field)) {
+            return Flux.error(new IllegalArgumentException("Solo se puede ordenar por id, nombre o apellido"));
+        }
+        var sort = Sort.by(order, field).and(Sort.by(order, "id"));
+        return withTelefonos(template.select(Contacto.class)
+                .matching(query(where("deleted").isFalse()).sort(sort))
+                .all());
+    }
+
+    /**
+     * Busca un dato entre el nombre o los apellidos en un contacto. A diferencia del API principal no se clasifican
+     * las coincidencias, porque eso obliga a leer todos los resultados antes de enviar el primero; se ordenan por
+     * nombre y apellidos.
+     *
+     * @param dataToSearch Dato a buscar
+     * @return Flujo de contactos con sus teléfonos
+     */
+    @Override
+    public Flux<Contacto> searchContacto(String dataToSearch) {
+        return withTelefonos(contactoRepository.searchByNombreOrApellido(dataToSearch));
+    }
+
+    /**
+     * Busca los contactos dueños de un número de teléfono por su forma canónica
+     *
+     * @param numero Número de teléfono a buscar
+     * @return Flujo de contactos con sus teléfonos
+     */
+    @Override
+    public Flux<Contacto> searchTelefono(String numero) {
+        var normalizado = PhoneNumbers.normalize(numero);
+        if (normalizado == null) {
+            return Flux.empty();
+        }
+        return withTelefonos(contactoRepository.findByTelefonoNormalizado(normalizado));
+    }
+
+    /**
+     * Devuelve un contacto con sus teléfonos basado en su identificador
+     *
+     * @param id Identificador del contacto
+     * @return Contacto o vacío si no existe
+     */
+    @Override
+    public Mono<Contacto> getContacto(Integer id) {
+        return withTelefonos(contactoRepository.findById(id).flux()).next();
+    }
+
+    /**
+     * Devuelve un teléfono basado en su identificador
+     *
+     * @param id Identificador del teléfono
+     * @return Teléfono o vacío si no existe
+     */
+    @Override
+    public Mono<Telefono> getTelefono(Integer id) {
+        return telefonoRepository.findById(id);
+    }
+
+    /**
+     * Crea un contacto en el sistema, los teléfonos se crean aparte
+     *
+     * @param contacto Objeto del contacto a crear
+     * @return Objeto del contacto creado
+     */
+    @Override
+    @Transactional
+    public Mono<Contacto> createContacto(Contacto contacto) {
+        return contactoRepository.nextId().flatMap(id -> {
+            var now = Instant.now();
+            contacto.setId(id);
+            contacto.setCreatedAt(now);
+            contacto.setUpdatedAt(now);
+            contacto.setDeleted(false);
+            contacto.setTelefonos(new ArrayList<>());
+            return template.insert(contacto);
+        }).flatMap(created -> savePalabrasFoneticas(created).thenReturn(created));
+    }
+
+    /**
+     * Crea un teléfono en el sistema a nombre de un contacto existente
+     *
+     * @param telefono Objeto del teléfono a crear
+     * @return Objeto del teléfono creado
+     */
+    @Override
+    @Transactional
+    public Mono<Telefono> createTelefono(Telefono telefono) {
+        if (telefono.getContactoId() == null) {
+            return Mono.error(new IllegalArgumentException("Se debe indicar el contacto del teléfono"));
+        }
+        return contactoRepository.findById(telefono.getContactoId())
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("El contacto indicado no existe")))
+                .then(telefonoRepository.nextId())
+                .flatMap(id -> {
+                    var now = Instant.now();
+                    telefono.setId(id);
+                    telefono.setCreatedAt(now);
+                    telefono.setUpdatedAt(now);
+                    return template.insert(telefono);
+                });
+    }
+
+    /**
+     * Actualiza los datos de un contacto, sin tocar sus teléfonos ni su fecha de creación
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto del contacto a actualizar
+     * @return Contacto actualizado o vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Mono<Contacto> updateContacto(Integer id, Contacto contacto) {
+        return contactoRepository.update(id, contacto.getNombre(), contacto.getApellido(),
+                        contacto.getNombreFonetico(), contacto.getApellidoFonetico(), contacto.getEmail(),
+                        contacto.getFechaNacimiento(), toLocal(Instant.now()))
+                .filter(rows -> rows > 0)
+                .flatMap(rows -> getContacto(id))
+                .flatMap(updated -> savePalabrasFoneticas(updated).thenReturn(updated));
+    }
+
+    /**
+     * Actualiza el nombre de un contacto
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto del contacto con el nuevo nombre
+     * @return Contacto actualizado o vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Mono<Contacto> updateNombre(Integer id, Contacto contacto) {
+        return contactoRepository.updateNombre(id, contacto.getNombre(), contacto.getNombreFonetico(),
+                        toLocal(Instant.now()))
+                .filter(rows -> rows > 0)
+                .flatMap(rows -> getContacto(id))
+                .flatMap(updated -> savePalabrasFoneticas(updated).thenReturn(updated));
+    }
+
+    /**
+     * Actualiza el apellido de un contacto
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto del contacto con el nuevo apellido
+     * @return Contacto actualizado o vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Mono<Contacto> updateApellidos(Integer id, Contacto contacto) {
+        return contactoRepository.updateApellido(id, contacto.getApellido(), contacto.getApellidoFonetico(),
+                        toLocal(Instant.now()))
+                .filter(rows -> rows > 0)
+                .flatMap(rows -> getContacto(id))
+                .flatMap(updated -> savePalabrasFoneticas(updated).thenReturn(updated));
+    }
+
+    /**
+     * Actualiza la tupla completa de un teléfono, incluido el contacto al que pertenece
+     *
+     * @param id       Identificador del teléfono a actualizar
+     * @param telefono Objeto del teléfono a actualizar
+     * @return Teléfono actualizado o vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Mono<Telefono> updateTelefono(Integer id, Telefono telefono) {
+        return telefonoRepository.update(id, telefono.getContactoId(), telefono.getTelefono(),
+                        telefono.getTelefonoNormalizado(), toLocal(Instant.now()))
+                .filter(rows -> rows > 0)
+                .flatMap(rows -> telefonoRepository.findById(id));
+    }
+
+    /**
+     * Actualiza solamente el número de un teléfono
+     *
+     * @param id       Identificador del teléfono a actualizar
+     * @param telefono Objeto del teléfono con el nuevo número
+     * @return Teléfono actualizado o vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Mono<Telefono> updateOnlyTelefono(Integer id, Telefono telefono) {
+        return telefonoRepository.updateTelefono(id, telefono.getTelefono(), telefono.getTelefonoNormalizado(),
+                        toLocal(Instant.now()))
+                .filter(rows -> rows > 0)
+                .flatMap(rows -> telefonoRepository.findById(id));
+    }
+
+    /**
+     * Borra un contacto del sistema con borrado lógico y borra sus teléfonos, dejando las marcas de borrado para la
+     * sincronización por cambios del API principal
+     *
+     * @param id Identificación del contacto a borrar
+     * @return Contacto borrado o vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Mono<Contacto> deleteContacto(Integer id) {
+        return contactoRepository.findById(id).flatMap(contacto -> {
+            var now = Instant.now();
+            return telefonoRepository.recordBorradosByContactoId(id, toLocal(now))
+                    .then(telefonoRepository.deleteByContactoId(id))
+                    .then(contactoRepository.softDelete(id, toLocal(now)))
+                    .thenReturn(contacto)
+                    .doOnNext(deleted -> {
+                        deleted.setDeleted(true);
+                        deleted.setUpdatedAt(now);
+                    });
+        });
+    }
+
+    /**
+     * Borra un teléfono del sistema y deja su marca de borrado para la sincronización por cambios
+     *
+     * @param id Identificación del teléfono a borrar
+     * @return Teléfono borrado o vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Mono<Telefono> deleteTelefono(Integer id) {
+        return telefonoRepository.findById(id).flatMap(telefono ->
+                telefonoRepository.recordBorrado(id, toLocal(Instant.now()))
+                        .then(telefonoRepository.deleteById(id))
+                        .thenReturn(telefono));
+    }
+
+    /**
+     * Vuelve a guardar las llaves fonéticas de palabra de un contacto, las que usa la búsqueda aproximada del API
+     * principal, a partir de las llaves de su nombre y apellidos
+     *
+     * @param contacto Contacto ya guardado
+     * @return Vacío cuando se guardaron las llaves
+     */
+    private Mono<Void> savePalabrasFoneticas(Contacto contacto) {
+        var palabras = SpanishPhonetics.wordKeys(contacto.getNombreFonetico(), contacto.getApellidoFonetico());
+        return contactoRepository.deletePalabrasFoneticas(contacto.getId())
+                .thenMany(Flux.fromIterable(palabras))
+                .concatMap(llave -> contactoRepository.insertPalabraFonetica(contacto.getId(), llave))
+                .then();
+    }
+
+    /**
+     * Asigna sus teléfonos a un flujo de contactos, con una consulta por lote y conservando el orden del flujo. El
+     * prefetch de 1 mantiene en memoria solo el lote que se está entregando y el siguiente.
+     *
+     * @param contactos Flujo de contactos sin teléfonos
+     * @return Flujo de contactos con sus teléfonos
+     */
+    private Flux<Contacto> withTelefonos(Flux<Contacto> contactos) {
+        return contactos.buffer(batchSize).concatMap(batch -> {
+            var ids = batch.stream().map(Contacto::getId).toList();
+            return telefonoRepository.findByContactoIds(ids)
+                    .collectMultimap(Telefono::getContactoId)
+                    .flatMapIterable(telefonos -> {
+                        for (var contacto : batch) {
+                            var propios = telefonos.getOrDefault(contacto.getId(), List.of());
+                            contacto.setTelefonos(new ArrayList<>(propios));
+                        }
+                        return batch;
+                    });
+        }, 1);
+    }
+}
@@ -0,0 +1,136 @@
+package com.davidbonelo.libreta.reactive.service.interfaces;
+
+import com.davidbonelo.libreta.reactive.domain.Contacto;
+import com.davidbonelo.libreta.reactive.domain.Telefono;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ILibretaReactive {
+
+    /**
+     * Devuelve en flujo los contactos del sistema con sus teléfonos ordenados por su identificador
+     *
+     * @return Flujo de contactos
+     */
+    public Flux<Contacto> getList();
+
+    /**
+     * Devuelve en flujo los contactos del sistema con sus teléfonos ordenados por el campo indicado
+     * (id, nombre o apellido) ya sea ascendente o descendente
+     *
+     * @param field campo por el cual ordenar
+     * @param order método de ordenado ASC o DESC
+     * @return Flujo de contactos
+     */
+    public Flux<Contacto> getList(String field, Sort.Direction order);
+
+    /**
+     * Busca un dato dado entre el nombre y/o los apellidos en un contacto
+     *
+     * @param dataToSearch Dato a buscar
+     * @return Flujo de contactos con sus teléfonos
+     */
+    public Flux<Contacto> searchContacto(String dataToSearch);
+
+    /**
+     * Busca los contactos dueños de un número de teléfono, sin importar cómo se escribió el número
+     *
+     * @param numero Número de teléfono a buscar
+     * @return Flujo de contactos con sus teléfonos
+     */
+    public Flux<Contacto> searchTelefono(String numero);
+
+    /**
+     * Devuelve un contacto con sus teléfonos basado en su identificador
+     *
+     * @param id Identificador del contacto
+     * @return Contacto o vacío si no existe
+     */
+    public Mono<Contacto> getContacto(Integer id);
+
+    /**
+     * Devuelve un teléfono basado en su identificador
+     *
+     * @param id Identificador del teléfono
+     * @return Teléfono o vacío si no existe
+     */
+    public Mono<Telefono> getTelefono(Integer id);
+
+    /**
+     * Crea un contacto en el sistema
+     *
+     * @param contacto Objeto del contacto a crear
+     * @return Objeto del contacto creado
+     */
+    public Mono<Contacto> createContacto(Contacto contacto);
+
+    /**
+     * Crea un teléfono en el sistema a nombre de un contacto
+     *
+     * @param telefono Objeto del teléfono a crear
+     * @return Objeto del teléfono creado
+     */
+    public Mono<Telefono> createTelefono(Telefono telefono);
+
+    /**
+     * Actualiza una tupla completa de un contacto
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto del contacto a actualizar
+     * @return Contacto actualizado o vacío si no existe
+     */
+    public Mono<Contacto> updateContacto(Integer id, Contacto contacto);
+
+    /**
+     * Actualiza el nombre de un contacto basado en su identificador
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto del contacto con el nuevo nombre
+     * @return Contacto actualizado o vacío si no existe
+     */
+    public Mono<Contacto> updateNombre(Integer id, Contacto contacto);
+
+    /**
+     * Actualiza el apellido de un contacto basado en su identificador
+     *
+     * @param id       Identificador del contacto a actualizar
+     * @param contacto Objeto del contacto con el nuevo apellido
+     * @return Contacto actualizado o vacío si no existe
+     */
+    public Mono<Contacto> updateApellidos(Integer id, Contacto contacto);
+
+    /**
+     * Actualiza la tupla completa de un teléfono en el sistema basado en su identificador
+     *
+     * @param id       Identificador del teléfono a actualizar
+     * @param telefono Objeto del teléfono a actualizar
+     * @return Teléfono actualizado o vacío si no existe
+     */
+    public Mono<Telefono> updateTelefono(Integer id, Telefono telefono);
+
+    /**
+     * Actualiza solamente el número de un teléfono a partir del ID de la tupla del teléfono
+     *
+     * @param id       Identificador del teléfono a actualizar
+     * @param telefono Objeto del teléfono con el nuevo número
+     * @return Teléfono actualizado o vacío si no existe
+     */
+    public Mono<Telefono> updateOnlyTelefono(Integer id, Telefono telefono);
+
+    /**
+     * Borra un contacto del sistema basado en su identificador
+     *
+     * @param id Identificación del contacto a borrar
+     * @return Contacto borrado o vacío si no existe
+     */
+    public Mono<Contacto> deleteContacto(Integer id);
+
+    /**
+     * Borra un teléfono del sistema basado en su identificador
+     *
+     * @param id Identificación del teléfono a borrar
+     * @return Teléfono borrado o vacío si no existe
+     */
+    public Mono<Telefono> deleteTelefono(Integer id);
+}
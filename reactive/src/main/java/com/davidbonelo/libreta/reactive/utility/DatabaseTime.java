@@ -0,0 +1,28 @@
+package com.davidbonelo.libreta.reactive.utility;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conversión entre los instantes del dominio y las columnas DATETIME. El API principal (Hibernate) escribe las fechas
+ * en la zona horaria de la JVM, así que aquí se usa la misma para que ambos lean y escriban los mismos valores.
+ */
+public final class DatabaseTime {
+    private DatabaseTime() {
+    }
+
+    /**
+     * Valor que se guarda en una columna DATETIME para el instante indicado
+     */
+    public static LocalDateTime toLocal(Instant instant) {
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * Instante que representa el valor leído de una columna DATETIME
+     */
+    public static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,133 @@
+package com.davidbonelo.libreta.reactive;
+
+import com.davidbonelo.libreta.reactive.domain.Contacto;
+import com.davidbonelo.libreta.reactive.domain.Telefono;
+import com.davidbonelo.libreta.reactive.service.LibretaReactiveService;
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+class LibretaReactiveApplicationTests {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private LibretaReactiveService libretaService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void listingStreamsContactsWithTheirPhonesInBatches() {
+        var ids = new Integer[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = seed("Flujo" + i, "Lista", "301000000" + i).getId();
+        }
+
+        var contactos = webTestClient.get().uri("/api/v1/index/orderby/nombre/DESC")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Contacto.class).getResponseBody()
+                .filter(contacto -> contacto.getApellido().equals("Lista"))
+                .collectList().block();
+
+        assertEquals(5, contactos.size());
+        for (int i = 0; i < contactos.size(); i++) {
+            var contacto = contactos.get(i);
+            assertEquals(ids[ids.length - 1 - i], contacto.getId());
+            assertEquals(1, contacto.getTelefonos().size());
+            assertEquals(contacto.getId(), contacto.getTelefonos().get(0).getContactoId());
+        }
+    }
+
+    @Test
+    void listingHonoursBackpressure() {
+        for (int i = 0; i < 6; i++) {
+            seed("Presion" + i, "Demanda", "302000000" + i);
+        }
+
+        StepVerifier.create(libretaService.getList(), 1)
+                .expectNextCount(1)
+                .thenRequest(2)
+                .expectNextCount(2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void writesFollowTheMainApiRules() {
+        var contacto = seed("Ana", "Reactiva", "(310) 555-0101");
+        assertEquals(SpanishPhonetics.key("Ana"), contacto.getNombreFonetico());
+        assertEquals(SpanishPhonetics.wordKeys(SpanishPhonetics.key("Ana"), SpanishPhonetics.key("Reactiva")),
+                palabrasFoneticas(contacto.getId()));
+
+        webTestClient.get().uri("/api/v1/search/phone/{numero}", "+57 310 555 0101")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Contacto.class).hasSize(1);
+
+        webTestClient.patch().uri("/api/v1/contact/{id}/name", contacto.getId())
+                .bodyValue(Map.of("nombre", "Anabel"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.data.nombre").isEqualTo("Anabel")
+                .jsonPath("$.data.nombreFonetico").doesNotExist();
+        assertEquals(SpanishPhonetics.wordKeys(SpanishPhonetics.key("Anabel"), SpanishPhonetics.key("Reactiva")),
+                palabrasFoneticas(contacto.getId()));
+
+        webTestClient.post().uri("/api/v1/phone")
+                .bodyValue(Map.of("contactoId", -1, "telefono", "3000000000"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo(true);
+
+        webTestClient.delete().uri("/api/v1/contact/{id}", contacto.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.data.deleted").isEqualTo(true);
+
+        webTestClient.get().uri("/api/v1/contact/{id}", contacto.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        var encontrados = libretaService.searchContacto("Reactiva").collectList().block();
+        assertTrue(encontrados.isEmpty());
+    }
+
+    private Set<String> palabrasFoneticas(Integer id) {
+        return Set.copyOf(databaseClient.sql("SELECT cnf_llave FROM contacto_fonetico WHERE cnf_contacto_id = :id")
+                .bind("id", id)
+                .map(row -> row.get("cnf_llave", String.class))
+                .all().collectList().block());
+    }
+
+    private Contacto seed(String nombre, String apellido, String numero) {
+        var contacto = new Contacto();
+        contacto.setNombre(nombre);
+        contacto.setApellido(apellido);
+        contacto.setEmail(nombre.toLowerCase() + "@libreta.com");
+        contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        var created = libretaService.createContacto(contacto).block();
+
+        var telefono = new Telefono();
+        telefono.setContactoId(created.getId());
+        telefono.setTelefono(numero);
+        libretaService.createTelefono(telefono).block();
+        return created;
+    }
+}
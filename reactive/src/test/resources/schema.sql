@@ -0,0 +1,40 @@
+CREATE SEQUENCE IF NOT EXISTS contacto_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS telefono_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS contacto
+(
+cnt_id INTEGER PRIMARY KEY NOT NULL,
+cnt_nombre VARCHAR(100) NOT NULL,
+cnt_apellido VARCHAR(100) NOT NULL,
+cnt_nombre_fonetico VARCHAR(200) NULL,
+cnt_apellido_fonetico VARCHAR(200) NULL,
+cnt_created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+cnt_updated_at TIMESTAMP NULL,
+cnt_fecha_nacimiento TIMESTAMP,
+cnt_email VARCHAR(100),
+cnt_deleted BOOLEAN
+);
+CREATE TABLE IF NOT EXISTS contacto_fonetico
+(
+cnf_llave VARCHAR(100) NOT NULL,
+cnf_contacto_id INTEGER NOT NULL,
+PRIMARY KEY (cnf_llave, cnf_contacto_id),
+CONSTRAINT fk_contacto_fonetico_contacto FOREIGN KEY (cnf_contacto_id) REFERENCES contacto (cnt_id) ON DELETE CASCADE
+);
+CREATE TABLE IF NOT EXISTS telefono
+(
+tel_id INTEGER PRIMARY KEY NOT NULL,
+tel_contacto_id INTEGER NOT NULL,
+tel_telefono VARCHAR(30) NOT NULL,
+tel_telefono_normalizado VARCHAR(40) NULL,
+tel_created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+tel_updated_at TIMESTAMP NULL,
+CONSTRAINT telefono_tel_contacto_id_tel_telefono_Idx UNIQUE (tel_contacto_id, tel_telefono),
+CONSTRAINT fk_telefono_contacto FOREIGN KEY (tel_contacto_id) REFERENCES contacto (cnt_id)
+);
+CREATE INDEX IF NOT EXISTS telefono_tel_telefono_normalizado_Idx ON telefono (tel_telefono_normalizado);
+CREATE TABLE IF NOT EXISTS telefono_borrado
+(
+tlb_tel_id INTEGER PRIMARY KEY NOT NULL,
+tlb_contacto_id INTEGER NOT NULL,
+tlb_deleted_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,106 @@
+package com.davidbonelo.libreta.benchmark;
+
+import com.davidbonelo.libreta.LibretaApplication;
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.service.LibretaService;
+import com.davidbonelo.libreta.service.search.ContactoSearchIndex;
+import com.davidbonelo.libreta.service.search.TelefonoIndex;
+import com.davidbonelo.libreta.utility.PhoneNumbers;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * Directorio sembrado en una base H2 en memoria dentro del mismo proceso, con el contexto completo de la aplicación.
+ * Cada contacto tiene dos teléfonos; los nombres se repiten cada {@link #NOMBRES} contactos y los apellidos llevan el
+ * número del contacto, así hay búsquedas amplias (un nombre) y selectivas (un apellido).
+ */
+@State(Scope.Benchmark)
+public class DirectorioState {
+    static final String[] NOMBRES = {"maria", "jose", "luis", "carmen", "ana", "juan", "carlos", "laura", "pedro",
+            "sofia", "diego", "valentina", "andres", "camila", "jorge", "daniela", "miguel", "paula", "felipe", "lucia"};
+
+    static final String[] APELLIDOS = {"garcia", "rodriguez", "martinez", "lopez", "gonzalez", "perez", "sanchez",
+            "ramirez", "torres", "florez", "rivera", "gomez", "diaz", "moreno", "munoz", "rojas", "vargas", "castro"};
+
+    private static final int BATCH = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int contactos;
+
+    ConfigurableApplicationContext context;
+
+    LibretaService libretaService;
+
+    ContactoRepository contactoRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(LibretaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench" + contactos
+                                + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(ContactoSearchIndex.class).rebuild();
+        context.getBean(TelefonoIndex.class).rebuild();
+        libretaService = context.getBean(LibretaService.class);
+        contactoRepository = context.getBean(ContactoRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static String apellido(int id) {
+        return APELLIDOS[(id / NOMBRES.length) % APELLIDOS.length] + "-" + id;
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        var now = Timestamp.from(Instant.now());
+        var nacimiento = Date.valueOf(LocalDate.of(1990, 1, 1));
+        var contactoRows = new ArrayList<Object[]>(BATCH);
+        var telefonoRows = new ArrayList<Object[]>(BATCH * 2);
+        for (int id = 1; id <= contactos; id++) {
+            contactoRows.add(new Object[]{id, NOMBRES[id % NOMBRES.length], apellido(id),
+                    "contacto" + id + "@libreta.com", nacimiento, now, now});
+            for (int j = 0; j < 2; j++) {
+                var numero = String.valueOf(3_000_000_000L + id * 2L + j);
+                telefonoRows.add(new Object[]{id * 2 + j, id, numero, PhoneNumbers.normalize(numero), now, now});
+            }
+            if (contactoRows.size() == BATCH || id == contactos) {
+                jdbc.batchUpdate("INSERT INTO contacto (cnt_id, cnt_nombre, cnt_apellido, cnt_email, "
+                        + "cnt_fecha_nacimiento, cnt_created_at, cnt_updated_at, cnt_deleted) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, false)", contactoRows);
+                jdbc.batchUpdate("INSERT INTO telefono (tel_id, tel_contacto_id, tel_telefono, "
+                        + "tel_telefono_normalizado, tel_created_at, tel_updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)", telefonoRows);
+                contactoRows.clear();
+                telefonoRows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.davidbonelo.libreta.benchmark;
+
+import com.davidbonelo.libreta.utility.Cursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de una página del listado de contactos en una posición al azar del directorio, con y sin la carga de sus
+ * teléfonos
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ListBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * LibretaService.getList: página por llave más la consulta de los teléfonos de la página
+     */
+    @Benchmark
+    public void getListConTelefonos(DirectorioState state, Blackhole blackhole) {
+        blackhole.consume(state.libretaService.getList(randomCursor(state).encode(), PAGE_SIZE));
+    }
+
+    /**
+     * Solo la página por llave, sin teléfonos
+     */
+    @Benchmark
+    public void getListSinTelefonos(DirectorioState state, Blackhole blackhole) {
+        blackhole.consume(state.contactoRepository.findPage("id", Sort.Direction.ASC, randomCursor(state),
+                PAGE_SIZE + 1));
+    }
+
+    private static Cursor randomCursor(DirectorioState state) {
+        var lastId = ThreadLocalRandom.current().nextInt(Math.max(1, state.contactos - PAGE_SIZE));
+        return new Cursor("id", Sort.Direction.ASC, lastId, null);
+    }
+}
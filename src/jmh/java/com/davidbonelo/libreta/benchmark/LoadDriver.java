@@ -0,0 +1,133 @@
+package com.davidbonelo.libreta.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga de bucle cerrado para comparar el modo de hilos de plataforma con el de hilos virtuales: cada
+ * conexión concurrente repite peticiones GET sobre las URL indicadas durante el tiempo de la prueba y al final se
+ * imprime una línea JSON con el rendimiento y los percentiles de latencia.
+ * <p>
+ * No depende del proyecto, se ejecuta directo desde el código fuente contra la aplicación ya levantada:
+ * <pre>
+ * java src/jmh/java/com/davidbonelo/libreta/benchmark/LoadDriver.java 2000 PT30S \
+ *     http://localhost:8080/api/v1/index http://localhost:8080/api/v1/search/contact/ana
+ * </pre>
+ * Los primeros cinco segundos son de calentamiento y no se miden.
+ */
+public class LoadDriver {
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Uso: LoadDriver <conexiones> <duración ISO-8601> <url>...");
+            System.exit(2);
+        }
+        var connections = Integer.parseInt(args[0]);
+        var duration = Duration.parse(args[1]);
+        var uris = Arrays.stream(args, 2, args.length).map(URI::create).toList();
+
+        var executor = Executors.newFixedThreadPool(connections);
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        var measureFrom = System.nanoTime() + WARMUP.toNanos();
+        var end = measureFrom + duration.toNanos();
+        var errors = new AtomicLong();
+        var workers = new ArrayList<Worker>();
+        for (int i = 0; i < connections; i++) {
+            var worker = new Worker(client, uris, i, measureFrom, end, errors);
+            workers.add(worker);
+            executor.execute(worker);
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.plus(WARMUP).plusMinutes(1).toSeconds(), TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        report(connections, duration, workers, errors.get());
+    }
+
+    private static void report(int connections, Duration duration, List<Worker> workers, long errors) {
+        var latencies = workers.stream().flatMapToLong(worker -> Arrays.stream(worker.latencies, 0, worker.count))
+                .sorted().toArray();
+        System.out.printf(Locale.ROOT,
+                "{\"connections\":%d,\"seconds\":%d,\"requests\":%d,\"errors\":%d,\"throughput\":%.1f,"
+                        + "\"p50Ms\":%.2f,\"p99Ms\":%.2f,\"p999Ms\":%.2f,\"maxMs\":%.2f}%n",
+                connections, duration.toSeconds(), latencies.length, errors,
+                latencies.length / (double) duration.toSeconds(), percentile(latencies, 0.50),
+                percentile(latencies, 0.99), percentile(latencies, 0.999), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        var index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Una conexión lógica que envía una petición a la vez
+     */
+    private static final class Worker implements Runnable {
+        private final HttpClient client;
+        private final List<HttpRequest> requests;
+        private final long measureFrom;
+        private final long end;
+        private final AtomicLong errors;
+        private long[] latencies = new long[1024];
+        private int count = 0;
+        private int next;
+
+        private Worker(HttpClient client, List<URI> uris, int offset, long measureFrom, long end, AtomicLong errors) {
+            this.client = client;
+            this.requests = uris.stream().map(uri -> HttpRequest.newBuilder(uri).GET().build()).toList();
+            this.next = offset;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.errors = errors;
+        }
+
+        @Override
+        public void run() {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                var request = requests.get(next++ % requests.size());
+                try {
+                    var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    var elapsed = System.nanoTime() - now;
+                    if (now < measureFrom) {
+                        continue;
+                    }
+                    if (response.statusCode() >= 500) {
+                        errors.incrementAndGet();
+                    } else {
+                        record(elapsed);
+                    }
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception exception) {
+                    if (now >= measureFrom) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }
+        }
+
+        private void record(long elapsed) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = elapsed;
+        }
+    }
+}
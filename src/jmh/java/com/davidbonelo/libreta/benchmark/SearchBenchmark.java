@@ -0,0 +1,42 @@
+package com.davidbonelo.libreta.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de LibretaService.searchContacto: resolución en el índice de trigramas más la carga de los contactos
+ * encontrados con sus teléfonos
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class SearchBenchmark {
+    /**
+     * Un nombre lo comparte 1 de cada 20 contactos, la respuesta se corta en libreta.search.max-results
+     */
+    @Benchmark
+    public void searchAmplio(DirectorioState state, Blackhole blackhole) {
+        var nombre = DirectorioState.NOMBRES[ThreadLocalRandom.current().nextInt(DirectorioState.NOMBRES.length)];
+        blackhole.consume(state.libretaService.searchContacto(nombre));
+    }
+
+    /**
+     * El apellido con número identifica a un contacto (y a los que lo tienen como prefijo)
+     */
+    @Benchmark
+    public void searchSelectivo(DirectorioState state, Blackhole blackhole) {
+        var id = 1 + ThreadLocalRandom.current().nextInt(state.contactos);
+        blackhole.consume(state.libretaService.searchContacto(DirectorioState.apellido(id)));
+    }
+}
@@ -0,0 +1,106 @@
+package com.davidbonelo.libreta.benchmark;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.utility.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Costo de serializar el sobre Response con contactos y sus teléfonos anidados en cada formato que negocia el API
+ * (JSON, JSON con gzip, CBOR y Smile), con un ObjectMapper configurado como el de Spring Boot. El tiempo por contacto
+ * es el puntaje dividido entre {@link #contactos}; los bytes por contacto de cada formato se imprimen al preparar la
+ * prueba.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"1", "50", "500"})
+    public int contactos;
+
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+
+    private boolean gzip;
+
+    private List<Contacto> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        var builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper = switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> builder.build();
+        };
+        gzip = format.endsWith("-gzip");
+        page = new ArrayList<>(contactos);
+        var now = Instant.now();
+        for (int id = 1; id <= contactos; id++) {
+            var contacto = new Contacto();
+            contacto.setId(id);
+            contacto.setNombre(DirectorioState.NOMBRES[id % DirectorioState.NOMBRES.length]);
+            contacto.setApellido(DirectorioState.apellido(id));
+            contacto.setEmail("contacto" + id + "@libreta.com");
+            contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+            contacto.setCreatedAt(now);
+            contacto.setUpdatedAt(now);
+            for (int j = 0; j < 2; j++) {
+                var telefono = new Telefono();
+                telefono.setId(id * 2 + j);
+                telefono.setContacto(contacto);
+                telefono.setContactoId(id);
+                telefono.setTelefono(String.valueOf(3_000_000_000L + id * 2L + j));
+                telefono.setCreatedAt(now);
+                telefono.setUpdatedAt(now);
+                contacto.getTelefonos().add(telefono);
+            }
+            page.add(contacto);
+        }
+        System.out.printf(Locale.ROOT, "%n%s: %.1f bytes por contacto%n", format,
+                serializeResponse().length / (double) contactos);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws IOException {
+        if (!gzip) {
+            return objectMapper.writeValueAsBytes(new Response(page));
+        }
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, new Response(page));
+        }
+        return bytes.toByteArray();
+    }
+}
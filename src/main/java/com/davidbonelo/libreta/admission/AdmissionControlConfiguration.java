@@ -0,0 +1,42 @@
+package com.davidbonelo.libreta.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Control de admisión, se desactiva con libreta.admission.enabled=false. Cada grupo se configura con
+ * libreta.admission.&lt;grupo&gt;.max-concurrent, max-queue y max-wait.
+ */
+@Configuration
+@ConditionalOnProperty(name = "libreta.admission.enabled", matchIfMissing = true)
+public class AdmissionControlConfiguration {
+    private static final List<String> GROUPS = List.of("list", "search", "write", "bulk");
+
+    @Bean
+    public AdmissionControlFilter admissionControlFilter(Environment environment, MeterRegistry meterRegistry,
+                                                         ObjectMapper objectMapper,
+                                                         @Value("${libreta.admission.retry-after:1s}")
+                                                         Duration retryAfter) {
+        var binder = Binder.get(environment);
+        var bulkheads = new LinkedHashMap<String, Bulkhead>();
+        for (var group : GROUPS) {
+            var prefix = "libreta.admission." + group;
+            bulkheads.put(group, new Bulkhead(group,
+                    binder.bind(prefix + ".max-concurrent", Integer.class).orElse(0),
+                    binder.bind(prefix + ".max-queue", Integer.class).orElse(0),
+                    binder.bind(prefix + ".max-wait", Duration.class).orElse(Duration.ZERO),
+                    meterRegistry));
+        }
+        return new AdmissionControlFilter(bulkheads, retryAfter, objectMapper);
+    }
+}
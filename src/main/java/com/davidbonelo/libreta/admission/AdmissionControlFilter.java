@@ -0,0 +1,149 @@
+package com.davidbonelo.libreta.admission;
+
+import com.davidbonelo.libreta.utility.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Control de admisión por grupo de endpoints, para que una ráfaga de búsquedas o de listados completos no deje sin
+ * hilos ni conexiones a las escrituras. Cada grupo tiene su propio {@link Bulkhead}:
+ * <ul>
+ *     <li>list: GET api/v1/index, api/v1/sync y api/v1/birthdays</li>
+ *     <li>search: GET api/v1/search/**</li>
+ *     <li>bulk: POST api/v1/contact/bulk y GET api/v1/export</li>
+ *     <li>write: las demás peticiones POST, PUT, PATCH y DELETE de api/v1</li>
+ * </ul>
+ * Las demás peticiones (un contacto por id, eventos, actuator) no se limitan. Una petición sin lugar en la cola se
+ * rechaza con 429 y una que esperó el tiempo máximo con 503, ambas con Retry-After. Las respuestas asíncronas, como la
+ * exportación, ocupan su lugar hasta que terminan.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter implements Ordered {
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final Map<String, Bulkhead> bulkheads;
+
+    private final Duration retryAfter;
+
+    private final ObjectMapper objectMapper;
+
+    AdmissionControlFilter(Map<String, Bulkhead> bulkheads, Duration retryAfter, ObjectMapper objectMapper) {
+        this.bulkheads = bulkheads;
+        this.retryAfter = retryAfter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Después del filtro de observación de Spring Boot, así las peticiones rechazadas también aparecen en
+     * http.server.requests
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var bulkhead = bulkheads.get(group(request));
+        if (bulkhead == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var admission = bulkhead.acquire();
+        if (!admission.isAdmitted()) {
+            reject(response, bulkhead, admission);
+            return;
+        }
+        var released = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(bulkhead));
+                released = true;
+            }
+        } finally {
+            if (!released) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    static String group(HttpServletRequest request) {
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        var method = request.getMethod();
+        if (!path.startsWith("/api/v1/")) {
+            return null;
+        }
+        if (("POST".equals(method) && path.equals("/api/v1/contact/bulk"))
+                || (isRead(method) && path.equals("/api/v1/export"))) {
+            return "bulk";
+        }
+        if (WRITE_METHODS.contains(method)) {
+            return "write";
+        }
+        if (!isRead(method)) {
+            return null;
+        }
+        if (path.startsWith("/api/v1/search/")) {
+            return "search";
+        }
+        if (path.equals("/api/v1/index") || path.startsWith("/api/v1/index/") || path.equals("/api/v1/sync")
+                || path.equals("/api/v1/birthdays")) {
+            return "list";
+        }
+        return null;
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    private void reject(HttpServletResponse response, Bulkhead bulkhead, Bulkhead.Admission admission)
+            throws IOException {
+        var status = admission == Bulkhead.Admission.QUEUE_FULL
+                ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                Response.error("Servicio saturado, intente de nuevo más tarde", Map.of("group", bulkhead.getGroup())));
+    }
+
+    /**
+     * Devuelve el lugar cuando termina la respuesta asíncrona; onComplete también se llama después de un error o de
+     * que se cumpla el tiempo máximo
+     */
+    private record ReleaseOnComplete(Bulkhead bulkhead) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            bulkhead.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
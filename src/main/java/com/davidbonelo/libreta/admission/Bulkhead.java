@@ -0,0 +1,132 @@
+package com.davidbonelo.libreta.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compartimento de un grupo de endpoints: limita las peticiones que se atienden a la vez y las que pueden esperar un
+ * lugar. La espera es en orden de llegada y tiene un tiempo máximo; sin lugar en la cola la petición se rechaza de
+ * inmediato. Con maxConcurrent en 0 el grupo no tiene límite.
+ * <p>
+ * Métricas con la etiqueta group: libreta.admission.requests (outcome admitted, queued o rejected; queued son las que
+ * entraron después de esperar), libreta.admission.wait, libreta.admission.active y libreta.admission.waiting.
+ */
+class Bulkhead {
+    enum Admission {
+        ADMITTED, QUEUED, QUEUE_FULL, TIMED_OUT;
+
+        boolean isAdmitted() {
+            return this == ADMITTED || this == QUEUED;
+        }
+    }
+
+    private final String group;
+
+    private final int maxConcurrent;
+
+    private final int maxQueue;
+
+    private final Duration maxWait;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Counter admitted;
+
+    private final Counter queued;
+
+    private final Counter rejected;
+
+    private final Timer wait;
+
+    Bulkhead(String group, int maxConcurrent, int maxQueue, Duration maxWait, MeterRegistry meterRegistry) {
+        this.group = group;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(Math.max(0, maxConcurrent), true);
+        admitted = counter(meterRegistry, "admitted");
+        queued = counter(meterRegistry, "queued");
+        rejected = counter(meterRegistry, "rejected");
+        wait = Timer.builder("libreta.admission.wait")
+                .description("Tiempo de espera en la cola antes de entrar o ser rechazada")
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("libreta.admission.active", active, AtomicInteger::get)
+                .description("Peticiones que se están atendiendo")
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("libreta.admission.waiting", waiting, AtomicInteger::get)
+                .description("Peticiones esperando un lugar")
+                .tag("group", group)
+                .register(meterRegistry);
+    }
+
+    String getGroup() {
+        return group;
+    }
+
+    /**
+     * Pide un lugar; si la petición entra, quien llama debe devolverlo con {@link #release()}
+     */
+    Admission acquire() {
+        // tryAcquire con tiempo respeta el orden de llegada, así las nuevas no se adelantan a las que esperan
+        if (maxConcurrent <= 0 || tryAcquire(Duration.ZERO)) {
+            active.incrementAndGet();
+            admitted.increment();
+            return Admission.ADMITTED;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            return Admission.QUEUE_FULL;
+        }
+        var start = System.nanoTime();
+        try {
+            if (tryAcquire(maxWait)) {
+                active.incrementAndGet();
+                queued.increment();
+                return Admission.QUEUED;
+            }
+            rejected.increment();
+            return Admission.TIMED_OUT;
+        } finally {
+            waiting.decrementAndGet();
+            wait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void release() {
+        active.decrementAndGet();
+        if (maxConcurrent > 0) {
+            permits.release();
+        }
+    }
+
+    private boolean tryAcquire(Duration timeout) {
+        try {
+            return permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("libreta.admission.requests")
+                .description("Peticiones admitidas, admitidas después de esperar y rechazadas")
+                .tag("group", group)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.davidbonelo.libreta.configuration;
+
+import com.davidbonelo.libreta.utility.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Modo de hilos virtuales (libreta.threads.virtual=true, requiere Java 21). Cada petición de Tomcat y cada tarea
+ * asíncrona de Spring MVC (la exportación en flujo) corre en su propio hilo virtual, así una petición bloqueada en
+ * JDBC no ocupa un hilo de plataforma.
+ * <p>
+ * La concurrencia contra la base de datos la sigue limitando el pool de Hikari: los hilos virtuales que esperan una
+ * conexión se estacionan sin ocupar hilos portadores. Para que una consulta no fije (pin) el hilo portador, el perfil
+ * Maven virtual-threads usa el driver de MariaDB 3.3, que lee del socket sin métodos synchronized (la versión 3.0 sí
+ * los usa), y la caché de entidades carga fuera de cualquier bloqueo. Los índices en memoria leen la base de datos al
+ * reconstruirse sin tomar su monitor, con un ReentrantLock que no fija el hilo, y publican el índice nuevo con un
+ * cambio de referencia. Los synchronized que quedan en Hikari, en las escrituras de los índices y en el búfer de
+ * eventos solo protegen trabajo en memoria sin E/S; -Djdk.tracePinnedThreads=short permite verificarlo.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "libreta.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfiguration {
+    /**
+     * Ejecutor de hilos virtuales compartido por Tomcat y las tareas asíncronas
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        log.info("Modo de hilos virtuales activado");
+        return VirtualThreads.newExecutor("libreta-vt-");
+    }
+
+    /**
+     * Reemplaza el pool de hilos de los conectores de Tomcat por el ejecutor de hilos virtuales
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Ejecutor de las tareas asíncronas de Spring MVC (StreamingResponseBody, SseEmitter), reemplaza al pool que
+     * configura Spring Boot por defecto
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
@@ -0,0 +1,52 @@
+package com.davidbonelo.libreta.controller;
+
+import com.davidbonelo.libreta.service.cache.DirectoryVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Peticiones condicionales sobre el listado y las búsquedas. Antes de ejecutar el controlador compara If-None-Match e
+ * If-Modified-Since con la versión del directorio; si el cliente ya tiene la versión actual responde 304 sin
+ * ejecutar la consulta ni serializar nada (la versión solo lee la fecha de la última escritura, como mucho una vez
+ * por intervalo). En los demás casos agrega ETag y Last-Modified a la respuesta.
+ * <p>
+ * La versión se lee antes de consultar: si una escritura se confirma a mitad de la petición, la respuesta trae los
+ * datos nuevos con la versión anterior y el cliente simplemente los vuelve a pedir en la siguiente validación.
+ * <p>
+ * Con réplicas de lectura una respuesta puede salir de una réplica que todavía no tiene la última escritura; mientras
+ * no pase el tiempo de asentamiento (el retraso máximo tolerado más el intervalo de verificación) desde la última
+ * escritura se responde sin ETag ni Last-Modified, para que el cliente no guarde datos viejos con la versión nueva.
+ * <p>
+ * El formato de la respuesta se negocia con Accept, por eso se agrega Vary: Accept; así un caché intermedio no
+ * entrega CBOR a un cliente que pidió JSON con el mismo ETag.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+    private final DirectoryVersion directoryVersion;
+
+    private final long settleMillis;
+
+    public ConditionalGetInterceptor(DirectoryVersion directoryVersion, Duration settle) {
+        this.directoryVersion = directoryVersion;
+        this.settleMillis = settle.toMillis();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        var lastModified = directoryVersion.getLastModified();
+        if (settleMillis > 0 && System.currentTimeMillis() - lastModified < settleMillis) {
+            return true;
+        }
+        var webRequest = new ServletWebRequest(request, response);
+        return !webRequest.checkNotModified(directoryVersion.getETag(), lastModified);
+    }
+}
@@ -0,0 +1,65 @@
+package com.davidbonelo.libreta.controller;
+
+import com.davidbonelo.libreta.service.dedup.DuplicateDetector;
+import com.davidbonelo.libreta.utility.Response;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+
+@CrossOrigin
+@RestController
+public class DuplicateController {
+    @Autowired
+    private DuplicateDetector duplicateDetector;
+
+    /**
+     * Inicia una búsqueda de contactos duplicados en todo el directorio. La búsqueda corre en segundo plano (en un
+     * directorio de un millón de contactos toma minutos) y su resultado se consulta con
+     * GET api/v1/duplicates/{id}. Si ya hay una búsqueda corriendo se devuelve esa.
+     *
+     * @param minScore Calificación mínima de una sugerencia, de 0 a 1
+     * @param limit    Cantidad máxima de sugerencias
+     * @return Objeto Response en formato JSON con el trabajo iniciado
+     */
+    @PostMapping(path = "api/v1/duplicates")
+    public ResponseEntity<Response> startDuplicates(
+            @RequestParam(value = "minScore", defaultValue = "${libreta.dedup.min-score:0.6}") double minScore,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (minScore < 0 || minScore > 1) {
+            throw new IllegalArgumentException("La calificación mínima debe estar entre 0 y 1");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("El límite de sugerencias debe ser mayor que cero");
+        }
+        var job = duplicateDetector.start(minScore, limit);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/duplicates/" + job.id()))
+                .body(new Response(job));
+    }
+
+    /**
+     * Consulta una búsqueda de duplicados. Mientras corre su estado es RUNNING; al terminar es DONE con las sugerencias
+     * de fusión ordenadas de la más probable a la menos probable, que se aplican con
+     * POST api/v1/contact/{id}/merge/{duplicateId}, o FAILED con el error.
+     *
+     * @param id Identificador del trabajo
+     * @return Objeto Response en formato JSON con el trabajo
+     */
+    @GetMapping(path = "api/v1/duplicates/{id}")
+    public ResponseEntity<Response> getDuplicates(@PathVariable(value = "id") String id) {
+        var job = duplicateDetector.getJob(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "La búsqueda de duplicados indicada no existe");
+        }
+        return new ResponseEntity<>(new Response(job), HttpStatus.OK);
+    }
+}
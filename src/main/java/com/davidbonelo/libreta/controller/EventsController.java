@@ -0,0 +1,33 @@
+package com.davidbonelo.libreta.controller;
+
+import com.davidbonelo.libreta.service.events.ChangeStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@CrossOrigin
+@RestController
+public class EventsController {
+    @Autowired
+    private ChangeStream changeStream;
+
+    /**
+     * Flujo Server-Sent Events con los contactos y teléfonos creados, actualizados o borrados, emitidos después de que
+     * cada transacción se confirma. Un cliente que se reconecta envía su último identificador de evento en la cabecera
+     * Last-Event-ID (o en el parámetro lastEventId) y recibe los eventos que se perdió.
+     *
+     * @param lastEventIdHeader Último evento recibido, como lo envía EventSource al reconectarse
+     * @param lastEventIdParam  Último evento recibido, para clientes que no pueden enviar cabeceras
+     * @return Emisor SSE de la suscripción
+     */
+    @GetMapping(path = "api/v1/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        return changeStream.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+    }
+}
@@ -0,0 +1,45 @@
+package com.davidbonelo.libreta.controller;
+
+import com.davidbonelo.libreta.service.export.ContactoExporter;
+import com.davidbonelo.libreta.service.export.ExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Slf4j
+@CrossOrigin
+@RestController
+public class ExportController {
+    @Autowired
+    private ContactoExporter contactoExporter;
+
+    /**
+     * Exporta el directorio completo (contactos y sus teléfonos) en NDJSON, CSV o vCard. La respuesta se escribe a
+     * medida que se leen las filas de la base de datos, sin el sobre Response.
+     *
+     * @param format Formato de exportación: ndjson, csv o vcard
+     * @return Flujo con el directorio exportado
+     */
+    @GetMapping(path = "api/v1/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        var exportFormat = ExportFormat.from(format);
+        StreamingResponseBody body = output -> {
+            var start = System.nanoTime();
+            contactoExporter.export(exportFormat, output);
+            log.info("Exportación {} terminada en {} ms", exportFormat, (System.nanoTime() - start) / 1_000_000);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"libreta." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -3,71 +3,100 @@ package com.davidbonelo.libreta.controller;
 import com.davidbonelo.libreta.domain.Contacto;
 import com.davidbonelo.libreta.domain.Telefono;
 import com.davidbonelo.libreta.service.LibretaService;
+import com.davidbonelo.libreta.service.cache.LibretaCache;
+import com.davidbonelo.libreta.utility.FieldSet;
 import com.davidbonelo.libreta.utility.Response;
-import jakarta.servlet.http.HttpServletResponse;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.sql.SQLException;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
 
 @Slf4j
 @CrossOrigin
 @RestController
 public class LibretaController {
-    private final Response response = new Response();
+    /**
+     * Tipo de contenido de un JSON Merge Patch
+     */
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
     @Autowired
     private LibretaService libretaService;
-    private HttpStatus httpStatus = HttpStatus.OK;
+    @Autowired
+    private LibretaCache libretaCache;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @GetMapping(path = "/")
-    public ResponseEntity<Response> homeIndex1(HttpServletResponse httpResponse) {
-        return getResponseHome(httpResponse);
+    public ResponseEntity<Response> homeIndex1() {
+        return getResponseHome();
     }
 
     @GetMapping(path = "api")
-    public ResponseEntity<Response> homeIndex2(HttpServletResponse httpResponse) {
-        return getResponseHome(httpResponse);
+    public ResponseEntity<Response> homeIndex2() {
+        return getResponseHome();
     }
 
     @GetMapping(path = "api/v1")
-    public ResponseEntity<Response> homeIndex3(HttpServletResponse httpResponse) {
-        return getResponseHome(httpResponse);
+    public ResponseEntity<Response> homeIndex3() {
+        return getResponseHome();
     }
 
     /**
-     * Index del sistema, responde con el listado de contactos y sus teléfonos
+     * Index del sistema, responde con una página del listado de contactos y sus teléfonos
      *
+     * @param cursor Token de continuación devuelto por la página anterior
+     * @param size   Tamaño de página solicitado
+     * @param fields Campos a devolver separados por comas (por ejemplo nombre,apellido), todos si se omite
      * @return Objeto Response en formato JSON
      */
     @GetMapping(path = "api/v1/index")
-    public ResponseEntity<Response> index(HttpServletResponse httpResponse) {
-        response.restart();
-        try {
-            response.data = libretaService.getList();
-            httpStatus = HttpStatus.OK;
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
+    public ResponseEntity<Response> index(@RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "size", required = false) Integer size,
+                                          @RequestParam(value = "fields", required = false) String fields) {
+        if (fields != null) {
+            var page = libretaService.getList("id", Sort.Direction.ASC, cursor, size, FieldSet.parse(fields));
+            return new ResponseEntity<>(new Response(page), HttpStatus.OK);
         }
-        return new ResponseEntity<>(response, httpStatus);
+        return new ResponseEntity<>(new Response(libretaService.getList(cursor, size)), HttpStatus.OK);
     }
 
+    /**
+     * Responde con una página del listado de contactos ordenado por el campo indicado (id, nombre o apellido)
+     *
+     * @param orderBy Campo por el cual ordenar
+     * @param order   Dirección del ordenamiento
+     * @param cursor  Token de continuación devuelto por la página anterior
+     * @param size    Tamaño de página solicitado
+     * @param fields  Campos a devolver separados por comas (por ejemplo nombre,apellido), todos si se omite
+     * @return Objeto Response en formato JSON
+     */
     @GetMapping(path = "api/v1/index/orderby/{orderBy}/{order}")
     public ResponseEntity<Response> indexOrderBy(@PathVariable(value = "orderBy") String orderBy,
-                                                 @PathVariable(value = "order") Sort.Direction order) {
-        response.restart();
-        try {
-            response.data = libretaService.getList(orderBy, order);
-            httpStatus = HttpStatus.OK;
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
+                                                 @PathVariable(value = "order") Sort.Direction order,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 @RequestParam(value = "size", required = false) Integer size,
+                                                 @RequestParam(value = "fields", required = false) String fields) {
+        if (fields != null) {
+            var page = libretaService.getList(orderBy, order, cursor, size, FieldSet.parse(fields));
+            return new ResponseEntity<>(new Response(page), HttpStatus.OK);
         }
-        return new ResponseEntity<>(response, httpStatus);
+        var page = libretaService.getList(orderBy, order, cursor, size);
+        return new ResponseEntity<>(new Response(page), HttpStatus.OK);
 
     }
 
@@ -75,18 +104,114 @@ public class LibretaController {
      * Devuelve el listado de contactos y sus teléfonos basados en un datos a buscar por nombre y/o apellidos
      *
      * @param dataToSearch Información a buscar
+     * @param fields       Campos a devolver separados por comas (por ejemplo nombre,apellido), todos si se omite
+     * @param fuzzy        Búsqueda aproximada: sin importar acentos, con errores de escritura y por cómo suena
      * @return Objeto Response en formato JSON
      */
     @GetMapping(path = "api/v1/search/contact/{dataToSearch}")
-    public ResponseEntity<Response> searchContactByNombreOrApellido(@PathVariable(value = "dataToSearch") String dataToSearch) {
-        response.restart();
-        try {
-            response.data = libretaService.searchContacto(dataToSearch);
-            httpStatus = HttpStatus.OK;
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
+    public ResponseEntity<Response> searchContactByNombreOrApellido(@PathVariable(value = "dataToSearch") String dataToSearch,
+                                                                    @RequestParam(value = "fields", required = false) String fields,
+                                                                    @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy) {
+        if (fuzzy) {
+            if (fields != null) {
+                var contactos = libretaService.searchContactoFuzzy(dataToSearch, FieldSet.parse(fields));
+                return new ResponseEntity<>(new Response(contactos), HttpStatus.OK);
+            }
+            return new ResponseEntity<>(new Response(libretaService.searchContactoFuzzy(dataToSearch)), HttpStatus.OK);
+        }
+        if (fields != null) {
+            var contactos = libretaService.searchContacto(dataToSearch, FieldSet.parse(fields));
+            return new ResponseEntity<>(new Response(contactos), HttpStatus.OK);
         }
-        return new ResponseEntity<>(response, httpStatus);
+        return new ResponseEntity<>(new Response(libretaService.searchContacto(dataToSearch)), HttpStatus.OK);
+    }
+
+    /**
+     * Búsqueda inversa: devuelve los contactos dueños de un número de teléfono, escrito en cualquier formato
+     * (+57 300 123 4567, (300) 123-4567, 0057...)
+     *
+     * @param numero Número de teléfono a buscar
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/search/phone/{numero}")
+    public ResponseEntity<Response> searchContactByTelefono(@PathVariable(value = "numero") String numero) {
+        return new ResponseEntity<>(new Response(libretaService.searchTelefono(numero)), HttpStatus.OK);
+    }
+
+    /**
+     * Devuelve los contactos que cumplen años en los próximos días, en el orden en que los cumplen, con la fecha y la
+     * edad que cumplen
+     *
+     * @param from   Primer día de la ventana (AAAA-MM-DD), hoy si se omite
+     * @param days   Días de la ventana contando el primero, de 1 a 365
+     * @param cursor Token de continuación devuelto por la página anterior
+     * @param size   Tamaño de página solicitado
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/birthdays")
+    public ResponseEntity<Response> birthdays(@RequestParam(value = "from", required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                              @RequestParam(value = "days", defaultValue = "7") int days,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", required = false) Integer size) {
+        return new ResponseEntity<>(new Response(libretaService.getBirthdays(from, days, cursor, size)), HttpStatus.OK);
+    }
+
+    /**
+     * Devuelve un contacto y sus teléfonos basado en su identificador
+     *
+     * @param id Identificador del contacto
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/contact/{id}")
+    public ResponseEntity<Response> getContacto(@PathVariable(value = "id") Integer id) {
+        var contacto = libretaService.getContacto(id);
+        if (contacto == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "El contacto indicado no existe");
+        }
+        return new ResponseEntity<>(new Response(contacto), HttpStatus.OK);
+    }
+
+    /**
+     * Devuelve un número de teléfono basado en su identificador
+     *
+     * @param id Identificador del teléfono
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/phone/{id}")
+    public ResponseEntity<Response> getTelefono(@PathVariable(value = "id") Integer id) {
+        var telefono = libretaService.getTelefono(id);
+        if (telefono == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "El teléfono indicado no existe");
+        }
+        return new ResponseEntity<>(new Response(telefono), HttpStatus.OK);
+    }
+
+    /**
+     * Sincronización por cambios: devuelve por páginas solo los contactos y teléfonos creados, actualizados o borrados
+     * después de la marca de agua que envía el cliente. Las páginas siguientes se piden con nextCursor y la última
+     * trae la nueva marca de agua.
+     *
+     * @param since  Marca de agua ISO-8601 de la sincronización anterior, se omite en la primera sincronización
+     * @param cursor Token de continuación devuelto por la página anterior
+     * @param size   Tamaño de página solicitado
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/sync")
+    public ResponseEntity<Response> sync(@RequestParam(value = "since", required = false) Instant since,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "size", required = false) Integer size) {
+        return new ResponseEntity<>(new Response(libretaService.getChanges(since, cursor, size)), HttpStatus.OK);
+    }
+
+    /**
+     * Devuelve los contadores de aciertos, fallos y desalojos de la caché de entidades
+     *
+     * @return Objeto Response en formato JSON
+     */
+    @GetMapping(path = "api/v1/cache/stats")
+    public ResponseEntity<Response> cacheStats() {
+        return new ResponseEntity<>(new Response(libretaCache.getStats()), HttpStatus.OK);
     }
 
     /**
@@ -97,17 +222,27 @@ public class LibretaController {
      */
     @PostMapping(path = "api/v1/contact")
     public ResponseEntity<Response> createContacto(@RequestBody Contacto contacto) {
-        response.restart();
-        try {
-            log.info("Contacto a crear: {}", contacto);
-            response.data = libretaService.createContacto(contacto);
-            httpStatus = HttpStatus.CREATED;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
+        log.info("Contacto a crear: {}", contacto);
+        return new ResponseEntity<>(new Response(libretaService.createContacto(contacto)), HttpStatus.CREATED);
+    }
+
+    /**
+     * Importa de forma masiva contactos con sus teléfonos anidados. El cuerpo puede ser un arreglo JSON o NDJSON (un
+     * contacto por línea) y se lee como flujo, sin cargar el archivo completo en memoria.
+     *
+     * @param request Petición HTTP con el flujo de contactos
+     * @return Objeto Response en formato JSON con el resultado de la importación
+     * @throws IOException si no se puede leer el cuerpo de la petición
+     */
+    @PostMapping(path = "api/v1/contact/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Response> importContactos(HttpServletRequest request) throws IOException {
+        try (MappingIterator<Contacto> contactos =
+                     objectMapper.readerFor(Contacto.class).readValues(request.getInputStream())) {
+            var result = libretaService.importContactos(contactos);
+            log.info("Importación masiva: {} recibidos, {} guardados", result.getReceived(), result.getImported());
+            return new ResponseEntity<>(new Response(result), HttpStatus.OK);
         }
-        return new ResponseEntity<>(response, httpStatus);
     }
 
     /**
@@ -118,17 +253,8 @@ public class LibretaController {
      */
     @PostMapping(path = "api/v1/phone")
     public ResponseEntity<Response> createTelefono(@RequestBody Telefono telefono) {
-        response.restart();
-        try {
-            log.info("Telefono a crear: {}", telefono);
-            response.data = libretaService.createTelefono(telefono);
-            httpStatus = HttpStatus.CREATED;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
-        }
-        return new ResponseEntity<>(response, httpStatus);
+        log.info("Telefono a crear: {}", telefono);
+        return new ResponseEntity<>(new Response(libretaService.createTelefono(telefono)), HttpStatus.CREATED);
     }
 
     /**
@@ -141,18 +267,9 @@ public class LibretaController {
     @PutMapping(path = "/api/v1/contact/{id}")
     public ResponseEntity<Response> updateContacto(@PathVariable(value = "id") Integer id,
                                                    @RequestBody Contacto contacto) {
-        response.restart();
-        try {
-            contacto.setId(id);
-            log.info("Contacto a actualizar: {}", contacto);
-            response.data = libretaService.updateContacto(id, contacto);
-            httpStatus = HttpStatus.OK;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
-        }
-        return new ResponseEntity<>(response, httpStatus);
+        contacto.setId(id);
+        log.info("Contacto a actualizar: {}", contacto);
+        return new ResponseEntity<>(new Response(libretaService.updateContacto(id, contacto)), HttpStatus.OK);
     }
 
     /**
@@ -165,18 +282,9 @@ public class LibretaController {
     @PutMapping(path = "api/v1/phone/{id}")
     public ResponseEntity<Response> updateTelefono(@PathVariable(value = "id") Integer id,
                                                    @RequestBody Telefono telefono) {
-        response.restart();
-        try {
-            telefono.setId(id);
-            log.info("Telefono a actualizar: {}", telefono);
-            response.data = libretaService.updateTelefono(id, telefono);
-            httpStatus = HttpStatus.OK;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
-        }
-        return new ResponseEntity<>(response, httpStatus);
+        telefono.setId(id);
+        log.info("Telefono a actualizar: {}", telefono);
+        return new ResponseEntity<>(new Response(libretaService.updateTelefono(id, telefono)), HttpStatus.OK);
     }
 
     /**
@@ -190,18 +298,9 @@ public class LibretaController {
     @PatchMapping(path = "api/v1/contact/{id}/name")
     public ResponseEntity<Response> updateNombreFromContacto(@PathVariable(value = "id") Integer id,
                                                              @RequestBody Contacto contacto) {
-        response.restart();
-        try {
-            contacto.setId(id);
-            log.info("Contacto a actualizar: {}", contacto);
-            response.data = libretaService.updateNombre(id, contacto);
-            httpStatus = HttpStatus.OK;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
-        }
-        return new ResponseEntity<>(response, httpStatus);
+        contacto.setId(id);
+        log.info("Contacto a actualizar: {}", contacto);
+        return contactoPatched(libretaService.updateNombre(id, contacto));
     }
 
     /**
@@ -214,18 +313,9 @@ public class LibretaController {
     @PatchMapping(path = "api/v1/contact/{id}/lastname")
     public ResponseEntity<Response> updateApellidoFromContacto(@PathVariable(value = "id") Integer id,
                                                                @RequestBody Contacto contacto) {
-        response.restart();
-        try {
-            contacto.setId(id);
-            log.info("Contacto a actualizar: {}", contacto);
-            response.data = libretaService.updateApellidos(id, contacto);
-            httpStatus = HttpStatus.OK;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
-        }
-        return new ResponseEntity<>(response, httpStatus);
+        contacto.setId(id);
+        log.info("Contacto a actualizar: {}", contacto);
+        return contactoPatched(libretaService.updateApellidos(id, contacto));
     }
 
     /**
@@ -238,18 +328,55 @@ public class LibretaController {
     @PatchMapping(path = "api/v1/phone/{id}/number")
     public ResponseEntity<Response> updateOnlyTelefono(@PathVariable(value = "id") Integer id,
                                                        @RequestBody Telefono telefono) {
-        response.restart();
-        try {
-            telefono.setId(id);
-            log.info("Telefono a actualizar: {}", telefono);
-            response.data = libretaService.updateOnlyTelefono(id, telefono);
-            httpStatus = HttpStatus.OK;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
+        telefono.setId(id);
+        log.info("Telefono a actualizar: {}", telefono);
+        return telefonoPatched(libretaService.updateOnlyTelefono(id, telefono));
+    }
+
+    /**
+     * Actualización parcial de un contacto con JSON Merge Patch (RFC 7396): solo se escriben los campos enviados
+     *
+     * @param id    Identificador del contacto a actualizar
+     * @param patch Documento del parche, por ejemplo {"email": "nuevo@libreta.com"}
+     * @return Objeto Response en formato JSON con el identificador, los campos cambiados y la fecha de actualización
+     */
+    @PatchMapping(path = "api/v1/contact/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Response> patchContacto(@PathVariable(value = "id") Integer id,
+                                                  @RequestBody Map<String, Object> patch) {
+        log.info("Parche del contacto {}: {}", id, patch);
+        return contactoPatched(libretaService.patchContacto(id, patch));
+    }
+
+    /**
+     * Actualización parcial de un teléfono con JSON Merge Patch (RFC 7396): solo se escriben los campos enviados
+     *
+     * @param id    Identificador del teléfono a actualizar
+     * @param patch Documento del parche, por ejemplo {"telefono": "300 123 4567"}
+     * @return Objeto Response en formato JSON con el identificador, los campos cambiados y la fecha de actualización
+     */
+    @PatchMapping(path = "api/v1/phone/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Response> patchTelefono(@PathVariable(value = "id") Integer id,
+                                                  @RequestBody Map<String, Object> patch) {
+        log.info("Parche del teléfono {}: {}", id, patch);
+        return telefonoPatched(libretaService.patchTelefono(id, patch));
+    }
+
+    /**
+     * Fusiona un contacto duplicado en otro: sus teléfonos pasan al contacto indicado y el duplicado se borra
+     *
+     * @param id          Identificador del contacto que se conserva
+     * @param duplicateId Identificador del contacto duplicado
+     * @return Objeto Response en formato JSON con el contacto conservado y sus teléfonos
+     */
+    @PostMapping(path = "api/v1/contact/{id}/merge/{duplicateId}")
+    public ResponseEntity<Response> mergeContactos(@PathVariable(value = "id") Integer id,
+                                                   @PathVariable(value = "duplicateId") Integer duplicateId) {
+        var contacto = libretaService.mergeContactos(id, duplicateId);
+        if (contacto == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "El contacto indicado no existe");
         }
-        return new ResponseEntity<>(response, httpStatus);
+        log.info("Contacto {} fusionado en {}", duplicateId, id);
+        return new ResponseEntity<>(new Response(contacto), HttpStatus.OK);
     }
 
     /**
@@ -260,16 +387,7 @@ public class LibretaController {
      */
     @DeleteMapping(path = "api/v1/contact/{id}")
     public ResponseEntity<Response> deleteContactto(@PathVariable(value = "id") Integer id) {
-        response.restart();
-        try {
-            response.data = libretaService.deleteContacto(id);
-            httpStatus = HttpStatus.OK;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
-        }
-        return new ResponseEntity<>(response, httpStatus);
+        return new ResponseEntity<>(new Response(libretaService.deleteContacto(id)), HttpStatus.OK);
 
     }
 
@@ -281,61 +399,39 @@ public class LibretaController {
      */
     @DeleteMapping(path = "api/v1/phone/{id}")
     public ResponseEntity<Response> deleteTelefono(@PathVariable(value = "id") Integer id) {
-        response.restart();
-        try {
-            response.data = libretaService.deleteTelefono(id);
-            httpStatus = HttpStatus.OK;
-        } catch (DataAccessException exception) {
-            getErrorMessageForResponse(exception);
-        } catch (Exception exception) {
-            getErrorMessageInternal(exception);
-        }
-        return new ResponseEntity<>(response, httpStatus);
+        return new ResponseEntity<>(new Response(libretaService.deleteTelefono(id)), HttpStatus.OK);
     }
 
-    private ResponseEntity<Response> getResponseHome(HttpServletResponse httpResponse) {
-        response.restart();
-        try {
-            httpResponse.sendRedirect("/api/v1/index");
-        } catch (IOException exception) {
-            response.error = true;
-            response.data = exception.getCause();
-            response.message = exception.getMessage();
-            httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+    /**
+     * Responde el contacto actualizado, o los campos cambiados en el caso del merge patch; null es un contacto que
+     * no existe
+     */
+    private static ResponseEntity<Response> contactoPatched(Object changes) {
+        if (changes == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "El contacto indicado no existe");
         }
-        return new ResponseEntity<>(response, httpStatus);
+        return new ResponseEntity<>(new Response(changes), HttpStatus.OK);
     }
 
     /**
-     * Administrador para las excepciones del sistema
-     *
-     * @param exception Objeto Exception
+     * Responde el teléfono actualizado, o los campos cambiados en el caso del merge patch; null es un teléfono o un
+     * contacto destino que no existe
      */
-    private void getErrorMessageInternal(Exception exception) {
-        response.error = true;
-        response.message = exception.getMessage();
-        response.data = exception.getCause();
-        httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+    private static ResponseEntity<Response> telefonoPatched(Object changes) {
+        if (changes == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "El teléfono indicado no existe o el contacto destino no existe");
+        }
+        return new ResponseEntity<>(new Response(changes), HttpStatus.OK);
     }
 
-    private void getErrorMessageForResponse(DataAccessException exception) {
-        response.error = true;
-        if (exception.getRootCause() instanceof SQLException sqlEx) {
-            var sqlErrorCode = sqlEx.getErrorCode();
-            switch (sqlErrorCode) {
-                case 1062 -> response.message = "El dato ya está registrado";
-                case 1452 -> response.message = "El usuario indicado no existe";
-                default -> {
-                    response.message = exception.getMessage();
-                    response.data = exception.getCause();
-                }
-            }
-            httpStatus = HttpStatus.BAD_REQUEST;
-        } else {
-            response.message = exception.getMessage();
-            response.data = exception.getCause();
-            httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
-        }
+    /**
+     * Redirige las rutas de inicio al index del sistema
+     *
+     * @return Respuesta de redirección
+     */
+    private ResponseEntity<Response> getResponseHome() {
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/api/v1/index")).build();
     }
 
 }
@@ -0,0 +1,86 @@
+package com.davidbonelo.libreta.controller;
+
+import com.davidbonelo.libreta.utility.Response;
+import com.davidbonelo.libreta.utility.SqlErrors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.sql.SQLException;
+
+/**
+ * Traduce las excepciones que salen de los controladores a un objeto Response con el código HTTP adecuado
+ */
+@Slf4j
+@RestControllerAdvice
+public class LibretaExceptionHandler {
+
+    /**
+     * Administrador para los errores causados por datos inválidos en la petición
+     *
+     * @param exception Objeto IllegalArgumentException
+     * @return Objeto Response en formato JSON
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Response> handleBadRequest(IllegalArgumentException exception) {
+        return new ResponseEntity<>(Response.error(exception.getMessage(), null), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Administrador para las escrituras que chocaron con otra simultánea sobre la misma fila (interbloqueo, espera de
+     * bloqueo agotada, contacto borrado durante una fusión), el cliente puede reintentar
+     *
+     * @param exception Objeto ConcurrencyFailureException
+     * @return Objeto Response en formato JSON
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<Response> handleConflict(ConcurrencyFailureException exception) {
+        log.warn("Conflicto de concurrencia: {}", exception.getMessage());
+        return new ResponseEntity<>(Response.error("El registro fue modificado por otra petición, intente de nuevo",
+                null), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Administrador para los errores de la base de datos, los datos duplicados y las llaves foráneas inexistentes son
+     * errores del cliente
+     *
+     * @param exception Objeto DataAccessException
+     * @return Objeto Response en formato JSON
+     */
+    @ExceptionHandler(DataAccessException.class)
+    public ResponseEntity<Response> handleDataAccess(DataAccessException exception) {
+        var clientMessage = SqlErrors.clientMessage(exception);
+        if (clientMessage.isPresent()) {
+            return new ResponseEntity<>(Response.error(clientMessage.get(), null), HttpStatus.BAD_REQUEST);
+        }
+        if (exception.getRootCause() instanceof SQLException) {
+            return new ResponseEntity<>(Response.error(exception.getMessage(), exception.getCause()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return handleInternal(exception);
+    }
+
+    /**
+     * Administrador para las excepciones del sistema. Las excepciones propias de Spring MVC (ruta inexistente,
+     * parámetro inválido, etc.) conservan su código HTTP.
+     *
+     * @param exception Objeto Exception
+     * @return Objeto Response en formato JSON
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Response> handleInternal(Exception exception) {
+        if (exception instanceof ErrorResponse errorResponse) {
+            var message = errorResponse.getBody().getDetail();
+            return new ResponseEntity<>(Response.error(message == null ? exception.getMessage() : message, null),
+                    errorResponse.getStatusCode());
+        }
+        log.error("Error procesando la petición", exception);
+        return new ResponseEntity<>(Response.error(exception.getMessage(), exception.getCause()),
+                HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,59 @@
+package com.davidbonelo.libreta.controller;
+
+import com.davidbonelo.libreta.service.cache.DirectoryVersion;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+    @Autowired
+    private DirectoryVersion directoryVersion;
+
+    @Value("${libreta.datasource.replicas:}")
+    private String replicas;
+
+    @Value("${libreta.datasource.replica-max-lag:5s}")
+    private Duration replicaMaxLag;
+
+    @Value("${libreta.datasource.replica-check-interval:5s}")
+    private Duration replicaCheckInterval;
+
+    /**
+     * Respuestas condicionales (ETag / Last-Modified) en el listado y las búsquedas
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        var settle = replicas.isBlank() ? Duration.ZERO : replicaMaxLag.plus(replicaCheckInterval);
+        registry.addInterceptor(new ConditionalGetInterceptor(directoryVersion, settle))
+                .addPathPatterns("/api/v1/index", "/api/v1/index/**", "/api/v1/search/**");
+    }
+
+    /**
+     * Respuestas en CBOR (Accept: application/cbor) con la misma configuración de Jackson que el JSON, así los nombres
+     * de los campos y el formato de las fechas no cambian entre representaciones
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Respuestas en Smile (Accept: application/x-jackson-smile), JSON binario que además comparte los nombres de
+     * campo repetidos, con la misma configuración de Jackson que el JSON
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,73 @@
+package com.davidbonelo.libreta.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca del hilo actual para leer del primario aunque la transacción sea de solo lectura. La usan las lecturas que no
+ * toleran el retraso de una réplica (cargas de la caché compartida, sincronización por cambios, construcción de los
+ * índices) y el filtro de lectura de las propias escrituras. Sin réplicas configuradas no tiene efecto.
+ * <p>
+ * La conexión se toma en la primera sentencia de la transacción, así que basta con marcar el hilo dentro del método
+ * transaccional, antes de consultar.
+ */
+public final class DataSourceRouting {
+    private static final ThreadLocal<Boolean> PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * Ejecuta la acción leyendo del primario
+     *
+     * @param action Acción que consulta la base de datos
+     * @return Resultado de la acción
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        var previous = enterPrimary();
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Ejecuta la acción leyendo del primario
+     *
+     * @param action Acción que consulta la base de datos
+     */
+    public static void runOnPrimary(Runnable action) {
+        var previous = enterPrimary();
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Indica si el hilo actual debe leer del primario
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY.get();
+    }
+
+    /**
+     * Marca el hilo actual para leer del primario
+     *
+     * @return Marca anterior, para {@link #restore(boolean)}
+     */
+    static boolean enterPrimary() {
+        var previous = PRIMARY.get();
+        PRIMARY.set(true);
+        return previous;
+    }
+
+    static void restore(boolean previous) {
+        if (previous) {
+            PRIMARY.set(true);
+        } else {
+            PRIMARY.remove();
+        }
+    }
+}
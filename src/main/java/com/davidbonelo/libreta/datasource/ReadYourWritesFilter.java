@@ -0,0 +1,135 @@
+package com.davidbonelo.libreta.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Lectura de las propias escrituras: cada escritura deja en el cliente una cookie con el instante hasta el cual sus
+ * lecturas van al primario, así un cliente no deja de ver lo que acaba de escribir por el retraso de una réplica. Los
+ * demás clientes siguen leyendo de las réplicas. La ventana empieza cuando termina la escritura, justo antes de
+ * enviar la respuesta, así una importación larga o una escritura que esperó en la cola de agrupación no llega con la
+ * cookie ya vencida. Un cliente que manipula la cookie solo consigue leer del primario. Con una ventana de 0s no hace
+ * nada.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String COOKIE = "libreta-primary-until";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (window.isZero()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var write = WRITE_METHODS.contains(request.getMethod());
+        if (!write && stickyUntil(request) <= System.currentTimeMillis()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var target = write ? new StickyResponse(response) : response;
+        var previous = DataSourceRouting.enterPrimary();
+        try {
+            chain.doFilter(request, target);
+        } finally {
+            DataSourceRouting.restore(previous);
+        }
+        if (target instanceof StickyResponse sticky && !request.isAsyncStarted()) {
+            sticky.stick();
+        }
+    }
+
+    private static long stickyUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (var cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Respuesta de una escritura que agrega la cookie la primera vez que se va a escribir o enviar la respuesta, o al
+     * terminar si la respuesta no tiene cuerpo; para entonces la escritura ya se confirmó
+     */
+    private final class StickyResponse extends HttpServletResponseWrapper {
+        private boolean added;
+
+        private StickyResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private void stick() {
+            if (added || isCommitted()) {
+                return;
+            }
+            added = true;
+            var cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds() + 1));
+            addCookie(cookie);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            stick();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            stick();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            stick();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            stick();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            stick();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            stick();
+            super.sendRedirect(location);
+        }
+    }
+}
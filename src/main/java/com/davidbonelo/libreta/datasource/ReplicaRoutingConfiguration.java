@@ -0,0 +1,82 @@
+package com.davidbonelo.libreta.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Réplicas de lectura, se activa al configurar libreta.datasource.replicas. Reemplaza el DataSource de Spring Boot
+ * por un {@link ReplicaRoutingDataSource}; el primario usa spring.datasource.* y cada réplica la misma configuración
+ * (usuario, contraseña, spring.datasource.hikari.*) con su propia URL y en modo de solo lectura.
+ */
+@Configuration
+@ConditionalOnExpression("!'${libreta.datasource.replicas:}'.isBlank()")
+public class ReplicaRoutingConfiguration {
+    /**
+     * Los pools no se registran como beans: el único DataSource del contexto es el enrutador, así el registro de
+     * consultas lentas lo envuelve una sola vez
+     */
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                               ObjectProvider<MeterRegistry> meterRegistry,
+                                               @Value("${libreta.datasource.replicas}") String replicaUrls,
+                                               @Value("${libreta.datasource.replica-max-lag:5s}") Duration maxLag,
+                                               @Value("${libreta.datasource.replica-check-interval:5s}")
+                                               Duration checkInterval,
+                                               @Value("${libreta.datasource.replica-lag-query:SHOW SLAVE STATUS}")
+                                               String lagQuery) {
+        var primary = pool(properties, environment, meterRegistry, properties.determineUrl(), "libreta-primary",
+                false);
+        var replicas = new ArrayList<HikariDataSource>();
+        var urls = Arrays.stream(replicaUrls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        for (int i = 0; i < urls.size(); i++) {
+            replicas.add(pool(properties, environment, meterRegistry, urls.get(i), "libreta-replica-" + i, true));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, maxLag, checkInterval, lagQuery);
+    }
+
+    /**
+     * Lectura de las propias escrituras durante libreta.datasource.read-your-writes después de cada escritura
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${libreta.datasource.read-your-writes:0s}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment,
+                                         ObjectProvider<MeterRegistry> meterRegistry, String url, String name,
+                                         boolean replica) {
+        var config = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        config.setJdbcUrl(url);
+        config.setUsername(properties.determineUsername());
+        config.setPassword(properties.determinePassword());
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setPoolName(name);
+        if (replica) {
+            config.setReadOnly(true);
+            // Una réplica caída no debe impedir el arranque, la verificación la deja fuera de la rotación
+            config.setInitializationFailTimeout(-1);
+        }
+        var registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,195 @@
+package com.davidbonelo.libreta.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que envía las transacciones de solo lectura a las réplicas y todo lo demás al primario.
+ * <p>
+ * Spring marca la transacción como de solo lectura después de abrirla, por eso el enrutamiento va detrás de un
+ * {@link LazyConnectionDataSourceProxy}: la conexión real se elige en la primera sentencia, cuando la marca ya está
+ * puesta. Entre las réplicas sanas se elige la que tiene menos conexiones activas, y si ninguna está sana se lee del
+ * primario.
+ * <p>
+ * Cada libreta.datasource.replica-check-interval se valida la conexión de cada réplica y se lee su retraso de
+ * replicación con libreta.datasource.replica-lag-query (columna Seconds_Behind_Master); una réplica caída, que no
+ * replica o con más retraso que libreta.datasource.replica-max-lag sale de la rotación hasta la siguiente
+ * verificación sana. Las réplicas empiezan fuera de la rotación hasta su primera verificación.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final long maxLagSeconds;
+
+    private final String lagQuery;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService checks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "libreta-replica-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Réplica con su pool y su estado de la última verificación
+     */
+    private static final class Replica {
+        private final String key;
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = false;
+
+        private Replica(String key, HikariDataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+
+    /**
+     * Crea el enrutamiento y programa la verificación de las réplicas
+     *
+     * @param primary       Pool del primario
+     * @param replicas      Pools de las réplicas
+     * @param maxLag        Retraso máximo de replicación tolerado
+     * @param checkInterval Intervalo de verificación de las réplicas
+     * @param lagQuery      Consulta del retraso de replicación, vacía para solo validar la conexión
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxLag,
+                                    Duration checkInterval, String lagQuery) {
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toSeconds();
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+
+        var targets = new HashMap<Object, Object>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = new Replica("replica-" + i, replicas.get(i));
+            this.replicas.add(replica);
+            targets.put(replica.key, replica.dataSource);
+        }
+        var router = new Router();
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.setLenientFallback(false);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+
+        checks.scheduleWithFixedDelay(this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cantidad de réplicas que están en la rotación
+     */
+    public int getHealthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() {
+        checks.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    /**
+     * Verifica cada réplica y actualiza la rotación
+     */
+    void checkReplicas() {
+        for (var replica : replicas) {
+            var healthy = check(replica);
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("Réplica {} de vuelta en la rotación", replica.dataSource.getPoolName());
+                } else {
+                    log.warn("Réplica {} fuera de la rotación", replica.dataSource.getPoolName());
+                }
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    private boolean check(Replica replica) {
+        try (var connection = replica.dataSource.getConnection()) {
+            if (lagQuery == null) {
+                return connection.isValid(5);
+            }
+            try (var statement = connection.createStatement(); var rows = statement.executeQuery(lagQuery)) {
+                if (!rows.next()) {
+                    log.debug("La réplica {} no está replicando", replica.dataSource.getPoolName());
+                    return false;
+                }
+                var lag = rows.getLong("Seconds_Behind_Master");
+                if (rows.wasNull()) {
+                    log.debug("La réplica {} tiene la replicación detenida", replica.dataSource.getPoolName());
+                    return false;
+                }
+                if (lag > maxLagSeconds) {
+                    log.debug("La réplica {} tiene {} s de retraso", replica.dataSource.getPoolName(), lag);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException | RuntimeException exception) {
+            log.debug("No se pudo verificar la réplica {}", replica.dataSource.getPoolName(), exception);
+            return false;
+        }
+    }
+
+    /**
+     * Réplica sana con menos conexiones activas; el recorrido empieza en una réplica distinta cada vez para repartir
+     * los empates
+     *
+     * @return Llave de la réplica o null si no hay réplicas sanas
+     */
+    private String selectReplica() {
+        var size = replicas.size();
+        var start = Math.floorMod(next.getAndIncrement(), size);
+        Replica selected = null;
+        var fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            var replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            var pool = replica.dataSource.getHikariPoolMXBean();
+            var active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < fewest) {
+                selected = replica;
+                fewest = active;
+            }
+        }
+        return selected == null ? null : selected.key;
+    }
+
+    private final class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    || DataSourceRouting.isPrimaryRequired()) {
+                return PRIMARY;
+            }
+            var replica = selectReplica();
+            return replica == null ? PRIMARY : replica;
+        }
+    }
+}
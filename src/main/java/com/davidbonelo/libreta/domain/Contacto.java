@@ -1,15 +1,24 @@
 package com.davidbonelo.libreta.domain;
 
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import com.davidbonelo.libreta.utility.UninitializedFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
-import jakarta.persistence.CascadeType;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
@@ -20,7 +29,9 @@ import org.hibernate.annotations.Where;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Getter
 @Setter
@@ -29,9 +40,16 @@ import java.util.List;
 @SQLDelete(sql = "UPDATE contacto SET cnt_deleted = true WHERE cnt_id=?") //overrides delete for softDelete.
 @Where(clause = "cnt_deleted=false") // filters deleted elements when reading.
 @Table(name = "contacto")
+@JsonPropertyOrder({"id", "nombre", "apellido", "email", "fechaNacimiento", "createdAt", "updatedAt", "deleted",
+        "telefonos"}) // orden fijo de los campos en JSON, CBOR y Smile
 public class Contacto {
+    /**
+     * Identificador de la tupla, se asigna desde la secuencia contacto_seq en bloques de 50 para que Hibernate pueda
+     * agrupar los INSERT en lotes
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contacto_seq")
+    @SequenceGenerator(name = "contacto_seq", sequenceName = "contacto_seq", allocationSize = 50)
     @Column(name = "cnt_id", nullable = false)
     private Integer id;
 
@@ -48,18 +66,57 @@ public class Contacto {
     @Column(name = "cnt_apellido", nullable = false, length = 100)
     private String apellido;
 
+    /**
+     * Llave fonética del nombre, se calcula al asignar {@link #nombre} y respalda la búsqueda aproximada
+     */
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    @Column(name = "cnt_nombre_fonetico", length = 200)
+    private String nombreFonetico;
+
+    /**
+     * Llave fonética de los apellidos, se calcula al asignar {@link #apellido} y respalda la búsqueda aproximada
+     */
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    @Column(name = "cnt_apellido_fonetico", length = 200)
+    private String apellidoFonetico;
+
     /**
      * Correo electrónico del contacto
      */
     @Column(name = "cnt_email", nullable = false, length = 100)
     private String email;
 
+    /**
+     * Llaves fonéticas de cada palabra del nombre y los apellidos, una tupla por llave en contacto_fonetico. Con ellas
+     * la búsqueda aproximada en la base de datos encuentra cualquier palabra y no solo la primera de cada campo; se
+     * recalculan junto con {@link #nombreFonetico} y {@link #apellidoFonetico}.
+     */
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "contacto_fonetico", joinColumns = @JoinColumn(name = "cnf_contacto_id"))
+    @Column(name = "cnf_llave", nullable = false, length = 100)
+    private Set<String> palabrasFoneticas = new HashSet<>();
+
     /**
      * Fecha de nacimiento del contacto
      */
     @Column(name = "cnt_fecha_nacimiento", nullable = false)
     private LocalDate fechaNacimiento;
 
+    /**
+     * Mes y día de nacimiento como MMDD (315 es el 15 de marzo). Es una columna generada por la base de datos e
+     * indexada para buscar los cumpleaños con un rango; la aplicación no la escribe
+     */
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    @Column(name = "cnt_cumpleanos", insertable = false, updatable = false,
+            columnDefinition = "SMALLINT GENERATED ALWAYS AS " +
+                    "(EXTRACT(MONTH FROM cnt_fecha_nacimiento) * 100 + EXTRACT(DAY FROM cnt_fecha_nacimiento))")
+    private Integer cumpleanos;
+
     /**
      * Fecha y hora en que la tupla ha sido creada
      */
@@ -77,13 +134,37 @@ public class Contacto {
     private Instant updatedAt;
 
     /**
-     * Punto de enlace entre la entidad del Contacto y Teléfono (un contacto puede tener muchos números de teléfono)
+     * Punto de enlace entre la entidad del Contacto y Teléfono (un contacto puede tener muchos números de teléfono).
+     * Se carga de forma perezosa: las lecturas que necesitan los teléfonos los traen con un fetch join por lotes de
+     * contactos y las escrituras no los tocan.
      */
-    @OneToMany(fetch = FetchType.EAGER, targetEntity = Telefono.class, cascade = CascadeType.REMOVE, mappedBy =
-            "contacto")
+    @OneToMany(fetch = FetchType.LAZY, targetEntity = Telefono.class, mappedBy = "contacto")
     @JsonManagedReference
+    @JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = UninitializedFilter.class)
     private List<Telefono> telefonos = new ArrayList<>();
 
     @Column(name = "cnt_deleted")
     private boolean deleted = false;
+
+    /**
+     * Asigna el nombre y recalcula su llave fonética
+     *
+     * @param nombre Nombre del contacto
+     */
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+        this.nombreFonetico = SpanishPhonetics.key(nombre);
+        this.palabrasFoneticas = SpanishPhonetics.wordKeys(nombreFonetico, apellidoFonetico);
+    }
+
+    /**
+     * Asigna los apellidos y recalcula su llave fonética
+     *
+     * @param apellido Apellidos del contacto
+     */
+    public void setApellido(String apellido) {
+        this.apellido = apellido;
+        this.apellidoFonetico = SpanishPhonetics.key(apellido);
+        this.palabrasFoneticas = SpanishPhonetics.wordKeys(nombreFonetico, apellidoFonetico);
+    }
 }
@@ -1,6 +1,9 @@
 package com.davidbonelo.libreta.domain;
 
+import com.davidbonelo.libreta.utility.PhoneNumbers;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
@@ -10,6 +13,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.SequenceGenerator;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
@@ -21,9 +26,16 @@ import java.time.Instant;
 @Setter
 @Entity
 @Table(name = "telefono")
+@JsonPropertyOrder({"id", "contactoId", "telefono", "telefonoNormalizado", "createdAt",
+        "updatedAt"}) // orden fijo de los campos en JSON, CBOR y Smile
 public class Telefono {
+    /**
+     * Identificador de la tupla, se asigna desde la secuencia telefono_seq en bloques de 50 para que Hibernate pueda
+     * agrupar los INSERT en lotes
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "telefono_seq")
+    @SequenceGenerator(name = "telefono_seq", sequenceName = "telefono_seq", allocationSize = 50)
     @Column(name = "tel_id", nullable = false)
     private Integer id;
 
@@ -35,12 +47,28 @@ public class Telefono {
     @JsonBackReference
     private Contacto contacto;
 
+    /**
+     * Identificador del contacto dueño del teléfono, es de solo lectura para JPA (la columna la escribe la relación
+     * {@link #contacto}) y permite indicar el contacto al crear o actualizar un teléfono desde el API
+     */
+    @Column(name = "tel_contacto_id", insertable = false, updatable = false)
+    private Integer contactoId;
+
     /**
      * Número de teléfono
      */
     @Column(name = "tel_telefono", nullable = false, length = 30)
     private String telefono;
 
+    /**
+     * Número de teléfono en forma canónica (+ seguido solo de dígitos), se calcula al asignar {@link #telefono} y
+     * respalda la búsqueda inversa por número
+     */
+    @Setter(AccessLevel.NONE)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "tel_telefono_normalizado", length = 40)
+    private String telefonoNormalizado;
+
     /**
      * Fecha y hora en que la tupla ha sido creada
      */
@@ -54,4 +82,14 @@ public class Telefono {
     @UpdateTimestamp
     @Column(name = "tel_updated_at")
     private Instant updatedAt;
-}
\ No newline at end of file
+
+    /**
+     * Asigna el número de teléfono y recalcula su forma canónica
+     *
+     * @param telefono Número de teléfono tal como lo escribió el usuario
+     */
+    public void setTelefono(String telefono) {
+        this.telefono = telefono;
+        this.telefonoNormalizado = PhoneNumbers.normalize(telefono);
+    }
+}
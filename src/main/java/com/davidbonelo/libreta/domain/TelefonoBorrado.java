@@ -0,0 +1,39 @@
+package com.davidbonelo.libreta.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Marca de borrado de un teléfono. Los teléfonos se borran físicamente, así que esta tupla es lo único que queda para
+ * avisar a los clientes que sincronizan por cambios que el teléfono ya no existe.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "telefono_borrado")
+public class TelefonoBorrado {
+    /**
+     * Identificador del teléfono borrado
+     */
+    @Id
+    @Column(name = "tlb_tel_id", nullable = false)
+    private Integer id;
+
+    /**
+     * Identificador del contacto al que pertenecía el teléfono
+     */
+    @Column(name = "tlb_contacto_id", nullable = false)
+    private Integer contactoId;
+
+    /**
+     * Fecha y hora en que el teléfono fue borrado
+     */
+    @Column(name = "tlb_deleted_at", nullable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,62 @@
+package com.davidbonelo.libreta.metrics;
+
+/**
+ * Contadores de SQL de la petición que atiende el hilo actual. Los alimentan las estadísticas de Hibernate
+ * ({@link SqlStatistics}) y los registra {@link SqlMetricsFilter} al terminar la petición.
+ */
+public final class RequestSqlStats {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+
+    private long rows;
+
+    private RequestSqlStats() {
+    }
+
+    /**
+     * Empieza a contar las sentencias del hilo actual
+     */
+    public static void begin() {
+        CURRENT.set(new RequestSqlStats());
+    }
+
+    /**
+     * Deja de contar y devuelve lo acumulado por el hilo actual
+     *
+     * @return Contadores de la petición o null si no se estaba contando
+     */
+    public static RequestSqlStats end() {
+        var stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static void statementPrepared() {
+        var stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    static void rowsFetched(long count) {
+        var stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows += count;
+        }
+    }
+
+    /**
+     * Sentencias SQL preparadas durante la petición
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * Filas devueltas por las consultas más entidades cargadas por identificador durante la petición
+     */
+    public long getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,52 @@
+package com.davidbonelo.libreta.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mide cada operación de {@link com.davidbonelo.libreta.service.interfaces.ILibreta}: un timer libreta.service con
+ * histograma y percentiles p50/p99 por método y resultado, y un contador libreta.service.errors por método y tipo de
+ * excepción
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(* com.davidbonelo.libreta.service.interfaces.ILibreta.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        var method = joinPoint.getSignature().getName();
+        var sample = Timer.start(meterRegistry);
+        try {
+            var result = joinPoint.proceed();
+            sample.stop(timer(method, "success"));
+            return result;
+        } catch (Throwable throwable) {
+            sample.stop(timer(method, "error"));
+            Counter.builder("libreta.service.errors")
+                    .description("Errores de las operaciones de la libreta")
+                    .tag("method", method)
+                    .tag("exception", throwable.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            throw throwable;
+        }
+    }
+
+    private Timer timer(String method, String outcome) {
+        return Timer.builder("libreta.service")
+                .description("Duración de las operaciones de la libreta")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.davidbonelo.libreta.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Registro de consultas lentas. Envuelve el DataSource para medir cada sentencia en el driver; las que superan
+ * libreta.sql.slow-query.threshold se cuentan en libreta.sql.slow y una fracción libreta.sql.slow-query.sample-rate
+ * de ellas se escribe en el log con su SQL, sin los parámetros. Reemplaza el log de todas las sentencias con sus
+ * valores, que costaba rendimiento.
+ */
+@Slf4j
+@Component
+public class SlowQueryLogger implements BeanPostProcessor {
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final long thresholdMillis;
+
+    private final double sampleRate;
+
+    private Counter slowQueries;
+
+    public SlowQueryLogger(ObjectProvider<MeterRegistry> meterRegistry,
+                           @Value("${libreta.sql.slow-query.threshold:200ms}") Duration threshold,
+                           @Value("${libreta.sql.slow-query.sample-rate:1.0}") double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.thresholdMillis = threshold.toMillis();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .afterQuery(this::afterQuery)
+                    .build();
+        }
+        return bean;
+    }
+
+    private void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        if (execution.getElapsedTime() < thresholdMillis) {
+            return;
+        }
+        counter().increment();
+        if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            var sql = queries.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+            log.warn("Consulta lenta ({} ms{}): {}", execution.getElapsedTime(),
+                    execution.isBatch() ? ", lote de " + execution.getBatchSize() : "", sql);
+        }
+    }
+
+    private Counter counter() {
+        if (slowQueries == null) {
+            slowQueries = Counter.builder("libreta.sql.slow")
+                    .description("Sentencias SQL que superaron el umbral de consulta lenta")
+                    .register(meterRegistry.getObject());
+        }
+        return slowQueries;
+    }
+}
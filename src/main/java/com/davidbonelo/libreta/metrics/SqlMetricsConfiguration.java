@@ -0,0 +1,29 @@
+package com.davidbonelo.libreta.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SqlMetricsConfiguration {
+    /**
+     * Activa las estadísticas de Hibernate (expuestas como métricas hibernate.*) con la implementación que además
+     * cuenta las sentencias y filas de cada petición
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsCustomizer() {
+        return properties -> {
+            properties.put("hibernate.generate_statistics", "true");
+            properties.put("hibernate.stats.factory", SqlStatistics.FACTORY);
+        };
+    }
+
+    /**
+     * Registra por endpoint las sentencias SQL y las filas de cada petición
+     */
+    @Bean
+    public SqlMetricsFilter sqlMetricsFilter(MeterRegistry meterRegistry) {
+        return new SqlMetricsFilter(meterRegistry);
+    }
+}
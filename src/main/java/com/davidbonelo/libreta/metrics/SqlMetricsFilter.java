@@ -0,0 +1,51 @@
+package com.davidbonelo.libreta.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Registra por endpoint la cantidad de sentencias SQL y de filas leídas en cada petición
+ * (libreta.sql.statements y libreta.sql.rows). El trabajo de las respuestas asíncronas, como la exportación, corre en
+ * otro hilo y no se cuenta.
+ */
+public class SqlMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    public SqlMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            var stats = RequestSqlStats.end();
+            var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (stats != null && uri != null) {
+                summary("libreta.sql.statements", "Sentencias SQL por petición", request, uri)
+                        .record(stats.getStatements());
+                summary("libreta.sql.rows", "Filas leídas por petición", request, uri).record(stats.getRows());
+            }
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, Object uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri.toString())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
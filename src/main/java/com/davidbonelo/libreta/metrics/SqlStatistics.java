@@ -0,0 +1,38 @@
+package com.davidbonelo.libreta.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+
+/**
+ * Estadísticas de Hibernate que además de los contadores globales acumulan las sentencias y las filas de la petición
+ * en curso en {@link RequestSqlStats}
+ */
+public class SqlStatistics extends StatisticsImpl {
+    /**
+     * Fábrica que se registra en la propiedad hibernate.stats.factory
+     */
+    public static final StatisticsFactory FACTORY = SqlStatistics::new;
+
+    public SqlStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    @Override
+    public void prepareStatement() {
+        super.prepareStatement();
+        RequestSqlStats.statementPrepared();
+    }
+
+    @Override
+    public void queryExecuted(String hql, int rows, long time) {
+        super.queryExecuted(hql, rows, time);
+        RequestSqlStats.rowsFetched(rows);
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        super.fetchEntity(entityName);
+        RequestSqlStats.rowsFetched(1);
+    }
+}
@@ -0,0 +1,18 @@
+package com.davidbonelo.libreta.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Fila plana de la exportación del directorio: un contacto unido con uno de sus teléfonos (o sin teléfono)
+ *
+ * @param id              Identificador del contacto
+ * @param nombre          Nombre del contacto
+ * @param apellido        Apellidos del contacto
+ * @param email           Correo electrónico del contacto
+ * @param fechaNacimiento Fecha de nacimiento del contacto
+ * @param telefonoId      Identificador del teléfono, nulo si el contacto no tiene teléfonos
+ * @param telefono        Número de teléfono, nulo si el contacto no tiene teléfonos
+ */
+public record ContactoExportRow(Integer id, String nombre, String apellido, String email, LocalDate fechaNacimiento,
+                                Integer telefonoId, String telefono) {
+}
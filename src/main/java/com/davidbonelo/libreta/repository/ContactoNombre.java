@@ -0,0 +1,11 @@
+package com.davidbonelo.libreta.repository;
+
+/**
+ * Proyección con los datos de un contacto que participan en la búsqueda
+ *
+ * @param id       Identificador del contacto
+ * @param nombre   Nombre del contacto
+ * @param apellido Apellidos del contacto
+ */
+public record ContactoNombre(Integer id, String nombre, String apellido) {
+}
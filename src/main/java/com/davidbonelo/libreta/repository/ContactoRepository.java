@@ -1,69 +1,234 @@
 package com.davidbonelo.libreta.repository;
 
 import com.davidbonelo.libreta.domain.Contacto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ContactoRepository extends JpaRepository<Contacto, Integer> {
+public interface ContactoRepository extends JpaRepository<Contacto, Integer>, ContactoRepositoryCustom {
     /**
-     * Busca los contactos que empizan por X dato tanto por nombre como por apellido
+     * Busca los contactos que contienen X dato tanto por nombre como por apellido
      *
      * @param data Dato a buscar
      * @return Listado de contactos encontrados
      */
-    @Query(value = "SELECT cnt " +
-            "FROM Contacto cnt " +
-            "WHERE (cnt.nombre LIKE :data% OR cnt.apellido LIKE :data%) " +
+    @Query(value = "SELECT DISTINCT cnt " +
+            "FROM Contacto cnt LEFT JOIN FETCH cnt.telefonos " +
+            "WHERE cnt.nombre LIKE %:data% OR cnt.apellido LIKE %:data% " +
             "ORDER BY cnt.nombre ASC")
-    public List<Contacto> findByNombreOrApellidoStartingWith(@Param("data") String data);
+    public List<Contacto> findByNombreOrApellidoContains(@Param("data") String data);
 
     /**
-     * Busca los contactos que contienen X dato tanto por nombre como por apellido
+     * Busca los contactos que tienen en el nombre o los apellidos una palabra con alguna de las llaves fonéticas
+     * indicadas o que empieza con el prefijo indicado, con rangos sobre el índice de contacto_fonetico
      *
-     * @param data Dato a buscar
-     * @return Listado de contactos encontrados
+     * @param keys   Llaves fonéticas de palabra
+     * @param prefix Patrón LIKE con el comienzo de una llave seguido de %, o una llave sin comodín
+     * @return Identificadores de los contactos, sin un orden en particular
      */
-    @Query(value = "SELECT cnt " +
-            "FROM Contacto cnt " +
-            "WHERE cnt.nombre LIKE %:data% OR cnt.apellido LIKE %:data% " +
-            "ORDER BY cnt.nombre ASC")
-    public List<Contacto> findByNombreOrApellidoContains(@Param("data") String data);
+    @Query(value = "SELECT DISTINCT cnt.id FROM Contacto cnt JOIN cnt.palabrasFoneticas palabra " +
+            "WHERE palabra IN :keys OR palabra LIKE :prefix")
+    public List<Integer> findIdsByPalabraFonetica(@Param("keys") Collection<String> keys,
+                                                  @Param("prefix") String prefix);
 
     /**
-     * Busca los contactos que finalizan por X dato tanto por nombre como por apellido
+     * Busca una página de los contactos a los que les faltan las llaves fonéticas, guardados antes de existir las
+     * llaves o por otra aplicación, después del identificador indicado
      *
-     * @param data Dato a buscar
-     * @return Listado de contactos encontrados
+     * @param afterId Identificador del último contacto revisado, excluido
+     * @param page    Cantidad máxima de contactos a devolver
+     * @return Proyecciones con el nombre y los apellidos, ordenadas por identificador
      */
-    @Query(value = "SELECT cnt " +
-            "FROM Contacto cnt " +
-            "WHERE cnt.nombre LIKE %:data OR cnt.apellido LIKE %:data " +
-            "ORDER BY cnt.nombre ASC")
-    public List<Contacto> findByNombreOrApellidoEndingWith(@Param("data") String data);
+    @Query(value = "SELECT new com.davidbonelo.libreta.repository.ContactoNombre(cnt.id, cnt.nombre, cnt.apellido) " +
+            "FROM Contacto cnt WHERE cnt.id > :afterId AND (cnt.nombreFonetico IS NULL " +
+            "OR cnt.apellidoFonetico IS NULL OR cnt.palabrasFoneticas IS EMPTY) ORDER BY cnt.id ASC")
+    public List<ContactoNombre> findSinFonetico(@Param("afterId") int afterId, Pageable page);
 
     /**
-     * Actualiza el nombre de un contacto basado en su identificador
+     * Lee el nombre y los apellidos actuales de un contacto
      *
      * @param id Identificador del contacto
-     * @param nombre Nuevo nombre del contacto
+     * @return Proyección con el nombre y los apellidos, vacía si el contacto no existe o está borrado
+     */
+    @Query(value = "SELECT new com.davidbonelo.libreta.repository.ContactoNombre(cnt.id, cnt.nombre, cnt.apellido) " +
+            "FROM Contacto cnt WHERE cnt.id = :id")
+    public Optional<ContactoNombre> findNombreById(@Param("id") Integer id);
+
+    /**
+     * Guarda las llaves fonéticas de un contacto sin tocar su fecha de actualización, solo si el nombre y los
+     * apellidos siguen siendo los indicados; así no pisa un cambio confirmado después de leerlos
+     *
+     * @param id               Identificador del contacto
+     * @param nombre           Nombre con el que se calcularon las llaves
+     * @param apellido         Apellidos con los que se calcularon las llaves
+     * @param nombreFonetico   Llave fonética del nombre
+     * @param apellidoFonetico Llave fonética de los apellidos
+     * @return Cantidad de filas actualizadas, 0 si el contacto cambió o ya no existe
      */
     @Modifying
-//    @Query(value = "update Contacto cnt set cnt.nombre = :nombre, cnt.updatedAt = CURRENT_TIMESTAMP where cnt.id = :id")
-    @Query(value = "update Contacto cnt set cnt.nombre = :nombre where cnt.id = :id")
-    public void updateNombre(@Param(value = "id") Integer id, @Param(value = "nombre") String nombre);
+    @Query(value = "UPDATE Contacto cnt SET cnt.nombreFonetico = :nombreFonetico, " +
+            "cnt.apellidoFonetico = :apellidoFonetico " +
+            "WHERE cnt.id = :id AND cnt.nombre = :nombre AND cnt.apellido = :apellido")
+    public int updateFonetico(@Param("id") Integer id, @Param("nombre") String nombre,
+                              @Param("apellido") String apellido, @Param("nombreFonetico") String nombreFonetico,
+                              @Param("apellidoFonetico") String apellidoFonetico);
 
     /**
-     * Actualiza el apellido de un contacto basado en su identificador
+     * Borra las llaves fonéticas de palabra de un contacto, para volver a guardarlas después de un cambio del nombre
+     * o los apellidos que no pasa por la entidad
      *
      * @param id Identificador del contacto
-     * @param apellido Nuevo apellido del contacto
      */
     @Modifying
-//    @Query(value = "update Contacto cnt set cnt.apellido = :apellido, cnt.updatedAt = CURRENT_TIMESTAMP where cnt.id = :id")
-    @Query(value = "update Contacto cnt set cnt.apellido = :apellido where cnt.id = :id")
-    public void updateApellido(@Param(value = "id") Integer id, @Param(value = "apellido") String apellido);
-}
\ No newline at end of file
+    @Query(value = "DELETE FROM contacto_fonetico WHERE cnf_contacto_id = :id", nativeQuery = true)
+    public void deletePalabrasFoneticas(@Param("id") Integer id);
+
+    /**
+     * Guarda una llave fonética de palabra de un contacto
+     *
+     * @param id    Identificador del contacto
+     * @param llave Llave fonética de una palabra del nombre o los apellidos
+     */
+    @Modifying
+    @Query(value = "INSERT INTO contacto_fonetico (cnf_contacto_id, cnf_llave) VALUES (:id, :llave)",
+            nativeQuery = true)
+    public void insertPalabraFonetica(@Param("id") Integer id, @Param("llave") String llave);
+
+    /**
+     * Busca los contactos que cumplen años dentro de un rango de meses y días, a partir del último contacto entregado,
+     * con un rango sobre el índice (cnt_cumpleanos, cnt_id)
+     *
+     * @param desde    Primer mes y día del rango como MMDD, incluido
+     * @param hasta    Último mes y día del rango como MMDD, incluido
+     * @param ultimo   Mes y día del último contacto entregado, 0 para empezar desde el inicio del rango
+     * @param ultimoId Identificador del último contacto entregado, 0 para empezar desde el inicio del rango
+     * @param page     Cantidad máxima de contactos a devolver
+     * @return Listado de contactos sin sus teléfonos, ordenados por mes y día de nacimiento y por identificador
+     */
+    @Query(value = "SELECT cnt FROM Contacto cnt " +
+            "WHERE cnt.cumpleanos BETWEEN :desde AND :hasta " +
+            "AND (cnt.cumpleanos > :ultimo OR (cnt.cumpleanos = :ultimo AND cnt.id > :ultimoId)) " +
+            "ORDER BY cnt.cumpleanos ASC, cnt.id ASC")
+    public List<Contacto> findCumpleanos(@Param("desde") int desde, @Param("hasta") int hasta,
+                                         @Param("ultimo") int ultimo, @Param("ultimoId") int ultimoId,
+                                         Pageable page);
+
+    /**
+     * Busca un contacto junto con sus teléfonos en una sola consulta
+     *
+     * @param id Identificador del contacto
+     * @return Contacto encontrado
+     */
+    @Query(value = "SELECT cnt " +
+            "FROM Contacto cnt LEFT JOIN FETCH cnt.telefonos " +
+            "WHERE cnt.id = :id")
+    public Optional<Contacto> findWithTelefonosById(@Param("id") Integer id);
+
+    /**
+     * Busca un contacto no borrado y bloquea su fila hasta el final de la transacción (SELECT ... FOR UPDATE), para que
+     * un borrado o una fusión simultánea sobre el mismo contacto espere. Quien bloquea varios contactos lo hace en
+     * orden ascendente de identificador para no caer en un interbloqueo.
+     *
+     * @param id Identificador del contacto
+     * @return Contacto encontrado, vacío si no existe o ya está borrado
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "SELECT cnt FROM Contacto cnt WHERE cnt.id = :id")
+    public Optional<Contacto> findLockedById(@Param("id") Integer id);
+
+    /**
+     * Busca los contactos indicados junto con sus teléfonos en una sola consulta
+     *
+     * @param ids Identificadores de los contactos
+     * @return Listado de contactos encontrados, sin un orden en particular
+     */
+    @Query(value = "SELECT DISTINCT cnt " +
+            "FROM Contacto cnt LEFT JOIN FETCH cnt.telefonos " +
+            "WHERE cnt.id IN :ids")
+    public List<Contacto> findWithTelefonosByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Recorre el nombre y los apellidos de todos los contactos sin cargar las entidades completas, se usa para
+     * construir el índice de búsqueda
+     *
+     * @return Flujo de proyecciones, debe cerrarse y consumirse dentro de una transacción
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT new com.davidbonelo.libreta.repository.ContactoNombre(cnt.id, cnt.nombre, cnt.apellido) " +
+            "FROM Contacto cnt")
+    public Stream<ContactoNombre> streamNombres();
+
+    /**
+     * Recorre las columnas de todos los contactos sin crear entidades, se usa para construir el modelo de lectura en
+     * memoria
+     *
+     * @return Flujo de proyecciones, debe cerrarse y consumirse dentro de una transacción
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT new com.davidbonelo.libreta.repository.ContactoRow(cnt.id, cnt.nombre, cnt.apellido, " +
+            "cnt.email, cnt.fechaNacimiento, cnt.createdAt, cnt.updatedAt) FROM Contacto cnt")
+    public Stream<ContactoRow> streamRows();
+
+    /**
+     * Recorre todos los contactos unidos con sus teléfonos, ordenados por contacto, con un cursor de solo avance. Las
+     * filas son proyecciones y no entran al contexto de persistencia, así la memoria no crece con la tabla.
+     *
+     * @return Flujo de filas, debe cerrarse y consumirse dentro de una transacción
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT new com.davidbonelo.libreta.repository.ContactoExportRow(cnt.id, cnt.nombre, " +
+            "cnt.apellido, cnt.email, cnt.fechaNacimiento, tel.id, tel.telefono) " +
+            "FROM Contacto cnt LEFT JOIN cnt.telefonos tel " +
+            "ORDER BY cnt.id ASC, tel.id ASC")
+    public Stream<ContactoExportRow> streamExport();
+
+    /**
+     * Busca una página de los contactos creados, actualizados o borrados hasta una fecha, después de la posición
+     * (fecha de actualización, id) indicada. Es una consulta nativa para que el filtro de la entidad no oculte los
+     * contactos borrados, que el cliente necesita para quitarlos de su copia.
+     *
+     * @param afterAt Fecha de actualización de la última fila entregada, excluida
+     * @param afterId Identificador de la última fila entregada; Integer.MAX_VALUE excluye toda la fecha afterAt
+     * @param until   Fin del intervalo, incluido
+     * @param page    Cantidad máxima de contactos a devolver
+     * @return Listado de contactos, incluidos los borrados, sin sus teléfonos
+     */
+    @Query(value = "SELECT * FROM contacto " +
+            "WHERE cnt_updated_at <= :until " +
+            "AND (cnt_updated_at > :afterAt OR (cnt_updated_at = :afterAt AND cnt_id > :afterId)) " +
+            "ORDER BY cnt_updated_at ASC, cnt_id ASC", nativeQuery = true)
+    public List<Contacto> findChangedAfter(@Param("afterAt") Instant afterAt, @Param("afterId") int afterId,
+                                           @Param("until") Instant until, Pageable page);
+
+    /**
+     * Fecha de la última escritura sobre la tabla de contactos, incluidos los borrados
+     *
+     * @return Fecha de actualización más reciente o null si la tabla está vacía
+     */
+    @Query(value = "SELECT MAX(cnt_updated_at) FROM contacto", nativeQuery = true)
+    public Instant findLastUpdatedAt();
+
+    /**
+     * Borra lógicamente un contacto y marca la fecha del borrado, para que la sincronización por cambios lo reporte
+     *
+     * @param id        Identificador del contacto
+     * @param deletedAt Fecha y hora del borrado
+     * @return Cantidad de filas borradas, 0 si el contacto no existe o ya estaba borrado
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE Contacto cnt SET cnt.deleted = true, cnt.updatedAt = :deletedAt " +
+            "WHERE cnt.id = :id AND cnt.deleted = false")
+    public int softDelete(@Param("id") Integer id, @Param("deletedAt") Instant deletedAt);
+}
@@ -0,0 +1,60 @@
+package com.davidbonelo.libreta.repository;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.utility.Cursor;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas de Contacto que no se pueden expresar como métodos derivados o @Query fijas
+ */
+public interface ContactoRepositoryCustom {
+    /**
+     * Busca una página de contactos ordenada por el campo indicado usando paginación por llave (keyset): la página
+     * arranca después de la última fila del cursor en lugar de saltar filas con OFFSET, así el costo no crece con el
+     * número de página.
+     *
+     * @param field     Campo por el cual ordenar (nombre, apellido o id)
+     * @param direction Dirección del ordenamiento
+     * @param after     Cursor de la última fila entregada, nulo para la primera página
+     * @param limit     Cantidad máxima de filas a devolver
+     * @return Listado de contactos de la página
+     */
+    List<Contacto> findPage(String field, Sort.Direction direction, Cursor after, int limit);
+
+    /**
+     * Igual que {@link #findPage(String, Sort.Direction, Cursor, int)} pero con una proyección: la consulta solo
+     * selecciona las columnas indicadas y no crea entidades
+     *
+     * @param field     Campo por el cual ordenar (nombre, apellido o id)
+     * @param direction Dirección del ordenamiento
+     * @param after     Cursor de la última fila entregada, nulo para la primera página
+     * @param limit     Cantidad máxima de filas a devolver
+     * @param columns   Atributos de Contacto a seleccionar, deben incluir id y el campo de ordenamiento
+     * @return Filas de la página, cada una con los atributos en el orden indicado
+     */
+    List<Map<String, Object>> findPage(String field, Sort.Direction direction, Cursor after, int limit,
+                                       Collection<String> columns);
+
+    /**
+     * Lee solo las columnas indicadas de los contactos indicados
+     *
+     * @param ids     Identificadores de los contactos
+     * @param columns Atributos de Contacto a seleccionar, deben incluir id
+     * @return Filas encontradas sin un orden en particular, cada una con los atributos en el orden indicado
+     */
+    List<Map<String, Object>> findColumnsByIdIn(Collection<Integer> ids, Collection<String> columns);
+
+    /**
+     * Actualiza solo los campos indicados de un contacto con una sola sentencia UPDATE, sin leerlo antes. Los
+     * contactos borrados lógicamente no se actualizan.
+     *
+     * @param id     Identificador del contacto
+     * @param values Nuevos valores por nombre de atributo de la entidad, debe incluir updatedAt
+     * @return Cantidad de filas actualizadas, 0 si el contacto no existe o está borrado
+     */
+    int patch(Integer id, Map<String, Object> values);
+}
@@ -0,0 +1,106 @@
+package com.davidbonelo.libreta.repository;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.utility.Cursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ContactoRepositoryImpl implements ContactoRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Contacto> findPage(String field, Sort.Direction direction, Cursor after, int limit) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(Contacto.class);
+        keyset(cb, query, query.from(Contacto.class), field, direction, after);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findPage(String field, Sort.Direction direction, Cursor after, int limit,
+                                              Collection<String> columns) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createTupleQuery();
+        var root = query.from(Contacto.class);
+        query.multiselect(columns.stream().<Selection<?>>map(column -> root.get(column).alias(column)).toList());
+        keyset(cb, query, root, field, direction, after);
+        return toMaps(entityManager.createQuery(query).setMaxResults(limit).getResultList(), columns);
+    }
+
+    @Override
+    public List<Map<String, Object>> findColumnsByIdIn(Collection<Integer> ids, Collection<String> columns) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createTupleQuery();
+        var root = query.from(Contacto.class);
+        query.multiselect(columns.stream().<Selection<?>>map(column -> root.get(column).alias(column)).toList());
+        query.where(root.get("id").in(ids));
+        return toMaps(entityManager.createQuery(query).getResultList(), columns);
+    }
+
+    @Override
+    public int patch(Integer id, Map<String, Object> values) {
+        var cb = entityManager.getCriteriaBuilder();
+        var update = cb.createCriteriaUpdate(Contacto.class);
+        var root = update.from(Contacto.class);
+        values.forEach((attribute, value) -> update.set(root.get(attribute), value));
+        // El filtro de borrado va explícito, no se depende de que el @Where de la entidad aplique al UPDATE masivo
+        update.where(cb.equal(root.get("id"), id), cb.isFalse(root.get("deleted")));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Aplica el filtro y el orden de la paginación por llave: la página arranca después de la última fila del cursor
+     */
+    private static void keyset(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Contacto> root, String field,
+                               Sort.Direction direction, Cursor after) {
+        Path<Integer> id = root.get("id");
+        var ascending = direction.isAscending();
+
+        if (after != null) {
+            if ("id".equals(field)) {
+                query.where(after(cb, id, after.lastId(), ascending));
+            } else {
+                Path<String> value = root.get(field);
+                query.where(cb.or(after(cb, value, after.lastValue(), ascending),
+                        cb.and(cb.equal(value, after.lastValue()), after(cb, id, after.lastId(), ascending))));
+            }
+        }
+        if ("id".equals(field)) {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            Path<String> value = root.get(field);
+            query.orderBy(ascending ? cb.asc(value) : cb.desc(value), ascending ? cb.asc(id) : cb.desc(id));
+        }
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> tuples, Collection<String> columns) {
+        var rows = new ArrayList<Map<String, Object>>(tuples.size());
+        for (var tuple : tuples) {
+            var row = new LinkedHashMap<String, Object>();
+            columns.forEach(column -> row.put(column, tuple.get(column)));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Expression<T> path, T value,
+                                                                     boolean ascending) {
+        return ascending ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.davidbonelo.libreta.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Proyección con las columnas de un contacto, sin sus teléfonos, para el modelo de lectura en memoria
+ *
+ * @param id              Identificador del contacto
+ * @param nombre          Nombre del contacto
+ * @param apellido        Apellidos del contacto
+ * @param email           Correo electrónico del contacto
+ * @param fechaNacimiento Fecha de nacimiento del contacto
+ * @param createdAt       Fecha de creación
+ * @param updatedAt       Fecha de la última actualización, puede ser nula
+ */
+public record ContactoRow(Integer id, String nombre, String apellido, String email, LocalDate fechaNacimiento,
+                          Instant createdAt, Instant updatedAt) {
+}
@@ -0,0 +1,61 @@
+package com.davidbonelo.libreta.repository;
+
+import com.davidbonelo.libreta.domain.TelefonoBorrado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TelefonoBorradoRepository extends JpaRepository<TelefonoBorrado, Integer> {
+    /**
+     * Registra la marca de borrado de un teléfono, debe llamarse antes de borrarlo
+     *
+     * @param id        Identificador del teléfono
+     * @param deletedAt Fecha y hora del borrado
+     */
+    @Modifying
+    @Query(value = "INSERT INTO TelefonoBorrado (id, contactoId, deletedAt) " +
+            "SELECT tel.id, tel.contactoId, :deletedAt FROM Telefono tel WHERE tel.id = :id")
+    public void recordById(@Param("id") Integer id, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Registra con una sola sentencia las marcas de borrado de todos los teléfonos de un contacto, debe llamarse
+     * antes de borrarlos
+     *
+     * @param contactoId Identificador del contacto
+     * @param deletedAt  Fecha y hora del borrado
+     */
+    @Modifying
+    @Query(value = "INSERT INTO TelefonoBorrado (id, contactoId, deletedAt) " +
+            "SELECT tel.id, tel.contactoId, :deletedAt FROM Telefono tel WHERE tel.contactoId = :contactoId")
+    public void recordByContactoId(@Param("contactoId") Integer contactoId, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Busca una página de las marcas de borrado hasta una fecha, después de la posición (fecha de borrado, id)
+     * indicada
+     *
+     * @param afterAt Fecha de borrado de la última marca entregada, excluida
+     * @param afterId Identificador de la última marca entregada; Integer.MAX_VALUE excluye toda la fecha afterAt
+     * @param until   Fin del intervalo, incluido
+     * @param page    Cantidad máxima de marcas a devolver
+     * @return Marcas de borrado de los teléfonos
+     */
+    @Query(value = "SELECT tlb FROM TelefonoBorrado tlb " +
+            "WHERE tlb.deletedAt <= :until " +
+            "AND (tlb.deletedAt > :afterAt OR (tlb.deletedAt = :afterAt AND tlb.id > :afterId)) " +
+            "ORDER BY tlb.deletedAt ASC, tlb.id ASC")
+    public List<TelefonoBorrado> findDeletedAfter(@Param("afterAt") Instant afterAt, @Param("afterId") int afterId,
+                                                  @Param("until") Instant until, Pageable page);
+
+    /**
+     * Fecha del último borrado de un teléfono
+     *
+     * @return Fecha de borrado más reciente o null si no hay borrados
+     */
+    @Query(value = "SELECT MAX(tlb.deletedAt) FROM TelefonoBorrado tlb")
+    public Instant findLastDeletedAt();
+}
@@ -0,0 +1,12 @@
+package com.davidbonelo.libreta.repository;
+
+/**
+ * Proyección con los datos de un teléfono que participan en la búsqueda inversa por número
+ *
+ * @param id                  Identificador del teléfono
+ * @param contactoId          Identificador del contacto dueño del teléfono
+ * @param telefono            Número tal como se guardó
+ * @param telefonoNormalizado Número en forma canónica, nulo en las tuplas anteriores a la normalización
+ */
+public record TelefonoNumero(Integer id, Integer contactoId, String telefono, String telefonoNormalizado) {
+}
@@ -2,25 +2,20 @@ package com.davidbonelo.libreta.repository;
 
 import com.davidbonelo.libreta.domain.Contacto;
 import com.davidbonelo.libreta.domain.Telefono;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface TelefonoRepository extends JpaRepository<Telefono, Integer> {
-    /**
-     * Actualiza solamente el teléfono basado en el identificador de la tupla
-     *
-     * @param id
-     * @param telefono
-     */
-    @Modifying
-//    @Query(value = "update Telefono tel set tel.telefono = :telefono, tel.updatedAt = CURRENT_TIMESTAMP where tel.id = :id")
-    @Query(value = "update Telefono tel set tel.telefono = :telefono where tel.id = :id")
-    public void updateTelefono(@Param(value = "id") Integer id, @Param(value = "telefono") String telefono);
-
+public interface TelefonoRepository extends JpaRepository<Telefono, Integer>, TelefonoRepositoryCustom {
     /**
      * Busca los teléfonos de un contacto en específico
      *
@@ -29,4 +24,94 @@ public interface TelefonoRepository extends JpaRepository<Telefono, Integer> {
      */
     @Query(value = "SELECT tel FROM Telefono tel WHERE tel.contacto = :contacto")
     public List<Telefono> findAllByContacto(@Param(value = "contacto") Contacto contacto);
-}
\ No newline at end of file
+
+    /**
+     * Busca los teléfonos de varios contactos en una sola consulta, sin cargar los contactos
+     *
+     * @param contactoIds Identificadores de los contactos
+     * @return Listado de teléfonos ordenado por identificador
+     */
+    @Query(value = "SELECT tel FROM Telefono tel WHERE tel.contactoId IN :contactoIds ORDER BY tel.id ASC")
+    public List<Telefono> findByContactoIdIn(@Param("contactoIds") Collection<Integer> contactoIds);
+
+    /**
+     * Borra todos los teléfonos de un contacto con una sola sentencia, sin cargarlos
+     *
+     * @param contactoId Identificador del contacto
+     */
+    @Modifying
+    @Query(value = "DELETE FROM Telefono tel WHERE tel.contacto.id = :contactoId")
+    public void deleteByContactoId(@Param(value = "contactoId") Integer contactoId);
+
+    /**
+     * Pasa varios teléfonos a otro contacto con una sola sentencia y marca la fecha del cambio, para que la
+     * sincronización por cambios los reporte con su nuevo contacto
+     *
+     * @param ids       Identificadores de los teléfonos
+     * @param contacto  Contacto destino
+     * @param updatedAt Fecha y hora del cambio
+     * @return Cantidad de teléfonos actualizados
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE Telefono tel SET tel.contacto = :contacto, tel.updatedAt = :updatedAt WHERE tel.id IN :ids")
+    public int moveToContacto(@Param("ids") Collection<Integer> ids, @Param("contacto") Contacto contacto,
+                              @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Busca una página de los teléfonos creados o actualizados hasta una fecha, después de la posición (fecha de
+     * actualización, id) indicada
+     *
+     * @param afterAt Fecha de actualización de la última fila entregada, excluida
+     * @param afterId Identificador de la última fila entregada; Integer.MAX_VALUE excluye toda la fecha afterAt
+     * @param until   Fin del intervalo, incluido
+     * @param page    Cantidad máxima de teléfonos a devolver
+     * @return Listado de teléfonos
+     */
+    @Query(value = "SELECT tel FROM Telefono tel " +
+            "WHERE tel.updatedAt <= :until " +
+            "AND (tel.updatedAt > :afterAt OR (tel.updatedAt = :afterAt AND tel.id > :afterId)) " +
+            "ORDER BY tel.updatedAt ASC, tel.id ASC")
+    public List<Telefono> findChangedAfter(@Param("afterAt") Instant afterAt, @Param("afterId") int afterId,
+                                           @Param("until") Instant until, Pageable page);
+
+    /**
+     * Busca los contactos que tienen un número de teléfono, se usa mientras el índice en memoria se construye
+     *
+     * @param telefonoNormalizado Número en forma canónica
+     * @return Identificadores de los contactos
+     */
+    @Query(value = "SELECT DISTINCT tel.contactoId FROM Telefono tel " +
+            "WHERE tel.telefonoNormalizado = :telefonoNormalizado")
+    public List<Integer> findContactoIdsByTelefonoNormalizado(
+            @Param("telefonoNormalizado") String telefonoNormalizado);
+
+    /**
+     * Recorre los números de todos los teléfonos sin cargar las entidades completas, se usa para construir el índice
+     * de búsqueda inversa
+     *
+     * @return Flujo de proyecciones, debe cerrarse y consumirse dentro de una transacción
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT new com.davidbonelo.libreta.repository.TelefonoNumero(tel.id, tel.contactoId, " +
+            "tel.telefono, tel.telefonoNormalizado) FROM Telefono tel")
+    public Stream<TelefonoNumero> streamNumeros();
+
+    /**
+     * Recorre las columnas de todos los teléfonos sin crear entidades, se usa para construir el modelo de lectura en
+     * memoria
+     *
+     * @return Flujo de proyecciones, debe cerrarse y consumirse dentro de una transacción
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT new com.davidbonelo.libreta.repository.TelefonoRow(tel.id, tel.contactoId, " +
+            "tel.telefono, tel.createdAt, tel.updatedAt) FROM Telefono tel")
+    public Stream<TelefonoRow> streamRows();
+
+    /**
+     * Fecha de la última escritura sobre la tabla de teléfonos
+     *
+     * @return Fecha de actualización más reciente o null si la tabla está vacía
+     */
+    @Query(value = "SELECT MAX(tel.updatedAt) FROM Telefono tel")
+    public Instant findLastUpdatedAt();
+}
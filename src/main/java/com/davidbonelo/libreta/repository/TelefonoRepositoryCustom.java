@@ -0,0 +1,19 @@
+package com.davidbonelo.libreta.repository;
+
+import java.util.Map;
+
+/**
+ * Consultas de Telefono que no se pueden expresar como métodos derivados o @Query fijas
+ */
+public interface TelefonoRepositoryCustom {
+    /**
+     * Actualiza solo los campos indicados de un teléfono con una sola sentencia UPDATE, sin leerlo antes. Si se
+     * cambia el contacto dueño, la fila solo se actualiza cuando el contacto destino existe y no está borrado.
+     *
+     * @param id     Identificador del teléfono
+     * @param values Nuevos valores por nombre de atributo de la entidad, debe incluir updatedAt; el contacto se
+     *               indica con contactoId
+     * @return Cantidad de filas actualizadas, 0 si el teléfono o el contacto destino no existen
+     */
+    int patch(Integer id, Map<String, Object> values);
+}
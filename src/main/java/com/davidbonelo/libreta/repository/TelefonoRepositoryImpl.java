@@ -0,0 +1,39 @@
+package com.davidbonelo.libreta.repository;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+public class TelefonoRepositoryImpl implements TelefonoRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int patch(Integer id, Map<String, Object> values) {
+        var cb = entityManager.getCriteriaBuilder();
+        var update = cb.createCriteriaUpdate(Telefono.class);
+        var root = update.from(Telefono.class);
+        var where = new ArrayList<Predicate>();
+        where.add(cb.equal(root.get("id"), id));
+        values.forEach((attribute, value) -> {
+            if (!"contactoId".equals(attribute)) {
+                update.set(root.get(attribute), value);
+                return;
+            }
+            // contactoId es de solo lectura, la columna se escribe por la relación
+            update.set(root.<Contacto>get("contacto"), entityManager.getReference(Contacto.class, value));
+            var subquery = update.subquery(Integer.class);
+            var contacto = subquery.from(Contacto.class);
+            subquery.select(contacto.get("id"))
+                    .where(cb.equal(contacto.get("id"), value), cb.isFalse(contacto.get("deleted")));
+            where.add(cb.exists(subquery));
+        });
+        update.where(where.toArray(Predicate[]::new));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
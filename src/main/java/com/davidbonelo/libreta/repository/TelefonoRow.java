@@ -0,0 +1,15 @@
+package com.davidbonelo.libreta.repository;
+
+import java.time.Instant;
+
+/**
+ * Proyección con las columnas de un teléfono para el modelo de lectura en memoria
+ *
+ * @param id         Identificador del teléfono
+ * @param contactoId Identificador del contacto dueño del teléfono
+ * @param telefono   Número tal como se guardó
+ * @param createdAt  Fecha de creación
+ * @param updatedAt  Fecha de la última actualización, puede ser nula
+ */
+public record TelefonoRow(Integer id, Integer contactoId, String telefono, Instant createdAt, Instant updatedAt) {
+}
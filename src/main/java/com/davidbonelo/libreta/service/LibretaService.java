@@ -1,18 +1,64 @@
 package com.davidbonelo.libreta.service;
 
+import com.davidbonelo.libreta.datasource.DataSourceRouting;
 import com.davidbonelo.libreta.domain.Contacto;
 import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.repository.ContactoNombre;
 import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.repository.TelefonoBorradoRepository;
 import com.davidbonelo.libreta.repository.TelefonoRepository;
+import com.davidbonelo.libreta.service.cache.LibretaCache;
+import com.davidbonelo.libreta.service.coalescing.WriteCoalescer;
+import com.davidbonelo.libreta.service.events.ChangeEvent;
 import com.davidbonelo.libreta.service.interfaces.ILibreta;
+import com.davidbonelo.libreta.service.readmodel.DirectoryReadModel;
+import com.davidbonelo.libreta.service.search.ContactoSearchIndex;
+import com.davidbonelo.libreta.service.search.TelefonoIndex;
+import com.davidbonelo.libreta.utility.Birthday;
+import com.davidbonelo.libreta.utility.BulkImportResult;
+import com.davidbonelo.libreta.utility.Cursor;
+import com.davidbonelo.libreta.utility.CursorPage;
+import com.davidbonelo.libreta.utility.FieldSet;
+import com.davidbonelo.libreta.utility.PhoneNumbers;
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import com.davidbonelo.libreta.utility.SqlErrors;
+import com.davidbonelo.libreta.utility.SyncCursor;
+import com.davidbonelo.libreta.utility.SyncResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigInteger;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 @Service
 public class LibretaService implements ILibreta {
@@ -29,71 +75,642 @@ public class LibretaService implements ILibreta {
     private TelefonoRepository telefonoRepository;
 
     /**
-     * Devuelve una lista de Contactos con todos contactos del sistema
+     * Repositorio de las marcas de borrado de Telefono
+     */
+    @Autowired
+    private TelefonoBorradoRepository telefonoBorradoRepository;
+
+    /**
+     * Índice de búsqueda por nombre y apellidos
+     */
+    @Autowired
+    private ContactoSearchIndex searchIndex;
+
+    /**
+     * Índice de búsqueda inversa por número de teléfono
+     */
+    @Autowired
+    private TelefonoIndex telefonoIndex;
+
+    /**
+     * Caché de contactos y teléfonos por identificador
+     */
+    @Autowired
+    private LibretaCache libretaCache;
+
+    /**
+     * Copia en memoria del directorio completo que responde el listado y las búsquedas cuando está activa
+     */
+    @Autowired
+    private DirectoryReadModel readModel;
+
+    /**
+     * Publicador de los eventos de cambio
+     */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Campos por los que se puede ordenar el listado, todos respaldados por un índice (campo, cnt_id)
+     */
+    private static final Set<String> INDEXED_FIELDS = Set.of("id", "nombre", "apellido");
+
+    /**
+     * Campo de ordenamiento de los cursores de la consulta de cumpleaños
+     */
+    private static final String BIRTHDAY_FIELD = "cumpleanos";
+
+    /**
+     * Días máximos de la ventana de cumpleaños, un año sin repetir fechas
+     */
+    private static final int MAX_BIRTHDAY_DAYS = 365;
+
+    /**
+     * Inicio del intervalo de la primera sincronización, anterior a cualquier fecha de actualización
+     */
+    private static final Instant SYNC_BEGINNING = Instant.EPOCH;
+
+    /**
+     * Tamaño de página por defecto del listado de contactos
+     */
+    @Value("${libreta.index.page-size:50}")
+    private int defaultPageSize;
+
+    /**
+     * Tamaño de página máximo que puede pedir un cliente
+     */
+    @Value("${libreta.index.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Cantidad máxima de contactos que devuelve una búsqueda
+     */
+    @Value("${libreta.search.max-results:1000}")
+    private int maxSearchResults;
+
+    /**
+     * Cantidad de contactos que se guardan en cada transacción de la importación masiva
+     */
+    @Value("${libreta.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    /**
+     * Margen que se deja por detrás del reloj al calcular la marca de agua de la sincronización, para que las
+     * transacciones que ya escribieron su fecha de actualización alcancen a confirmarse antes de la siguiente lectura
+     */
+    @Value("${libreta.sync.lag:5s}")
+    private Duration syncLag;
+
+    /**
+     * Administrador de transacciones, usado por la importación masiva para confirmar por bloques
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Registro de métricas, usado por la agrupación de escrituras
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Guarda en lotes las creaciones concurrentes de contactos y teléfonos (group commit)
+     */
+    @Value("${libreta.write-coalescing.enabled:false}")
+    private boolean writeCoalescing;
+
+    /**
+     * Filas máximas de cada lote de la agrupación de escrituras
+     */
+    @Value("${libreta.write-coalescing.batch-size:50}")
+    private int coalescingBatchSize;
+
+    /**
+     * Espera máxima de una creación antes de que se guarde su lote
+     */
+    @Value("${libreta.write-coalescing.max-latency:5ms}")
+    private Duration coalescingMaxLatency;
+
+    private WriteCoalescer<Contacto> contactoWriter;
+
+    private WriteCoalescer<Telefono> telefonoWriter;
+
+    /**
+     * Arranca los escritores por lotes cuando la agrupación de escrituras está activa
+     */
+    @PostConstruct
+    void startWriteCoalescing() {
+        if (!writeCoalescing) {
+            return;
+        }
+        contactoWriter = new WriteCoalescer<>("contacto", coalescingBatchSize, coalescingMaxLatency,
+                contactos -> inTransaction(() -> contactos.stream().map(this::insertContacto).toList()),
+                contacto -> inTransaction(() -> insertContacto(contacto)), meterRegistry);
+        telefonoWriter = new WriteCoalescer<>("telefono", coalescingBatchSize, coalescingMaxLatency,
+                telefonos -> inTransaction(() -> telefonos.stream().map(this::insertTelefono).toList()),
+                telefono -> inTransaction(() -> insertTelefono(telefono)), meterRegistry);
+    }
+
+    /**
+     * Guarda las creaciones que quedaron en cola antes de cerrar
+     */
+    @PreDestroy
+    void stopWriteCoalescing() {
+        if (contactoWriter != null) {
+            contactoWriter.close();
+            telefonoWriter.close();
+        }
+    }
+
+    /**
+     * Devuelve una página de los contactos del sistema ordenados por su identificador
+     *
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @return Página de contactos
      */
     @Override
-    @Transactional(readOnly = true)
-    public List<Contacto> getList() {
-        return contactoRepository.findAll();
+    public CursorPage<Contacto> getList(String cursor, Integer size) {
+        return getList("id", Sort.Direction.ASC, cursor, size);
     }
 
     /**
-     * Devuelve una lista de Contactos con todos contactos del sistema ordenados por el campo indicado ya sea ascendente
-     * o descendete
+     * Devuelve una página de los contactos del sistema ordenados por el campo indicado ya sea ascendente o
+     * descendente. Se pide una fila de más para saber si existe una página siguiente sin tener que contar la tabla, y
+     * los teléfonos de toda la página se cargan con una segunda consulta. Con el modelo de lectura listo la página
+     * sale de la memoria sin abrir una transacción.
      *
-     * @param field campo por el cual ordenar
-     * @param order método de ordenado ASC o DESC
-     * @return Lista de contactos
+     * @param field  campo por el cual ordenar
+     * @param order  método de ordenado ASC o DESC
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @return Página de contactos
      */
     @Override
-    @Transactional(readOnly = true)
-    public List<Contacto> getList(String field, Sort.Direction order) {
-        return contactoRepository.findAll(Sort.by(order, field));
+    public CursorPage<Contacto> getList(String field, Sort.Direction order, String cursor, Integer size) {
+        var limit = pageSize(size);
+        var after = after(field, order, cursor);
+        if (readModel.isReady()) {
+            var rows = readModel.findPage(field, order, after, limit + 1);
+            return cursorPage(rows, rows.subList(0, Math.min(limit, rows.size())), field, order, limit);
+        }
+        return inReadOnlyTransaction(() -> {
+            var rows = contactoRepository.findPage(field, order, after, limit + 1);
+            var page = withTelefonos(rows.subList(0, Math.min(limit, rows.size())).stream()
+                    .map(Contacto::getId).toList());
+            return cursorPage(rows, page, field, order, limit);
+        });
+    }
+
+    /**
+     * Devuelve una página del listado con solo los campos pedidos. La página sale de una sola consulta que selecciona
+     * esas columnas (más la de ordenamiento, que se necesita para el cursor) sin crear entidades, y los teléfonos solo
+     * se consultan, en una segunda consulta, si se pidieron. Con el modelo de lectura listo sale de la memoria.
+     *
+     * @param field  campo por el cual ordenar
+     * @param order  método de ordenado ASC o DESC
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @param fields Campos pedidos por el cliente
+     * @return Página de contactos, cada uno con solo los campos pedidos
+     */
+    @Override
+    public CursorPage<Map<String, Object>> getList(String field, Sort.Direction order, String cursor, Integer size,
+                                                   FieldSet fields) {
+        var limit = pageSize(size);
+        var after = after(field, order, cursor);
+        var columns = new ArrayList<>(fields.columns());
+        if (!columns.contains(field)) {
+            columns.add(field);
+        }
+        if (readModel.isReady()) {
+            return columnPage(readModel.findPage(field, order, after, limit + 1, columns), field, order, limit,
+                    fields, readModel::attachTelefonos);
+        }
+        return inReadOnlyTransaction(() -> columnPage(contactoRepository.findPage(field, order, after, limit + 1,
+                columns), field, order, limit, fields, this::attachTelefonos));
+    }
+
+    /**
+     * Arma la página del listado con columnas a partir de las filas leídas, que traen una de más
+     *
+     * @param rows   Filas leídas, con la columna de ordenamiento
+     * @param field  campo por el cual se ordenó
+     * @param order  método de ordenado ASC o DESC
+     * @param limit  Tamaño de la página
+     * @param fields Campos pedidos por el cliente
+     * @param attach Función que agrega los teléfonos a las filas
+     * @return Página de contactos con solo los campos pedidos
+     */
+    private static CursorPage<Map<String, Object>> columnPage(List<Map<String, Object>> rows, String field,
+                                                              Sort.Direction order, int limit, FieldSet fields,
+                                                              UnaryOperator<List<Map<String, Object>>> attach) {
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            var last = rows.get(limit - 1);
+            next = new Cursor(field, order, (Integer) last.get("id"),
+                    "id".equals(field) ? null : (String) last.get(field)).encode();
+        }
+        if (!fields.columns().contains(field)) {
+            rows.forEach(row -> row.remove(field));
+        }
+        return new CursorPage<>(fields.telefonos() ? attach.apply(rows) : rows, next, limit);
     }
 
     /**
-     * Busca un dato entre el nombre o los apellidos en un contacto
+     * Busca un dato entre el nombre o los apellidos en un contacto. La búsqueda se resuelve en el índice de trigramas
+     * en memoria y solo se consulta la base de datos para cargar los contactos encontrados, o ni eso con el modelo de
+     * lectura listo; mientras el índice se construye al arrancar se recurre a una consulta LIKE.
      *
      * @param dataToSearch Dato a buscar
-     * @return Lista de contactos
+     * @return Lista de contactos, primero las coincidencias exactas, luego prefijos, sufijos y contenidos
      */
     @Override
-    @Transactional(readOnly = true)
     public List<Contacto> searchContacto(String dataToSearch) {
-        var contacto1 = contactoRepository.findByNombreOrApellidoStartingWith(dataToSearch);
-        var contacto2 = contactoRepository.findByNombreOrApellidoContains(dataToSearch);
-        var contacto3 = contactoRepository.findByNombreOrApellidoEndingWith(dataToSearch);
-        var answer = new HashSet<Contacto>();
-        answer.addAll(contacto1);
-        answer.addAll(contacto2);
-        answer.addAll(contacto3);
-        return answer.stream().toList();
+        if (!searchIndex.isReady()) {
+            return inReadOnlyTransaction(() -> ContactoSearchIndex.rank(
+                    contactoRepository.findByNombreOrApellidoContains(dataToSearch), dataToSearch));
+        }
+        var ids = searchIndex.search(dataToSearch, maxSearchResults);
+        if (readModel.isReady()) {
+            return readModel.findWithTelefonosByIdIn(ids);
+        }
+        return inReadOnlyTransaction(() -> withTelefonos(ids));
+    }
+
+    /**
+     * Igual que {@link #searchContacto(String)} pero con solo los campos pedidos: los identificadores salen del índice
+     * y las columnas pedidas se leen con una sola consulta de proyección, o del modelo de lectura si está listo
+     *
+     * @param dataToSearch Dato a buscar
+     * @param fields       Campos pedidos por el cliente
+     * @return Lista de contactos con solo los campos pedidos, en el mismo orden que la búsqueda completa
+     */
+    @Override
+    public List<Map<String, Object>> searchContacto(String dataToSearch, FieldSet fields) {
+        if (searchIndex.isReady() && readModel.isReady()) {
+            var rows = readModel.findColumnsByIdIn(searchIndex.search(dataToSearch, maxSearchResults),
+                    fields.columns());
+            return fields.telefonos() ? readModel.attachTelefonos(rows) : rows;
+        }
+        return inReadOnlyTransaction(() -> findColumns(searchIndex.isReady()
+                ? searchIndex.search(dataToSearch, maxSearchResults)
+                : ContactoSearchIndex.rank(contactoRepository.findByNombreOrApellidoContains(dataToSearch),
+                dataToSearch).stream().map(Contacto::getId).toList(), fields));
+    }
+
+    /**
+     * Busca contactos por nombre o apellidos tolerando acentos, errores de escritura y letras que suenan igual
+     * ("Gonsalez" encuentra a "González"). La búsqueda se resuelve en las llaves fonéticas del índice en memoria;
+     * mientras el índice se construye al arrancar se consultan las llaves fonéticas de palabra guardadas con cada
+     * contacto.
+     *
+     * @param dataToSearch Dato a buscar
+     * @return Lista de contactos, de la coincidencia con menos errores a la de más errores
+     */
+    @Override
+    public List<Contacto> searchContactoFuzzy(String dataToSearch) {
+        if (!searchIndex.isReady()) {
+            return inReadOnlyTransaction(() -> findFuzzy(dataToSearch));
+        }
+        var ids = limitResults(searchIndex.fuzzySearch(dataToSearch));
+        if (readModel.isReady()) {
+            return readModel.findWithTelefonosByIdIn(ids);
+        }
+        return inReadOnlyTransaction(() -> withTelefonos(ids));
+    }
+
+    /**
+     * Igual que {@link #searchContactoFuzzy(String)} pero con solo los campos pedidos
+     *
+     * @param dataToSearch Dato a buscar
+     * @param fields       Campos pedidos por el cliente
+     * @return Lista de contactos con solo los campos pedidos, en el mismo orden que la búsqueda completa
+     */
+    @Override
+    public List<Map<String, Object>> searchContactoFuzzy(String dataToSearch, FieldSet fields) {
+        if (searchIndex.isReady() && readModel.isReady()) {
+            var rows = readModel.findColumnsByIdIn(limitResults(searchIndex.fuzzySearch(dataToSearch)),
+                    fields.columns());
+            return fields.telefonos() ? readModel.attachTelefonos(rows) : rows;
+        }
+        return inReadOnlyTransaction(() -> findColumns(searchIndex.isReady()
+                ? searchIndex.fuzzySearch(dataToSearch)
+                : findFuzzy(dataToSearch).stream().map(Contacto::getId).toList(), fields));
+    }
+
+    /**
+     * Búsqueda aproximada en la base de datos: los candidatos de cada palabra buscada son los contactos con una
+     * palabra de llave fonética parecida en contacto_fonetico ({@link ContactoSearchIndex#probeKeys(String)} y
+     * {@link ContactoSearchIndex#probePrefix(String)}), se intersecan entre palabras y se filtran con el mismo
+     * criterio del índice. Tolera algo menos que el índice: no encuentra una letra cambiada al comienzo de la llave.
+     *
+     * @param dataToSearch Dato a buscar
+     * @return Contactos encontrados con sus teléfonos, ordenados
+     */
+    private List<Contacto> findFuzzy(String dataToSearch) {
+        Set<Integer> candidates = null;
+        for (var word : SpanishPhonetics.words(dataToSearch)) {
+            var key = SpanishPhonetics.encode(word);
+            if (key.isEmpty()) {
+                continue;
+            }
+            var ids = new HashSet<>(contactoRepository.findIdsByPalabraFonetica(ContactoSearchIndex.probeKeys(key),
+                    ContactoSearchIndex.probePrefix(key)));
+            if (candidates == null) {
+                candidates = ids;
+            } else {
+                candidates.retainAll(ids);
+            }
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+        if (candidates == null) {
+            return List.of();
+        }
+        var found = ContactoSearchIndex.rankFuzzy(withTelefonos(List.copyOf(candidates)), dataToSearch);
+        return found.size() > maxSearchResults ? found.subList(0, maxSearchResults) : found;
+    }
+
+    /**
+     * Lee solo las columnas pedidas de los contactos encontrados por una búsqueda, con una sola consulta de proyección
+     *
+     * @param ids    Identificadores encontrados, en el orden de la búsqueda
+     * @param fields Campos pedidos por el cliente
+     * @return Contactos con solo los campos pedidos, en el orden de los identificadores
+     */
+    private List<Map<String, Object>> findColumns(List<Integer> ids, FieldSet fields) {
+        ids = limitResults(ids);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        var found = new HashMap<Object, Map<String, Object>>();
+        contactoRepository.findColumnsByIdIn(ids, fields.columns()).forEach(row -> found.put(row.get("id"), row));
+        List<Map<String, Object>> rows = ids.stream().map(found::get).filter(Objects::nonNull).toList();
+        return fields.telefonos() ? attachTelefonos(rows) : rows;
     }
 
     /**
-     * Crea un contacto en el sistema
+     * Busca los contactos dueños de un número de teléfono. El número se normaliza y se resuelve en el índice hash en
+     * memoria, y los contactos se sirven desde la caché de entidades, así una búsqueda repetida no toca la base de
+     * datos; mientras el índice se construye al arrancar se consulta la columna normalizada.
+     *
+     * @param numero Número de teléfono a buscar, en cualquier formato
+     * @return Lista de contactos con sus teléfonos ordenada por identificador
+     */
+    @Override
+    public List<Contacto> searchTelefono(String numero) {
+        var normalizado = PhoneNumbers.normalize(numero);
+        if (normalizado == null) {
+            return List.of();
+        }
+        var ids = telefonoIndex.isReady()
+                ? telefonoIndex.search(normalizado)
+                : telefonoRepository.findContactoIdsByTelefonoNormalizado(normalizado);
+        if (readModel.isReady()) {
+            return readModel.findWithTelefonosByIdIn(ids.stream().sorted().toList());
+        }
+        return ids.stream().sorted().map(this::getContacto).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Devuelve una página de los contactos que cumplen años dentro de la ventana indicada, en el orden en que los
+     * cumplen. La ventana se traduce a uno o dos rangos de mes y día (dos cuando cruza el fin de año) que se leen con
+     * un rango sobre el índice de la columna generada cnt_cumpleanos, así el costo depende de los cumpleaños de la
+     * ventana y no del tamaño del directorio. Los nacidos un 29 de febrero entran el 28 en los años no bisiestos.
+     *
+     * @param from   Primer día de la ventana, nulo para hoy
+     * @param days   Días de la ventana contando el primero, de 1 a 365
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @return Página de cumpleaños con la fecha, la edad que se cumple y el contacto con sus teléfonos
+     */
+    @Override
+    public CursorPage<Birthday> getBirthdays(LocalDate from, int days, String cursor, Integer size) {
+        if (days < 1 || days > MAX_BIRTHDAY_DAYS) {
+            throw new IllegalArgumentException("La ventana de cumpleaños debe ser de 1 a " + MAX_BIRTHDAY_DAYS
+                    + " días");
+        }
+        var start = from == null ? LocalDate.now() : from;
+        var end = start.plusDays(days - 1);
+        var ranges = end.getYear() == start.getYear()
+                ? List.of(MonthDayRange.of(start, end))
+                : List.of(MonthDayRange.of(start, LocalDate.of(start.getYear(), 12, 31)),
+                MonthDayRange.of(LocalDate.of(end.getYear(), 1, 1), end));
+        var limit = pageSize(size);
+        var after = birthdayCursor(cursor);
+        var first = 0;
+        if (after != null) {
+            var lastMonthDay = Integer.parseInt(after.lastValue());
+            while (first < ranges.size() && !ranges.get(first).contains(lastMonthDay)) {
+                first++;
+            }
+            if (first == ranges.size()) {
+                throw new IllegalArgumentException("El cursor no corresponde a la ventana solicitada");
+            }
+        }
+        var firstRange = first;
+        return inReadOnlyTransaction(() -> {
+            var rows = new ArrayList<Contacto>();
+            for (int i = firstRange; i < ranges.size() && rows.size() <= limit; i++) {
+                var range = ranges.get(i);
+                var resume = after != null && i == firstRange;
+                rows.addAll(contactoRepository.findCumpleanos(range.desde(), range.hasta(),
+                        resume ? Integer.parseInt(after.lastValue()) : 0, resume ? after.lastId() : 0,
+                        PageRequest.of(0, limit + 1 - rows.size())));
+            }
+            var page = withTelefonos(rows.subList(0, Math.min(limit, rows.size())).stream()
+                    .map(Contacto::getId).toList());
+            String next = null;
+            if (rows.size() > limit) {
+                var last = rows.get(limit - 1);
+                next = new Cursor(BIRTHDAY_FIELD, Sort.Direction.ASC, last.getId(),
+                        String.valueOf(last.getCumpleanos())).encode();
+            }
+            return new CursorPage<>(page.stream().map(contacto -> birthday(contacto, start)).toList(), next, limit);
+        });
+    }
+
+    /**
+     * Devuelve un contacto con sus teléfonos basado en su identificador. Se sirve desde la caché de entidades y solo
+     * consulta la base de datos cuando el contacto no está en ella; no abre una transacción para no tomar una
+     * conexión en los aciertos. La carga lee del primario: la caché es compartida y un valor viejo de una réplica
+     * quedaría servido a todos los clientes hasta que expire.
+     *
+     * @param id Identificador del contacto
+     * @return Objeto del contacto o null si no existe
+     */
+    @Override
+    public Contacto getContacto(Integer id) {
+        return libretaCache.getContacto(id, key -> DataSourceRouting.onPrimary(
+                () -> contactoRepository.findWithTelefonosById(key).orElse(null)));
+    }
+
+    /**
+     * Devuelve un teléfono basado en su identificador, servido desde la caché de entidades
+     *
+     * @param id Identificador del teléfono
+     * @return Objeto del teléfono o null si no existe
+     */
+    @Override
+    public Telefono getTelefono(Integer id) {
+        return libretaCache.getTelefono(id, key -> DataSourceRouting.onPrimary(
+                () -> telefonoRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Devuelve una página de los cambios del directorio dentro del intervalo (since, watermark], resuelta por llave
+     * (fecha, id) con los índices sobre las fechas de actualización y de borrado: cada página cuesta lo mismo sin
+     * importar la cantidad de cambios ni el tamaño del directorio. Se recorren en orden los contactos, los teléfonos y
+     * las marcas de borrado; una página que termina una fase sigue con la siguiente. Sin marca de agua se recorre el
+     * directorio completo sin borrados, también por páginas.
+     * <p>
+     * La nueva marca de agua queda libreta.sync.lag por detrás del reloj: una fila que se escribió antes de ese punto
+     * pero cuya transacción aún no confirmaba quedaría fuera de esta respuesta y, sin el margen, también de la
+     * siguiente. Por la misma razón se lee del primario y no de una réplica atrasada. Todas las páginas de una
+     * sincronización usan el intervalo guardado en el cursor.
+     *
+     * @param since  Marca de agua devuelta por la sincronización anterior, nula para la primera sincronización
+     * @param cursor Token de continuación de la página anterior, si se envía since se ignora
+     * @param size   Tamaño de página solicitado, cuenta contactos, teléfonos y marcas de borrado
+     * @return Página de cambios, con la nueva marca de agua en la última página
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SyncResult getChanges(Instant since, String cursor, Integer size) {
+        var limit = pageSize(size);
+        var start = cursor == null || cursor.isBlank() ? SyncCursor.start(since, Instant.now().minus(syncLag))
+                : SyncCursor.decode(cursor);
+        if (start.since() != null && !start.since().isBefore(start.until())) {
+            return new SyncResult(start.since(), List.of(), List.of(), List.of(), List.of(), null);
+        }
+        return DataSourceRouting.onPrimary(() -> {
+            var contactos = new ArrayList<Contacto>();
+            var contactosBorrados = new ArrayList<Integer>();
+            var telefonos = new ArrayList<Telefono>();
+            var telefonosBorrados = new ArrayList<Integer>();
+            var position = start;
+            var remaining = limit;
+            while (position != null && remaining > 0) {
+                // Una fila de más indica si la fase continúa en la página siguiente
+                var page = PageRequest.of(0, remaining + 1);
+                var afterAt = position.lastAt() != null ? position.lastAt()
+                        : position.since() != null ? position.since() : SYNC_BEGINNING;
+                var afterId = position.lastAt() != null ? position.lastId() : Integer.MAX_VALUE;
+                int fetched;
+                SyncCursor last = null;
+                switch (position.phase()) {
+                    case CONTACTOS -> {
+                        var rows = contactoRepository.findChangedAfter(afterAt, afterId, position.until(), page);
+                        fetched = rows.size();
+                        for (var contacto : rows.subList(0, Math.min(remaining, fetched))) {
+                            if (!contacto.isDeleted()) {
+                                contactos.add(contacto);
+                            } else if (position.since() != null) {
+                                contactosBorrados.add(contacto.getId());
+                            }
+                            last = position.after(contacto.getUpdatedAt(), contacto.getId());
+                        }
+                    }
+                    case TELEFONOS -> {
+                        var rows = telefonoRepository.findChangedAfter(afterAt, afterId, position.until(), page);
+                        fetched = rows.size();
+                        for (var telefono : rows.subList(0, Math.min(remaining, fetched))) {
+                            telefonos.add(telefono);
+                            last = position.after(telefono.getUpdatedAt(), telefono.getId());
+                        }
+                    }
+                    default -> {
+                        var rows = telefonoBorradoRepository.findDeletedAfter(afterAt, afterId, position.until(),
+                                page);
+                        fetched = rows.size();
+                        for (var borrado : rows.subList(0, Math.min(remaining, fetched))) {
+                            telefonosBorrados.add(borrado.getId());
+                            last = position.after(borrado.getDeletedAt(), borrado.getId());
+                        }
+                    }
+                }
+                if (fetched > remaining) {
+                    position = last;
+                    remaining = 0;
+                } else {
+                    position = position.nextPhase();
+                    remaining -= fetched;
+                }
+            }
+            return new SyncResult(position == null ? start.until() : null, contactos, contactosBorrados, telefonos,
+                    telefonosBorrados, position == null ? null : position.encode());
+        });
+    }
+
+    /**
+     * Crea un contacto en el sistema. Con libreta.write-coalescing.enabled se guarda junto con las demás creaciones
+     * concurrentes en una sola transacción, salvo que ya haya una transacción en curso.
      *
      * @param contacto Objeto del contacto a crear
      * @return Objeto del contacto creado
      */
     @Override
-    @Transactional
     public Contacto createContacto(Contacto contacto) {
-        contacto.setCreatedAt(Instant.now());
-        return contactoRepository.save(contacto);
+        if (contactoWriter != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return contactoWriter.submit(contacto);
+        }
+        return inTransaction(() -> insertContacto(contacto));
     }
 
     /**
-     * Crea un teléfono en el sistema a nombre de un contacto
+     * Importa de forma masiva contactos con sus teléfonos. Cada bloque de libreta.bulk.chunk-size contactos se guarda
+     * en su propia transacción con INSERT agrupados; si el bloque falla se reintenta fila por fila para reportar solo
+     * las filas con errores (dato duplicado, llave foránea inexistente) sin perder las demás.
+     *
+     * @param contactos Contactos a importar, se consumen a medida que se leen
+     * @return Resultado de la importación
+     */
+    @Override
+    public BulkImportResult importContactos(Iterator<Contacto> contactos) {
+        var result = new BulkImportResult();
+        var chunk = new ArrayList<Contacto>(bulkChunkSize);
+        var firstIndex = 0;
+        while (true) {
+            Contacto contacto;
+            try {
+                if (!contactos.hasNext()) {
+                    break;
+                }
+                contacto = contactos.next();
+            } catch (RuntimeException exception) {
+                result.addError(result.getReceived(), "No se pudo leer el contacto: " + exception.getMessage());
+                break;
+            }
+            result.addReceived();
+            chunk.add(contacto);
+            if (chunk.size() == bulkChunkSize) {
+                importChunk(chunk, firstIndex, result);
+                firstIndex += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, firstIndex, result);
+        }
+        return result;
+    }
+
+    /**
+     * Crea un teléfono en el sistema a nombre de un contacto. Con libreta.write-coalescing.enabled se guarda junto
+     * con las demás creaciones concurrentes en una sola transacción, salvo que ya haya una transacción en curso.
      *
      * @param telefono Objeto del teléfono a crear
      * @return Objeto del teléfono creado
      */
     @Override
-    @Transactional
     public Telefono createTelefono(Telefono telefono) {
-        telefono.setCreatedAt(Instant.now());
-        return telefonoRepository.save(telefono);
+        if (telefonoWriter != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return telefonoWriter.submit(telefono);
+        }
+        return inTransaction(() -> insertTelefono(telefono));
     }
 
     /**
@@ -108,51 +725,95 @@ public class LibretaService implements ILibreta {
     public Contacto updateContacto(Integer id, Contacto contacto) {
         contacto.setId(id);
         contacto.setUpdatedAt(Instant.now());
-        return contactoRepository.save(contacto);
+        var updated = contactoRepository.save(contacto);
+        eventPublisher.publishEvent(ChangeEvent.of(updated, ChangeEvent.Action.UPDATED));
+        return updated;
     }
 
     /**
-     * Actualiza el nombre de un contacto
+     * Actualiza el nombre de un contacto con una sola sentencia UPDATE y lo vuelve a leer para responder la entidad
+     * completa
      *
      * @param id       Identificador del contacto a actualizar
-     * @param contacto Objeto del contacto a actualizar
-     * @return Objeto del contacto actualizado
+     * @param contacto Objeto del contacto con el nuevo nombre
+     * @return Objeto del contacto actualizado, sin sus teléfonos, o null si el contacto no existe
      */
     @Override
     @Transactional
     public Contacto updateNombre(Integer id, Contacto contacto) {
-        contacto.setId(id);
-        var contact = contactoRepository.findById(id);
-        if (contact.isPresent()) {
-            var foundContact = contact.get();
-            foundContact.setUpdatedAt(Instant.now());
-            foundContact.setNombre(contacto.getNombre());
-            return contactoRepository.save(foundContact);
+        if (patchContacto(id, Collections.singletonMap("nombre", contacto.getNombre())) == null) {
+            return null;
         }
-//        contactoRepository.updateNombre(id, contacto.getNombre());
-        return contacto;
+        return contactoRepository.findById(id).orElse(null);
     }
 
     /**
-     * Actualiza el apellido de un contacto
+     * Actualiza el apellido de un contacto con una sola sentencia UPDATE y lo vuelve a leer para responder la entidad
+     * completa
      *
      * @param id       Identificador del contacto a actualizar
-     * @param contacto Objeto del contacto a actualizar
-     * @return Objeto del contacto actualizado
+     * @param contacto Objeto del contacto con el nuevo apellido
+     * @return Objeto del contacto actualizado, sin sus teléfonos, o null si el contacto no existe
      */
     @Override
     @Transactional
     public Contacto updateApellidos(Integer id, Contacto contacto) {
-        contacto.setId(id);
-        var contact = contactoRepository.findById(id);
-        if (contact.isPresent()) {
-            var foundContact = contact.get();
-            foundContact.setUpdatedAt(Instant.now());
-            foundContact.setApellido(contacto.getApellido());
-            return contactoRepository.save(foundContact);
+        if (patchContacto(id, Collections.singletonMap("apellido", contacto.getApellido())) == null) {
+            return null;
+        }
+        return contactoRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Aplica un JSON Merge Patch (RFC 7396) a un contacto con una sola sentencia UPDATE que toca solo los campos
+     * enviados y la fecha de actualización, sin leer el contacto antes; que no exista se sabe por las filas
+     * afectadas. Todos los campos son obligatorios, así que un null (quitar el campo) se rechaza. Al cambiar el
+     * nombre o los apellidos también se guarda su llave fonética, que no sale en la respuesta, y después del UPDATE
+     * se leen el nombre y los apellidos para volver a guardar las llaves de cada palabra en contacto_fonetico.
+     *
+     * @param id    Identificador del contacto a actualizar
+     * @param patch Documento del parche: nombre, apellido, email y/o fechaNacimiento
+     * @return Identificador, campos actualizados y fecha de actualización, o null si el contacto no existe o está
+     * borrado
+     */
+    @Override
+    @Transactional
+    public Map<String, Object> patchContacto(Integer id, Map<String, Object> patch) {
+        var values = new LinkedHashMap<String, Object>();
+        forEachField(patch, (field, value) -> values.put(field, switch (field) {
+            case "nombre", "apellido", "email" -> text(field, value);
+            case "fechaNacimiento" -> date(field, value);
+            default -> throw new IllegalArgumentException("El campo " + field + " no se puede modificar");
+        }));
+        values.put("updatedAt", Instant.now());
+        var columns = new LinkedHashMap<>(values);
+        if (values.containsKey("nombre")) {
+            columns.put("nombreFonetico", SpanishPhonetics.key((String) values.get("nombre")));
         }
-//        contactoRepository.updateApellido(id, contacto.getApellido());
-        return contacto;
+        if (values.containsKey("apellido")) {
+            columns.put("apellidoFonetico", SpanishPhonetics.key((String) values.get("apellido")));
+        }
+        if (contactoRepository.patch(id, columns) == 0) {
+            return null;
+        }
+        if (values.containsKey("nombre") || values.containsKey("apellido")) {
+            contactoRepository.findNombreById(id).ifPresent(this::savePalabrasFoneticas);
+        }
+        var changes = changes(id, values);
+        eventPublisher.publishEvent(ChangeEvent.patched(ChangeEvent.Type.CONTACTO, id, id, changes));
+        return changes;
+    }
+
+    /**
+     * Vuelve a guardar las llaves fonéticas de palabra de un contacto a partir de su nombre y apellidos actuales,
+     * después de un UPDATE que no pasó por la entidad
+     *
+     * @param nombre Identificador, nombre y apellidos del contacto
+     */
+    private void savePalabrasFoneticas(ContactoNombre nombre) {
+        contactoRepository.deletePalabrasFoneticas(nombre.id());
+        SpanishPhonetics.wordKeys(SpanishPhonetics.key(nombre.nombre()), SpanishPhonetics.key(nombre.apellido()))
+                .forEach(llave -> contactoRepository.insertPalabraFonetica(nombre.id(), llave));
     }
 
     /**
@@ -167,34 +828,138 @@ public class LibretaService implements ILibreta {
     public Telefono updateTelefono(Integer id, Telefono telefono) {
         telefono.setId(id);
         telefono.setUpdatedAt(Instant.now());
+        resolveContacto(telefono);
         telefonoRepository.save(telefono);
+        eventPublisher.publishEvent(ChangeEvent.of(telefono, ChangeEvent.Action.UPDATED));
         return telefono;
     }
 
     /**
-     * Actualiza solamente el teléfono de un contacto a partir del ID de la tupla del teléfono
+     * Actualiza solamente el número de un teléfono con una sola sentencia UPDATE y lo vuelve a leer para responder
+     * la entidad completa
      *
      * @param id       Identificador del teléfono a actualizar
-     * @param telefono Objeto del teléfono a actualizar
-     * @return Objeto del teléfono actualizado
+     * @param telefono Objeto del teléfono con el nuevo número
+     * @return Objeto del teléfono actualizado o null si el teléfono no existe
      */
     @Override
     @Transactional
     public Telefono updateOnlyTelefono(Integer id, Telefono telefono) {
-        telefono.setId(id);
-        var phone = telefonoRepository.findById(id);
-        if (phone.isPresent()) {
-            var foundPhone = phone.get();
-            foundPhone.setUpdatedAt(Instant.now());
-            foundPhone.setTelefono(telefono.getTelefono());
-            return telefonoRepository.save(foundPhone);
-        }
-//        telefonoRepository.updateTelefono(id, telefono.getTelefono());
-        return telefono;
+        if (patchTelefono(id, Collections.singletonMap("telefono", telefono.getTelefono())) == null) {
+            return null;
+        }
+        return telefonoRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Aplica un JSON Merge Patch (RFC 7396) a un teléfono con una sola sentencia UPDATE, igual que
+     * {@link #patchContacto(Integer, Map)}. Al cambiar el número también se guarda su forma canónica; al cambiar el
+     * contacto dueño, un contacto inexistente o borrado cuenta como no encontrado.
+     *
+     * @param id    Identificador del teléfono a actualizar
+     * @param patch Documento del parche: telefono y/o contactoId
+     * @return Identificador, campos actualizados y fecha de actualización, o null si el teléfono o el contacto
+     * destino no existen
+     */
+    @Override
+    @Transactional
+    public Map<String, Object> patchTelefono(Integer id, Map<String, Object> patch) {
+        var values = new LinkedHashMap<String, Object>();
+        forEachField(patch, (field, value) -> {
+            switch (field) {
+                case "telefono" -> {
+                    var numero = text(field, value);
+                    values.put("telefono", numero);
+                    values.put("telefonoNormalizado", PhoneNumbers.normalize(numero));
+                }
+                case "contactoId" -> values.put("contactoId", integer(field, value));
+                default -> throw new IllegalArgumentException("El campo " + field + " no se puede modificar");
+            }
+        });
+        values.put("updatedAt", Instant.now());
+        if (telefonoRepository.patch(id, values) == 0) {
+            return null;
+        }
+        var changes = changes(id, values);
+        eventPublisher.publishEvent(ChangeEvent.patched(ChangeEvent.Type.TELEFONO, id,
+                (Integer) values.get("contactoId"), changes));
+        return changes;
     }
 
     /**
-     * Borra un contacto del sistema
+     * Fusiona un contacto duplicado en otro en una sola transacción. Los teléfonos del duplicado pasan al contacto que
+     * se conserva con una sola sentencia, salvo los números que ese contacto ya tiene en forma canónica: esos se
+     * borran con su marca de borrado, así no se viola el índice único (tel_contacto_id, tel_telefono) ni quedan
+     * números repetidos escritos de otra forma. El duplicado se borra lógicamente con la fecha del borrado, igual que
+     * en {@link #deleteContacto(Integer)}, y la sincronización por cambios reporta todo el movimiento.
+     * <p>
+     * Las dos filas se bloquean en orden ascendente de identificador antes de leer los teléfonos: dos fusiones
+     * cruzadas (A en B y B en A) o una fusión y un borrado simultáneos se ejecutan una después de la otra, y la segunda
+     * encuentra el contacto ya borrado.
+     *
+     * @param survivorId  Identificador del contacto que se conserva
+     * @param duplicateId Identificador del contacto duplicado
+     * @return Contacto conservado con sus teléfonos, o null si alguno de los dos no existe o está borrado
+     * @throws ConcurrencyFailureException si el duplicado se borró durante la fusión; la transacción se revierte
+     */
+    @Override
+    @Transactional
+    public Contacto mergeContactos(Integer survivorId, Integer duplicateId) {
+        if (Objects.equals(survivorId, duplicateId)) {
+            throw new IllegalArgumentException("Un contacto no se puede fusionar consigo mismo");
+        }
+        var first = contactoRepository.findLockedById(Math.min(survivorId, duplicateId));
+        var second = contactoRepository.findLockedById(Math.max(survivorId, duplicateId));
+        var survivor = survivorId < duplicateId ? first : second;
+        var duplicate = survivorId < duplicateId ? second : first;
+        if (survivor.isEmpty() || duplicate.isEmpty()) {
+            return null;
+        }
+        var now = Instant.now();
+        var numeros = new HashSet<String>();
+        telefonoRepository.findByContactoIdIn(List.of(survivorId)).forEach(telefono -> numeros.add(numero(telefono)));
+        var moved = new ArrayList<Integer>();
+        var dropped = new ArrayList<Telefono>();
+        for (var telefono : telefonoRepository.findByContactoIdIn(List.of(duplicateId))) {
+            if (numeros.add(numero(telefono))) {
+                moved.add(telefono.getId());
+            } else {
+                telefonoBorradoRepository.recordById(telefono.getId(), now);
+                telefonoRepository.delete(telefono);
+                dropped.add(telefono);
+            }
+        }
+        if (!moved.isEmpty()) {
+            telefonoRepository.moveToContacto(moved, survivor.get(), now);
+        }
+        if (contactoRepository.softDelete(duplicateId, now) == 0) {
+            throw new ConcurrencyFailureException("El contacto " + duplicateId + " ya fue borrado");
+        }
+
+        // Los teléfonos primero: al aplicar el borrado del duplicado ya no le pertenecen
+        for (var id : moved) {
+            eventPublisher.publishEvent(ChangeEvent.patched(ChangeEvent.Type.TELEFONO, id, survivorId,
+                    changes(id, Map.of("contactoId", survivorId, "updatedAt", now))));
+        }
+        dropped.forEach(telefono -> eventPublisher.publishEvent(ChangeEvent.of(telefono, ChangeEvent.Action.DELETED)));
+        duplicate.get().setDeleted(true);
+        duplicate.get().setUpdatedAt(now);
+        eventPublisher.publishEvent(ChangeEvent.of(duplicate.get(), ChangeEvent.Action.DELETED));
+        return contactoRepository.findWithTelefonosById(survivorId).orElse(null);
+    }
+
+    /**
+     * Número de un teléfono para comparar, en forma canónica si tiene dígitos
+     */
+    private static String numero(Telefono telefono) {
+        var normalizado = telefono.getTelefonoNormalizado() != null ? telefono.getTelefonoNormalizado()
+                : PhoneNumbers.normalize(telefono.getTelefono());
+        return normalizado != null ? normalizado : telefono.getTelefono();
+    }
+
+    /**
+     * Borra un contacto del sistema, sus teléfonos se borran con una sola sentencia sin cargarlos. Se dejan marcas de
+     * borrado de los teléfonos y la fecha del borrado en el contacto para la sincronización por cambios.
      *
      * @param id Identificación del contacto a borrar
      * @return Objeto del contacto borrado
@@ -202,9 +967,18 @@ public class LibretaService implements ILibreta {
     @Override
     @Transactional
     public Contacto deleteContacto(Integer id) {
-        var contacto = contactoRepository.findById(id);
+        // Bloquea la fila para que una fusión simultánea no le pase teléfonos después de borrarlos
+        var contacto = contactoRepository.findLockedById(id);
         if (contacto.isPresent()) {
-            contactoRepository.delete(contacto.get());
+            var deletedAt = Instant.now();
+            telefonoBorradoRepository.recordByContactoId(id, deletedAt);
+            telefonoRepository.deleteByContactoId(id);
+            if (contactoRepository.softDelete(id, deletedAt) == 0) {
+                throw new ConcurrencyFailureException("El contacto " + id + " ya fue borrado");
+            }
+            contacto.get().setDeleted(true);
+            contacto.get().setUpdatedAt(deletedAt);
+            eventPublisher.publishEvent(ChangeEvent.of(contacto.get(), ChangeEvent.Action.DELETED));
             return contacto.get();
         } else {
             return null;
@@ -212,7 +986,7 @@ public class LibretaService implements ILibreta {
     }
 
     /**
-     * Borra un teléfono del sistema
+     * Borra un teléfono del sistema y deja su marca de borrado para la sincronización por cambios
      *
      * @param id Identificación del teléfono a borrar
      * @return Objeto del teléfono borrado
@@ -222,10 +996,363 @@ public class LibretaService implements ILibreta {
     public Telefono deleteTelefono(Integer id) {
         var telefono = telefonoRepository.findById(id);
         if (telefono.isPresent()) {
+            telefonoBorradoRepository.recordById(id, Instant.now());
             telefonoRepository.delete(telefono.get());
+            eventPublisher.publishEvent(ChangeEvent.of(telefono.get(), ChangeEvent.Action.DELETED));
             return telefono.get();
         } else {
             return null;
         }
     }
+
+    /**
+     * Recorre los campos de un parche, que debe traer al menos uno y ninguno nulo
+     *
+     * @param patch  Documento del parche
+     * @param action Acción a aplicar a cada campo
+     */
+    private static void forEachField(Map<String, Object> patch, BiConsumer<String, Object> action) {
+        if (patch == null || patch.isEmpty()) {
+            throw new IllegalArgumentException("El parche no tiene campos para actualizar");
+        }
+        patch.forEach((field, value) -> {
+            if (value == null) {
+                throw new IllegalArgumentException("El campo " + field + " es obligatorio y no se puede quitar");
+            }
+            action.accept(field, value);
+        });
+    }
+
+    private static String text(String field, Object value) {
+        if (!(value instanceof String text) || text.isBlank()) {
+            throw new IllegalArgumentException("El campo " + field + " debe ser un texto no vacío");
+        }
+        return text;
+    }
+
+    private static LocalDate date(String field, Object value) {
+        try {
+            return LocalDate.parse(text(field, value));
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("El campo " + field + " debe ser una fecha AAAA-MM-DD");
+        }
+    }
+
+    /**
+     * Lee un número entero del parche; Jackson entrega Integer, Long o BigInteger según el tamaño del número, así que
+     * se acepta cualquier entero que quepa en un int
+     */
+    private static Integer integer(String field, Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger) {
+            var number = value instanceof BigInteger big ? big : BigInteger.valueOf(((Number) value).longValue());
+            if (number.bitLength() < Integer.SIZE) {
+                return number.intValue();
+            }
+        }
+        throw new IllegalArgumentException("El campo " + field + " debe ser un número entero");
+    }
+
+    /**
+     * Arma la respuesta de un parche aplicado: el identificador seguido de los valores guardados
+     *
+     * @param id     Identificador de la entidad
+     * @param values Valores guardados por nombre de atributo
+     * @return Merge patch de la entidad
+     */
+    private static Map<String, Object> changes(Integer id, Map<String, Object> values) {
+        var changes = new LinkedHashMap<String, Object>();
+        changes.put("id", id);
+        changes.putAll(values);
+        return Collections.unmodifiableMap(changes);
+    }
+
+    /**
+     * Arma la página del listado a partir de las filas leídas, que traen una de más para saber si hay otra página
+     *
+     * @param rows  Filas leídas, hasta limit + 1
+     * @param page  Contactos de la página con sus teléfonos
+     * @param field campo por el cual se ordenó
+     * @param order método de ordenado ASC o DESC
+     * @param limit Tamaño de la página
+     * @return Página con el cursor de la siguiente, si existe
+     */
+    private static CursorPage<Contacto> cursorPage(List<Contacto> rows, List<Contacto> page, String field,
+                                                   Sort.Direction order, int limit) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(page, null, limit);
+        }
+        var last = rows.get(limit - 1);
+        var lastValue = switch (field) {
+            case "nombre" -> last.getNombre();
+            case "apellido" -> last.getApellido();
+            default -> null;
+        };
+        return new CursorPage<>(page, new Cursor(field, order, last.getId(), lastValue).encode(), limit);
+    }
+
+    /**
+     * Recorta los resultados de una búsqueda a libreta.search.max-results
+     */
+    private List<Integer> limitResults(List<Integer> ids) {
+        return ids.size() > maxSearchResults ? ids.subList(0, maxSearchResults) : ids;
+    }
+
+    /**
+     * Tamaño de página a usar para el tamaño pedido por el cliente
+     *
+     * @param size Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @return Tamaño entre 1 y libreta.index.max-page-size
+     */
+    private int pageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    /**
+     * Valida el ordenamiento pedido y decodifica el cursor de la página anterior
+     *
+     * @param field  Campo por el cual ordenar
+     * @param order  Dirección del ordenamiento
+     * @param cursor Token de continuación, nulo o vacío para la primera página
+     * @return Cursor decodificado o null para la primera página
+     */
+    private static Cursor after(String field, Sort.Direction order, String cursor) {
+        if (!INDEXED_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Solo se puede ordenar por id, nombre o apellido");
+        }
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        var after = Cursor.decode(cursor);
+        if (!after.field().equals(field) || after.direction() != order) {
+            throw new IllegalArgumentException("El cursor no corresponde al ordenamiento solicitado");
+        }
+        return after;
+    }
+
+    /**
+     * Decodifica el cursor de la página anterior de los cumpleaños
+     *
+     * @param cursor Token de continuación, nulo o vacío para la primera página
+     * @return Cursor con el mes y día y el identificador del último contacto, o null para la primera página
+     */
+    private static Cursor birthdayCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        var after = Cursor.decode(cursor);
+        if (!after.field().equals(BIRTHDAY_FIELD) || !after.lastValue().matches("\\d{3,4}")) {
+            throw new IllegalArgumentException("El cursor no corresponde a la consulta de cumpleaños");
+        }
+        return after;
+    }
+
+    /**
+     * Fecha en que se celebra el próximo cumpleaños del contacto a partir del primer día de la ventana; MonthDay
+     * lleva el 29 de febrero al 28 en los años no bisiestos
+     *
+     * @param contacto Contacto con su fecha de nacimiento
+     * @param start    Primer día de la ventana
+     * @return Cumpleaños con su fecha y la edad que se cumple
+     */
+    private static Birthday birthday(Contacto contacto, LocalDate start) {
+        var monthDay = MonthDay.from(contacto.getFechaNacimiento());
+        var fecha = monthDay.atYear(start.getYear());
+        if (fecha.isBefore(start)) {
+            fecha = monthDay.atYear(start.getYear() + 1);
+        }
+        return new Birthday(fecha, fecha.getYear() - contacto.getFechaNacimiento().getYear(), contacto);
+    }
+
+    /**
+     * Rango de meses y días como MMDD, ambos incluidos, dentro de un mismo año
+     *
+     * @param desde Primer mes y día
+     * @param hasta Último mes y día
+     */
+    private record MonthDayRange(int desde, int hasta) {
+        /**
+         * Rango entre dos fechas del mismo año. Si termina el 28 de febrero de un año no bisiesto también incluye el
+         * 29, que ese año se celebra el 28.
+         */
+        static MonthDayRange of(LocalDate desde, LocalDate hasta) {
+            var last = hasta.getMonthValue() * 100 + hasta.getDayOfMonth();
+            if (last == 228 && !hasta.isLeapYear()) {
+                last = 229;
+            }
+            return new MonthDayRange(desde.getMonthValue() * 100 + desde.getDayOfMonth(), last);
+        }
+
+        boolean contains(int monthDay) {
+            return monthDay >= desde && monthDay <= hasta;
+        }
+    }
+
+    /**
+     * Agrega a cada fila de una proyección la lista de teléfonos de su contacto, con una sola consulta para todas
+     *
+     * @param rows Filas de contactos con su id
+     * @return Las mismas filas
+     */
+    private List<Map<String, Object>> attachTelefonos(List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        var telefonos = new HashMap<Integer, List<Telefono>>();
+        var ids = rows.stream().map(row -> (Integer) row.get("id")).toList();
+        telefonoRepository.findByContactoIdIn(ids).forEach(telefono -> telefonos
+                .computeIfAbsent(telefono.getContactoId(), key -> new ArrayList<>()).add(telefono));
+        rows.forEach(row -> row.put("telefonos", telefonos.getOrDefault((Integer) row.get("id"), List.of())));
+        return rows;
+    }
+
+    /**
+     * Carga los contactos indicados con sus teléfonos en una sola consulta, conservando el orden de los
+     * identificadores
+     *
+     * @param ids Identificadores de los contactos
+     * @return Lista de contactos con sus teléfonos
+     */
+    private List<Contacto> withTelefonos(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        var found = new HashMap<Integer, Contacto>();
+        contactoRepository.findWithTelefonosByIdIn(ids).forEach(contacto -> found.put(contacto.getId(), contacto));
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Enlaza el teléfono con el contacto indicado por su contactoId sin consultar el contacto; si no existe la llave
+     * foránea rechaza la escritura
+     *
+     * @param telefono Objeto del teléfono a guardar
+     */
+    private void resolveContacto(Telefono telefono) {
+        if (telefono.getContacto() == null && telefono.getContactoId() != null) {
+            telefono.setContacto(contactoRepository.getReferenceById(telefono.getContactoId()));
+        }
+    }
+
+    /**
+     * Ejecuta la acción en una transacción, o en la que ya esté en curso
+     */
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    /**
+     * Ejecuta una lectura en una transacción de solo lectura, que se puede enviar a una réplica. Las lecturas que
+     * pueden responderse desde la memoria la abren solo cuando van a la base de datos, así no toman una conexión.
+     */
+    private <T> T inReadOnlyTransaction(Supplier<T> action) {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> action.get());
+    }
+
+    /**
+     * Persiste un contacto nuevo dentro de la transacción actual; el identificador se limpia porque lo asigna la
+     * secuencia, también cuando se reintenta una fila de un lote fallido
+     *
+     * @param contacto Contacto a guardar
+     * @return Contacto guardado
+     */
+    private Contacto insertContacto(Contacto contacto) {
+        contacto.setId(null);
+        contacto.setCreatedAt(Instant.now());
+        var created = contactoRepository.save(contacto);
+        eventPublisher.publishEvent(ChangeEvent.of(created, ChangeEvent.Action.CREATED));
+        return created;
+    }
+
+    /**
+     * Persiste un teléfono nuevo dentro de la transacción actual, enlazado con su contacto sin consultarlo
+     *
+     * @param telefono Teléfono a guardar
+     * @return Teléfono guardado
+     */
+    private Telefono insertTelefono(Telefono telefono) {
+        telefono.setId(null);
+        telefono.setCreatedAt(Instant.now());
+        resolveContacto(telefono);
+        var created = telefonoRepository.save(telefono);
+        eventPublisher.publishEvent(ChangeEvent.of(created, ChangeEvent.Action.CREATED));
+        return created;
+    }
+
+    /**
+     * Guarda un bloque de la importación masiva
+     *
+     * @param chunk      Contactos del bloque
+     * @param firstIndex Posición del primer contacto del bloque en la importación
+     * @param result     Resultado de la importación a actualizar
+     */
+    private void importChunk(List<Contacto> chunk, int firstIndex, BulkImportResult result) {
+        var valid = new ArrayList<Integer>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            var error = validateImport(chunk.get(i));
+            if (error == null) {
+                valid.add(i);
+            } else {
+                result.addError(firstIndex + i, error);
+            }
+        }
+        var transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> valid.forEach(i -> persistImported(chunk.get(i))));
+            result.addImported(valid.size());
+        } catch (RuntimeException chunkException) {
+            for (var i : valid) {
+                try {
+                    transaction.executeWithoutResult(status -> persistImported(chunk.get(i)));
+                    result.addImported(1);
+                } catch (DataAccessException exception) {
+                    result.addError(firstIndex + i, SqlErrors.clientMessage(exception)
+                            .orElse(exception.getMostSpecificCause().getMessage()));
+                } catch (RuntimeException exception) {
+                    result.addError(firstIndex + i, exception.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Revisa los datos obligatorios de un contacto importado y que no repita números de teléfono
+     *
+     * @param contacto Contacto a revisar
+     * @return Mensaje de error o null si el contacto es válido
+     */
+    private String validateImport(Contacto contacto) {
+        if (contacto == null || contacto.getNombre() == null || contacto.getApellido() == null) {
+            return "El nombre y el apellido son obligatorios";
+        }
+        var numeros = new HashSet<String>();
+        for (var telefono : contacto.getTelefonos()) {
+            if (telefono.getTelefono() == null || !numeros.add(telefono.getTelefono())) {
+                return "El contacto tiene números de teléfono vacíos o repetidos";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Persiste un contacto importado y sus teléfonos dentro de la transacción actual, los INSERT se envían agrupados
+     * al hacer flush
+     *
+     * @param contacto Contacto a guardar
+     */
+    private void persistImported(Contacto contacto) {
+        contacto.setId(null);
+        contacto.setCreatedAt(Instant.now());
+        var created = contactoRepository.save(contacto);
+        eventPublisher.publishEvent(ChangeEvent.of(created, ChangeEvent.Action.CREATED));
+        for (var telefono : contacto.getTelefonos()) {
+            telefono.setId(null);
+            telefono.setContacto(created);
+            telefono.setContactoId(created.getId());
+            telefono.setCreatedAt(Instant.now());
+            eventPublisher.publishEvent(ChangeEvent.of(telefonoRepository.save(telefono), ChangeEvent.Action.CREATED));
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package com.davidbonelo.libreta.service.cache;
+
+import com.davidbonelo.libreta.datasource.DataSourceRouting;
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.repository.TelefonoBorradoRepository;
+import com.davidbonelo.libreta.repository.TelefonoRepository;
+import com.davidbonelo.libreta.service.events.ChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Versión del directorio completo para las peticiones condicionales (ETag / Last-Modified).
+ * <p>
+ * Combina dos fuentes. Un contador de escrituras que sube con cada cambio confirmado por LibretaService, más la época
+ * del proceso para que un reinicio no repita versiones; cambia apenas se confirma una escritura de esta instancia. Y
+ * la fecha de escritura más reciente de la base de datos (máximo de cnt_updated_at, tel_updated_at y de los
+ * teléfonos borrados), que se vuelve a leer como mucho una vez por intervalo desde la petición que la encuentra
+ * vencida; con ella las escrituras de otras instancias, del módulo reactivo o hechas directo en la base cambian la
+ * versión a más tardar un intervalo después.
+ */
+@Component
+public class DirectoryVersion {
+    private static final Logger log = LoggerFactory.getLogger(DirectoryVersion.class);
+
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    @Autowired
+    private TelefonoRepository telefonoRepository;
+
+    @Autowired
+    private TelefonoBorradoRepository telefonoBorradoRepository;
+
+    @Value("${libreta.conditional.db-check-interval:1s}")
+    private Duration dbCheckInterval;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile State state = new State(0, Instant.EPOCH);
+
+    private volatile DbCheck dbCheck;
+
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    /**
+     * Número de escritura y fecha de la última modificación, se reemplazan juntos
+     */
+    private record State(long writes, Instant lastModified) {
+    }
+
+    /**
+     * Última escritura leída de la base de datos y el momento de la lectura (System.nanoTime)
+     */
+    private record DbCheck(Instant lastWrite, long checkedAt) {
+    }
+
+    /**
+     * Toma la fecha de la última escritura guardada en la base de datos
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * Avanza la versión con cada cambio confirmado
+     *
+     * @param event Evento de cambio publicado por LibretaService
+     */
+    @TransactionalEventListener
+    public void onChange(ChangeEvent event) {
+        var now = Instant.now();
+        synchronized (this) {
+            var current = state;
+            state = new State(current.writes() + 1,
+                    now.isAfter(current.lastModified()) ? now : current.lastModified());
+        }
+    }
+
+    /**
+     * ETag débil de la versión actual. Es débil porque la misma versión se sirve en varias representaciones
+     * equivalentes (JSON, CBOR, Smile, comprimidas o no) que no son idénticas byte a byte.
+     *
+     * @return ETag con el prefijo W/ y entre comillas
+     */
+    public String getETag() {
+        var lastWrite = dbLastWrite();
+        return "W/\"" + epoch + "-" + state.writes() + "-" + Long.toString(lastWrite.toEpochMilli(), 36) + "\"";
+    }
+
+    /**
+     * Fecha de la última modificación del directorio, la más reciente entre las escrituras de esta instancia y la
+     * última leída de la base de datos
+     *
+     * @return Milisegundos desde la época Unix
+     */
+    public long getLastModified() {
+        var lastWrite = dbLastWrite();
+        var lastModified = state.lastModified();
+        return (lastWrite.isAfter(lastModified) ? lastWrite : lastModified).toEpochMilli();
+    }
+
+    /**
+     * Fecha de la última escritura en la base de datos, la vuelve a leer si la lectura anterior ya venció. Solo una
+     * petición a la vez hace la consulta, las demás usan el valor anterior mientras tanto.
+     */
+    private Instant dbLastWrite() {
+        var current = dbCheck;
+        if (current == null || System.nanoTime() - current.checkedAt() >= dbCheckInterval.toNanos()) {
+            refresh();
+            current = dbCheck;
+        }
+        return current == null ? Instant.EPOCH : current.lastWrite();
+    }
+
+    private void refresh() {
+        if (!checking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            var lastWrite = DataSourceRouting.onPrimary(() -> Stream.of(contactoRepository.findLastUpdatedAt(),
+                            telefonoRepository.findLastUpdatedAt(), telefonoBorradoRepository.findLastDeletedAt())
+                    .filter(Objects::nonNull)
+                    .max(Instant::compareTo)
+                    .orElse(Instant.EPOCH));
+            dbCheck = new DbCheck(lastWrite, System.nanoTime());
+        } catch (RuntimeException e) {
+            // Sin base de datos se conserva el valor anterior y se reintenta en el siguiente intervalo
+            log.warn("No se pudo leer la fecha de la última escritura: {}", e.getMessage());
+            var previous = dbCheck;
+            dbCheck = new DbCheck(previous == null ? Instant.EPOCH : previous.lastWrite(), System.nanoTime());
+        } finally {
+            checking.set(false);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.davidbonelo.libreta.service.cache;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.service.events.ChangeEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Caché en memoria de contactos (con sus teléfonos) y teléfonos por identificador, limitado por tamaño y por tiempo
+ * de vida.
+ * <p>
+ * Las entradas se invalidan cuando se confirma cualquier cambio publicado por LibretaService. Cada entrada es un
+ * futuro: la primera lectura de una llave lo registra y hace la consulta en su propio hilo, fuera de los bloqueos del
+ * mapa, y las lecturas concurrentes de la misma llave esperan ese mismo futuro. Así una consulta lenta no bloquea
+ * otras llaves ni fija (pin) un hilo virtual a su portador. La invalidación también quita los futuros en curso, de
+ * modo que un valor cargado antes del commit nunca queda guardado.
+ */
+@Component
+public class LibretaCache {
+    private final AsyncCache<Integer, Contacto> contactos;
+
+    private final AsyncCache<Integer, Telefono> telefonos;
+
+    public LibretaCache(@Value("${libreta.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${libreta.cache.ttl:PT5M}") Duration ttl) {
+        contactos = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().buildAsync();
+        telefonos = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().buildAsync();
+    }
+
+    /**
+     * Devuelve un contacto de la caché o lo carga con la función indicada
+     *
+     * @param id     Identificador del contacto
+     * @param loader Función que carga el contacto con sus teléfonos, devuelve null si no existe
+     * @return Contacto encontrado o null
+     */
+    public Contacto getContacto(Integer id, Function<Integer, Contacto> loader) {
+        return load(contactos, id, loader);
+    }
+
+    /**
+     * Devuelve un teléfono de la caché o lo carga con la función indicada
+     *
+     * @param id     Identificador del teléfono
+     * @param loader Función que carga el teléfono, devuelve null si no existe
+     * @return Teléfono encontrado o null
+     */
+    public Telefono getTelefono(Integer id, Function<Integer, Telefono> loader) {
+        return load(telefonos, id, loader);
+    }
+
+    /**
+     * Invalida las entradas afectadas por un cambio confirmado. Un cambio en un teléfono también invalida a su
+     * contacto, porque el contacto se guarda con la lista de sus teléfonos.
+     *
+     * @param event Evento de cambio publicado por LibretaService
+     */
+    @TransactionalEventListener
+    public void onChange(ChangeEvent event) {
+        if (event.type() == ChangeEvent.Type.CONTACTO) {
+            contactos.synchronous().invalidate(event.id());
+            if (event.action() == ChangeEvent.Action.DELETED) {
+                removeIf(telefonos, telefono -> event.id().equals(telefono.getContactoId()));
+            }
+            return;
+        }
+
+        var previous = completedValue(telefonos.asMap().remove(event.id()));
+        if (event.contactoId() != null) {
+            contactos.synchronous().invalidate(event.contactoId());
+        }
+        if (previous != null && previous.getContactoId() != null) {
+            contactos.synchronous().invalidate(previous.getContactoId());
+        } else if (event.action() != ChangeEvent.Action.CREATED) {
+            // No se sabe a qué contacto pertenecía el teléfono antes del cambio
+            removeIf(contactos, contacto -> contacto.getTelefonos().stream()
+                    .anyMatch(telefono -> Objects.equals(telefono.getId(), event.id())));
+        }
+    }
+
+    /**
+     * Devuelve los contadores de aciertos, fallos y desalojos de cada caché
+     *
+     * @return Contadores por caché
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        var stats = new LinkedHashMap<String, Map<String, Object>>();
+        stats.put("contactos", toMap(contactos.synchronous().stats(), contactos.synchronous().estimatedSize()));
+        stats.put("telefonos", toMap(telefonos.synchronous().stats(), telefonos.synchronous().estimatedSize()));
+        return stats;
+    }
+
+    /**
+     * Devuelve el valor de la llave, cargándolo en el hilo actual si nadie más lo está cargando. El futuro se registra
+     * dentro del mapa, pero la consulta corre fuera de él; un valor nulo o un error no quedan guardados.
+     */
+    private static <V> V load(AsyncCache<Integer, V> cache, Integer id, Function<Integer, V> loader) {
+        var created = new CompletableFuture<V>();
+        var future = cache.get(id, (key, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(loader.apply(id));
+            } catch (RuntimeException exception) {
+                created.completeExceptionally(exception);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Quita las entradas cuyo valor cumple la condición y las que todavía se están cargando
+     */
+    private static <V> void removeIf(AsyncCache<Integer, V> cache, Predicate<V> predicate) {
+        cache.asMap().values().removeIf(future -> {
+            if (!future.isDone()) {
+                return true;
+            }
+            var value = completedValue(future);
+            return value != null && predicate.test(value);
+        });
+    }
+
+    private static <V> V completedValue(CompletableFuture<V> future) {
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    private static Map<String, Object> toMap(CacheStats stats, long size) {
+        var map = new LinkedHashMap<String, Object>();
+        map.put("size", size);
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("evictions", stats.evictionCount());
+        map.put("hitRate", stats.hitRate());
+        return map;
+    }
+}
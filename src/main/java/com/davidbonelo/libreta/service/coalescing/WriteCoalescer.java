@@ -0,0 +1,249 @@
+package com.davidbonelo.libreta.service.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Agrupa escrituras concurrentes de una fila (group commit): cada llamada se encola y un hilo propio las guarda
+ * juntas en una sola transacción cuando el lote llega a batchSize filas o cuando la primera fila del lote cumple
+ * maxLatency esperando. Quien llama queda bloqueado hasta que se confirma su lote y recibe su propia fila guardada.
+ * <p>
+ * Si el lote falla se reintenta fila por fila, cada una en su propia transacción, así cada llamada recibe su propio
+ * resultado o su propio error (dato duplicado, llave foránea inexistente) sin afectar a las demás. Un Error (falta de
+ * memoria, desbordamiento de pila) falla el lote completo y el hilo sigue atendiendo la cola; si aun así el hilo
+ * termina, las filas siguientes se guardan una por una en el hilo de quien llama. Quien llama espera a lo sumo
+ * maxLatency más {@link #FLUSH_TIMEOUT}, así una escritura nunca queda bloqueada indefinidamente.
+ * <p>
+ * Métricas con la etiqueta writer: libreta.coalescing.batch.size (filas por lote, el llenado del lote),
+ * libreta.coalescing.flush (duración de cada lote) y libreta.coalescing.fallbacks (lotes reintentados fila por fila).
+ *
+ * @param <T> Tipo de la fila que se guarda
+ */
+@Slf4j
+public class WriteCoalescer<T> {
+    /**
+     * Tiempo que se le da a un lote para guardarse, además de la espera máxima de su primera fila
+     */
+    public static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(30);
+
+    private final int batchSize;
+
+    private final long maxLatencyNanos;
+
+    /**
+     * Espera máxima de quien llama: maxLatency más FLUSH_TIMEOUT
+     */
+    private final long waitNanos;
+
+    private final UnaryOperator<List<T>> batchWriter;
+
+    private final UnaryOperator<T> singleWriter;
+
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+
+    private final Thread flusher;
+
+    private final DistributionSummary batchSizes;
+
+    private final Timer flushes;
+
+    private final Counter fallbacks;
+
+    private volatile boolean running = true;
+
+    /**
+     * Crea el escritor y arranca el hilo que guarda los lotes
+     *
+     * @param name          Nombre del escritor, para el hilo y las métricas
+     * @param batchSize     Filas máximas por lote
+     * @param maxLatency    Espera máxima de la primera fila del lote antes de guardarlo
+     * @param batchWriter   Guarda todas las filas en una sola transacción y las devuelve en el mismo orden
+     * @param singleWriter  Guarda una fila en su propia transacción
+     * @param meterRegistry Registro de métricas
+     */
+    public WriteCoalescer(String name, int batchSize, Duration maxLatency, UnaryOperator<List<T>> batchWriter,
+                          UnaryOperator<T> singleWriter, MeterRegistry meterRegistry) {
+        this.batchSize = Math.max(1, batchSize);
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.waitNanos = maxLatencyNanos + FLUSH_TIMEOUT.toNanos();
+        this.batchWriter = batchWriter;
+        this.singleWriter = singleWriter;
+        batchSizes = DistributionSummary.builder("libreta.coalescing.batch.size")
+                .description("Filas guardadas en cada lote")
+                .baseUnit("rows")
+                .tag("writer", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        flushes = Timer.builder("libreta.coalescing.flush")
+                .description("Duración de cada lote")
+                .tag("writer", name)
+                .register(meterRegistry);
+        fallbacks = Counter.builder("libreta.coalescing.fallbacks")
+                .description("Lotes que fallaron y se reintentaron fila por fila")
+                .tag("writer", name)
+                .register(meterRegistry);
+        flusher = new Thread(this::run, "libreta-coalescing-" + name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Encola la fila y espera a que se guarde su lote. Si el lote no se guarda a tiempo y la fila sigue en la cola,
+     * se guarda sola en este hilo.
+     *
+     * @param item Fila a guardar
+     * @return Fila guardada, con su identificador generado
+     * @throws IllegalStateException si la fila ya estaba en un lote que no terminó a tiempo, o si se interrumpe la
+     *                               espera
+     */
+    public T submit(T item) {
+        if (!running) {
+            return singleWriter.apply(item);
+        }
+        var pending = new Pending<>(item, new CompletableFuture<T>(), System.nanoTime());
+        queue.add(pending);
+        // El hilo pudo terminar entre la verificación y el encolado: nadie vaciaría la cola
+        if (!running && queue.remove(pending)) {
+            return singleWriter.apply(item);
+        }
+        try {
+            return pending.result().get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new CompletionException(exception.getCause());
+        } catch (TimeoutException exception) {
+            if (queue.remove(pending)) {
+                log.warn("Fila sin guardar después de {} ms en la cola, se guarda sola",
+                        TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                return singleWriter.apply(item);
+            }
+            throw new IllegalStateException("La escritura agrupada no terminó a tiempo", exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new IllegalStateException("Escritura agrupada interrumpida", exception);
+        }
+    }
+
+    /**
+     * Deja de aceptar filas y espera a que se guarden las que ya estaban en la cola
+     */
+    public void close() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        // Las filas que llegaron mientras se cerraba se guardan una por una
+        Pending<T> pending;
+        while ((pending = queue.poll()) != null) {
+            writeSingle(pending);
+        }
+    }
+
+    private void run() {
+        try {
+            drain();
+        } finally {
+            // Si el hilo termina por un error, las filas siguientes se guardan una por una en el hilo de quien llama
+            running = false;
+            Pending<T> pending;
+            while ((pending = queue.poll()) != null) {
+                writeSingle(pending);
+            }
+        }
+    }
+
+    private void drain() {
+        var batch = new ArrayList<Pending<T>>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                var deadline = first.enqueuedAt() + maxLatencyNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    var remaining = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || remaining <= 0) {
+                        break;
+                    }
+                    var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException exception) {
+                // Solo se interrumpe al cerrar, la cola se sigue vaciando
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    flush(batch);
+                } catch (Throwable failure) {
+                    // Un Error no pasa por el reintento fila por fila: falla el lote completo y el hilo sigue
+                    log.error("Lote de {} filas fallido", batch.size(), failure);
+                    batch.forEach(pending -> pending.result().completeExceptionally(failure));
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void flush(List<Pending<T>> batch) {
+        batchSizes.record(batch.size());
+        var start = System.nanoTime();
+        try {
+            var saved = batchWriter.apply(batch.stream().map(Pending::item).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i));
+            }
+        } catch (RuntimeException batchException) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(batchException);
+                return;
+            }
+            fallbacks.increment();
+            log.debug("Lote de {} filas fallido, se reintenta fila por fila", batch.size(), batchException);
+            batch.forEach(this::writeSingle);
+        } finally {
+            flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeSingle(Pending<T> pending) {
+        try {
+            pending.result().complete(singleWriter.apply(pending.item()));
+        } catch (Throwable exception) {
+            pending.result().completeExceptionally(exception);
+        }
+    }
+
+    private record Pending<T>(T item, CompletableFuture<T> result, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,468 @@
+package com.davidbonelo.libreta.service.dedup;
+
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.repository.TelefonoRepository;
+import com.davidbonelo.libreta.utility.PhoneNumbers;
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detección de contactos duplicados en todo el directorio.
+ * <p>
+ * Comparar cada contacto con todos los demás es cuadrático, así que primero se agrupan en bloques por llaves que
+ * comparten los duplicados probables: el correo en minúsculas, cada teléfono en forma canónica y un esbozo del nombre
+ * (la llave fonética de la primera palabra del nombre y de los apellidos). Solo se comparan los pares dentro de un
+ * mismo bloque; los bloques más grandes que libreta.dedup.max-block-size (un teléfono de oficina, un nombre muy común)
+ * se descartan porque casi todos sus pares son contactos distintos.
+ * <p>
+ * Los bloques se reparten entre los hilos de un ForkJoinPool propio, que divide la lista de bloques en mitades hasta
+ * tener tramos pequeños. Un par que comparte varios bloques se califica una sola vez, en su bloque canónico: el de
+ * menor llave entre los que comparte. Cada hilo lo decide con las llaves de los dos contactos, sin estado compartido.
+ * <p>
+ * En un directorio grande la búsqueda toma minutos, así que se ejecuta como un trabajo en segundo plano
+ * ({@link #start(double, int)}) que el cliente consulta hasta que termina ({@link #getJob(String)}). Solo corre una
+ * búsqueda a la vez.
+ */
+@Slf4j
+@Component
+public class DuplicateDetector {
+    private static final double EMAIL_WEIGHT = 0.4;
+    private static final double TELEFONO_WEIGHT = 0.3;
+    private static final double NOMBRE_WEIGHT = 0.2;
+    private static final double FECHA_WEIGHT = 0.1;
+
+    /**
+     * Similitud mínima de los nombres para contarla como motivo de la sugerencia
+     */
+    private static final double NOMBRE_SIMILAR = 0.8;
+
+    /**
+     * Cantidad de bloques que un hilo califica sin volver a dividir el tramo
+     */
+    private static final int BLOCKS_PER_TASK = 512;
+
+    /**
+     * Trabajos terminados que se conservan para consultar su resultado
+     */
+    private static final int MAX_JOBS = 20;
+
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    @Autowired
+    private TelefonoRepository telefonoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Hilos que califican los pares, 0 para uno por procesador
+     */
+    @Value("${libreta.dedup.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * Tamaño máximo de un bloque para comparar sus pares
+     */
+    @Value("${libreta.dedup.max-block-size:50}")
+    private int maxBlockSize;
+
+    private final ExecutorService jobRunner = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "libreta-dedup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Últimos trabajos por identificador, del más antiguo al más reciente
+     */
+    private final Map<String, DuplicateJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DuplicateJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    };
+
+    private DuplicateJob running;
+
+    /**
+     * Estado de un trabajo de búsqueda de duplicados
+     */
+    public enum JobStatus {
+        RUNNING, DONE, FAILED
+    }
+
+    /**
+     * Sugerencia de fusión de dos contactos
+     *
+     * @param survivorId  Contacto que se conserva, el más antiguo
+     * @param duplicateId Contacto que se fusiona en el anterior y se borra
+     * @param score       Calificación de 0 a 1
+     * @param reasons     Datos que coinciden: email, telefono, nombre y/o fechaNacimiento
+     */
+    public record MergeSuggestion(Integer survivorId, Integer duplicateId, double score, List<String> reasons) {
+    }
+
+    /**
+     * Resultado de una búsqueda de duplicados
+     *
+     * @param contactos       Contactos revisados
+     * @param blocks          Bloques con dos o más contactos que se compararon
+     * @param oversizedBlocks Bloques descartados por su tamaño
+     * @param pairs           Pares calificados
+     * @param millis          Duración de la búsqueda en milisegundos
+     * @param suggestions     Sugerencias de fusión de la calificación más alta a la más baja
+     */
+    public record DuplicateReport(int contactos, int blocks, int oversizedBlocks, long pairs, long millis,
+                                  List<MergeSuggestion> suggestions) {
+    }
+
+    /**
+     * Trabajo de búsqueda de duplicados en segundo plano
+     *
+     * @param id         Identificador del trabajo
+     * @param status     Estado del trabajo
+     * @param minScore   Calificación mínima solicitada
+     * @param limit      Cantidad máxima de sugerencias solicitada
+     * @param startedAt  Fecha y hora de inicio
+     * @param finishedAt Fecha y hora de fin, null mientras corre
+     * @param report     Resultado, null hasta que termina bien
+     * @param error      Mensaje del error si falló
+     */
+    public record DuplicateJob(String id, JobStatus status, double minScore, int limit, Instant startedAt,
+                               Instant finishedAt, DuplicateReport report, String error) {
+        private DuplicateJob finish(DuplicateReport report, String error) {
+            return new DuplicateJob(id, report != null ? JobStatus.DONE : JobStatus.FAILED, minScore, limit,
+                    startedAt, Instant.now(), report, error);
+        }
+    }
+
+    /**
+     * Datos de un contacto que participan en la comparación
+     *
+     * @param keys Llaves de bloque del contacto, sin repetir
+     */
+    private record Candidate(Integer id, String email, String nombre, String sound, String sketch,
+                             LocalDate fechaNacimiento, Instant createdAt, List<String> telefonos,
+                             List<String> keys) {
+    }
+
+    /**
+     * Contactos que comparten una llave
+     *
+     * @param key     Llave del bloque
+     * @param members Posiciones de los contactos en la lista de candidatos
+     */
+    private record Block(String key, List<Integer> members) {
+    }
+
+    /**
+     * Inicia una búsqueda de duplicados en segundo plano. Si ya hay una corriendo devuelve esa, con sus parámetros.
+     *
+     * @param minScore Calificación mínima de una sugerencia, de 0 a 1
+     * @param limit    Cantidad máxima de sugerencias
+     * @return Trabajo iniciado o el que ya estaba corriendo
+     */
+    public synchronized DuplicateJob start(double minScore, int limit) {
+        if (running != null) {
+            return running;
+        }
+        var job = new DuplicateJob(UUID.randomUUID().toString(), JobStatus.RUNNING, minScore, limit, Instant.now(),
+                null, null, null);
+        running = job;
+        jobs.put(job.id(), job);
+        jobRunner.execute(() -> {
+            DuplicateJob finished;
+            try {
+                finished = job.finish(findDuplicates(minScore, limit), null);
+            } catch (RuntimeException | Error exception) {
+                log.error("Búsqueda de duplicados {} fallida", job.id(), exception);
+                finished = job.finish(null, exception.toString());
+            }
+            synchronized (this) {
+                jobs.put(job.id(), finished);
+                running = null;
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Consulta un trabajo de búsqueda de duplicados
+     *
+     * @param id Identificador del trabajo
+     * @return Trabajo con su resultado si ya terminó, o null si no existe o ya se descartó
+     */
+    public synchronized DuplicateJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobRunner.shutdownNow();
+    }
+
+    /**
+     * Busca los pares de contactos que probablemente son la misma persona. Los contactos y teléfonos se leen en una
+     * transacción de solo lectura con dos cursores de solo avance y la calificación corre después, sin ocupar una
+     * conexión.
+     *
+     * @param minScore Calificación mínima de una sugerencia, de 0 a 1
+     * @param limit    Cantidad máxima de sugerencias
+     * @return Resultado con las sugerencias de fusión
+     */
+    public DuplicateReport findDuplicates(double minScore, int limit) {
+        var start = System.nanoTime();
+        var candidates = load();
+
+        var index = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < candidates.size(); i++) {
+            for (var key : candidates.get(i).keys()) {
+                index.computeIfAbsent(key, ignored -> new ArrayList<>(2)).add(i);
+            }
+        }
+        var blocks = new ArrayList<Block>();
+        var oversized = 0;
+        for (var entry : index.entrySet()) {
+            if (entry.getValue().size() > maxBlockSize) {
+                oversized++;
+            } else if (entry.getValue().size() > 1) {
+                blocks.add(new Block(entry.getKey(), entry.getValue()));
+            }
+        }
+        // Solo se lee mientras se califica; un par se califica en el bloque de menor llave de este conjunto
+        var compared = new HashSet<String>(blocks.size() * 2);
+        blocks.forEach(block -> compared.add(block.key()));
+
+        var pairs = new LongAdder();
+        var pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        List<MergeSuggestion> suggestions;
+        try {
+            suggestions = pool.invoke(new ScoreTask(candidates, blocks, compared, 0, blocks.size(), pairs, minScore));
+        } finally {
+            pool.shutdown();
+        }
+        var sorted = suggestions.stream()
+                .sorted(Comparator.comparingDouble(MergeSuggestion::score).reversed()
+                        .thenComparing(MergeSuggestion::survivorId)
+                        .thenComparing(MergeSuggestion::duplicateId))
+                .limit(limit)
+                .toList();
+        var millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Búsqueda de duplicados: {} contactos, {} bloques ({} descartados), {} pares y {} sugerencias "
+                + "en {} ms", candidates.size(), blocks.size(), oversized, pairs.sum(), suggestions.size(), millis);
+        return new DuplicateReport(candidates.size(), blocks.size(), oversized, pairs.sum(), millis, sorted);
+    }
+
+    private List<Candidate> load() {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            var telefonos = new HashMap<Integer, List<String>>();
+            try (var rows = telefonoRepository.streamNumeros()) {
+                rows.forEach(row -> {
+                    var numero = row.telefonoNormalizado() != null ? row.telefonoNormalizado()
+                            : PhoneNumbers.normalize(row.telefono());
+                    if (numero != null) {
+                        telefonos.computeIfAbsent(row.contactoId(), key -> new ArrayList<>(2)).add(numero);
+                    }
+                });
+            }
+            var candidates = new ArrayList<Candidate>();
+            try (var rows = contactoRepository.streamRows()) {
+                rows.forEach(row -> {
+                    var email = row.email() == null || row.email().isBlank() ? null
+                            : row.email().strip().toLowerCase(Locale.ROOT);
+                    var nombre = row.nombre() + " " + row.apellido();
+                    var sketch = sketch(row.nombre(), row.apellido());
+                    var numeros = telefonos.getOrDefault(row.id(), List.of());
+                    candidates.add(new Candidate(row.id(), email, SpanishPhonetics.fold(nombre),
+                            SpanishPhonetics.key(nombre), sketch, row.fechaNacimiento(), row.createdAt(), numeros,
+                            keys(email, numeros, sketch)));
+                });
+            }
+            return candidates;
+        });
+    }
+
+    /**
+     * Esbozo del nombre: llave fonética de la primera palabra del nombre y de la primera de los apellidos
+     */
+    private static String sketch(String nombre, String apellido) {
+        var nombreKey = SpanishPhonetics.key(nombre);
+        var apellidoKey = SpanishPhonetics.key(apellido);
+        if (nombreKey == null || apellidoKey == null) {
+            return null;
+        }
+        return nombreKey.split(" ", 2)[0] + " " + apellidoKey.split(" ", 2)[0];
+    }
+
+    /**
+     * Llaves de bloque de un contacto: correo, cada teléfono y esbozo del nombre. Un contacto con dos teléfonos que se
+     * normalizan igual tiene una sola llave de teléfono, así no queda dos veces en el bloque.
+     */
+    private static List<String> keys(String email, List<String> telefonos, String sketch) {
+        var keys = new LinkedHashSet<String>();
+        if (email != null) {
+            keys.add("e:" + email);
+        }
+        telefonos.forEach(telefono -> keys.add("t:" + telefono));
+        if (sketch != null) {
+            keys.add("n:" + sketch);
+        }
+        return List.copyOf(keys);
+    }
+
+    /**
+     * Indica si el bloque es el canónico del par: ninguna llave menor que la suya es compartida por los dos contactos
+     * ni pertenece a un bloque comparado
+     */
+    private static boolean isCanonical(String key, Candidate a, Candidate b, Set<String> compared) {
+        for (var other : a.keys()) {
+            if (other.compareTo(key) < 0 && compared.contains(other) && b.keys().contains(other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Califica un par de contactos sumando el peso de cada dato que coincide: correo 0.4, algún teléfono 0.3, nombre
+     * hasta 0.2 según su similitud y fecha de nacimiento 0.1
+     *
+     * @return Sugerencia con el contacto más antiguo como sobreviviente, o null si no llega a la calificación mínima
+     */
+    private static MergeSuggestion score(Candidate a, Candidate b, double minScore) {
+        var reasons = new ArrayList<String>(4);
+        var score = 0.0;
+        if (a.email() != null && a.email().equals(b.email())) {
+            score += EMAIL_WEIGHT;
+            reasons.add("email");
+        }
+        if (a.telefonos().stream().anyMatch(b.telefonos()::contains)) {
+            score += TELEFONO_WEIGHT;
+            reasons.add("telefono");
+        }
+        var similarity = similarity(a, b);
+        if (similarity > 0) {
+            score += NOMBRE_WEIGHT * similarity;
+            if (similarity >= NOMBRE_SIMILAR) {
+                reasons.add("nombre");
+            }
+        }
+        if (a.fechaNacimiento() != null && a.fechaNacimiento().equals(b.fechaNacimiento())) {
+            score += FECHA_WEIGHT;
+            reasons.add("fechaNacimiento");
+        }
+        if (score < minScore) {
+            return null;
+        }
+        var older = a.createdAt() == null || b.createdAt() == null || a.createdAt().equals(b.createdAt())
+                ? a.id() < b.id() : a.createdAt().isBefore(b.createdAt());
+        score = Math.round(score * 1000) / 1000.0;
+        return older ? new MergeSuggestion(a.id(), b.id(), score, reasons)
+                : new MergeSuggestion(b.id(), a.id(), score, reasons);
+    }
+
+    /**
+     * Similitud de los nombres completos sin acentos, de 0 a 1, a partir de la distancia de edición; hasta un error por
+     * cada tres letras, más allá no se consideran parecidos. Si suenan igual la similitud es al menos 0.9.
+     */
+    private static double similarity(Candidate a, Candidate b) {
+        var length = Math.max(a.nombre().length(), b.nombre().length());
+        if (length == 0) {
+            return 0;
+        }
+        var max = length / 3;
+        var distance = SpanishPhonetics.distance(a.nombre(), b.nombre(), max);
+        var similarity = distance > max ? 0 : 1 - (double) distance / length;
+        if (a.sound() != null && a.sound().equals(b.sound())) {
+            similarity = Math.max(similarity, 0.9);
+        }
+        return similarity;
+    }
+
+    /**
+     * Califica los pares de un tramo de bloques, dividiéndolo en dos mientras tenga más de BLOCKS_PER_TASK bloques
+     */
+    private static final class ScoreTask extends RecursiveTask<List<MergeSuggestion>> {
+        private final List<Candidate> candidates;
+        private final List<Block> blocks;
+        private final Set<String> compared;
+        private final int from;
+        private final int to;
+        private final LongAdder pairs;
+        private final double minScore;
+
+        private ScoreTask(List<Candidate> candidates, List<Block> blocks, Set<String> compared, int from, int to,
+                          LongAdder pairs, double minScore) {
+            this.candidates = candidates;
+            this.blocks = blocks;
+            this.compared = compared;
+            this.from = from;
+            this.to = to;
+            this.pairs = pairs;
+            this.minScore = minScore;
+        }
+
+        @Override
+        protected List<MergeSuggestion> compute() {
+            if (to - from > BLOCKS_PER_TASK) {
+                var middle = (from + to) >>> 1;
+                var left = new ScoreTask(candidates, blocks, compared, from, middle, pairs, minScore);
+                left.fork();
+                var right = new ScoreTask(candidates, blocks, compared, middle, to, pairs, minScore).compute();
+                var result = new ArrayList<>(left.join());
+                result.addAll(right);
+                return result;
+            }
+            var result = new ArrayList<MergeSuggestion>();
+            var scored = 0L;
+            for (int index = from; index < to; index++) {
+                var block = blocks.get(index);
+                var members = block.members();
+                for (int i = 0; i < members.size(); i++) {
+                    var first = candidates.get(members.get(i));
+                    for (int j = i + 1; j < members.size(); j++) {
+                        var second = candidates.get(members.get(j));
+                        if (!isCanonical(block.key(), first, second, compared)) {
+                            continue;
+                        }
+                        scored++;
+                        var suggestion = score(first, second, minScore);
+                        if (suggestion != null) {
+                            result.add(suggestion);
+                        }
+                    }
+                }
+            }
+            pairs.add(scored);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.davidbonelo.libreta.service.events;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+
+import java.util.Map;
+
+/**
+ * Evento publicado por LibretaService cada vez que crea, actualiza o borra un contacto o un teléfono.
+ * <p>
+ * Los componentes que mantienen información derivada (índices, cachés, etc.) lo escuchan con
+ * {@code @TransactionalEventListener} para enterarse del cambio solo cuando la transacción se confirma.
+ *
+ * @param type       Tipo de entidad modificada
+ * @param action     Acción realizada sobre la entidad
+ * @param id         Identificador de la entidad modificada
+ * @param contactoId Identificador del contacto afectado (el mismo id para contactos, el dueño para teléfonos)
+ * @param payload    Entidad tal como quedó después del cambio, puede ser nula. En una actualización parcial
+ *                   (PATCHED) es un mapa con el identificador, los campos cambiados y la fecha de actualización, es
+ *                   decir un merge patch de la entidad; los campos ausentes no cambiaron.
+ */
+public record ChangeEvent(Type type, Action action, Integer id, Integer contactoId, Object payload) {
+
+    public enum Type {
+        CONTACTO, TELEFONO
+    }
+
+    public enum Action {
+        CREATED, UPDATED, PATCHED, DELETED
+    }
+
+    public static ChangeEvent of(Contacto contacto, Action action) {
+        return new ChangeEvent(Type.CONTACTO, action, contacto.getId(), contacto.getId(), contacto);
+    }
+
+    public static ChangeEvent of(Telefono telefono, Action action) {
+        var contactoId = telefono.getContactoId();
+        if (contactoId == null && telefono.getContacto() != null) {
+            contactoId = telefono.getContacto().getId();
+        }
+        return new ChangeEvent(Type.TELEFONO, action, telefono.getId(), contactoId, telefono);
+    }
+
+    public static ChangeEvent patched(Type type, Integer id, Integer contactoId, Map<String, Object> changes) {
+        return new ChangeEvent(type, Action.PATCHED, id, contactoId, changes);
+    }
+}
@@ -0,0 +1,284 @@
+package com.davidbonelo.libreta.service.events;
+
+import com.davidbonelo.libreta.utility.VirtualThreads;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flujo de eventos de cambio para los suscriptores de Server-Sent Events.
+ * <p>
+ * Cada cambio confirmado recibe un número de secuencia, se serializa una sola vez y se guarda en un búfer circular
+ * con los últimos libreta.events.buffer-size eventos, desde el cual se reanuda a un cliente que se reconecta con su
+ * Last-Event-ID. Los identificadores llevan la época del proceso ({@code época-secuencia}); si el cliente trae un
+ * identificador de otra época o uno que ya salió del búfer recibe un evento {@code reset} y debe sincronizarse por
+ * /api/v1/sync.
+ * <p>
+ * Cada suscriptor tiene su propia cola acotada y su propio turno de envío, así un consumidor lento no frena el commit
+ * ni a los demás; si su cola se llena se cierra la conexión y el cliente se reanuda desde su último evento.
+ */
+@Slf4j
+@Component
+public class ChangeStream {
+    private static final String RESET = "reset";
+
+    private final ObjectMapper objectMapper;
+
+    private final int bufferSize;
+
+    private final int queueSize;
+
+    private final long timeout;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Queue<StreamedChange> buffer = new ArrayDeque<>();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService senders;
+
+    private final ScheduledExecutorService heartbeats =
+            Executors.newSingleThreadScheduledExecutor(daemon("libreta-sse-heartbeat-"));
+
+    private long sequence = 0;
+
+    /**
+     * Cambio listo para enviarse
+     *
+     * @param sequence Número de secuencia dentro de la época
+     * @param id       Identificador del evento SSE
+     * @param name     Nombre del evento SSE, por ejemplo {@code contacto.updated}
+     * @param data     Evento serializado en JSON
+     */
+    private record StreamedChange(long sequence, String id, String name, String data) {
+    }
+
+    /**
+     * Cuerpo JSON de cada evento
+     */
+    private record Message(ChangeEvent.Type type, ChangeEvent.Action action, Integer id, Integer contactoId,
+                           Object payload) {
+    }
+
+    public ChangeStream(ObjectMapper objectMapper,
+                        @Value("${libreta.events.buffer-size:1000}") int bufferSize,
+                        @Value("${libreta.events.queue-size:256}") int queueSize,
+                        @Value("${libreta.events.timeout:PT30M}") Duration timeout,
+                        @Value("${libreta.events.heartbeat:PT15S}") Duration heartbeat,
+                        @Value("${libreta.threads.virtual:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.queueSize = queueSize;
+        this.timeout = timeout.toMillis();
+        // Con hilos virtuales cada envío bloqueado cuesta poco, así miles de suscriptores lentos no agotan el pool
+        this.senders = virtualThreads
+                ? VirtualThreads.newExecutor("libreta-sse-")
+                : Executors.newCachedThreadPool(daemon("libreta-sse-"));
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra un nuevo suscriptor y le envía los eventos que se perdió desde su último evento recibido
+     *
+     * @param lastEventId Identificador del último evento que recibió el cliente, nulo para empezar desde ahora
+     * @return Emisor SSE del suscriptor
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        var subscriber = new Subscriber(new SseEmitter(timeout), queueSize);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+
+        synchronized (buffer) {
+            var replay = replay(lastEventId);
+            if (replay == null || replay.size() > queueSize) {
+                // El reset lleva el identificador actual: tras sincronizarse, el cliente se reanuda desde aquí
+                subscriber.queue.add(new StreamedChange(sequence, epoch + "-" + sequence, RESET, "{}"));
+            } else {
+                subscriber.queue.addAll(replay);
+                subscribers.add(subscriber);
+            }
+        }
+        subscriber.schedule();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Cantidad de suscriptores conectados
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Publica un cambio a los suscriptores después de que su transacción se confirma
+     *
+     * @param event Evento de cambio publicado por LibretaService
+     */
+    @TransactionalEventListener
+    public void onChange(ChangeEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(
+                    new Message(event.type(), event.action(), event.id(), event.contactoId(), event.payload()));
+        } catch (JsonProcessingException exception) {
+            log.error("No se pudo serializar el evento {} {} {}", event.type(), event.action(), event.id(), exception);
+            return;
+        }
+        var name = (event.type() + "." + event.action()).toLowerCase(Locale.ROOT);
+        synchronized (buffer) {
+            sequence++;
+            var change = new StreamedChange(sequence, epoch + "-" + sequence, name, data);
+            buffer.add(change);
+            if (buffer.size() > bufferSize) {
+                buffer.remove();
+            }
+            for (var subscriber : subscribers) {
+                if (!subscriber.queue.offer(change)) {
+                    log.warn("Suscriptor SSE desconectado por no consumir a tiempo sus eventos");
+                    subscribers.remove(subscriber);
+                    subscriber.close();
+                    continue;
+                }
+                subscriber.schedule();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        senders.shutdownNow();
+    }
+
+    /**
+     * Busca en el búfer los eventos posteriores al indicado, debe llamarse con el candado del búfer
+     *
+     * @param lastEventId Identificador del último evento recibido por el cliente
+     * @return Eventos a reenviar o null si el cliente debe sincronizarse de nuevo
+     */
+    private List<StreamedChange> replay(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        var separator = lastEventId.lastIndexOf('-');
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch) || last > sequence) {
+            return null;
+        }
+        var oldest = buffer.isEmpty() ? sequence + 1 : buffer.peek().sequence();
+        if (last + 1 < oldest) {
+            return null;
+        }
+        var missed = new ArrayList<StreamedChange>();
+        for (var change : buffer) {
+            if (change.sequence() > last) {
+                missed.add(change);
+            }
+        }
+        return missed;
+    }
+
+    private void heartbeat() {
+        for (var subscriber : subscribers) {
+            subscriber.heartbeat.set(true);
+            subscriber.schedule();
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        var counter = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Conexión de un cliente con su cola acotada. Solo una tarea a la vez vacía la cola, así los eventos salen en
+     * orden y una escritura bloqueada ocupa un hilo de envío y no el hilo que confirmó la transacción.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamedChange> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean heartbeat = new AtomicBoolean();
+        private volatile boolean closed = false;
+
+        private Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                StreamedChange change;
+                while (!closed && (change = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event().id(change.id()).name(change.name())
+                            .data(change.data(), MediaType.APPLICATION_JSON));
+                    if (RESET.equals(change.name())) {
+                        close();
+                    }
+                }
+                if (!closed && heartbeat.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException exception) {
+                subscribers.remove(this);
+                closed = true;
+                emitter.completeWithError(exception);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            emitter.complete();
+        }
+    }
+}
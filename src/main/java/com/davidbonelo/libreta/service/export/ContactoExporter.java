@@ -0,0 +1,172 @@
+package com.davidbonelo.libreta.service.export;
+
+import com.davidbonelo.libreta.repository.ContactoExportRow;
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Exporta el directorio completo escribiendo cada contacto en la salida a medida que llega del cursor de la base de
+ * datos. Solo se mantiene en memoria el contacto que se está armando, así el consumo no depende del tamaño de la tabla.
+ */
+@Component
+public class ContactoExporter {
+    /**
+     * Cantidad de contactos entre cada flush explícito de la salida
+     */
+    private static final int FLUSH_EVERY = 1000;
+
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Contacto exportado con sus teléfonos
+     */
+    public record ExportedContacto(Integer id, String nombre, String apellido, String email,
+                                   LocalDate fechaNacimiento, List<ExportedTelefono> telefonos) {
+    }
+
+    /**
+     * Teléfono de un contacto exportado
+     */
+    public record ExportedTelefono(Integer id, String telefono) {
+    }
+
+    /**
+     * Escribe todos los contactos no borrados en el formato indicado
+     *
+     * @param format Formato de exportación
+     * @param output Salida de la respuesta HTTP
+     * @throws IOException si no se puede escribir en la salida (por ejemplo si el cliente se desconecta)
+     */
+    public void export(ExportFormat format, OutputStream output) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (var rows = contactoRepository.streamExport()) {
+                    writeAll(format, rows.iterator(), writer);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeAll(ExportFormat format, Iterator<ContactoExportRow> rows, Writer writer)
+            throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write("id,nombre,apellido,email,fecha_nacimiento,telefonos\r\n");
+        }
+        ExportedContacto current = null;
+        var written = 0;
+        while (rows.hasNext()) {
+            var row = rows.next();
+            if (current == null || !current.id().equals(row.id())) {
+                if (current != null) {
+                    write(format, current, writer);
+                    if (++written == 1 || written % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+                current = new ExportedContacto(row.id(), row.nombre(), row.apellido(), row.email(),
+                        row.fechaNacimiento(), new ArrayList<>());
+            }
+            if (row.telefonoId() != null) {
+                current.telefonos().add(new ExportedTelefono(row.telefonoId(), row.telefono()));
+            }
+        }
+        if (current != null) {
+            write(format, current, writer);
+        }
+    }
+
+    private void write(ExportFormat format, ExportedContacto contacto, Writer writer) throws IOException {
+        switch (format) {
+            case NDJSON -> writeNdjson(contacto, writer);
+            case CSV -> writeCsv(contacto, writer);
+            case VCARD -> writeVcard(contacto, writer);
+        }
+    }
+
+    private void writeNdjson(ExportedContacto contacto, Writer writer) throws IOException {
+        writer.write(objectMapper.writeValueAsString(contacto));
+        writer.write('\n');
+    }
+
+    private void writeCsv(ExportedContacto contacto, Writer writer) throws IOException {
+        var telefonos = String.join(";", contacto.telefonos().stream().map(ExportedTelefono::telefono).toList());
+        writer.write(contacto.id().toString());
+        writer.write(',');
+        writer.write(csv(contacto.nombre()));
+        writer.write(',');
+        writer.write(csv(contacto.apellido()));
+        writer.write(',');
+        writer.write(csv(contacto.email()));
+        writer.write(',');
+        writer.write(contacto.fechaNacimiento() == null ? "" : contacto.fechaNacimiento().toString());
+        writer.write(',');
+        writer.write(csv(telefonos));
+        writer.write("\r\n");
+    }
+
+    private void writeVcard(ExportedContacto contacto, Writer writer) throws IOException {
+        writer.write("BEGIN:VCARD\r\nVERSION:3.0\r\n");
+        writer.write("UID:" + contacto.id() + "\r\n");
+        writer.write("N:" + vcard(contacto.apellido()) + ";" + vcard(contacto.nombre()) + ";;;\r\n");
+        writer.write("FN:" + vcard(contacto.nombre() + " " + contacto.apellido()) + "\r\n");
+        if (contacto.email() != null) {
+            writer.write("EMAIL:" + vcard(contacto.email()) + "\r\n");
+        }
+        if (contacto.fechaNacimiento() != null) {
+            writer.write("BDAY:" + contacto.fechaNacimiento() + "\r\n");
+        }
+        for (var telefono : contacto.telefonos()) {
+            writer.write("TEL:" + vcard(telefono.telefono()) + "\r\n");
+        }
+        writer.write("END:VCARD\r\n");
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String vcard(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace(",", "\\,").replace(";", "\\;")
+                .replace("\r\n", "\\n").replace("\r", "\\n").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,44 @@
+package com.davidbonelo.libreta.service.export;
+
+import java.util.Locale;
+
+/**
+ * Formatos disponibles para la exportación del directorio
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv"),
+    VCARD("text/vcard", "vcf");
+
+    private final String mediaType;
+
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Convierte el nombre del formato recibido en la petición, sin distinguir mayúsculas
+     *
+     * @param value Nombre del formato
+     * @return Formato de exportación
+     * @throws IllegalArgumentException si el formato no existe
+     */
+    public static ExportFormat from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("El formato de exportación debe ser ndjson, csv o vcard");
+        }
+    }
+}
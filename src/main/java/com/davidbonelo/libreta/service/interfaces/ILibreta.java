@@ -2,26 +2,54 @@ package com.davidbonelo.libreta.service.interfaces;
 
 import com.davidbonelo.libreta.domain.Contacto;
 import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.utility.Birthday;
+import com.davidbonelo.libreta.utility.BulkImportResult;
+import com.davidbonelo.libreta.utility.CursorPage;
+import com.davidbonelo.libreta.utility.FieldSet;
+import com.davidbonelo.libreta.utility.SyncResult;
 import org.springframework.data.domain.Sort;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public interface ILibreta {
 
     /**
-     * Devuelve una lista de Contactos con todos contactos del sistema
+     * Devuelve una página de los contactos del sistema ordenados por su identificador
+     *
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @return Página de contactos
      */
-    public List<Contacto> getList();
+    public CursorPage<Contacto> getList(String cursor, Integer size);
 
     /**
-     * Devuelve una lista de Contactos con todos contactos del sistema ordenados por el campo indicado
-     * (nombre o apellido) ya sea ascendente o descendente
+     * Devuelve una página de los contactos del sistema ordenados por el campo indicado
+     * (id, nombre o apellido) ya sea ascendente o descendente
      *
-     * @param field campo por el cual ordenar
-     * @param order método de ordenado ASC o DESC
-     * @return Lista de contactos
+     * @param field  campo por el cual ordenar
+     * @param order  método de ordenado ASC o DESC
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @return Página de contactos
+     */
+    public CursorPage<Contacto> getList(String field, Sort.Direction order, String cursor, Integer size);
+
+    /**
+     * Devuelve una página de los contactos ordenados por el campo indicado con solo los campos pedidos
+     *
+     * @param field  campo por el cual ordenar
+     * @param order  método de ordenado ASC o DESC
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @param fields Campos pedidos por el cliente
+     * @return Página de contactos con solo los campos pedidos
      */
-    public List<Contacto> getList(String field, Sort.Direction order);
+    public CursorPage<Map<String, Object>> getList(String field, Sort.Direction order, String cursor, Integer size,
+                                                   FieldSet fields);
 
     /**
      * Busca un dato dado entre el nombre y/o los apellidos en un contacto
@@ -31,6 +59,80 @@ public interface ILibreta {
      */
     public List<Contacto> searchContacto(String dataToSearch);
 
+    /**
+     * Busca un dato dado entre el nombre y/o los apellidos en un contacto y devuelve solo los campos pedidos
+     *
+     * @param dataToSearch Dato a buscar
+     * @param fields       Campos pedidos por el cliente
+     * @return Lista de contactos con solo los campos pedidos
+     */
+    public List<Map<String, Object>> searchContacto(String dataToSearch, FieldSet fields);
+
+    /**
+     * Busca los contactos cuyo nombre y/o apellidos suenan como el dato dado o lo contienen con pocos errores de
+     * escritura, sin importar acentos ni mayúsculas
+     *
+     * @param dataToSearch Dato a buscar
+     * @return Lista de contactos
+     */
+    public List<Contacto> searchContactoFuzzy(String dataToSearch);
+
+    /**
+     * Igual que {@link #searchContactoFuzzy(String)} pero devuelve solo los campos pedidos
+     *
+     * @param dataToSearch Dato a buscar
+     * @param fields       Campos pedidos por el cliente
+     * @return Lista de contactos con solo los campos pedidos
+     */
+    public List<Map<String, Object>> searchContactoFuzzy(String dataToSearch, FieldSet fields);
+
+    /**
+     * Busca los contactos dueños de un número de teléfono, sin importar cómo se escribió el número
+     *
+     * @param numero Número de teléfono a buscar
+     * @return Lista de contactos con sus teléfonos
+     */
+    public List<Contacto> searchTelefono(String numero);
+
+    /**
+     * Devuelve una página de los contactos que cumplen años dentro de una ventana de días, en el orden en que los
+     * cumplen
+     *
+     * @param from   Primer día de la ventana, nulo para hoy
+     * @param days   Días de la ventana contando el primero
+     * @param cursor Token de continuación de la página anterior, nulo para la primera página
+     * @param size   Tamaño de página solicitado, nulo para el tamaño por defecto
+     * @return Página de cumpleaños
+     */
+    public CursorPage<Birthday> getBirthdays(LocalDate from, int days, String cursor, Integer size);
+
+    /**
+     * Devuelve un contacto con sus teléfonos basado en su identificador
+     *
+     * @param id Identificador del contacto
+     * @return Objeto del contacto o null si no existe
+     */
+    public Contacto getContacto(Integer id);
+
+    /**
+     * Devuelve un teléfono basado en su identificador
+     *
+     * @param id Identificador del teléfono
+     * @return Objeto del teléfono o null si no existe
+     */
+    public Telefono getTelefono(Integer id);
+
+    /**
+     * Devuelve una página de los contactos y teléfonos creados, actualizados o borrados después de la marca de agua
+     * indicada
+     *
+     * @param since  Marca de agua devuelta por la sincronización anterior, nula para la primera sincronización
+     * @param cursor Token de continuación de la página anterior de la misma sincronización, nulo para la primera
+     * @param size   Tamaño de página solicitado
+     * @return Página de cambios, con la nueva marca de agua en la última página
+     */
+    public SyncResult getChanges(Instant since, String cursor, Integer size);
+
     /**
      * Crea un contacto en el sistema
      *
@@ -39,6 +141,15 @@ public interface ILibreta {
      */
     public Contacto createContacto(Contacto contacto);
 
+    /**
+     * Importa de forma masiva contactos con sus teléfonos, guardándolos por bloques en transacciones independientes.
+     * Las filas con errores se reportan sin detener la importación.
+     *
+     * @param contactos Contactos a importar, se consumen a medida que se leen
+     * @return Resultado de la importación
+     */
+    public BulkImportResult importContactos(Iterator<Contacto> contactos);
+
     /**
      * Crea un teléfono en el sistema a nombre de un contacto
      *
@@ -60,8 +171,8 @@ public interface ILibreta {
      * Actualiza el nombre de un contacto basado en su identificador
      *
      * @param id       Identificador del contacto a actualizar
-     * @param contacto Objeto del contacto a actualizar
-     * @return Objeto del contacto actualizado
+     * @param contacto Objeto del contacto con el nuevo nombre
+     * @return Objeto del contacto actualizado o null si el contacto no existe
      */
     public Contacto updateNombre(Integer id, Contacto contacto);
 
@@ -69,11 +180,20 @@ public interface ILibreta {
      * Actualiza el apellido de un contacto basado en su identificador
      *
      * @param id       Identificador del contacto a actualizar
-     * @param contacto Objeto del contacto a actualizar
-     * @return Objeto del contacto actualizado
+     * @param contacto Objeto del contacto con el nuevo apellido
+     * @return Objeto del contacto actualizado o null si el contacto no existe
      */
     public Contacto updateApellidos(Integer id, Contacto contacto);
 
+    /**
+     * Aplica un JSON Merge Patch a un contacto basado en su identificador
+     *
+     * @param id    Identificador del contacto a actualizar
+     * @param patch Documento del parche
+     * @return Identificador, campos actualizados y fecha de actualización, o null si el contacto no existe
+     */
+    public Map<String, Object> patchContacto(Integer id, Map<String, Object> patch);
+
     /**
      * Actualiza la tupla completa de un teléfono en el sistema basado en su identificador
      *
@@ -84,14 +204,32 @@ public interface ILibreta {
     public Telefono updateTelefono(Integer id, Telefono telefono);
 
     /**
-     * Actualiza solamente el teléfono de un contacto a partir del ID de la tupla del teléfono
+     * Actualiza solamente el número de un teléfono a partir del ID de la tupla del teléfono
      *
      * @param id       Identificador del teléfono a actualizar
-     * @param telefono Objeto del teléfono a actualizar
-     * @return Objeto del teléfono actualizado
+     * @param telefono Objeto del teléfono con el nuevo número
+     * @return Objeto del teléfono actualizado o null si el teléfono no existe
      */
     public Telefono updateOnlyTelefono(Integer id, Telefono telefono);
 
+    /**
+     * Aplica un JSON Merge Patch a un teléfono basado en su identificador
+     *
+     * @param id    Identificador del teléfono a actualizar
+     * @param patch Documento del parche
+     * @return Identificador, campos actualizados y fecha de actualización, o null si el teléfono no existe
+     */
+    public Map<String, Object> patchTelefono(Integer id, Map<String, Object> patch);
+
+    /**
+     * Fusiona un contacto duplicado en otro: sus teléfonos pasan al contacto que se conserva y el duplicado se borra
+     *
+     * @param survivorId  Identificador del contacto que se conserva
+     * @param duplicateId Identificador del contacto duplicado
+     * @return Contacto conservado con sus teléfonos
+     */
+    public Contacto mergeContactos(Integer survivorId, Integer duplicateId);
+
     /**
      * Borra un contacto del sistema basado en su identificador
      *
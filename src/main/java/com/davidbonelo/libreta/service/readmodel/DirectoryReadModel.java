@@ -0,0 +1,312 @@
+package com.davidbonelo.libreta.service.readmodel;
+
+import com.davidbonelo.libreta.datasource.DataSourceRouting;
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.repository.ContactoRow;
+import com.davidbonelo.libreta.repository.TelefonoRepository;
+import com.davidbonelo.libreta.repository.TelefonoRow;
+import com.davidbonelo.libreta.service.events.ChangeEvent;
+import com.davidbonelo.libreta.utility.Cursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de lectura en memoria de todo el directorio (lado de lectura de CQRS), se activa con
+ * libreta.read-model.enabled. Con él listo, el listado, el ordenamiento y las búsquedas se responden sin consultar la
+ * base de datos ni crear entidades administradas por Hibernate.
+ * <p>
+ * Se construye al arrancar leyendo del primario y se mantiene al día con los eventos de cambio que publica
+ * LibretaService después de cada commit; los eventos que llegan durante la construcción se guardan y se aplican al
+ * terminar. Cada cambio deriva una copia nueva de {@link DirectorySnapshot} y la publica con una escritura volátil,
+ * así las lecturas no toman bloqueos y cada petición ve una sola copia consistente. Las escrituras se serializan.
+ * <p>
+ * Igual que los índices de búsqueda, solo ve los cambios hechos por esta instancia de la aplicación.
+ */
+@Slf4j
+@Component
+public class DirectoryReadModel {
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    @Autowired
+    private TelefonoRepository telefonoRepository;
+
+    @Value("${libreta.read-model.enabled:false}")
+    private boolean enabled;
+
+    private volatile DirectorySnapshot snapshot = DirectorySnapshot.empty();
+
+    private volatile boolean ready = false;
+
+    /**
+     * Eventos recibidos mientras se construye la copia, nulo fuera de la construcción
+     */
+    private List<ChangeEvent> pending;
+
+    /**
+     * Indica si el modelo ya se construyó y puede responder lecturas
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Construye la copia completa desde la base de datos y reporta su tamaño y el tiempo que tomó
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        var start = System.nanoTime();
+        var builder = new DirectorySnapshot.Builder();
+        DataSourceRouting.runOnPrimary(() -> {
+            try (var rows = contactoRepository.streamRows()) {
+                rows.forEach(builder::add);
+            }
+            try (var rows = telefonoRepository.streamRows()) {
+                rows.forEach(builder::add);
+            }
+        });
+        var built = builder.build();
+        DirectorySnapshot current;
+        synchronized (this) {
+            snapshot = built;
+            pending.forEach(this::apply);
+            pending = null;
+            ready = true;
+            current = snapshot;
+        }
+        var bytes = current.estimatedBytes();
+        log.info("Modelo de lectura construido con {} contactos y {} teléfonos en {} ms, {} KB estimados ({} bytes "
+                        + "por contacto)", current.contactoCount(), current.telefonoCount(),
+                (System.nanoTime() - start) / 1_000_000, bytes / 1024,
+                current.contactoCount() == 0 ? 0 : bytes / current.contactoCount());
+    }
+
+    /**
+     * Aplica un cambio confirmado en la base de datos. Al borrar un contacto sus teléfonos se borran sin eventos
+     * propios, por eso se quitan todos los del contacto. Una actualización parcial solo trae los campos cambiados, los
+     * demás se conservan de la copia actual.
+     *
+     * @param event Evento de cambio publicado por LibretaService
+     */
+    @TransactionalEventListener
+    public synchronized void onChange(ChangeEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        } else if (ready) {
+            apply(event);
+        }
+    }
+
+    /**
+     * Página del listado con los teléfonos de cada contacto, en el orden de la consulta por llave
+     *
+     * @param field     Campo de ordenamiento
+     * @param direction Dirección del ordenamiento
+     * @param after     Última fila de la página anterior, nulo para la primera página
+     * @param limit     Cantidad máxima de contactos
+     * @return Contactos de la página
+     */
+    public List<Contacto> findPage(String field, Sort.Direction direction, Cursor after, int limit) {
+        var current = snapshot;
+        var contactos = new ArrayList<Contacto>(limit);
+        for (var slot : current.page(field, direction, after, limit)) {
+            contactos.add(toContacto(current, slot));
+        }
+        return contactos;
+    }
+
+    /**
+     * Igual que {@link #findPage(String, Sort.Direction, Cursor, int)} pero con solo las columnas indicadas
+     *
+     * @param columns Atributos de Contacto a devolver
+     * @return Filas de la página
+     */
+    public List<Map<String, Object>> findPage(String field, Sort.Direction direction, Cursor after, int limit,
+                                              Collection<String> columns) {
+        var current = snapshot;
+        var rows = new ArrayList<Map<String, Object>>(limit);
+        for (var slot : current.page(field, direction, after, limit)) {
+            rows.add(toMap(current.contacto(slot), columns));
+        }
+        return rows;
+    }
+
+    /**
+     * Contactos con sus teléfonos en el orden de los identificadores, sin los que no existen
+     *
+     * @param ids Identificadores de los contactos
+     * @return Contactos encontrados
+     */
+    public List<Contacto> findWithTelefonosByIdIn(List<Integer> ids) {
+        var current = snapshot;
+        var contactos = new ArrayList<Contacto>(ids.size());
+        for (var id : ids) {
+            var slot = current.contactoSlot(id);
+            if (slot >= 0) {
+                contactos.add(toContacto(current, slot));
+            }
+        }
+        return contactos;
+    }
+
+    /**
+     * Columnas indicadas de los contactos en el orden de los identificadores, sin los que no existen
+     *
+     * @param ids     Identificadores de los contactos
+     * @param columns Atributos de Contacto a devolver
+     * @return Filas encontradas
+     */
+    public List<Map<String, Object>> findColumnsByIdIn(List<Integer> ids, Collection<String> columns) {
+        var current = snapshot;
+        var rows = new ArrayList<Map<String, Object>>(ids.size());
+        for (var id : ids) {
+            var slot = current.contactoSlot(id);
+            if (slot >= 0) {
+                rows.add(toMap(current.contacto(slot), columns));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Agrega a cada fila la lista de teléfonos de su contacto
+     *
+     * @param rows Filas de contactos con su id
+     * @return Las mismas filas
+     */
+    public List<Map<String, Object>> attachTelefonos(List<Map<String, Object>> rows) {
+        var current = snapshot;
+        rows.forEach(row -> row.put("telefonos", telefonos(current, (Integer) row.get("id"))));
+        return rows;
+    }
+
+    private void apply(ChangeEvent event) {
+        var current = snapshot;
+        snapshot = event.type() == ChangeEvent.Type.CONTACTO ? applyContacto(current, event)
+                : applyTelefono(current, event);
+    }
+
+    private static DirectorySnapshot applyContacto(DirectorySnapshot current, ChangeEvent event) {
+        if (event.action() == ChangeEvent.Action.DELETED) {
+            return current.withoutContacto(event.id());
+        }
+        var slot = current.contactoSlot(event.id());
+        var previous = slot < 0 ? null : current.contacto(slot);
+        if (event.payload() instanceof Contacto contacto) {
+            // Un PUT no envía la fecha de creación, que no se actualiza en la base de datos
+            return current.withContacto(new ContactoRow(event.id(), contacto.getNombre(), contacto.getApellido(),
+                    contacto.getEmail(), contacto.getFechaNacimiento(), contacto.getCreatedAt() != null
+                    ? contacto.getCreatedAt() : previous == null ? null : previous.createdAt(),
+                    contacto.getUpdatedAt()));
+        }
+        if (event.payload() instanceof Map<?, ?> changes && previous != null) {
+            return current.withContacto(new ContactoRow(event.id(),
+                    changed(changes, "nombre", previous.nombre()),
+                    changed(changes, "apellido", previous.apellido()),
+                    changed(changes, "email", previous.email()),
+                    changed(changes, "fechaNacimiento", previous.fechaNacimiento()),
+                    previous.createdAt(), changed(changes, "updatedAt", previous.updatedAt())));
+        }
+        return current;
+    }
+
+    private static DirectorySnapshot applyTelefono(DirectorySnapshot current, ChangeEvent event) {
+        if (event.action() == ChangeEvent.Action.DELETED) {
+            return current.withoutTelefono(event.id());
+        }
+        var previous = current.telefono(event.id());
+        if (event.payload() instanceof Telefono telefono) {
+            var contactoId = event.contactoId() != null ? event.contactoId()
+                    : previous == null ? null : previous.contactoId();
+            if (contactoId == null) {
+                return current;
+            }
+            return current.withTelefono(new TelefonoRow(event.id(), contactoId, telefono.getTelefono(),
+                    telefono.getCreatedAt() != null ? telefono.getCreatedAt()
+                            : previous == null ? null : previous.createdAt(), telefono.getUpdatedAt()));
+        }
+        if (event.payload() instanceof Map<?, ?> changes && previous != null) {
+            return current.withTelefono(new TelefonoRow(event.id(),
+                    changed(changes, "contactoId", previous.contactoId()),
+                    changed(changes, "telefono", previous.telefono()),
+                    previous.createdAt(), changed(changes, "updatedAt", previous.updatedAt())));
+        }
+        return current;
+    }
+
+    /**
+     * Valor del campo en el parche o el anterior si el parche no lo trae
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T changed(Map<?, ?> changes, String field, T previous) {
+        return changes.containsKey(field) ? (T) changes.get(field) : previous;
+    }
+
+    private static Contacto toContacto(DirectorySnapshot current, int slot) {
+        var row = current.contacto(slot);
+        var contacto = new Contacto();
+        contacto.setId(row.id());
+        contacto.setNombre(row.nombre());
+        contacto.setApellido(row.apellido());
+        contacto.setEmail(row.email());
+        contacto.setFechaNacimiento(row.fechaNacimiento());
+        contacto.setCreatedAt(row.createdAt());
+        contacto.setUpdatedAt(row.updatedAt());
+        contacto.setTelefonos(telefonos(current, row.id()));
+        return contacto;
+    }
+
+    private static List<Telefono> telefonos(DirectorySnapshot current, Integer contactoId) {
+        var rows = current.telefonosOf(contactoId);
+        var telefonos = new ArrayList<Telefono>(rows.length);
+        for (var row : rows) {
+            var telefono = new Telefono();
+            telefono.setId(row.id());
+            telefono.setContactoId(row.contactoId());
+            telefono.setTelefono(row.telefono());
+            telefono.setCreatedAt(row.createdAt());
+            telefono.setUpdatedAt(row.updatedAt());
+            telefonos.add(telefono);
+        }
+        return telefonos;
+    }
+
+    private static Map<String, Object> toMap(ContactoRow row, Collection<String> columns) {
+        var map = new LinkedHashMap<String, Object>();
+        for (var column : columns) {
+            map.put(column, switch (column) {
+                case "id" -> row.id();
+                case "nombre" -> row.nombre();
+                case "apellido" -> row.apellido();
+                case "email" -> row.email();
+                case "fechaNacimiento" -> row.fechaNacimiento();
+                case "createdAt" -> row.createdAt();
+                case "updatedAt" -> row.updatedAt();
+                default -> throw new IllegalArgumentException("El campo " + column + " no existe");
+            });
+        }
+        return map;
+    }
+}
@@ -0,0 +1,636 @@
+package com.davidbonelo.libreta.service.readmodel;
+
+import com.davidbonelo.libreta.repository.ContactoRow;
+import com.davidbonelo.libreta.repository.TelefonoRow;
+import com.davidbonelo.libreta.utility.Cursor;
+import org.springframework.data.domain.Sort;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Copia inmutable del directorio (contactos vivos y sus teléfonos) guardada en columnas: un arreglo por atributo en
+ * lugar de un objeto por fila, con las fechas como números. Cada fila ocupa una ranura de los arreglos, y el orden por
+ * id, por nombre y por apellido (y el de los teléfonos por contacto) son arreglos de ranuras ordenadas, recorridos con
+ * búsqueda binaria.
+ * <p>
+ * Los cambios no tocan las ranuras existentes: una fila nueva o actualizada se escribe en la siguiente ranura libre y
+ * solo se copian los arreglos de orden, así cada cambio devuelve una copia nueva sin alterar la que siguen leyendo
+ * otros hilos. Las ranuras de las filas reemplazadas o borradas quedan sin uso hasta que superan a las vivas y la copia
+ * se compacta. Solo un hilo a la vez puede derivar copias de la más reciente.
+ * <p>
+ * Los nombres y apellidos se ordenan por su {@link #collationKey(String) llave de intercalación}, equivalente a la
+ * intercalación utf8_general_ci de las tablas, así el orden y los cursores son los mismos que los de la base de datos
+ * y un cursor emitido por una se puede reanudar en la otra. La llave de cada fila se calcula una vez al escribirla.
+ */
+final class DirectorySnapshot {
+    private static final int MIN_CAPACITY = 64;
+
+    private static final long NO_INSTANT = Long.MIN_VALUE;
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Llave de ordenamiento de un texto equivalente a la intercalación utf8_general_ci: cada carácter pesa lo que su
+     * mayúscula sin acentos ni diéresis (la ñ pesa lo que la n) y los espacios finales no cuentan. Como en MariaDB, los
+     * signos se comparan contra las letras mayúsculas, así "_" va después de todas las letras.
+     *
+     * @param value Texto tal como está guardado
+     * @return Llave para comparar con {@link String#compareTo}, null si el texto es nulo
+     */
+    static String collationKey(String value) {
+        if (value == null) {
+            return null;
+        }
+        var decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        var key = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            var c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                key.append(Character.toUpperCase(c));
+            }
+        }
+        var end = key.length();
+        while (end > 0 && key.charAt(end - 1) == ' ') {
+            end--;
+        }
+        key.setLength(end);
+        return key.toString();
+    }
+
+    /**
+     * Comparación de dos ranuras de una tabla
+     */
+    @FunctionalInterface
+    private interface SlotComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Comparación de una ranura contra una llave de búsqueda: negativo si la ranura va antes de la llave
+     */
+    @FunctionalInterface
+    private interface SlotKey {
+        int compare(int slot);
+    }
+
+    /**
+     * Ranura siguiente a la última escrita en los arreglos compartidos, solo la copia más reciente puede escribir ahí
+     */
+    private static final class Frontier {
+        private int slots;
+    }
+
+    private final Contactos contactos;
+
+    private final Telefonos telefonos;
+
+    private DirectorySnapshot(Contactos contactos, Telefonos telefonos) {
+        this.contactos = contactos;
+        this.telefonos = telefonos;
+    }
+
+    /**
+     * Copia sin contactos ni teléfonos
+     */
+    static DirectorySnapshot empty() {
+        return new DirectorySnapshot(Contactos.empty(MIN_CAPACITY), Telefonos.empty(MIN_CAPACITY));
+    }
+
+    /**
+     * Construcción completa de una copia: las filas se escriben en orden de llegada y cada índice se ordena una sola
+     * vez al final
+     */
+    static final class Builder {
+        private Contactos contactos = Contactos.empty(MIN_CAPACITY);
+
+        private Telefonos telefonos = Telefonos.empty(MIN_CAPACITY);
+
+        void add(ContactoRow row) {
+            contactos = contactos.append(row);
+        }
+
+        void add(TelefonoRow row) {
+            telefonos = telefonos.append(row);
+        }
+
+        DirectorySnapshot build() {
+            return new DirectorySnapshot(contactos.sorted(), telefonos.sorted());
+        }
+    }
+
+    int contactoCount() {
+        return contactos.byId.length;
+    }
+
+    int telefonoCount() {
+        return telefonos.byId.length;
+    }
+
+    /**
+     * Estimación de la memoria ocupada por la copia: los arreglos completos más los textos de las filas vivas,
+     * suponiendo cabeceras de objeto de 12 bytes y referencias comprimidas de 4
+     */
+    long estimatedBytes() {
+        return contactos.estimatedBytes() + telefonos.estimatedBytes();
+    }
+
+    /**
+     * Ranura de un contacto vivo, -1 si no existe
+     */
+    int contactoSlot(int id) {
+        return contactos.find(id);
+    }
+
+    ContactoRow contacto(int slot) {
+        return contactos.row(slot);
+    }
+
+    TelefonoRow telefono(int id) {
+        var slot = telefonos.find(id);
+        return slot < 0 ? null : telefonos.row(slot);
+    }
+
+    /**
+     * Teléfonos de un contacto ordenados por identificador
+     */
+    TelefonoRow[] telefonosOf(int contactoId) {
+        var from = telefonos.firstOf(contactoId);
+        var to = telefonos.firstOf(contactoId + 1);
+        var rows = new TelefonoRow[to - from];
+        for (int i = from; i < to; i++) {
+            rows[i - from] = telefonos.row(telefonos.byContacto[i]);
+        }
+        return rows;
+    }
+
+    /**
+     * Ranuras de una página del listado, en el mismo orden y con el mismo cursor que la consulta por llave a la base
+     * de datos: ascendente o descendente por (campo, id)
+     *
+     * @param field     Campo de ordenamiento: id, nombre o apellido
+     * @param direction Dirección del ordenamiento
+     * @param after     Última fila de la página anterior, nulo para la primera página
+     * @param limit     Cantidad máxima de filas
+     * @return Ranuras de los contactos de la página
+     */
+    int[] page(String field, Sort.Direction direction, Cursor after, int limit) {
+        var order = contactos.order(field);
+        var ascending = direction.isAscending();
+        int start;
+        if (after == null) {
+            start = ascending ? 0 : order.length - 1;
+        } else {
+            var lastKey = collationKey(after.lastValue());
+            SlotKey key = slot -> contactos.compareKey(slot, field, lastKey, after.lastId());
+            start = ascending ? bound(order, key, true) : bound(order, key, false) - 1;
+        }
+        var step = ascending ? 1 : -1;
+        var count = Math.max(0, Math.min(limit, ascending ? order.length - start : start + 1));
+        var page = new int[count];
+        for (int i = 0; i < count; i++) {
+            page[i] = order[start + i * step];
+        }
+        return page;
+    }
+
+    /**
+     * Agrega o reemplaza un contacto
+     */
+    DirectorySnapshot withContacto(ContactoRow row) {
+        return new DirectorySnapshot(contactos.put(row).compacted(), telefonos);
+    }
+
+    /**
+     * Quita un contacto y sus teléfonos
+     */
+    DirectorySnapshot withoutContacto(int id) {
+        return new DirectorySnapshot(contactos.remove(id).compacted(), telefonos.removeContacto(id).compacted());
+    }
+
+    /**
+     * Agrega o reemplaza un teléfono
+     */
+    DirectorySnapshot withTelefono(TelefonoRow row) {
+        return new DirectorySnapshot(contactos, telefonos.put(row).compacted());
+    }
+
+    /**
+     * Quita un teléfono
+     */
+    DirectorySnapshot withoutTelefono(int id) {
+        return new DirectorySnapshot(contactos, telefonos.remove(id).compacted());
+    }
+
+    /**
+     * Columnas de los contactos
+     */
+    private static final class Contactos {
+        private final Frontier frontier;
+        private final int slots;
+        private final int[] ids;
+        private final String[] nombres;
+        private final String[] apellidos;
+        private final String[] nombreKeys;
+        private final String[] apellidoKeys;
+        private final String[] emails;
+        private final int[] nacimientos;
+        private final long[] creados;
+        private final long[] actualizados;
+        private final int[] byId;
+        private final int[] byNombre;
+        private final int[] byApellido;
+
+        private Contactos(Frontier frontier, int slots, int[] ids, String[] nombres, String[] apellidos,
+                          String[] nombreKeys, String[] apellidoKeys, String[] emails, int[] nacimientos,
+                          long[] creados, long[] actualizados, int[] byId, int[] byNombre, int[] byApellido) {
+            this.frontier = frontier;
+            this.slots = slots;
+            this.ids = ids;
+            this.nombres = nombres;
+            this.apellidos = apellidos;
+            this.nombreKeys = nombreKeys;
+            this.apellidoKeys = apellidoKeys;
+            this.emails = emails;
+            this.nacimientos = nacimientos;
+            this.creados = creados;
+            this.actualizados = actualizados;
+            this.byId = byId;
+            this.byNombre = byNombre;
+            this.byApellido = byApellido;
+        }
+
+        private static Contactos empty(int capacity) {
+            return new Contactos(new Frontier(), 0, new int[capacity], new String[capacity], new String[capacity],
+                    new String[capacity], new String[capacity], new String[capacity], new int[capacity],
+                    new long[capacity], new long[capacity], new int[0], new int[0], new int[0]);
+        }
+
+        private ContactoRow row(int slot) {
+            return new ContactoRow(ids[slot], nombres[slot], apellidos[slot], emails[slot], date(nacimientos[slot]),
+                    instant(creados[slot]), instant(actualizados[slot]));
+        }
+
+        private int find(int id) {
+            var index = bound(byId, slot -> Integer.compare(ids[slot], id), false);
+            return index < byId.length && ids[byId[index]] == id ? byId[index] : -1;
+        }
+
+        private int[] order(String field) {
+            return switch (field) {
+                case "nombre" -> byNombre;
+                case "apellido" -> byApellido;
+                default -> byId;
+            };
+        }
+
+        /**
+         * Compara una ranura contra la posición de un cursor, con la llave de intercalación de su valor
+         */
+        private int compareKey(int slot, String field, String key, int id) {
+            var compared = switch (field) {
+                case "nombre" -> compareText(nombreKeys[slot], key);
+                case "apellido" -> compareText(apellidoKeys[slot], key);
+                default -> 0;
+            };
+            return compared != 0 ? compared : Integer.compare(ids[slot], id);
+        }
+
+        /**
+         * Escribe la fila en la siguiente ranura; no actualiza los órdenes
+         */
+        private Contactos append(ContactoRow row) {
+            var next = writable();
+            var slot = next.slots - 1;
+            next.ids[slot] = row.id();
+            next.nombres[slot] = row.nombre();
+            next.apellidos[slot] = row.apellido();
+            next.nombreKeys[slot] = collationKey(row.nombre());
+            next.apellidoKeys[slot] = collationKey(row.apellido());
+            next.emails[slot] = row.email();
+            next.nacimientos[slot] = epochDay(row.fechaNacimiento());
+            next.creados[slot] = micros(row.createdAt());
+            next.actualizados[slot] = micros(row.updatedAt());
+            return next;
+        }
+
+        /**
+         * Copia con una ranura más al final, reutiliza los arreglos si tienen espacio y nadie escribió después
+         */
+        private Contactos writable() {
+            if (frontier.slots == slots && slots < ids.length) {
+                frontier.slots = slots + 1;
+                return new Contactos(frontier, slots + 1, ids, nombres, apellidos, nombreKeys, apellidoKeys, emails,
+                        nacimientos, creados, actualizados, byId, byNombre, byApellido);
+            }
+            var capacity = Math.max(MIN_CAPACITY, slots + (slots >> 1) + 1);
+            var copy = new Frontier();
+            copy.slots = slots + 1;
+            return new Contactos(copy, slots + 1, Arrays.copyOf(ids, capacity), Arrays.copyOf(nombres, capacity),
+                    Arrays.copyOf(apellidos, capacity), Arrays.copyOf(nombreKeys, capacity),
+                    Arrays.copyOf(apellidoKeys, capacity), Arrays.copyOf(emails, capacity),
+                    Arrays.copyOf(nacimientos, capacity), Arrays.copyOf(creados, capacity),
+                    Arrays.copyOf(actualizados, capacity), byId, byNombre, byApellido);
+        }
+
+        private Contactos put(ContactoRow row) {
+            var previous = find(row.id());
+            var next = append(row);
+            var slot = next.slots - 1;
+            return next.withOrders(replace(byId, previous, slot, next::compareId),
+                    replace(byNombre, previous, slot, next::compareNombre),
+                    replace(byApellido, previous, slot, next::compareApellido));
+        }
+
+        private Contactos remove(int id) {
+            var previous = find(id);
+            if (previous < 0) {
+                return this;
+            }
+            return withOrders(replace(byId, previous, -1, this::compareId),
+                    replace(byNombre, previous, -1, this::compareNombre),
+                    replace(byApellido, previous, -1, this::compareApellido));
+        }
+
+        private Contactos withOrders(int[] byId, int[] byNombre, int[] byApellido) {
+            return new Contactos(frontier, slots, ids, nombres, apellidos, nombreKeys, apellidoKeys, emails,
+                    nacimientos, creados, actualizados, byId, byNombre, byApellido);
+        }
+
+        /**
+         * Ordena los índices de todas las ranuras escritas, se usa al terminar la construcción completa
+         */
+        private Contactos sorted() {
+            var all = IntStream.range(0, slots).toArray();
+            return withOrders(sort(all, this::compareId), sort(all, this::compareNombre),
+                    sort(all, this::compareApellido));
+        }
+
+        /**
+         * Reescribe las filas vivas en arreglos nuevos cuando las ranuras sin uso superan a las vivas
+         */
+        private Contactos compacted() {
+            if (slots - byId.length <= Math.max(byId.length, MIN_CAPACITY)) {
+                return this;
+            }
+            var compact = empty(Math.max(MIN_CAPACITY, byId.length + (byId.length >> 1)));
+            for (var slot : byId) {
+                compact = compact.append(row(slot));
+            }
+            return compact.sorted();
+        }
+
+        private int compareId(int a, int b) {
+            return Integer.compare(ids[a], ids[b]);
+        }
+
+        private int compareNombre(int a, int b) {
+            var compared = compareText(nombreKeys[a], nombreKeys[b]);
+            return compared != 0 ? compared : compareId(a, b);
+        }
+
+        private int compareApellido(int a, int b) {
+            var compared = compareText(apellidoKeys[a], apellidoKeys[b]);
+            return compared != 0 ? compared : compareId(a, b);
+        }
+
+        private long estimatedBytes() {
+            // Doce arreglos: siete de enteros o referencias, dos de long y tres órdenes
+            long bytes = 16L * 12 + 4L * ids.length * 7 + 8L * ids.length * 2
+                    + 4L * (byId.length + byNombre.length + byApellido.length);
+            for (var slot : byId) {
+                bytes += stringBytes(nombres[slot]) + stringBytes(apellidos[slot]) + stringBytes(emails[slot])
+                        + stringBytes(nombreKeys[slot]) + stringBytes(apellidoKeys[slot]);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Columnas de los teléfonos
+     */
+    private static final class Telefonos {
+        private final Frontier frontier;
+        private final int slots;
+        private final int[] ids;
+        private final int[] contactoIds;
+        private final String[] numeros;
+        private final long[] creados;
+        private final long[] actualizados;
+        private final int[] byId;
+        private final int[] byContacto;
+
+        private Telefonos(Frontier frontier, int slots, int[] ids, int[] contactoIds, String[] numeros,
+                          long[] creados, long[] actualizados, int[] byId, int[] byContacto) {
+            this.frontier = frontier;
+            this.slots = slots;
+            this.ids = ids;
+            this.contactoIds = contactoIds;
+            this.numeros = numeros;
+            this.creados = creados;
+            this.actualizados = actualizados;
+            this.byId = byId;
+            this.byContacto = byContacto;
+        }
+
+        private static Telefonos empty(int capacity) {
+            return new Telefonos(new Frontier(), 0, new int[capacity], new int[capacity], new String[capacity],
+                    new long[capacity], new long[capacity], new int[0], new int[0]);
+        }
+
+        private TelefonoRow row(int slot) {
+            return new TelefonoRow(ids[slot], contactoIds[slot], numeros[slot], instant(creados[slot]),
+                    instant(actualizados[slot]));
+        }
+
+        private int find(int id) {
+            var index = bound(byId, slot -> Integer.compare(ids[slot], id), false);
+            return index < byId.length && ids[byId[index]] == id ? byId[index] : -1;
+        }
+
+        /**
+         * Posición en el orden por contacto del primer teléfono del contacto indicado o de uno posterior
+         */
+        private int firstOf(int contactoId) {
+            return bound(byContacto, slot -> Integer.compare(contactoIds[slot], contactoId), false);
+        }
+
+        private Telefonos append(TelefonoRow row) {
+            var next = writable();
+            var slot = next.slots - 1;
+            next.ids[slot] = row.id();
+            next.contactoIds[slot] = row.contactoId();
+            next.numeros[slot] = row.telefono();
+            next.creados[slot] = micros(row.createdAt());
+            next.actualizados[slot] = micros(row.updatedAt());
+            return next;
+        }
+
+        private Telefonos writable() {
+            if (frontier.slots == slots && slots < ids.length) {
+                frontier.slots = slots + 1;
+                return new Telefonos(frontier, slots + 1, ids, contactoIds, numeros, creados, actualizados, byId,
+                        byContacto);
+            }
+            var capacity = Math.max(MIN_CAPACITY, slots + (slots >> 1) + 1);
+            var copy = new Frontier();
+            copy.slots = slots + 1;
+            return new Telefonos(copy, slots + 1, Arrays.copyOf(ids, capacity), Arrays.copyOf(contactoIds, capacity),
+                    Arrays.copyOf(numeros, capacity), Arrays.copyOf(creados, capacity),
+                    Arrays.copyOf(actualizados, capacity), byId, byContacto);
+        }
+
+        private Telefonos put(TelefonoRow row) {
+            var previous = find(row.id());
+            var next = append(row);
+            var slot = next.slots - 1;
+            return next.withOrders(replace(byId, previous, slot, next::compareId),
+                    replace(byContacto, previous, slot, next::compareContacto));
+        }
+
+        private Telefonos remove(int id) {
+            var previous = find(id);
+            if (previous < 0) {
+                return this;
+            }
+            return withOrders(replace(byId, previous, -1, this::compareId),
+                    replace(byContacto, previous, -1, this::compareContacto));
+        }
+
+        private Telefonos removeContacto(int contactoId) {
+            var from = firstOf(contactoId);
+            var to = firstOf(contactoId + 1);
+            if (from == to) {
+                return this;
+            }
+            var byContacto = new int[this.byContacto.length - (to - from)];
+            System.arraycopy(this.byContacto, 0, byContacto, 0, from);
+            System.arraycopy(this.byContacto, to, byContacto, from, this.byContacto.length - to);
+            var byId = Arrays.stream(this.byId).filter(slot -> contactoIds[slot] != contactoId).toArray();
+            return withOrders(byId, byContacto);
+        }
+
+        private Telefonos withOrders(int[] byId, int[] byContacto) {
+            return new Telefonos(frontier, slots, ids, contactoIds, numeros, creados, actualizados, byId,
+                    byContacto);
+        }
+
+        private Telefonos sorted() {
+            var all = IntStream.range(0, slots).toArray();
+            return withOrders(sort(all, this::compareId), sort(all, this::compareContacto));
+        }
+
+        private Telefonos compacted() {
+            if (slots - byId.length <= Math.max(byId.length, MIN_CAPACITY)) {
+                return this;
+            }
+            var compact = empty(Math.max(MIN_CAPACITY, byId.length + (byId.length >> 1)));
+            for (var slot : byId) {
+                compact = compact.append(row(slot));
+            }
+            return compact.sorted();
+        }
+
+        private int compareId(int a, int b) {
+            return Integer.compare(ids[a], ids[b]);
+        }
+
+        private int compareContacto(int a, int b) {
+            var compared = Integer.compare(contactoIds[a], contactoIds[b]);
+            return compared != 0 ? compared : compareId(a, b);
+        }
+
+        private long estimatedBytes() {
+            long bytes = 16L * 7 + 4L * ids.length * 3 + 8L * ids.length * 2
+                    + 4L * (byId.length + byContacto.length);
+            for (var slot : byId) {
+                bytes += stringBytes(numeros[slot]);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Primera posición del orden cuya ranura es mayor que la llave (strict) o mayor o igual (no strict)
+     */
+    private static int bound(int[] order, SlotKey key, boolean strict) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            var compared = key.compare(order[mid]);
+            if (compared < 0 || (strict && compared == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copia del orden sin la ranura removed y con la ranura added en su posición; -1 omite cualquiera de las dos. La
+     * ranura quitada se ubica por búsqueda binaria porque sus valores siguen en los arreglos.
+     */
+    private static int[] replace(int[] order, int removed, int added, SlotComparator comparator) {
+        var result = order;
+        if (removed >= 0) {
+            var at = bound(order, slot -> comparator.compare(slot, removed), false);
+            result = new int[order.length - 1];
+            System.arraycopy(order, 0, result, 0, at);
+            System.arraycopy(order, at + 1, result, at, order.length - at - 1);
+        }
+        if (added >= 0) {
+            var source = result;
+            var at = bound(source, slot -> comparator.compare(slot, added), false);
+            result = new int[source.length + 1];
+            System.arraycopy(source, 0, result, 0, at);
+            result[at] = added;
+            System.arraycopy(source, at, result, at + 1, source.length - at);
+        }
+        return result;
+    }
+
+    private static int[] sort(int[] slots, SlotComparator comparator) {
+        return IntStream.of(slots).boxed().sorted(comparator::compare).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int compareText(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private static long micros(Instant instant) {
+        return instant == null ? NO_INSTANT : instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private static Instant instant(long micros) {
+        return micros == NO_INSTANT ? null
+                : Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Tamaño de un String con su arreglo de bytes: LATIN1 usa un byte por carácter y UTF16 dos
+     */
+    private static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        var latin1 = value.chars().allMatch(c -> c < 256);
+        var data = 16L + (long) value.length() * (latin1 ? 1 : 2);
+        return 24 + ((data + 7) & ~7L);
+    }
+}
@@ -0,0 +1,588 @@
+package com.davidbonelo.libreta.service.search;
+
+import com.davidbonelo.libreta.datasource.DataSourceRouting;
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.service.events.ChangeEvent;
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice invertido de trigramas en memoria sobre el nombre y los apellidos de los contactos.
+ * <p>
+ * Cada nombre y apellido, en minúsculas y sin acentos como los compara utf8_general_ci, se parte en todas sus
+ * subcadenas de tres caracteres; la lista de candidatos de una búsqueda es la intersección de las listas de los
+ * trigramas del texto buscado, y luego cada candidato se verifica y se clasifica en una sola pasada: coincidencia
+ * exacta, prefijo, sufijo y por último contenido.
+ * <p>
+ * Para la búsqueda aproximada guarda además la lista de contactos de cada llave fonética de palabra
+ * ({@link SpanishPhonetics}) y, por cada llave, las variantes que resultan de quitarle una letra. Las llaves a un
+ * error de distancia de la buscada se encuentran consultando esas variantes, sin recorrer el diccionario, y solo sus
+ * contactos se verifican con la distancia de edición sobre el texto sin acentos.
+ * <p>
+ * Se reconstruye desde la base de datos al arrancar y se mantiene al día con los eventos de cambio que publica
+ * LibretaService después de cada commit. Las lecturas no toman bloqueos; las escrituras se serializan. La
+ * reconstrucción lee la base de datos sin tomar el monitor del índice: los cambios que llegan mientras tanto se
+ * aplican al índice actual y se anotan, y al terminar se vuelven a aplicar sobre el índice nuevo antes de publicarlo.
+ */
+@Slf4j
+@Component
+public class ContactoSearchIndex {
+    private static final int GRAM = 3;
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int SUFFIX = 2;
+    private static final int CONTAINS = 3;
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    /**
+     * Largo mínimo de una llave fonética para buscar también las llaves a un error de distancia; en las más cortas
+     * casi cualquier llave queda a un error
+     */
+    private static final int MIN_FUZZY_KEY = 4;
+
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    private volatile State state = new State();
+
+    private volatile boolean ready = false;
+
+    /**
+     * Cambios recibidos durante una reconstrucción, null si no hay una en curso. Se protege con el monitor del índice.
+     */
+    private List<Consumer<State>> pending;
+
+    /**
+     * Serializa las reconstrucciones sin fijar el hilo portador mientras se lee la base de datos
+     */
+    private final ReentrantLock rebuilding = new ReentrantLock();
+
+    /**
+     * Datos normalizados de un contacto dentro del índice
+     */
+    private record Document(String nombre, String apellido) {
+    }
+
+    /**
+     * Resultado de verificar un candidato contra el texto buscado
+     */
+    private record Match(Integer id, int rank, Document document) {
+    }
+
+    /**
+     * Orden de los resultados: la coincidencia más fuerte primero, desempatan el nombre, los apellidos y el
+     * identificador
+     */
+    private static final Comparator<Match> BY_RANK = Comparator.comparingInt(Match::rank)
+            .thenComparing(match -> match.document().nombre())
+            .thenComparing(match -> match.document().apellido())
+            .thenComparing(Match::id);
+
+    /**
+     * Palabra plegada de un texto junto con su llave fonética
+     */
+    private record Sound(String word, String key) {
+    }
+
+    private static final class State {
+        private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+        private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+        private final Map<String, Set<Integer>> sounds = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> deletions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Indica si el índice ya se construyó y puede responder búsquedas
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reconstruye el índice completo desde la base de datos, leyendo del primario para no perder los cambios que una
+     * réplica aún no tiene
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        rebuilding.lock();
+        try {
+            var start = System.nanoTime();
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            var fresh = new State();
+            DataSourceRouting.runOnPrimary(() -> {
+                try (var rows = contactoRepository.streamNombres()) {
+                    rows.forEach(row -> put(fresh, row.id(), row.nombre(), row.apellido()));
+                }
+            });
+            synchronized (this) {
+                pending.forEach(change -> change.accept(fresh));
+                state = fresh;
+            }
+            ready = true;
+            log.info("Índice de búsqueda construido con {} contactos, {} trigramas y {} llaves fonéticas en {} ms",
+                    fresh.documents.size(), fresh.postings.size(), fresh.sounds.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+            rebuilding.unlock();
+        }
+    }
+
+    /**
+     * Mantiene el índice al día con los cambios confirmados en la base de datos. Una actualización parcial solo trae
+     * los campos cambiados, el otro se conserva del índice.
+     *
+     * @param event Evento de cambio publicado por LibretaService
+     */
+    @TransactionalEventListener
+    public void onChange(ChangeEvent event) {
+        if (event.type() != ChangeEvent.Type.CONTACTO) {
+            return;
+        }
+        if (event.action() == ChangeEvent.Action.DELETED) {
+            remove(event.id());
+        } else if (event.payload() instanceof Contacto contacto) {
+            put(contacto.getId(), contacto.getNombre(), contacto.getApellido());
+        } else if (event.payload() instanceof Map<?, ?> changes
+                && (changes.containsKey("nombre") || changes.containsKey("apellido"))) {
+            patch(event.id(), (String) changes.get("nombre"), (String) changes.get("apellido"));
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un contacto en el índice
+     *
+     * @param id       Identificador del contacto
+     * @param nombre   Nombre del contacto
+     * @param apellido Apellidos del contacto
+     */
+    public void put(Integer id, String nombre, String apellido) {
+        apply(target -> put(target, id, nombre, apellido));
+    }
+
+    /**
+     * Reemplaza el nombre y/o los apellidos de un contacto en el índice, el valor nulo conserva el anterior
+     *
+     * @param id       Identificador del contacto
+     * @param nombre   Nuevo nombre o null
+     * @param apellido Nuevos apellidos o null
+     */
+    private void patch(Integer id, String nombre, String apellido) {
+        apply(target -> {
+            var previous = target.documents.get(id);
+            put(target, id, nombre != null ? nombre : previous == null ? null : previous.nombre(),
+                    apellido != null ? apellido : previous == null ? null : previous.apellido());
+        });
+    }
+
+    /**
+     * Quita un contacto del índice
+     *
+     * @param id Identificador del contacto
+     */
+    public void remove(Integer id) {
+        apply(target -> {
+            var previous = target.documents.remove(id);
+            if (previous != null) {
+                unlink(target, id, grams(previous));
+                unlinkSounds(target, id, keys(previous));
+            }
+        });
+    }
+
+    /**
+     * Aplica un cambio al índice actual y lo anota si hay una reconstrucción en curso
+     */
+    private synchronized void apply(Consumer<State> change) {
+        change.accept(state);
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * Busca los contactos cuyo nombre o apellidos coinciden con el texto indicado, sin importar acentos ni
+     * mayúsculas. Los candidatos se verifican en una sola pasada que solo conserva los mejores {@code limit}, así una
+     * búsqueda corta que coincide con casi todo el directorio no ordena la lista completa.
+     *
+     * @param data  Texto a buscar
+     * @param limit Cantidad máxima de resultados
+     * @return Identificadores de los contactos encontrados, ordenados de la coincidencia más fuerte a la más débil
+     */
+    public List<Integer> search(String data, int limit) {
+        var query = normalize(data);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        var current = state;
+        var best = new PriorityQueue<Match>(BY_RANK.reversed());
+        for (var id : candidates(current, query)) {
+            var document = current.documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            var rank = Math.min(rank(document.nombre(), query), rank(document.apellido(), query));
+            if (rank == NO_MATCH) {
+                continue;
+            }
+            var match = new Match(id, rank, document);
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (BY_RANK.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+        var matches = new ArrayList<>(best);
+        matches.sort(BY_RANK);
+        return matches.stream().map(Match::id).toList();
+    }
+
+    /**
+     * Busca los contactos cuyo nombre o apellidos suenan como el texto indicado o lo contienen con pocos errores de
+     * escritura, sin importar acentos ni mayúsculas. Cada palabra buscada debe coincidir con alguna palabra del
+     * contacto: con la misma llave fonética, o con una llave a un error de distancia si el texto sin acentos queda
+     * dentro de los errores que tolera {@link SpanishPhonetics#maxDistance(int)}.
+     *
+     * @param data Texto a buscar
+     * @return Identificadores de los contactos encontrados, de la coincidencia con menos errores a la de más errores
+     */
+    public List<Integer> fuzzySearch(String data) {
+        var query = sounds(data);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        var current = state;
+        Set<Integer> candidates = null;
+        for (var sound : query) {
+            var ids = new HashSet<Integer>();
+            for (var key : similarKeys(current, sound.key())) {
+                var posting = current.sounds.get(key);
+                if (posting != null) {
+                    ids.addAll(posting);
+                }
+            }
+            if (candidates == null) {
+                candidates = ids;
+            } else {
+                candidates.retainAll(ids);
+            }
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+        var matches = new ArrayList<Match>();
+        for (var id : candidates) {
+            var document = current.documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            var rank = fuzzyRank(document.nombre(), document.apellido(), query);
+            if (rank != NO_MATCH) {
+                matches.add(new Match(id, rank, document));
+            }
+        }
+        matches.sort(BY_RANK);
+        return matches.stream().map(Match::id).toList();
+    }
+
+    /**
+     * Filtra y ordena una lista de contactos con el mismo criterio que {@link #fuzzySearch(String)}, se usa cuando el
+     * índice todavía no está listo y los candidatos salieron de las llaves fonéticas guardadas en la base de datos
+     *
+     * @param contactos Contactos candidatos
+     * @param data      Texto buscado
+     * @return Contactos que coinciden, de la coincidencia con menos errores a la de más errores
+     */
+    public static List<Contacto> rankFuzzy(List<Contacto> contactos, String data) {
+        var query = sounds(data);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        var ranks = new HashMap<Integer, Integer>();
+        contactos.forEach(contacto -> ranks.put(contacto.getId(),
+                fuzzyRank(normalize(contacto.getNombre()), normalize(contacto.getApellido()), query)));
+        return contactos.stream()
+                .filter(contacto -> ranks.get(contacto.getId()) != NO_MATCH)
+                .sorted(Comparator.<Contacto>comparingInt(contacto -> ranks.get(contacto.getId()))
+                        .thenComparing(contacto -> normalize(contacto.getNombre()))
+                        .thenComparing(contacto -> normalize(contacto.getApellido()))
+                        .thenComparing(Contacto::getId))
+                .toList();
+    }
+
+    /**
+     * Llaves con las que la base de datos busca candidatos para una palabra cuando el índice todavía no está listo:
+     * la llave misma y, en las llaves largas, sus variantes con una letra menos (la palabra buscada tiene una letra
+     * de más, como "gonzalex" con la llave GONSALEKS frente a GONSALES)
+     *
+     * @param key Llave fonética de una palabra buscada
+     * @return Llaves a consultar
+     */
+    public static Set<String> probeKeys(String key) {
+        var keys = new HashSet<String>();
+        keys.add(key);
+        if (key.length() >= MIN_FUZZY_KEY) {
+            keys.addAll(deletions(key));
+        }
+        return keys;
+    }
+
+    /**
+     * Patrón LIKE que completa {@link #probeKeys(String)}: en las llaves largas, las que empiezan con los mismos
+     * sonidos, que cubren las letras cambiadas o de menos después del comienzo; en las cortas solo la llave exacta
+     *
+     * @param key Llave fonética de una palabra buscada
+     * @return Patrón LIKE para las llaves guardadas
+     */
+    public static String probePrefix(String key) {
+        return key.length() >= MIN_FUZZY_KEY ? key.substring(0, MIN_FUZZY_KEY - 1) + "%" : key;
+    }
+
+    /**
+     * Ordena una lista de contactos con el mismo criterio que {@link #search(String)}, se usa cuando el índice todavía
+     * no está listo y la búsqueda se resolvió en la base de datos
+     *
+     * @param contactos Contactos encontrados
+     * @param data      Texto buscado
+     * @return Contactos ordenados de la coincidencia más fuerte a la más débil
+     */
+    public static List<Contacto> rank(List<Contacto> contactos, String data) {
+        var query = normalize(data);
+        return contactos.stream()
+                .sorted(Comparator.<Contacto>comparingInt(contacto -> Math.min(
+                                rank(normalize(contacto.getNombre()), query),
+                                rank(normalize(contacto.getApellido()), query)))
+                        .thenComparing(contacto -> normalize(contacto.getNombre()))
+                        .thenComparing(contacto -> normalize(contacto.getApellido()))
+                        .thenComparing(Contacto::getId))
+                .toList();
+    }
+
+    private static Collection<Integer> candidates(State current, String query) {
+        if (query.length() < GRAM) {
+            return current.documents.keySet();
+        }
+        var lists = new ArrayList<Set<Integer>>();
+        for (var gram : grams(query)) {
+            var posting = current.postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        var result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Llaves fonéticas del índice iguales a la indicada o a un error de distancia: la llave indicada con una letra
+     * de más (está entre sus variantes), con una letra de menos (la indicada es variante de ella) o con una letra
+     * cambiada o dos vecinas intercambiadas (comparten una variante)
+     */
+    private static Set<String> similarKeys(State current, String key) {
+        var keys = new HashSet<String>();
+        keys.add(key);
+        if (key.length() < MIN_FUZZY_KEY) {
+            return keys;
+        }
+        keys.addAll(current.deletions.getOrDefault(key, Set.of()));
+        for (var variant : deletions(key)) {
+            if (current.sounds.containsKey(variant)) {
+                keys.add(variant);
+            }
+            keys.addAll(current.deletions.getOrDefault(variant, Set.of()));
+        }
+        return keys;
+    }
+
+    /**
+     * Suma de los errores de escritura de cada palabra buscada contra la palabra del contacto más parecida. Una
+     * palabra con la misma llave fonética siempre coincide; con otra llave solo si los errores no pasan del máximo.
+     *
+     * @return Total de errores o NO_MATCH si alguna palabra buscada no coincide
+     */
+    private static int fuzzyRank(String nombre, String apellido, List<Sound> query) {
+        var words = sounds(nombre);
+        words.addAll(sounds(apellido));
+        var total = 0;
+        for (var sought : query) {
+            var limit = SpanishPhonetics.maxDistance(sought.word().length());
+            var best = NO_MATCH;
+            for (var word : words) {
+                if (word.key().equals(sought.key())) {
+                    best = Math.min(best, SpanishPhonetics.distance(sought.word(), word.word(),
+                            sought.word().length()));
+                } else {
+                    var distance = SpanishPhonetics.distance(sought.word(), word.word(), limit);
+                    if (distance <= limit) {
+                        best = Math.min(best, distance);
+                    }
+                }
+            }
+            if (best == NO_MATCH) {
+                return NO_MATCH;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int rank(String value, String query) {
+        if (value.equals(query)) {
+            return EXACT;
+        } else if (value.startsWith(query)) {
+            return PREFIX;
+        } else if (value.endsWith(query)) {
+            return SUFFIX;
+        } else if (value.contains(query)) {
+            return CONTAINS;
+        }
+        return NO_MATCH;
+    }
+
+    private static void put(State target, Integer id, String nombre, String apellido) {
+        var document = new Document(normalize(nombre), normalize(apellido));
+        var previous = target.documents.put(id, document);
+        var added = grams(document);
+        if (previous != null) {
+            var removed = grams(previous);
+            removed.removeAll(added);
+            unlink(target, id, removed);
+        }
+        for (var gram : added) {
+            target.postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        var addedKeys = keys(document);
+        if (previous != null) {
+            var removedKeys = keys(previous);
+            removedKeys.removeAll(addedKeys);
+            unlinkSounds(target, id, removedKeys);
+        }
+        for (var key : addedKeys) {
+            target.sounds.computeIfAbsent(key, newKey -> {
+                if (newKey.length() >= MIN_FUZZY_KEY) {
+                    for (var variant : deletions(newKey)) {
+                        target.deletions.computeIfAbsent(variant, ignored -> ConcurrentHashMap.newKeySet())
+                                .add(newKey);
+                    }
+                }
+                return ConcurrentHashMap.newKeySet();
+            }).add(id);
+        }
+    }
+
+    /**
+     * Quita el contacto de las llaves fonéticas indicadas; una llave que se queda sin contactos sale también de las
+     * listas de sus variantes
+     */
+    private static void unlinkSounds(State target, Integer id, Set<String> keys) {
+        for (var key : keys) {
+            target.sounds.computeIfPresent(key, (oldKey, ids) -> {
+                ids.remove(id);
+                if (!ids.isEmpty()) {
+                    return ids;
+                }
+                for (var variant : deletions(oldKey)) {
+                    target.deletions.computeIfPresent(variant, (ignored, owners) -> {
+                        owners.remove(oldKey);
+                        return owners.isEmpty() ? null : owners;
+                    });
+                }
+                return null;
+            });
+        }
+    }
+
+    private static void unlink(State target, Integer id, Set<String> grams) {
+        for (var gram : grams) {
+            target.postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static Set<String> grams(Document document) {
+        var grams = grams(document.nombre());
+        grams.addAll(grams(document.apellido()));
+        return grams;
+    }
+
+    private static Set<String> grams(String value) {
+        var grams = new HashSet<String>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static Set<String> keys(Document document) {
+        var keys = new HashSet<String>();
+        sounds(document.nombre()).forEach(sound -> keys.add(sound.key()));
+        sounds(document.apellido()).forEach(sound -> keys.add(sound.key()));
+        return keys;
+    }
+
+    /**
+     * Palabras de un texto con su llave fonética, sin las palabras que solo tienen letras mudas
+     */
+    private static List<Sound> sounds(String value) {
+        var sounds = new ArrayList<Sound>();
+        for (var word : SpanishPhonetics.words(value)) {
+            var key = SpanishPhonetics.encode(word);
+            if (!key.isEmpty()) {
+                sounds.add(new Sound(word, key));
+            }
+        }
+        return sounds;
+    }
+
+    /**
+     * Variantes de una llave con una letra menos
+     */
+    private static Set<String> deletions(String key) {
+        var variants = new HashSet<String>();
+        for (int i = 0; i < key.length(); i++) {
+            variants.add(key.substring(0, i) + key.substring(i + 1));
+        }
+        return variants;
+    }
+
+    /**
+     * Texto en minúsculas y sin acentos, igual que compara la collation utf8_general_ci de la consulta LIKE
+     */
+    private static String normalize(String value) {
+        return SpanishPhonetics.fold(value);
+    }
+}
@@ -0,0 +1,111 @@
+package com.davidbonelo.libreta.service.search;
+
+import com.davidbonelo.libreta.datasource.DataSourceRouting;
+import com.davidbonelo.libreta.repository.ContactoNombre;
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Completa las llaves fonéticas de los contactos que no las tienen: los guardados antes de existir las llaves, o
+ * escritos por otra aplicación o directo en la base de datos. Sin ellas la búsqueda aproximada en la base de datos,
+ * que responde mientras se construye el índice en memoria, no encuentra esos contactos.
+ * <p>
+ * Corre una vez al arrancar en un hilo aparte, por bloques de contactos con una transacción por bloque, así no
+ * demora el arranque ni mantiene bloqueos largos. No cambia la fecha de actualización de los contactos; si un
+ * contacto cambia de nombre mientras tanto, el cambio ya guardó sus llaves y el bloque no las pisa.
+ */
+@Slf4j
+@Component
+public class PhoneticBackfill {
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "libreta-fonetico");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Empieza a completar las llaves en segundo plano
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        runner.execute(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron completar las llaves fonéticas, se reintenta en el próximo arranque", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Recorre los contactos sin llaves fonéticas por bloques y las guarda, leyendo y escribiendo en el primario
+     *
+     * @return Cantidad de contactos completados
+     */
+    public int backfill() {
+        return DataSourceRouting.onPrimary(() -> {
+            var start = System.nanoTime();
+            var transaction = new TransactionTemplate(transactionManager);
+            var filled = 0;
+            var afterId = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                var lastId = afterId;
+                List<ContactoNombre> rows = transaction.execute(status ->
+                        contactoRepository.findSinFonetico(lastId, PageRequest.of(0, CHUNK_SIZE)));
+                if (rows == null || rows.isEmpty()) {
+                    break;
+                }
+                filled += transaction.execute(status -> fill(rows));
+                afterId = rows.get(rows.size() - 1).id();
+            }
+            if (filled > 0) {
+                log.info("Llaves fonéticas completadas en {} contactos en {} ms", filled,
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+            return filled;
+        });
+    }
+
+    private int fill(List<ContactoNombre> rows) {
+        var filled = 0;
+        for (var row : rows) {
+            var nombreFonetico = SpanishPhonetics.key(row.nombre());
+            var apellidoFonetico = SpanishPhonetics.key(row.apellido());
+            if (contactoRepository.updateFonetico(row.id(), row.nombre(), row.apellido(), nombreFonetico,
+                    apellidoFonetico) == 0) {
+                continue;
+            }
+            contactoRepository.deletePalabrasFoneticas(row.id());
+            SpanishPhonetics.wordKeys(nombreFonetico, apellidoFonetico)
+                    .forEach(llave -> contactoRepository.insertPalabraFonetica(row.id(), llave));
+            filled++;
+        }
+        return filled;
+    }
+}
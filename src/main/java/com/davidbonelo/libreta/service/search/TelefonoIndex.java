@@ -0,0 +1,216 @@
+package com.davidbonelo.libreta.service.search;
+
+import com.davidbonelo.libreta.datasource.DataSourceRouting;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.repository.TelefonoRepository;
+import com.davidbonelo.libreta.service.events.ChangeEvent;
+import com.davidbonelo.libreta.utility.PhoneNumbers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice hash en memoria de los números de teléfono normalizados, para la búsqueda inversa (identificador de llamadas).
+ * <p>
+ * Guarda para cada número canónico los teléfonos que lo tienen, y para cada teléfono su número y su contacto, así una
+ * búsqueda es una sola lectura de un mapa. Se reconstruye desde la base de datos al arrancar y se mantiene al día con
+ * los eventos de cambio que publica LibretaService después de cada commit. Las lecturas no toman bloqueos; las
+ * escrituras se serializan. La reconstrucción lee la base de datos sin tomar el monitor del índice y vuelve a aplicar
+ * sobre el índice nuevo los cambios que llegaron mientras tanto, igual que {@link ContactoSearchIndex}.
+ */
+@Slf4j
+@Component
+public class TelefonoIndex {
+    @Autowired
+    private TelefonoRepository telefonoRepository;
+
+    private volatile State state = new State();
+
+    private volatile boolean ready = false;
+
+    /**
+     * Cambios recibidos durante una reconstrucción, null si no hay una en curso. Se protege con el monitor del índice.
+     */
+    private List<Consumer<State>> pending;
+
+    /**
+     * Serializa las reconstrucciones sin fijar el hilo portador mientras se lee la base de datos
+     */
+    private final ReentrantLock rebuilding = new ReentrantLock();
+
+    /**
+     * Número canónico de un teléfono y su contacto
+     */
+    private record Entry(String numero, Integer contactoId) {
+    }
+
+    private static final class State {
+        private final Map<Integer, Entry> telefonos = new ConcurrentHashMap<>();
+        private final Map<String, Set<Integer>> numeros = new ConcurrentHashMap<>();
+        private final Map<Integer, Set<Integer>> contactos = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Indica si el índice ya se construyó y puede responder búsquedas
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reconstruye el índice completo desde la base de datos. Los teléfonos guardados antes de existir la columna
+     * normalizada se normalizan al vuelo. Se lee del primario para no perder los cambios que una réplica aún no tiene.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        rebuilding.lock();
+        try {
+            var start = System.nanoTime();
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            var fresh = new State();
+            DataSourceRouting.runOnPrimary(() -> {
+                try (var rows = telefonoRepository.streamNumeros()) {
+                    rows.forEach(row -> put(fresh, row.id(), row.contactoId(), row.telefonoNormalizado() != null
+                            ? row.telefonoNormalizado() : PhoneNumbers.normalize(row.telefono())));
+                }
+            });
+            synchronized (this) {
+                pending.forEach(change -> change.accept(fresh));
+                state = fresh;
+            }
+            ready = true;
+            log.info("Índice de números construido con {} teléfonos y {} números en {} ms", fresh.telefonos.size(),
+                    fresh.numeros.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+            rebuilding.unlock();
+        }
+    }
+
+    /**
+     * Mantiene el índice al día con los cambios confirmados en la base de datos. Al borrar un contacto sus teléfonos
+     * se borran sin eventos propios, por eso se quitan todos los del contacto. Una actualización parcial solo trae los
+     * campos cambiados, el número o el contacto que falten se conservan del índice.
+     *
+     * @param event Evento de cambio publicado por LibretaService
+     */
+    @TransactionalEventListener
+    public void onChange(ChangeEvent event) {
+        if (event.type() == ChangeEvent.Type.CONTACTO) {
+            if (event.action() == ChangeEvent.Action.DELETED) {
+                removeContacto(event.id());
+            }
+        } else if (event.action() == ChangeEvent.Action.DELETED) {
+            remove(event.id());
+        } else if (event.payload() instanceof Telefono telefono) {
+            put(event.id(), event.contactoId(), telefono.getTelefonoNormalizado());
+        } else if (event.payload() instanceof Map<?, ?> changes) {
+            patch(event.id(), event.contactoId(), (String) changes.get("telefonoNormalizado"),
+                    changes.containsKey("telefono"));
+        }
+    }
+
+    /**
+     * Busca los contactos que tienen un número de teléfono
+     *
+     * @param numero Número en forma canónica
+     * @return Identificadores de los contactos, sin un orden en particular
+     */
+    public List<Integer> search(String numero) {
+        var current = state;
+        var ids = current.numeros.get(numero);
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream()
+                .map(current.telefonos::get)
+                .filter(entry -> entry != null && entry.contactoId() != null)
+                .map(Entry::contactoId)
+                .distinct()
+                .toList();
+    }
+
+    private void put(Integer id, Integer contactoId, String numero) {
+        apply(target -> put(target, id, contactoId, numero));
+    }
+
+    private void patch(Integer id, Integer contactoId, String numero, boolean numeroChanged) {
+        apply(target -> {
+            var previous = target.telefonos.get(id);
+            if (previous == null && !numeroChanged) {
+                return;
+            }
+            put(target, id, contactoId != null ? contactoId : previous == null ? null : previous.contactoId(),
+                    numeroChanged ? numero : previous.numero());
+        });
+    }
+
+    private void remove(Integer id) {
+        apply(target -> remove(target, id));
+    }
+
+    private void removeContacto(Integer contactoId) {
+        apply(target -> {
+            var ids = target.contactos.get(contactoId);
+            if (ids != null) {
+                Set.copyOf(ids).forEach(id -> remove(target, id));
+            }
+        });
+    }
+
+    /**
+     * Aplica un cambio al índice actual y lo anota si hay una reconstrucción en curso
+     */
+    private synchronized void apply(Consumer<State> change) {
+        change.accept(state);
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    private static void put(State target, Integer id, Integer contactoId, String numero) {
+        remove(target, id);
+        if (numero == null) {
+            return;
+        }
+        target.telefonos.put(id, new Entry(numero, contactoId));
+        target.numeros.computeIfAbsent(numero, key -> ConcurrentHashMap.newKeySet()).add(id);
+        if (contactoId != null) {
+            target.contactos.computeIfAbsent(contactoId, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private static void remove(State target, Integer id) {
+        var previous = target.telefonos.remove(id);
+        if (previous == null) {
+            return;
+        }
+        target.numeros.computeIfPresent(previous.numero(), (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+        if (previous.contactoId() != null) {
+            target.contactos.computeIfPresent(previous.contactoId(), (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.davidbonelo.libreta.utility;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Próximo cumpleaños de un contacto dentro de la ventana consultada
+ */
+@Getter
+@AllArgsConstructor
+public class Birthday {
+    /**
+     * Fecha en que se celebra el cumpleaños; los nacidos un 29 de febrero lo celebran el 28 en los años no bisiestos
+     */
+    private final LocalDate fecha;
+
+    /**
+     * Edad que cumple el contacto en esa fecha
+     */
+    private final int edad;
+
+    /**
+     * Contacto con sus teléfonos
+     */
+    private final Contacto contacto;
+}
@@ -0,0 +1,48 @@
+package com.davidbonelo.libreta.utility;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de contactos
+ */
+@Getter
+public class BulkImportResult {
+    /**
+     * Cantidad de contactos recibidos
+     */
+    private int received;
+
+    /**
+     * Cantidad de contactos guardados
+     */
+    private int imported;
+
+    /**
+     * Errores de las filas que no se pudieron guardar
+     */
+    private final List<RowError> errors = new ArrayList<>();
+
+    /**
+     * Error de una fila de la importación
+     *
+     * @param index   Posición de la fila en el archivo, empezando en cero
+     * @param message Mensaje de error
+     */
+    public record RowError(int index, String message) {
+    }
+
+    public void addReceived() {
+        received++;
+    }
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addError(int index, String message) {
+        errors.add(new RowError(index, message));
+    }
+}
@@ -0,0 +1,52 @@
+package com.davidbonelo.libreta.utility;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Token opaco de continuación para la paginación por llave (keyset) del listado de contactos.
+ * <p>
+ * Guarda el campo y la dirección del ordenamiento junto con el valor y el identificador de la última fila
+ * entregada, así la siguiente página arranca justo después de ella sin usar OFFSET.
+ *
+ * @param field     Campo por el cual se ordena
+ * @param direction Dirección del ordenamiento
+ * @param lastId    Identificador de la última fila entregada
+ * @param lastValue Valor del campo de ordenamiento en la última fila entregada
+ */
+public record Cursor(String field, Sort.Direction direction, Integer lastId, String lastValue) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Codifica el cursor como un token opaco apto para URLs
+     *
+     * @return Token codificado
+     */
+    public String encode() {
+        var raw = field + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR + (lastValue == null ? "" :
+                lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token generado por {@link #encode()}
+     *
+     * @param token Token recibido del cliente
+     * @return Cursor decodificado
+     * @throws IllegalArgumentException si el token no es válido
+     */
+    public static Cursor decode(String token) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var parts = raw.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("El cursor indicado no es válido");
+            }
+            return new Cursor(parts[0], Sort.Direction.valueOf(parts[1]), Integer.valueOf(parts[2]), parts[3]);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("El cursor indicado no es válido", exception);
+        }
+    }
+}
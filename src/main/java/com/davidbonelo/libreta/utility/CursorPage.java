@@ -0,0 +1,37 @@
+package com.davidbonelo.libreta.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página de resultados de un listado paginado por cursor
+ *
+ * @param <T> Tipo de los elementos de la página
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    /**
+     * Elementos de la página
+     */
+    private final List<T> items;
+
+    /**
+     * Token para pedir la siguiente página, nulo cuando ya no hay más resultados
+     */
+    private final String nextCursor;
+
+    /**
+     * Tamaño de página solicitado
+     */
+    private final int size;
+
+    /**
+     * Indica si existen más resultados después de esta página
+     */
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
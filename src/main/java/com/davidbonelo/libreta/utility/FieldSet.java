@@ -0,0 +1,54 @@
+package com.davidbonelo.libreta.utility;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Campos de un contacto que pidió el cliente con el parámetro fields= del listado y la búsqueda, por ejemplo
+ * {@code fields=nombre,apellido}. Las columnas se leen con una proyección y los teléfonos solo se consultan si se
+ * pidieron.
+ *
+ * @param columns   Atributos de Contacto a leer en el orden pedido, siempre empieza por id
+ * @param telefonos Indica si se pidieron los teléfonos de cada contacto
+ */
+public record FieldSet(List<String> columns, boolean telefonos) {
+    /**
+     * Atributos de Contacto que se pueden pedir, además de telefonos
+     */
+    private static final Set<String> COLUMNS = Set.of("id", "nombre", "apellido", "email", "fechaNacimiento",
+            "createdAt", "updatedAt");
+
+    private static final String TELEFONOS = "telefonos";
+
+    /**
+     * Interpreta el valor del parámetro fields=
+     *
+     * @param fields Nombres de los campos separados por comas
+     * @return Campos pedidos
+     * @throws IllegalArgumentException si no se pidió ningún campo o alguno no existe
+     */
+    public static FieldSet parse(String fields) {
+        if (fields.isBlank()) {
+            throw new IllegalArgumentException("El parámetro fields debe indicar al menos un campo");
+        }
+        var columns = new LinkedHashSet<String>();
+        columns.add("id");
+        var telefonos = false;
+        for (var field : fields.split(",")) {
+            var name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (TELEFONOS.equals(name)) {
+                telefonos = true;
+            } else if (COLUMNS.contains(name)) {
+                columns.add(name);
+            } else {
+                throw new IllegalArgumentException("El campo " + name + " no existe, los campos válidos son "
+                        + "id, nombre, apellido, email, fechaNacimiento, createdAt, updatedAt y telefonos");
+            }
+        }
+        return new FieldSet(List.copyOf(columns), telefonos);
+    }
+}
@@ -0,0 +1,106 @@
+package com.davidbonelo.libreta.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Token opaco de continuación de una sincronización por cambios paginada.
+ * <p>
+ * Una sincronización recorre el intervalo (since, until] en tres fases, cada una por llave (fecha de actualización o
+ * de borrado, id): contactos, teléfonos y marcas de borrado de teléfonos. El token guarda el intervalo, la fase y la
+ * última fila entregada, así todas las páginas de una sincronización ven el mismo intervalo y la siguiente página
+ * arranca justo después de la anterior.
+ *
+ * @param since  Inicio del intervalo, excluido; nulo en la primera sincronización, que no trae borrados
+ * @param until  Fin del intervalo, incluido; es la marca de agua que recibe el cliente al terminar
+ * @param phase  Fase en curso
+ * @param lastAt Fecha de la última fila entregada en la fase, nula al empezar la fase
+ * @param lastId Identificador de la última fila entregada en la fase
+ */
+public record SyncCursor(Instant since, Instant until, Phase phase, Instant lastAt, int lastId) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Fases de una sincronización, en el orden en que se recorren
+     */
+    public enum Phase {
+        CONTACTOS, TELEFONOS, TELEFONOS_BORRADOS
+    }
+
+    /**
+     * Posición al inicio de una sincronización
+     *
+     * @param since Marca de agua de la sincronización anterior, nula para la primera
+     * @param until Fin del intervalo
+     * @return Posición al inicio de la fase de contactos
+     */
+    public static SyncCursor start(Instant since, Instant until) {
+        return new SyncCursor(since, until, Phase.CONTACTOS, null, 0);
+    }
+
+    /**
+     * Posición después de la fila indicada, en la misma fase
+     *
+     * @param at Fecha de la fila
+     * @param id Identificador de la fila
+     * @return Nueva posición
+     */
+    public SyncCursor after(Instant at, int id) {
+        return new SyncCursor(since, until, phase, at, id);
+    }
+
+    /**
+     * Posición al inicio de la fase siguiente; la primera sincronización no recorre las marcas de borrado
+     *
+     * @return Nueva posición, o null si la sincronización terminó
+     */
+    public SyncCursor nextPhase() {
+        var next = phase.ordinal() + 1;
+        if (next == Phase.values().length || (since == null && Phase.values()[next] == Phase.TELEFONOS_BORRADOS)) {
+            return null;
+        }
+        return new SyncCursor(since, until, Phase.values()[next], null, 0);
+    }
+
+    /**
+     * Codifica el cursor como un token opaco apto para URLs
+     *
+     * @return Token codificado
+     */
+    public String encode() {
+        var raw = text(since) + SEPARATOR + until + SEPARATOR + phase.name() + SEPARATOR + text(lastAt) + SEPARATOR
+                + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token generado por {@link #encode()}
+     *
+     * @param token Token recibido del cliente
+     * @return Cursor decodificado
+     * @throws IllegalArgumentException si el token no es válido
+     */
+    public static SyncCursor decode(String token) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("El cursor indicado no es válido");
+            }
+            return new SyncCursor(instant(parts[0]), Instant.parse(parts[1]), Phase.valueOf(parts[2]),
+                    instant(parts[3]), Integer.parseInt(parts[4]));
+        } catch (IllegalArgumentException | DateTimeParseException exception) {
+            throw new IllegalArgumentException("El cursor indicado no es válido", exception);
+        }
+    }
+
+    private static String text(Instant instant) {
+        return instant == null ? "" : instant.toString();
+    }
+
+    private static Instant instant(String text) {
+        return text.isEmpty() ? null : Instant.parse(text);
+    }
+}
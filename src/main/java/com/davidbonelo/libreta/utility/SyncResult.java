@@ -0,0 +1,47 @@
+package com.davidbonelo.libreta.utility;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Página de los cambios del directorio desde la última sincronización de un cliente. Mientras nextCursor no sea nulo
+ * faltan páginas y la marca de agua es nula: el cliente guarda la marca de agua solo al recibir la última página.
+ */
+@Getter
+@AllArgsConstructor
+public class SyncResult {
+    /**
+     * Marca de agua que el cliente debe enviar en su próxima sincronización, nula hasta la última página
+     */
+    private final Instant watermark;
+
+    /**
+     * Contactos creados o actualizados, sin sus teléfonos
+     */
+    private final List<Contacto> contactos;
+
+    /**
+     * Identificadores de los contactos borrados
+     */
+    private final List<Integer> contactosBorrados;
+
+    /**
+     * Teléfonos creados o actualizados
+     */
+    private final List<Telefono> telefonos;
+
+    /**
+     * Identificadores de los teléfonos borrados
+     */
+    private final List<Integer> telefonosBorrados;
+
+    /**
+     * Token de continuación de la siguiente página, nulo en la última
+     */
+    private final String nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.davidbonelo.libreta.utility;
+
+import org.hibernate.Hibernate;
+
+/**
+ * Filtro de Jackson que omite de la respuesta las asociaciones perezosas que no se cargaron, en lugar de inicializarlas
+ * durante la serialización.
+ * <p>
+ * Se usa con {@code @JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = UninitializedFilter.class)}: Jackson
+ * descarta el valor cuando {@link #equals(Object)} devuelve true.
+ */
+public class UninitializedFilter {
+    @Override
+    public boolean equals(Object value) {
+        return !Hibernate.isInitialized(value);
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+}
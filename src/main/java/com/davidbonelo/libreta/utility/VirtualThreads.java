@@ -0,0 +1,69 @@
+package com.davidbonelo.libreta.utility;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Acceso a los hilos virtuales de Java 21 sin exigirlos para compilar: el proyecto sigue compilando y corriendo en
+ * Java 17, y el modo de hilos virtuales solo se puede activar en una JVM que los soporte
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * Indica si la JVM actual tiene hilos virtuales
+     */
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Crea una fábrica de hilos virtuales con nombre, equivalente a {@code Thread.ofVirtual().name(prefix, 0)}
+     *
+     * @param prefix Prefijo del nombre de los hilos
+     * @return Fábrica de hilos virtuales
+     * @throws IllegalStateException si la JVM no soporta hilos virtuales
+     */
+    public static ThreadFactory factory(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Los hilos virtuales requieren Java 21, la JVM actual es "
+                    + Runtime.version());
+        }
+        try {
+            var lookup = MethodHandles.publicLookup();
+            var builderClass = Class.forName("java.lang.Thread$Builder");
+            var virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            var builder = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass))
+                    .invoke();
+            builder = lookup.findVirtual(virtualBuilderClass, "name",
+                    MethodType.methodType(virtualBuilderClass, String.class, long.class)).invoke(builder, prefix, 0L);
+            return (ThreadFactory) lookup.findVirtual(builderClass, "factory",
+                    MethodType.methodType(ThreadFactory.class)).invoke(builder);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("No se pudo crear la fábrica de hilos virtuales", throwable);
+        }
+    }
+
+    /**
+     * Crea un ejecutor que arranca un hilo virtual por tarea
+     *
+     * @param prefix Prefijo del nombre de los hilos
+     * @return Ejecutor de hilos virtuales
+     * @throws IllegalStateException si la JVM no soporta hilos virtuales
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        var factory = factory(prefix);
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class, ThreadFactory.class))
+                    .invoke(factory);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("No se pudo crear el ejecutor de hilos virtuales", throwable);
+        }
+    }
+}
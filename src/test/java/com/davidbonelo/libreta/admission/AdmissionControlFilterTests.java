@@ -0,0 +1,145 @@
+package com.davidbonelo.libreta.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El grupo search admite una petición y deja esperar a otra; las cadenas de filtros bloquean hasta que la prueba las
+ * suelta
+ */
+class AdmissionControlFilterTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AdmissionControlFilter(Map.of(
+                "search", new Bulkhead("search", 1, 1, Duration.ofSeconds(1), meterRegistry),
+                "write", new Bulkhead("write", 1, 0, Duration.ZERO, meterRegistry)),
+                Duration.ofSeconds(2), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void saturatedGroupShedsWithoutBlockingOthers() throws Exception {
+        var release = new CountDownLatch(1);
+        var entered = new CountDownLatch(1);
+        var busy = send("GET", "/api/v1/search/contact/ana", (request, response) -> {
+            entered.countDown();
+            await(release);
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        var queued = send("GET", "/api/v1/search/contact/luis", new MockFilterChain());
+        awaitWaiting("search", 1);
+        var full = filter("GET", "/api/v1/search/phone/300");
+        assertEquals(429, full.getStatus());
+        assertEquals("2", full.getHeader("Retry-After"));
+        assertTrue(full.getContentAsString().contains("\"error\":true"));
+
+        assertEquals(200, filter("POST", "/api/v1/contact").getStatus());
+
+        release.countDown();
+        assertEquals(200, busy.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(200, queued.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, count("search", "admitted"));
+        assertEquals(1, count("search", "queued"));
+        assertEquals(1, count("search", "rejected"));
+    }
+
+    @Test
+    void waitingPastMaxWaitIsUnavailable() throws Exception {
+        var release = new CountDownLatch(1);
+        var entered = new CountDownLatch(1);
+        var busy = send("GET", "/api/v1/search/contact/ana", (request, response) -> {
+            entered.countDown();
+            await(release);
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        var timedOut = filter("GET", "/api/v1/search/contact/luis");
+        assertEquals(503, timedOut.getStatus());
+        assertEquals("2", timedOut.getHeader("Retry-After"));
+
+        release.countDown();
+        busy.get(5, TimeUnit.SECONDS);
+        assertEquals(200, filter("GET", "/api/v1/search/contact/luis").getStatus());
+    }
+
+    @Test
+    void requestsAreGroupedByMethodAndPath() {
+        assertEquals("list", AdmissionControlFilter.group(new MockHttpServletRequest("GET", "/api/v1/index")));
+        assertEquals("list", AdmissionControlFilter.group(
+                new MockHttpServletRequest("GET", "/api/v1/index/orderby/nombre/asc")));
+        assertEquals("search", AdmissionControlFilter.group(
+                new MockHttpServletRequest("GET", "/api/v1/search/phone/300")));
+        assertEquals("bulk", AdmissionControlFilter.group(
+                new MockHttpServletRequest("POST", "/api/v1/contact/bulk")));
+        assertEquals("bulk", AdmissionControlFilter.group(new MockHttpServletRequest("GET", "/api/v1/export")));
+        assertEquals("write", AdmissionControlFilter.group(new MockHttpServletRequest("PATCH", "/api/v1/phone/3")));
+        assertNull(AdmissionControlFilter.group(new MockHttpServletRequest("GET", "/api/v1/contact/3")));
+        assertNull(AdmissionControlFilter.group(new MockHttpServletRequest("GET", "/api/v1/events")));
+    }
+
+    private Future<MockHttpServletResponse> send(String method, String uri, FilterChain chain) {
+        return executor.submit(() -> {
+            var response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest(method, uri), response, chain);
+            return response;
+        });
+    }
+
+    private MockHttpServletResponse filter(String method, String uri) throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, uri), response, new MockFilterChain());
+        return response;
+    }
+
+    private double count(String group, String outcome) {
+        return meterRegistry.get("libreta.admission.requests").tags("group", group, "outcome", outcome)
+                .counter().count();
+    }
+
+    private void awaitWaiting(String group, int expected) throws InterruptedException {
+        var gauge = meterRegistry.get("libreta.admission.waiting").tag("group", group).gauge();
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (gauge.value() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, gauge.value());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
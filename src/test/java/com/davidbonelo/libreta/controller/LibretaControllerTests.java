@@ -0,0 +1,151 @@
+package com.davidbonelo.libreta.controller;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.service.LibretaService;
+import com.davidbonelo.libreta.service.cache.DirectoryVersion;
+import com.davidbonelo.libreta.service.cache.LibretaCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@WebMvcTest(LibretaController.class)
+class LibretaControllerTests {
+    private static final int THREADS = 64;
+    private static final int REQUESTS_PER_THREAD = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private LibretaService libretaService;
+
+    @MockBean
+    private LibretaCache libretaCache;
+
+    @MockBean
+    private DirectoryVersion directoryVersion;
+
+    /**
+     * Cada búsqueda devuelve un contacto con el mismo texto buscado, y las que empiezan por "malo" fallan con 400.
+     * Si el controlador compartiera estado entre peticiones, alguna respuesta traería los datos o el código de otra.
+     */
+    @Test
+    void concurrentRequestsNeverShareResponses() throws Exception {
+        given(libretaService.searchContacto(anyString())).willAnswer(invocation -> {
+            String data = invocation.getArgument(0);
+            if (data.startsWith("malo")) {
+                throw new IllegalArgumentException(data);
+            }
+            var contacto = new Contacto();
+            contacto.setNombre(data);
+            Thread.yield();
+            return List.of(contacto);
+        });
+
+        var executor = Executors.newFixedThreadPool(THREADS);
+        var start = new CountDownLatch(1);
+        var results = new ArrayList<Future<Integer>>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            var threadId = thread;
+            results.add(executor.submit(() -> {
+                start.await();
+                var checked = 0;
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    var failing = (threadId + i) % 3 == 0;
+                    var data = (failing ? "malo" : "bueno") + threadId + "x" + i;
+                    var result = mockMvc.perform(get("/api/v1/search/contact/{data}", data)).andReturn();
+                    var body = objectMapper.readTree(result.getResponse().getContentAsString());
+                    if (failing) {
+                        assertEquals(400, result.getResponse().getStatus());
+                        assertEquals(true, body.get("error").asBoolean());
+                        assertEquals(data, body.get("message").asText());
+                    } else {
+                        assertEquals(200, result.getResponse().getStatus());
+                        assertEquals(false, body.get("error").asBoolean());
+                        assertEquals(data, body.get("data").get(0).get("nombre").asText());
+                    }
+                    checked++;
+                }
+                return checked;
+            }));
+        }
+        start.countDown();
+
+        var total = 0;
+        for (var result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+        assertEquals(THREADS * REQUESTS_PER_THREAD, total);
+    }
+
+    @Test
+    void matchingETagAnswersNotModifiedWithoutQuerying() throws Exception {
+        given(directoryVersion.getETag()).willReturn("\"v-1\"");
+        given(directoryVersion.getLastModified()).willReturn(1_700_000_000_000L);
+
+        var first = mockMvc.perform(get("/api/v1/index")).andReturn();
+        assertEquals(200, first.getResponse().getStatus());
+        assertEquals("\"v-1\"", first.getResponse().getHeader("ETag"));
+
+        var second = mockMvc.perform(get("/api/v1/search/contact/{data}", "ana").header("If-None-Match", "\"v-1\""))
+                .andReturn();
+        assertEquals(304, second.getResponse().getStatus());
+        assertEquals("", second.getResponse().getContentAsString());
+        verify(libretaService, never()).searchContacto(anyString());
+
+        given(directoryVersion.getETag()).willReturn("\"v-2\"");
+        var third = mockMvc.perform(get("/api/v1/search/contact/{data}", "ana").header("If-None-Match", "\"v-1\""))
+                .andReturn();
+        assertEquals(200, third.getResponse().getStatus());
+    }
+
+    @Test
+    void binaryFormatsAreNegotiatedWithAccept() throws Exception {
+        given(directoryVersion.getETag()).willReturn("W/\"v-1\"");
+        var contacto = new Contacto();
+        contacto.setId(7);
+        contacto.setNombre("Ana");
+        contacto.setFechaNacimiento(LocalDate.of(1990, 5, 17));
+        given(libretaService.searchContacto("ana")).willReturn(List.of(contacto));
+
+        var json = mockMvc.perform(get("/api/v1/search/contact/{data}", "ana")).andReturn().getResponse();
+        var cbor = mockMvc.perform(get("/api/v1/search/contact/{data}", "ana").accept("application/cbor"))
+                .andReturn().getResponse();
+        var smile = mockMvc.perform(get("/api/v1/search/contact/{data}", "ana").accept("application/x-jackson-smile"))
+                .andReturn().getResponse();
+
+        assertTrue(json.getContentType().startsWith("application/json"));
+        assertEquals("application/cbor", cbor.getContentType());
+        assertEquals("application/x-jackson-smile", smile.getContentType());
+        assertTrue(cbor.getHeaders("Vary").contains("Accept"));
+        var expected = objectMapper.readTree(json.getContentAsByteArray());
+        assertEquals(expected, new ObjectMapper(new CBORFactory()).readTree(cbor.getContentAsByteArray()));
+        assertEquals(expected, new ObjectMapper(new SmileFactory()).readTree(smile.getContentAsByteArray()));
+        assertEquals("1990-05-17", expected.get("data").get(0).get("fechaNacimiento").asText());
+        assertTrue(cbor.getContentAsByteArray().length < json.getContentAsByteArray().length);
+    }
+}
@@ -0,0 +1,151 @@
+package com.davidbonelo.libreta.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Dos bases H2 en memoria hacen de primario y de réplica; cada una responde su propio nombre para saber a cuál fue
+ * cada transacción
+ */
+class ReplicaRoutingDataSourceTests {
+    private ReplicaRoutingDataSource dataSource;
+
+    private JdbcTemplate replica;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        var primaryPool = pool("primary");
+        var replicaPool = pool("replica");
+        replica = new JdbcTemplate(replicaPool);
+        replica.execute("CREATE TABLE replica_lag (seconds BIGINT)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+
+        dataSource = new ReplicaRoutingDataSource(primaryPool, List.of(replicaPool), Duration.ofSeconds(5),
+                Duration.ofMillis(50), "SELECT seconds AS Seconds_Behind_Master FROM replica_lag");
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        await(() -> dataSource.getHealthyReplicaCount() == 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToHealthyReplicas() {
+        assertEquals("replica", origin(readOnly));
+        assertEquals("primary", origin(readWrite));
+        assertEquals("primary", DataSourceRouting.onPrimary(() -> origin(readOnly)));
+
+        replica.update("UPDATE replica_lag SET seconds = 60");
+        await(() -> dataSource.getHealthyReplicaCount() == 0);
+        assertEquals("primary", origin(readOnly));
+
+        replica.update("UPDATE replica_lag SET seconds = 1");
+        await(() -> dataSource.getHealthyReplicaCount() == 1);
+        assertEquals("replica", origin(readOnly));
+    }
+
+    @Test
+    void clientReadsItsOwnWritesFromPrimary() throws Exception {
+        var filter = new ReadYourWritesFilter(Duration.ofMinutes(1));
+
+        var write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/contact"), write, new MockFilterChain());
+        var cookie = write.getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+
+        var sameClient = new MockHttpServletRequest("GET", "/api/v1/index");
+        sameClient.setCookies(cookie);
+        var origins = new String[2];
+        filter.doFilter(sameClient, new MockHttpServletResponse(),
+                (request, response) -> origins[0] = origin(readOnly));
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/index"), new MockHttpServletResponse(),
+                (request, response) -> origins[1] = origin(readOnly));
+
+        assertEquals("primary", origins[0]);
+        assertEquals("replica", origins[1]);
+    }
+
+    @Test
+    void stickinessWindowStartsWhenTheWriteFinishes() throws Exception {
+        var window = Duration.ofSeconds(2);
+        var filter = new ReadYourWritesFilter(window);
+        var finished = new long[1];
+
+        var write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/import"), write, (request, response) -> {
+            var until = System.currentTimeMillis() + 50;
+            while (System.currentTimeMillis() < until) {
+                Thread.onSpinWait();
+            }
+            finished[0] = System.currentTimeMillis();
+            response.getWriter().write("{}");
+            response.flushBuffer();
+        });
+
+        var cookie = write.getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+        assertTrue(Long.parseLong(cookie.getValue()) >= finished[0] + window.toMillis());
+        assertEquals(1, write.getCookies().length);
+    }
+
+    private static String origin(TransactionTemplate transaction) {
+        return transaction.execute(status -> new JdbcTemplate(
+                ((DataSourceTransactionManager) transaction.getTransactionManager()).getDataSource())
+                .queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    private static HikariDataSource pool(String nombre) {
+        var config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + nombre + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        config.setPoolName(nombre);
+        var pool = new HikariDataSource(config);
+        var jdbc = new JdbcTemplate(pool);
+        jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        jdbc.update("INSERT INTO origen VALUES (?)", nombre);
+        return pool;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("La verificación de las réplicas no cambió la rotación a tiempo");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                fail(exception);
+            }
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
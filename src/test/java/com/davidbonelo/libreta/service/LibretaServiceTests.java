@@ -0,0 +1,519 @@
+package com.davidbonelo.libreta.service;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.repository.ContactoRepository;
+import com.davidbonelo.libreta.repository.TelefonoRepository;
+import com.davidbonelo.libreta.service.search.ContactoSearchIndex;
+import com.davidbonelo.libreta.service.search.PhoneticBackfill;
+import com.davidbonelo.libreta.utility.Birthday;
+import com.davidbonelo.libreta.utility.BulkImportResult;
+import com.davidbonelo.libreta.utility.FieldSet;
+import com.davidbonelo.libreta.utility.SpanishPhonetics;
+import com.davidbonelo.libreta.utility.SyncResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "libreta.sync.lag=0s"})
+class LibretaServiceTests {
+    @Autowired
+    private LibretaService libretaService;
+
+    @Autowired
+    private ContactoRepository contactoRepository;
+
+    @Autowired
+    private TelefonoRepository telefonoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PhoneticBackfill phoneticBackfill;
+
+    @Autowired
+    private ContactoSearchIndex searchIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getListUsesConstantStatementCount() {
+        seed("Lista", 3);
+        var small = statementsFor(() -> libretaService.getList(null, 500));
+
+        seed("Lista", 40);
+        var large = statementsFor(() -> libretaService.getList(null, 500));
+
+        assertEquals(small, large);
+        libretaService.getList(null, 500).getItems()
+                .forEach(contacto -> assertTrue(Hibernate.isInitialized(contacto.getTelefonos())));
+    }
+
+    @Test
+    void searchUsesConstantStatementCount() {
+        seed("Busqueda", 2);
+        var small = statementsFor(() -> libretaService.searchContacto("busqueda"));
+
+        seed("Busqueda", 30);
+        var large = statementsFor(() -> libretaService.searchContacto("busqueda"));
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    void searchRanksExactPrefixSuffixContainsAndIgnoresAccents() {
+        var contiene = named("Elrangoxito", "Orden");
+        var sufijo = named("Elrangox", "Orden");
+        var prefijo = named("Rangoxito", "Orden");
+        var acento = named("Rángox", "Gamma");
+        var betaSegundo = named("Rangox", "Beta");
+        var betaPrimero = named("Rangox", "Beta");
+        var alfa = named("Rangox", "Alfa");
+
+        var esperados = List.of(alfa, Math.min(betaPrimero, betaSegundo), Math.max(betaPrimero, betaSegundo),
+                acento, prefijo, sufijo, contiene);
+        assertEquals(esperados, libretaService.searchContacto("RANGOX").stream().map(Contacto::getId).toList());
+        assertEquals(esperados, searchIndex.search("Rángox", 100));
+        assertEquals(esperados.subList(0, 3), searchIndex.search("rangox", 3));
+        var corta = searchIndex.search("x", 2);
+        assertEquals(searchIndex.search("x", Integer.MAX_VALUE).subList(0, 2), corta);
+    }
+
+    @Test
+    void sparseFieldsetsReadOnlyRequestedColumns() {
+        seed("Proyeccion", 5);
+        var nombres = FieldSet.parse("nombre,apellido");
+
+        assertEquals(1, statementsFor(() -> libretaService.getList("nombre", Sort.Direction.ASC, null, 3, nombres)));
+        var page = libretaService.getList("nombre", Sort.Direction.ASC, null, 3, nombres);
+        page.getItems().forEach(row -> assertEquals(List.of("id", "nombre", "apellido"), List.copyOf(row.keySet())));
+
+        var next = libretaService.getList("nombre", Sort.Direction.ASC, page.getNextCursor(), 3,
+                FieldSet.parse("email"));
+        next.getItems().forEach(row -> assertEquals(List.of("id", "email"), List.copyOf(row.keySet())));
+        assertEquals(libretaService.getList("nombre", Sort.Direction.ASC, page.getNextCursor(), 3).getItems().stream()
+                .map(Contacto::getId).toList(), next.getItems().stream().map(row -> row.get("id")).toList());
+
+        var encontrados = libretaService.searchContacto("proyeccion", FieldSet.parse("nombre,telefonos"));
+        assertEquals(5, encontrados.size());
+        encontrados.forEach(row -> assertEquals(2, ((List<?>) row.get("telefonos")).size()));
+        assertThrows(IllegalArgumentException.class, () -> FieldSet.parse("nombre,deleted"));
+    }
+
+    @Test
+    void updateDoesNotLoadTelefonos() {
+        var contacto = seed("Escritura", 1);
+        var cambio = new Contacto();
+        cambio.setNombre("Renombrado");
+
+        statistics.clear();
+        libretaService.updateNombre(contacto.getId(), cambio);
+
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void mergePatchIsASingleUpdate() {
+        var contacto = seed("Parche", 1);
+        var watermark = sync(null).getWatermark();
+
+        var statements = statementsFor(() -> assertNotNull(libretaService.patchContacto(contacto.getId(),
+                Map.of("email", "parche@libreta.com", "fechaNacimiento", "1985-06-15"))));
+        assertNotNull(libretaService.patchContacto(contacto.getId(), Map.of("apellido", "Parchado")));
+
+        assertEquals(1, statements);
+        var actualizado = libretaService.getContacto(contacto.getId());
+        assertEquals("Parchado", actualizado.getApellido());
+        assertEquals(LocalDate.of(1985, 6, 15), actualizado.getFechaNacimiento());
+        assertEquals(contacto.getNombre(), actualizado.getNombre());
+        assertTrue(libretaService.searchContacto("parchado").stream()
+                .anyMatch(encontrado -> encontrado.getId().equals(contacto.getId())));
+        assertTrue(sync(watermark).getContactos().stream()
+                .anyMatch(cambiado -> cambiado.getId().equals(contacto.getId())));
+
+        libretaService.deleteContacto(contacto.getId());
+        assertNull(libretaService.patchContacto(contacto.getId(), Map.of("nombre", "Borrado")));
+        assertThrows(IllegalArgumentException.class,
+                () -> libretaService.patchContacto(contacto.getId(), Map.of("telefonos", List.of())));
+    }
+
+    @Test
+    void hotContactIsServedFromCacheUntilItChanges() {
+        var contacto = seed("Cache", 1);
+        libretaService.getContacto(contacto.getId());
+
+        assertEquals(0, statementsFor(() -> {
+            for (int i = 0; i < 10; i++) {
+                libretaService.getContacto(contacto.getId());
+            }
+        }));
+
+        var cambio = new Contacto();
+        cambio.setNombre("Actualizado");
+        var actualizado = libretaService.updateNombre(contacto.getId(), cambio);
+        assertEquals("Actualizado", actualizado.getNombre());
+        assertEquals(contacto.getApellido(), actualizado.getApellido());
+        assertEquals(contacto.getEmail(), actualizado.getEmail());
+
+        assertEquals("Actualizado", libretaService.getContacto(contacto.getId()).getNombre());
+        assertEquals(2, libretaService.getContacto(contacto.getId()).getTelefonos().size());
+    }
+
+    @Test
+    void syncReturnsOnlyChangesAfterWatermark() {
+        var quieto = seed("SyncQuieto", 1);
+        var cambiado = seed("SyncCambio", 1);
+        var borrado = seed("SyncBorrado", 1);
+        var watermark = sync(null).getWatermark();
+
+        var cambio = new Contacto();
+        cambio.setNombre("SyncRenombrado");
+        libretaService.updateNombre(cambiado.getId(), cambio);
+        var telefonoBorrado = libretaService.getContacto(cambiado.getId()).getTelefonos().get(0).getId();
+        libretaService.deleteTelefono(telefonoBorrado);
+        libretaService.deleteContacto(borrado.getId());
+
+        var changes = sync(watermark);
+
+        assertEquals(List.of(cambiado.getId()), changes.getContactos().stream().map(Contacto::getId).toList());
+        assertEquals(List.of(borrado.getId()), changes.getContactosBorrados());
+        assertTrue(changes.getTelefonos().isEmpty());
+        assertEquals(3, changes.getTelefonosBorrados().size());
+        assertTrue(changes.getTelefonosBorrados().contains(telefonoBorrado));
+        assertFalse(sync(null).getContactos().stream()
+                .anyMatch(contacto -> contacto.getId().equals(borrado.getId())));
+        assertTrue(sync(null).getContactos().stream()
+                .anyMatch(contacto -> contacto.getId().equals(quieto.getId())));
+
+        var next = sync(changes.getWatermark());
+        assertTrue(next.getContactos().isEmpty() && next.getContactosBorrados().isEmpty()
+                && next.getTelefonos().isEmpty() && next.getTelefonosBorrados().isEmpty());
+    }
+
+    @Test
+    void reverseLookupFollowsPhoneChanges() {
+        var contacto = seed("Llamada", 1);
+        var telefono = new Telefono();
+        telefono.setContactoId(contacto.getId());
+        telefono.setTelefono("(310) 555-0101");
+        var creado = libretaService.createTelefono(telefono);
+
+        assertEquals("+573105550101", creado.getTelefonoNormalizado());
+        assertEquals(List.of(contacto.getId()), libretaService.searchTelefono("+57 310 555 0101").stream()
+                .map(Contacto::getId).toList());
+        assertEquals(List.of(contacto.getId()), libretaService.searchTelefono("0057-3105550101").stream()
+                .map(Contacto::getId).toList());
+
+        var cambio = new Telefono();
+        cambio.setTelefono("310 555 0202");
+        var actualizado = libretaService.updateOnlyTelefono(creado.getId(), cambio);
+        assertEquals("310 555 0202", actualizado.getTelefono());
+        assertEquals(contacto.getId(), actualizado.getContactoId());
+        assertNull(libretaService.updateOnlyTelefono(-1, cambio));
+        assertTrue(libretaService.searchTelefono("3105550101").isEmpty());
+        assertEquals(1, libretaService.searchTelefono("+573105550202").size());
+
+        var otro = seed("Llamada", 1);
+        libretaService.patchTelefono(creado.getId(), Map.of("contactoId", otro.getId().longValue()));
+        assertEquals(List.of(otro.getId()), libretaService.searchTelefono("+573105550202").stream()
+                .map(Contacto::getId).toList());
+        assertTrue(libretaService.getContacto(otro.getId()).getTelefonos().stream()
+                .anyMatch(movido -> movido.getId().equals(creado.getId())));
+        assertNull(libretaService.patchTelefono(creado.getId(), Map.of("contactoId", -1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> libretaService.patchTelefono(creado.getId(), Map.of("contactoId", 1L << 32)));
+        assertThrows(IllegalArgumentException.class,
+                () -> libretaService.patchTelefono(creado.getId(), Map.of("contactoId", 1.5)));
+
+        libretaService.deleteTelefono(creado.getId());
+        assertTrue(libretaService.searchTelefono("+573105550202").isEmpty());
+    }
+
+    @Test
+    void bulkImportKeepsGoodRowsAndReportsBadOnes() {
+        var filas = List.of(
+                importado("Importado0", "Bueno", LocalDate.of(1980, 5, 1), "3004000000", "3004000001"),
+                importado("Importado1", "Repetido", LocalDate.of(1981, 5, 1), "3004000100", "3004000100"),
+                importado("Importado2", null, LocalDate.of(1982, 5, 1), "3004000200"),
+                importado("Importado3", "Bueno", LocalDate.of(1983, 5, 1)),
+                importado("Importado4", "SinFecha", null, "3004000400"));
+
+        var resultado = libretaService.importContactos(filas.iterator());
+
+        assertEquals(5, resultado.getReceived());
+        assertEquals(2, resultado.getImported());
+        assertEquals(List.of(1, 2, 4), resultado.getErrors().stream()
+                .map(BulkImportResult.RowError::index).sorted().toList());
+        assertTrue(resultado.getErrors().stream().anyMatch(error -> error.index() == 1
+                && error.message().contains("repetidos")));
+        var guardados = libretaService.searchContacto("Importado");
+        assertEquals(List.of("Importado0", "Importado3"), guardados.stream().map(Contacto::getNombre).sorted()
+                .toList());
+        var primero = guardados.stream().filter(contacto -> contacto.getNombre().equals("Importado0")).findFirst()
+                .orElseThrow();
+        assertEquals(2, libretaService.getContacto(primero.getId()).getTelefonos().size());
+    }
+
+    @Test
+    void fuzzySearchToleratesAccentsTyposAndSpelling() {
+        var contacto = new Contacto();
+        contacto.setNombre("Yolanda");
+        contacto.setApellido("González Quiñónez");
+        contacto.setEmail("yolanda@libreta.com");
+        contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        var creado = libretaService.createContacto(contacto);
+
+        assertTrue(libretaService.searchContacto("gonsalez").isEmpty());
+        for (var escrito : List.of("Gonsalez", "GONZALES", "gonzalex", "llolanda quinones", "Yolanda Gonzáles")) {
+            assertTrue(fuzzyIds(escrito).contains(creado.getId()), escrito);
+        }
+        assertFalse(fuzzyIds("Yolanda Pérez").contains(creado.getId()));
+        assertEquals("GONSALES KINONES", contactoRepository.findById(creado.getId()).orElseThrow()
+                .getApellidoFonetico());
+        for (var palabra : List.of("gonzales", "gonzalex", "quinones", "yolanda")) {
+            assertTrue(probe(palabra).contains(creado.getId()), palabra);
+        }
+
+        libretaService.patchContacto(creado.getId(), Map.of("apellido", "Martínez"));
+        assertEquals("MARTINES", contactoRepository.findById(creado.getId()).orElseThrow().getApellidoFonetico());
+        assertFalse(fuzzyIds("gonsalez").contains(creado.getId()));
+        assertFalse(probe("quinones").contains(creado.getId()));
+        assertTrue(probe("martinez").contains(creado.getId()));
+        assertTrue(probe("yolanda").contains(creado.getId()));
+        assertTrue(libretaService.searchContactoFuzzy("martines", FieldSet.parse("apellido")).stream()
+                .anyMatch(row -> row.get("id").equals(creado.getId()) && "Martínez".equals(row.get("apellido"))));
+    }
+
+    @Test
+    void phoneticBackfillFillsMissingKeys() {
+        var contacto = new Contacto();
+        contacto.setNombre("Ximena");
+        contacto.setApellido("Vélez Quintero");
+        contacto.setEmail("ximena@libreta.com");
+        contacto.setFechaNacimiento(LocalDate.of(1992, 3, 4));
+        var creado = libretaService.createContacto(contacto);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            contactoRepository.updateFonetico(creado.getId(), "Ximena", "Vélez Quintero", null, null);
+            contactoRepository.deletePalabrasFoneticas(creado.getId());
+        });
+        assertFalse(probe("quintero").contains(creado.getId()));
+
+        assertTrue(phoneticBackfill.backfill() >= 1);
+        assertEquals("BELES KINTERO", contactoRepository.findById(creado.getId()).orElseThrow()
+                .getApellidoFonetico());
+        assertTrue(probe("quintero").contains(creado.getId()));
+        assertTrue(probe("ximena").contains(creado.getId()));
+        assertTrue(contactoRepository.findSinFonetico(creado.getId() - 1, PageRequest.of(0, 1)).stream()
+                .noneMatch(row -> row.id().equals(creado.getId())));
+    }
+
+    @Test
+    void birthdaysWrapTheYearAndHandleLeapDays() {
+        var diciembre = born("Diciembre", LocalDate.of(1985, 12, 30));
+        var enero = born("Enero", LocalDate.of(1992, 1, 2));
+        var bisiesto = born("Bisiesto", LocalDate.of(2000, 2, 29));
+        var marzo = born("Marzo", LocalDate.of(1970, 3, 1));
+
+        var encontrados = new ArrayList<Birthday>();
+        String cursor = null;
+        do {
+            var page = libretaService.getBirthdays(LocalDate.of(2025, 12, 29), 5, cursor, 2);
+            encontrados.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        var propios = encontrados.stream()
+                .filter(cumple -> List.of(diciembre, enero).contains(cumple.getContacto().getId())).toList();
+        assertEquals(List.of(diciembre, enero), propios.stream().map(cumple -> cumple.getContacto().getId()).toList());
+        assertEquals(LocalDate.of(2026, 1, 2), propios.get(1).getFecha());
+        assertEquals(34, propios.get(1).getEdad());
+        assertEquals(encontrados.size(), encontrados.stream().map(cumple -> cumple.getContacto().getId()).distinct()
+                .count());
+        encontrados.forEach(cumple -> assertFalse(cumple.getFecha().isBefore(LocalDate.of(2025, 12, 29))));
+
+        var noBisiesto = libretaService.getBirthdays(LocalDate.of(2025, 2, 27), 2, null, null).getItems();
+        assertEquals(List.of(bisiesto), noBisiesto.stream().map(cumple -> cumple.getContacto().getId()).toList());
+        assertEquals(LocalDate.of(2025, 2, 28), noBisiesto.get(0).getFecha());
+        assertEquals(25, noBisiesto.get(0).getEdad());
+        assertTrue(libretaService.getBirthdays(LocalDate.of(2024, 2, 27), 2, null, null).getItems().isEmpty());
+        assertEquals(LocalDate.of(2024, 2, 29), libretaService.getBirthdays(LocalDate.of(2024, 2, 28), 2, null, null)
+                .getItems().get(0).getFecha());
+
+        assertEquals(1, libretaService.getBirthdays(LocalDate.of(2025, 3, 1), 1, null, null).getItems().size());
+        libretaService.deleteContacto(marzo);
+        assertTrue(libretaService.getBirthdays(LocalDate.of(2025, 3, 1), 1, null, null).getItems().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> libretaService.getBirthdays(null, 0, null, null));
+    }
+
+    @Test
+    void operationsAreTimedPerMethod() {
+        var contacto = seed("Metricas", 1);
+        libretaService.getContacto(contacto.getId());
+        libretaService.getContacto(-1);
+
+        var timer = meterRegistry.find("libreta.service")
+                .tags("method", "getContacto", "outcome", "success").timer();
+        assertTrue(timer != null && timer.count() >= 2);
+    }
+
+    @Test
+    void syncPagesFollowTheCursorAcrossPhases() {
+        var contacto = seed("SyncPaginas", 1);
+        var watermark = sync(null).getWatermark();
+        var cambio = new Contacto();
+        cambio.setNombre("SyncPaginada");
+        libretaService.updateNombre(contacto.getId(), cambio);
+        var borrado = libretaService.getContacto(contacto.getId()).getTelefonos().get(0).getId();
+        libretaService.deleteTelefono(borrado);
+        var telefono = new Telefono();
+        telefono.setContactoId(contacto.getId());
+        telefono.setTelefono("3209990001");
+        var creado = libretaService.createTelefono(telefono).getId();
+
+        var pages = new ArrayList<SyncResult>();
+        var page = libretaService.getChanges(watermark, null, 1);
+        pages.add(page);
+        while (page.getNextCursor() != null) {
+            assertNull(page.getWatermark());
+            page = libretaService.getChanges(null, page.getNextCursor(), 1);
+            pages.add(page);
+        }
+
+        assertNotNull(page.getWatermark());
+        assertTrue(pages.size() >= 3);
+        pages.forEach(pagina -> assertTrue(pagina.getContactos().size() + pagina.getTelefonos().size()
+                + pagina.getTelefonosBorrados().size() + pagina.getContactosBorrados().size() <= 1));
+        assertTrue(pages.stream().flatMap(pagina -> pagina.getContactos().stream())
+                .anyMatch(cambiado -> cambiado.getId().equals(contacto.getId())));
+        assertTrue(pages.stream().flatMap(pagina -> pagina.getTelefonos().stream())
+                .anyMatch(cambiado -> cambiado.getId().equals(creado)));
+        assertTrue(pages.stream().anyMatch(pagina -> pagina.getTelefonosBorrados().contains(borrado)));
+        assertThrows(IllegalArgumentException.class, () -> libretaService.getChanges(null, "no-es-un-cursor", 1));
+    }
+
+    /**
+     * Sincroniza siguiendo el cursor hasta la última página y junta todos los cambios
+     */
+    private SyncResult sync(Instant since) {
+        var contactos = new ArrayList<Contacto>();
+        var contactosBorrados = new ArrayList<Integer>();
+        var telefonos = new ArrayList<Telefono>();
+        var telefonosBorrados = new ArrayList<Integer>();
+        var page = libretaService.getChanges(since, null, null);
+        while (true) {
+            contactos.addAll(page.getContactos());
+            contactosBorrados.addAll(page.getContactosBorrados());
+            telefonos.addAll(page.getTelefonos());
+            telefonosBorrados.addAll(page.getTelefonosBorrados());
+            if (page.getNextCursor() == null) {
+                return new SyncResult(page.getWatermark(), contactos, contactosBorrados, telefonos,
+                        telefonosBorrados, null);
+            }
+            page = libretaService.getChanges(null, page.getNextCursor(), null);
+        }
+    }
+
+    /**
+     * Contactos candidatos de la búsqueda aproximada en la base de datos para una palabra
+     */
+    private List<Integer> probe(String palabra) {
+        var key = SpanishPhonetics.encode(palabra);
+        return contactoRepository.findIdsByPalabraFonetica(ContactoSearchIndex.probeKeys(key),
+                ContactoSearchIndex.probePrefix(key));
+    }
+
+    private List<Integer> fuzzyIds(String dataToSearch) {
+        return libretaService.searchContactoFuzzy(dataToSearch).stream().map(Contacto::getId).toList();
+    }
+
+    private Integer named(String nombre, String apellido) {
+        var contacto = new Contacto();
+        contacto.setNombre(nombre);
+        contacto.setApellido(apellido);
+        contacto.setEmail("orden@libreta.com");
+        contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        return libretaService.createContacto(contacto).getId();
+    }
+
+    private Integer born(String nombre, LocalDate fechaNacimiento) {
+        var contacto = new Contacto();
+        contacto.setNombre(nombre);
+        contacto.setApellido("Cumpleanos");
+        contacto.setEmail(nombre.toLowerCase() + "@libreta.com");
+        contacto.setFechaNacimiento(fechaNacimiento);
+        return libretaService.createContacto(contacto).getId();
+    }
+
+    private long statementsFor(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Contacto importado(String nombre, String apellido, LocalDate fechaNacimiento, String... numeros) {
+        var contacto = new Contacto();
+        contacto.setNombre(nombre);
+        contacto.setApellido(apellido);
+        contacto.setEmail(nombre.toLowerCase() + "@libreta.com");
+        contacto.setFechaNacimiento(fechaNacimiento);
+        for (var numero : numeros) {
+            var telefono = new Telefono();
+            telefono.setTelefono(numero);
+            contacto.getTelefonos().add(telefono);
+        }
+        return contacto;
+    }
+
+    private Contacto seed(String nombre, int count) {
+        Contacto last = null;
+        for (int i = 0; i < count; i++) {
+            var contacto = new Contacto();
+            contacto.setNombre(nombre + i);
+            contacto.setApellido("Prueba");
+            contacto.setEmail("prueba" + i + "@libreta.com");
+            contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+            last = libretaService.createContacto(contacto);
+            for (int j = 0; j < 2; j++) {
+                var telefono = new Telefono();
+                telefono.setContacto(last);
+                telefono.setTelefono("300" + i + "00" + j);
+                telefonoRepository.save(telefono);
+            }
+        }
+        return last;
+    }
+}
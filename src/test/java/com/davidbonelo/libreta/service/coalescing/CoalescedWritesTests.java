@@ -0,0 +1,76 @@
+package com.davidbonelo.libreta.service.coalescing;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.service.LibretaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"libreta.write-coalescing.enabled=true", "libreta.write-coalescing.max-latency=20ms"})
+class CoalescedWritesTests {
+    @Autowired
+    private LibretaService libretaService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentCreatesAreCoalescedWithTheirOwnErrors() throws Exception {
+        var contacto = new Contacto();
+        contacto.setNombre("Lote");
+        contacto.setApellido("Agrupado");
+        contacto.setEmail("lote@libreta.com");
+        contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        contacto = libretaService.createContacto(contacto);
+        var contactoId = contacto.getId();
+
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(16);
+        var creados = new ArrayList<Future<Telefono>>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                var telefono = new Telefono();
+                telefono.setContactoId(i == 7 ? -1 : contactoId);
+                telefono.setTelefono("311555" + (1000 + i));
+                creados.add(executor.submit(() -> {
+                    start.await();
+                    return libretaService.createTelefono(telefono);
+                }));
+            }
+            start.countDown();
+
+            var error = assertThrows(ExecutionException.class, () -> creados.get(7).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(DataIntegrityViolationException.class, error.getCause());
+            var ids = new HashSet<Integer>();
+            for (int i = 0; i < creados.size(); i++) {
+                if (i != 7) {
+                    ids.add(creados.get(i).get(5, TimeUnit.SECONDS).getId());
+                }
+            }
+            assertEquals(15, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(15, libretaService.getContacto(contactoId).getTelefonos().size());
+        var lotes = meterRegistry.get("libreta.coalescing.batch.size").tag("writer", "telefono").summary();
+        assertTrue(lotes.max() > 1);
+    }
+}
@@ -0,0 +1,66 @@
+package com.davidbonelo.libreta.service.coalescing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class WriteCoalescerTests {
+    private WriteCoalescer<String> coalescer;
+
+    @AfterEach
+    void tearDown() {
+        coalescer.close();
+    }
+
+    @Test
+    void errorInBatchWriterFailsTheBatchWithoutHangingLaterWrites() {
+        var failed = new AtomicBoolean();
+        coalescer = new WriteCoalescer<>("prueba", 3, Duration.ofSeconds(1), items -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new LinkageError("lote roto");
+            }
+            return items.stream().map(item -> item + "!").toList();
+        }, item -> item + "?", new SimpleMeterRegistry());
+
+        var executor = Executors.newFixedThreadPool(3);
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                var writes = new ArrayList<CompletableFuture<String>>();
+                for (var item : List.of("a", "b", "c")) {
+                    writes.add(CompletableFuture.supplyAsync(() -> coalescer.submit(item), executor));
+                }
+                for (var write : writes) {
+                    var exception = assertThrows(CompletionException.class, write::join);
+                    assertInstanceOf(LinkageError.class, exception.getCause());
+                }
+
+                // El hilo sigue vivo y agrupa las escrituras siguientes
+                assertEquals("d!", coalescer.submit("d"));
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void writesAfterCloseAreSavedOneByOne() {
+        coalescer = new WriteCoalescer<>("cerrado", 3, Duration.ofMillis(5), items -> items,
+                item -> item + "?", new SimpleMeterRegistry());
+        coalescer.close();
+
+        assertEquals("e?", coalescer.submit("e"));
+    }
+}
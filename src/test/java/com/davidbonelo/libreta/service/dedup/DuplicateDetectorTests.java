@@ -0,0 +1,144 @@
+package com.davidbonelo.libreta.service.dedup;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.service.LibretaService;
+import com.davidbonelo.libreta.utility.SyncResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"libreta.sync.lag=0s", "libreta.dedup.parallelism=4"})
+class DuplicateDetectorTests {
+    @Autowired
+    private DuplicateDetector duplicateDetector;
+
+    @Autowired
+    private LibretaService libretaService;
+
+    @Test
+    void duplicatesAreSuggestedAndMerged() throws InterruptedException {
+        var numero = ThreadLocalRandom.current().nextInt(1_000_000, 10_000_000);
+        var original = create("Rosalba", "Gutiérrez", "rosalba." + numero + "@libreta.com",
+                "+57 310 " + numero, "311 " + numero);
+        var copia = create("Rosalva", "Gutierres", "Rosalba." + numero + "@Libreta.com",
+                "(310) " + numero, "312 " + numero);
+        var distinto = create("Rosalba", "Gutiérrez", "otra." + numero + "@libreta.com", "313 " + numero);
+        var ids = Set.of(original.getId(), copia.getId(), distinto.getId());
+
+        var report = await(duplicateDetector.start(0.6, Integer.MAX_VALUE));
+        var suggestions = report.suggestions().stream()
+                .filter(suggestion -> ids.contains(suggestion.survivorId()) && ids.contains(suggestion.duplicateId()))
+                .toList();
+        assertEquals(1, suggestions.size());
+        var suggestion = suggestions.get(0);
+        assertEquals(original.getId(), suggestion.survivorId());
+        assertEquals(copia.getId(), suggestion.duplicateId());
+        assertEquals(List.of("email", "telefono", "nombre", "fechaNacimiento"), suggestion.reasons());
+        assertTrue(suggestion.score() > 0.95);
+
+        var watermark = sync(null).getWatermark();
+        var copiaTelefonos = libretaService.getContacto(copia.getId()).getTelefonos();
+        var merged = libretaService.mergeContactos(suggestion.survivorId(), suggestion.duplicateId());
+
+        assertEquals(3, merged.getTelefonos().size());
+        assertTrue(merged.getTelefonos().stream().anyMatch(telefono -> telefono.getTelefono().equals("312 " + numero)));
+        assertNull(libretaService.getContacto(copia.getId()));
+        var changes = sync(watermark);
+        assertEquals(List.of(copia.getId()), changes.getContactosBorrados());
+        var repetido = copiaTelefonos.stream()
+                .filter(telefono -> telefono.getTelefono().startsWith("(310)")).findFirst().orElseThrow();
+        assertEquals(List.of(repetido.getId()), changes.getTelefonosBorrados());
+        assertTrue(changes.getTelefonos().stream()
+                .anyMatch(telefono -> telefono.getContactoId().equals(original.getId())
+                        && telefono.getTelefono().equals("312 " + numero)));
+        assertTrue(duplicateDetector.findDuplicates(0.6, Integer.MAX_VALUE).suggestions().stream()
+                .noneMatch(sugerencia -> ids.contains(sugerencia.survivorId())
+                        && ids.contains(sugerencia.duplicateId())));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> libretaService.mergeContactos(original.getId(), original.getId()));
+        assertNull(libretaService.mergeContactos(original.getId(), copia.getId()));
+    }
+
+    @Test
+    void mergeIntoDeletedSurvivorChangesNothing() {
+        var numero = ThreadLocalRandom.current().nextInt(1_000_000, 10_000_000);
+        var borrado = create("Eliana", "Borrada", "eliana." + numero + "@libreta.com", "314 " + numero);
+        var duplicado = create("Eliana", "Borrada", "eliana." + numero + "@libreta.com", "315 " + numero);
+        libretaService.deleteContacto(borrado.getId());
+        var watermark = sync(null).getWatermark();
+
+        assertNull(libretaService.mergeContactos(borrado.getId(), duplicado.getId()));
+        // Una fusión cruzada sobre el contacto ya borrado tampoco lo revive ni le quita los teléfonos al otro
+        assertNull(libretaService.mergeContactos(duplicado.getId(), borrado.getId()));
+
+        var intacto = libretaService.getContacto(duplicado.getId());
+        assertEquals(1, intacto.getTelefonos().size());
+        assertEquals("315 " + numero, intacto.getTelefonos().get(0).getTelefono());
+        var changes = sync(watermark);
+        assertTrue(changes.getContactosBorrados().isEmpty());
+        assertTrue(changes.getTelefonosBorrados().isEmpty());
+    }
+
+    /**
+     * Sincroniza desde la marca de agua siguiendo el cursor hasta la última página
+     */
+    private SyncResult sync(Instant since) {
+        var contactos = new ArrayList<Contacto>();
+        var contactosBorrados = new ArrayList<Integer>();
+        var telefonos = new ArrayList<Telefono>();
+        var telefonosBorrados = new ArrayList<Integer>();
+        var page = libretaService.getChanges(since, null, null);
+        while (true) {
+            contactos.addAll(page.getContactos());
+            contactosBorrados.addAll(page.getContactosBorrados());
+            telefonos.addAll(page.getTelefonos());
+            telefonosBorrados.addAll(page.getTelefonosBorrados());
+            if (page.getNextCursor() == null) {
+                return new SyncResult(page.getWatermark(), contactos, contactosBorrados, telefonos,
+                        telefonosBorrados, null);
+            }
+            page = libretaService.getChanges(null, page.getNextCursor(), null);
+        }
+    }
+
+    private DuplicateDetector.DuplicateReport await(DuplicateDetector.DuplicateJob job) throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (job.status() == DuplicateDetector.JobStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            job = duplicateDetector.getJob(job.id());
+        }
+        assertEquals(DuplicateDetector.JobStatus.DONE, job.status(), job.error());
+        return job.report();
+    }
+
+    private Contacto create(String nombre, String apellido, String email, String... telefonos) {
+        var contacto = new Contacto();
+        contacto.setNombre(nombre);
+        contacto.setApellido(apellido);
+        contacto.setEmail(email);
+        contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        var creado = libretaService.createContacto(contacto);
+        for (var numero : telefonos) {
+            var telefono = new Telefono();
+            telefono.setContacto(creado);
+            telefono.setTelefono(numero);
+            libretaService.createTelefono(telefono);
+        }
+        return creado;
+    }
+}
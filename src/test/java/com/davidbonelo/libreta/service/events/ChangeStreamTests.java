@@ -0,0 +1,95 @@
+package com.davidbonelo.libreta.service.events;
+
+import com.davidbonelo.libreta.controller.EventsController;
+import com.davidbonelo.libreta.domain.Contacto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class ChangeStreamTests {
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    private ChangeStream changeStream;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        changeStream = new ChangeStream(new ObjectMapper(), 10, 5, Duration.ofMinutes(1), Duration.ofMinutes(1),
+                false);
+        var controller = new EventsController();
+        ReflectionTestUtils.setField(controller, "changeStream", changeStream);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeStream.shutdown();
+    }
+
+    @Test
+    void reconnectingClientReceivesOnlyMissedEvents() throws Exception {
+        var live = subscribe(null);
+        changeStream.onChange(ChangeEvent.of(contacto(1), ChangeEvent.Action.CREATED));
+        var firstId = awaitContent(live, "event:contacto.created");
+        var matcher = EVENT_ID.matcher(firstId);
+        assertTrue(matcher.find());
+        var lastEventId = matcher.group(1);
+
+        changeStream.onChange(ChangeEvent.of(contacto(2), ChangeEvent.Action.UPDATED));
+        changeStream.onChange(ChangeEvent.of(contacto(3), ChangeEvent.Action.DELETED));
+
+        var resumed = awaitContent(subscribe(lastEventId), "event:contacto.deleted");
+        assertFalse(resumed.contains("event:contacto.created"));
+        assertTrue(resumed.indexOf("\"id\":2") < resumed.indexOf("\"id\":3"));
+        assertEquals(2, changeStream.getSubscriberCount());
+    }
+
+    @Test
+    void unknownLastEventIdAsksForResync() throws Exception {
+        var content = awaitContent(subscribe("otra-42"), "event:reset");
+        assertTrue(content.contains("id:"));
+        assertEquals(0, changeStream.getSubscriberCount());
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var request = get("/api/v1/events");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        var result = mockMvc.perform(request).andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        return result;
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        var content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    private static Contacto contacto(int id) {
+        var contacto = new Contacto();
+        contacto.setId(id);
+        contacto.setNombre("Evento" + id);
+        return contacto;
+    }
+}
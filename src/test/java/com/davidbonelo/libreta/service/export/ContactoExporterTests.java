@@ -0,0 +1,170 @@
+package com.davidbonelo.libreta.service.export;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.service.LibretaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ContactoExporterTests {
+    private static final String NOMBRE = "Ana, \"la jefa\"";
+    private static final String APELLIDO = "Pérez;Gómez\nSegunda línea\r\nTercera\rCuarta";
+
+    @Autowired
+    private LibretaService libretaService;
+
+    @Autowired
+    private ContactoExporter exporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Contacto conTelefonos;
+
+    private Contacto sinTelefonos;
+
+    @BeforeEach
+    void setUp() {
+        conTelefonos = contacto(NOMBRE, APELLIDO, "ana@libreta.com");
+        for (var numero : List.of("300 111 2222", "301-444-5555")) {
+            var telefono = new Telefono();
+            telefono.setContactoId(conTelefonos.getId());
+            telefono.setTelefono(numero);
+            libretaService.createTelefono(telefono);
+        }
+        sinTelefonos = contacto("Sin\\Barra", "Teléfonos", "sin@libreta.com");
+    }
+
+    @Test
+    void csvQuotesSeparatorsQuotesAndLineBreaks() throws IOException {
+        var records = parseCsv(export(ExportFormat.CSV));
+
+        assertEquals(List.of("id", "nombre", "apellido", "email", "fecha_nacimiento", "telefonos"), records.get(0));
+        assertEquals(List.of(conTelefonos.getId().toString(), NOMBRE, APELLIDO, "ana@libreta.com", "1990-02-03",
+                "300 111 2222;301-444-5555"), record(records, conTelefonos.getId()));
+        assertEquals(List.of(sinTelefonos.getId().toString(), "Sin\\Barra", "Teléfonos", "sin@libreta.com",
+                "1990-02-03", ""), record(records, sinTelefonos.getId()));
+        records.forEach(fields -> assertEquals(6, fields.size()));
+    }
+
+    @Test
+    void vcardEscapesTextValuesAndOmitsMissingPhones() throws IOException {
+        var output = export(ExportFormat.VCARD);
+        var cards = output.split("END:VCARD\r\n");
+
+        var card = card(cards, conTelefonos.getId());
+        assertTrue(card.contains("\r\nN:Pérez\\;Gómez\\nSegunda línea\\nTercera\\nCuarta;Ana\\, \"la jefa\";;;\r\n"),
+                card);
+        assertTrue(card.contains("\r\nTEL:300 111 2222\r\nTEL:301-444-5555\r\n"), card);
+        for (var line : card.split("\r\n")) {
+            assertFalse(line.contains("\r") || line.contains("\n"), line);
+        }
+
+        var empty = card(cards, sinTelefonos.getId());
+        assertTrue(empty.contains("\r\nN:Teléfonos;Sin\\\\Barra;;;\r\n"), empty);
+        assertTrue(empty.contains("\r\nFN:Sin\\\\Barra Teléfonos\r\n"), empty);
+        assertFalse(empty.contains("TEL:"), empty);
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws IOException {
+        var lines = export(ExportFormat.NDJSON).split("\n");
+
+        var found = 0;
+        for (var line : lines) {
+            var contacto = objectMapper.readValue(line, ContactoExporter.ExportedContacto.class);
+            if (contacto.id().equals(conTelefonos.getId())) {
+                assertEquals(NOMBRE, contacto.nombre());
+                assertEquals(APELLIDO, contacto.apellido());
+                assertEquals(List.of("300 111 2222", "301-444-5555"), contacto.telefonos().stream()
+                        .map(ContactoExporter.ExportedTelefono::telefono).toList());
+                found++;
+            } else if (contacto.id().equals(sinTelefonos.getId())) {
+                assertTrue(contacto.telefonos().isEmpty());
+                found++;
+            }
+        }
+        assertEquals(2, found);
+    }
+
+    private Contacto contacto(String nombre, String apellido, String email) {
+        var contacto = new Contacto();
+        contacto.setNombre(nombre);
+        contacto.setApellido(apellido);
+        contacto.setEmail(email);
+        contacto.setFechaNacimiento(LocalDate.of(1990, 2, 3));
+        return libretaService.createContacto(contacto);
+    }
+
+    private String export(ExportFormat format) throws IOException {
+        var output = new ByteArrayOutputStream();
+        exporter.export(format, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> record(List<List<String>> records, Integer id) {
+        return records.stream().filter(fields -> fields.get(0).equals(id.toString())).findFirst().orElseThrow();
+    }
+
+    private static String card(String[] cards, Integer id) {
+        for (var card : cards) {
+            if (card.contains("\r\nUID:" + id + "\r\n")) {
+                return card;
+            }
+        }
+        throw new AssertionError("No se exportó el contacto " + id);
+    }
+
+    /**
+     * Lee un CSV según RFC 4180: los campos entre comillas pueden tener comas, comillas dobladas y saltos de línea
+     */
+    private static List<List<String>> parseCsv(String text) {
+        var records = new ArrayList<List<String>>();
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            var c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                fields.add(field.toString());
+                field.setLength(0);
+                records.add(List.copyOf(fields));
+                fields.clear();
+                i++;
+            } else {
+                field.append(c);
+            }
+        }
+        assertTrue(fields.isEmpty() && field.isEmpty(), "El CSV debe terminar en CRLF");
+        return records;
+    }
+}
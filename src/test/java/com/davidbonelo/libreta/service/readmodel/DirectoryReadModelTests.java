@@ -0,0 +1,170 @@
+package com.davidbonelo.libreta.service.readmodel;
+
+import com.davidbonelo.libreta.domain.Contacto;
+import com.davidbonelo.libreta.domain.Telefono;
+import com.davidbonelo.libreta.repository.ContactoRow;
+import com.davidbonelo.libreta.repository.TelefonoRow;
+import com.davidbonelo.libreta.service.LibretaService;
+import com.davidbonelo.libreta.utility.Cursor;
+import com.davidbonelo.libreta.utility.FieldSet;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "libreta.read-model.enabled=true"})
+class DirectoryReadModelTests {
+    @Autowired
+    private LibretaService libretaService;
+
+    @Autowired
+    private DirectoryReadModel readModel;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listAndSearchAreServedFromMemory() {
+        assertTrue(readModel.isReady());
+        var creados = new ArrayList<Contacto>();
+        for (var nombre : List.of("Marta", "Ana", "Lucia", "Ana", "Beatriz")) {
+            creados.add(seed(nombre));
+        }
+
+        statistics.clear();
+        var ascendentes = collect("nombre", Sort.Direction.ASC);
+        var descendentes = collect("nombre", Sort.Direction.DESC);
+        var encontrados = libretaService.searchContacto("memoria");
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        var esperados = creados.stream()
+                .sorted(Comparator.comparing(Contacto::getNombre).thenComparing(Contacto::getId))
+                .map(Contacto::getId).toList();
+        assertEquals(esperados, ascendentes.stream().filter(esperados::contains).toList());
+        var inversos = new ArrayList<>(esperados);
+        Collections.reverse(inversos);
+        assertEquals(inversos, descendentes.stream().filter(esperados::contains).toList());
+        assertEquals(5, encontrados.size());
+        encontrados.forEach(contacto -> assertEquals(1, contacto.getTelefonos().size()));
+    }
+
+    @Test
+    void changesAreAppliedAfterCommit() {
+        var contacto = seed("Cambio");
+        var otro = seed("Destino");
+        var telefono = contacto.getTelefonos().get(0);
+
+        libretaService.patchContacto(contacto.getId(), Map.of("apellido", "Memoria Parchada"));
+        libretaService.patchTelefono(telefono.getId(), Map.of("contactoId", otro.getId()));
+
+        var filas = libretaService.searchContacto("parchada", FieldSet.parse("apellido,telefonos"));
+        assertEquals(1, filas.size());
+        assertEquals("Memoria Parchada", filas.get(0).get("apellido"));
+        assertTrue(((List<?>) filas.get(0).get("telefonos")).isEmpty());
+        assertEquals(2, libretaService.searchTelefono(telefono.getTelefono()).get(0).getTelefonos().size());
+
+        libretaService.deleteContacto(otro.getId());
+        assertTrue(libretaService.searchContacto("destino").isEmpty());
+        assertTrue(libretaService.searchTelefono(telefono.getTelefono()).isEmpty());
+    }
+
+    @Test
+    void snapshotCompactsReplacedSlots() {
+        var builder = new DirectorySnapshot.Builder();
+        var creado = Instant.parse("2024-01-01T00:00:00Z");
+        for (int id = 1; id <= 10; id++) {
+            builder.add(new ContactoRow(id, "N" + id, "A", "a@b.c", LocalDate.of(1990, 1, id), creado, null));
+            builder.add(new TelefonoRow(100 + id, id, "300" + id, creado, null));
+        }
+        var snapshot = builder.build();
+        var first = snapshot;
+        for (int i = 0; i < 1000; i++) {
+            snapshot = snapshot.withContacto(new ContactoRow(5, "Z" + i, "A", "a@b.c", null, creado, null));
+        }
+        snapshot = snapshot.withoutContacto(3);
+
+        assertEquals(9, snapshot.contactoCount());
+        assertEquals(9, snapshot.telefonoCount());
+        assertEquals("Z999", snapshot.contacto(snapshot.contactoSlot(5)).nombre());
+        assertEquals(5, snapshot.contacto(snapshot.page("nombre", Sort.Direction.DESC, null, 1)[0]).id());
+        assertEquals(-1, snapshot.contactoSlot(3));
+        assertEquals(0, snapshot.telefonosOf(3).length);
+        assertEquals("N5", first.contacto(first.contactoSlot(5)).nombre());
+        assertEquals(10, first.contactoCount());
+        assertNull(snapshot.telefono(103));
+    }
+
+    @Test
+    void snapshotOrdersTextsLikeTheDatabaseCollation() {
+        var builder = new DirectorySnapshot.Builder();
+        var creado = Instant.parse("2024-01-01T00:00:00Z");
+        var nombres = List.of("Zoe", "álvaro", "ana", "Ana", "Ñoño", "nina", "Álvaro ", "beto");
+        for (int i = 0; i < nombres.size(); i++) {
+            builder.add(new ContactoRow(i + 1, nombres.get(i), "A", "a@b.c", null, creado, null));
+        }
+        var snapshot = builder.build();
+
+        assertEquals(List.of(2, 7, 3, 4, 8, 6, 5, 1), ids(snapshot, snapshot.page("nombre", Sort.Direction.ASC,
+                null, 10)));
+        // Un cursor emitido por la base de datos se reanuda aunque su valor difiera en mayúsculas o acentos
+        assertEquals(List.of(7, 3, 4), ids(snapshot, snapshot.page("nombre", Sort.Direction.ASC,
+                new Cursor("nombre", Sort.Direction.ASC, 2, "ÁLVARO"), 3)));
+        assertEquals(List.of(3, 7, 2), ids(snapshot, snapshot.page("nombre", Sort.Direction.DESC,
+                new Cursor("nombre", Sort.Direction.DESC, 4, "ana"), 3)));
+        assertEquals("NONO", DirectorySnapshot.collationKey("Ñoño  "));
+    }
+
+    private static List<Integer> ids(DirectorySnapshot snapshot, int[] slots) {
+        return IntStream.of(slots).mapToObj(slot -> snapshot.contacto(slot).id()).toList();
+    }
+
+    private List<Integer> collect(String field, Sort.Direction order) {
+        var ids = new ArrayList<Integer>();
+        String cursor = null;
+        do {
+            var page = libretaService.getList(field, order, cursor, 2);
+            page.getItems().forEach(contacto -> ids.add(contacto.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private Contacto seed(String nombre) {
+        var contacto = new Contacto();
+        contacto.setNombre(nombre);
+        contacto.setApellido("Memoria");
+        contacto.setEmail(nombre.toLowerCase() + "@libreta.com");
+        contacto.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        var creado = libretaService.createContacto(contacto);
+        var telefono = new Telefono();
+        telefono.setContactoId(creado.getId());
+        telefono.setTelefono("320" + (5_000_000 + creado.getId()));
+        creado.setTelefonos(List.of(libretaService.createTelefono(telefono)));
+        return creado;
+    }
+}
@@ -0,0 +1,29 @@
+package com.davidbonelo.libreta.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PhoneNumbersTests {
+
+    @Test
+    void sameNumberInEveryNotationHasOneCanonicalForm() {
+        for (var escrito : List.of("+57 300 123 4567", "0057 3001234567", "573001234567", "57 (300) 123-4567",
+                "300 123 4567", "(300) 123-4567", "03001234567")) {
+            assertEquals("+573001234567", PhoneNumbers.normalize(escrito), escrito);
+        }
+    }
+
+    @Test
+    void otherCountriesAndShortNumbersKeepTheirDigits() {
+        assertEquals("+14155550100", PhoneNumbers.normalize("+1 (415) 555-0100"));
+        assertEquals("+14155550100", PhoneNumbers.normalize("001 415 555 0100"));
+        assertEquals("+575712345", PhoneNumbers.normalize("5712345"));
+        assertEquals("+575712345678", PhoneNumbers.normalize("5712345678"));
+        assertNull(PhoneNumbers.normalize("sin número"));
+        assertNull(PhoneNumbers.normalize(null));
+    }
+}